@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settingslib.applications;
+
+import android.content.pm.ApplicationInfo;
+import android.os.UserHandle;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+import com.android.settingslib.utils.VersionedFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * On-disk snapshot of the {@link AppEntry}s of {@link ApplicationsState}, used to build entries
+ * without loading their label and size again on a cold start.
+ *
+ * A record is only used while the package still has the same install location and version, and
+ * the locales match the ones the snapshot was written with. Restored sizes are still marked as
+ * stale, so the live values are loaded and delivered as changes afterwards.
+ */
+class AppEntriesSnapshot {
+
+    private static final int MAGIC = 0x41455353; // "AESS"
+    @VisibleForTesting
+    static final int FORMAT_VERSION = 1;
+
+    private static final int FLAG_HAS_LAUNCHER_ENTRY = 1 << 0;
+    private static final int FLAG_LAUNCHER_ENTRY_ENABLED = 1 << 1;
+    private static final int FLAG_IS_HOME_APP = 1 << 2;
+
+    private final VersionedFile mFile;
+    private volatile Map<String, Record> mRecords = Collections.emptyMap();
+
+    AppEntriesSnapshot(File file) {
+        mFile = new VersionedFile(file, MAGIC, FORMAT_VERSION);
+    }
+
+    /**
+     * Reads the snapshot from disk, discarding it if it was written for other {@param locales}.
+     */
+    void load(String locales) {
+        final Map<String, Record> records = new HashMap<>();
+        final boolean read = mFile.read(in -> {
+            if (!locales.equals(in.readUTF())) {
+                return false;
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final Record record = Record.read(in);
+                records.put(getKey(record.packageName, record.userId), record);
+            }
+            return true;
+        });
+        mRecords = read ? records : Collections.emptyMap();
+    }
+
+    /**
+     * Forgets the loaded records, until the next {@link #load(String)}.
+     */
+    void clear() {
+        mRecords = Collections.emptyMap();
+    }
+
+    /**
+     * @return the record of {@param info}, or {@code null} if there is none or the package was
+     * updated since.
+     */
+    @Nullable
+    Record get(ApplicationInfo info) {
+        final Record record = mRecords.get(
+                getKey(info.packageName, UserHandle.getUserId(info.uid)));
+        if (record == null || record.versionCode != info.longVersionCode
+                || !Objects.equals(record.sourceDir, info.sourceDir)) {
+            return null;
+        }
+        return record;
+    }
+
+    /**
+     * Replaces the snapshot on disk with {@param records}.
+     */
+    void save(List<Record> records, String locales) {
+        mFile.write(out -> {
+            out.writeUTF(locales);
+            out.writeInt(records.size());
+            for (Record record : records) {
+                record.write(out);
+            }
+        });
+    }
+
+    /**
+     * @return the records of the mounted {@param entries} with a label and a known size.
+     */
+    static List<Record> toRecords(List<AppEntry> entries) {
+        final List<Record> records = new ArrayList<>(entries.size());
+        for (AppEntry entry : entries) {
+            if (entry.mounted && entry.label != null && entry.info.sourceDir != null
+                    && entry.size >= 0) {
+                records.add(new Record(entry));
+            }
+        }
+        return records;
+    }
+
+    private static String getKey(String packageName, int userId) {
+        return userId + ":" + packageName;
+    }
+
+    /**
+     * The persisted state of one {@link AppEntry}.
+     */
+    static class Record {
+        final String packageName;
+        final int userId;
+        final String sourceDir;
+        final long versionCode;
+        final String label;
+        final String normalizedLabel;
+        final int flags;
+        final long size;
+        final long internalSize;
+        final long externalSize;
+        final long codeSize;
+        final long dataSize;
+        final long cacheSize;
+        final long externalCodeSize;
+        final long externalDataSize;
+        final long externalCacheSize;
+
+        private Record(AppEntry entry) {
+            packageName = entry.info.packageName;
+            userId = UserHandle.getUserId(entry.info.uid);
+            sourceDir = entry.info.sourceDir;
+            versionCode = entry.info.longVersionCode;
+            label = entry.label;
+            normalizedLabel = entry.getNormalizedLabel();
+            flags = (entry.hasLauncherEntry ? FLAG_HAS_LAUNCHER_ENTRY : 0)
+                    | (entry.launcherEntryEnabled ? FLAG_LAUNCHER_ENTRY_ENABLED : 0)
+                    | (entry.isHomeApp ? FLAG_IS_HOME_APP : 0);
+            size = entry.size;
+            internalSize = entry.internalSize;
+            externalSize = entry.externalSize;
+            codeSize = entry.codeSize;
+            dataSize = entry.dataSize;
+            cacheSize = entry.cacheSize;
+            externalCodeSize = entry.externalCodeSize;
+            externalDataSize = entry.externalDataSize;
+            externalCacheSize = entry.externalCacheSize;
+        }
+
+        private Record(DataInputStream in) throws IOException {
+            packageName = in.readUTF();
+            userId = in.readInt();
+            sourceDir = in.readUTF();
+            versionCode = in.readLong();
+            label = in.readUTF();
+            normalizedLabel = in.readUTF();
+            flags = in.readInt();
+            size = in.readLong();
+            internalSize = in.readLong();
+            externalSize = in.readLong();
+            codeSize = in.readLong();
+            dataSize = in.readLong();
+            cacheSize = in.readLong();
+            externalCodeSize = in.readLong();
+            externalDataSize = in.readLong();
+            externalCacheSize = in.readLong();
+        }
+
+        static Record read(DataInputStream in) throws IOException {
+            return new Record(in);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeUTF(packageName);
+            out.writeInt(userId);
+            out.writeUTF(sourceDir);
+            out.writeLong(versionCode);
+            out.writeUTF(label);
+            out.writeUTF(normalizedLabel);
+            out.writeInt(flags);
+            out.writeLong(size);
+            out.writeLong(internalSize);
+            out.writeLong(externalSize);
+            out.writeLong(codeSize);
+            out.writeLong(dataSize);
+            out.writeLong(cacheSize);
+            out.writeLong(externalCodeSize);
+            out.writeLong(externalDataSize);
+            out.writeLong(externalCacheSize);
+        }
+
+        /**
+         * Restores the label, flags and sizes of {@param entry}. Sizes are left stale.
+         */
+        void applyTo(AppEntry entry) {
+            entry.label = label;
+            entry.normalizedLabel = normalizedLabel;
+            entry.mounted = true;
+            entry.hasLauncherEntry = (flags & FLAG_HAS_LAUNCHER_ENTRY) != 0;
+            entry.launcherEntryEnabled = (flags & FLAG_LAUNCHER_ENTRY_ENABLED) != 0;
+            entry.isHomeApp = (flags & FLAG_IS_HOME_APP) != 0;
+            entry.size = size;
+            entry.internalSize = internalSize;
+            entry.externalSize = externalSize;
+            entry.codeSize = codeSize;
+            entry.dataSize = dataSize;
+            entry.cacheSize = cacheSize;
+            entry.externalCodeSize = externalCodeSize;
+            entry.externalDataSize = externalDataSize;
+            entry.externalCacheSize = externalCacheSize;
+            entry.restoredFromSnapshot = true;
+        }
+    }
+}
@@ -76,9 +76,19 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 /**
@@ -98,6 +108,19 @@ public class ApplicationsState {
             = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
     private static final String SETTING_PKG = "com.android.settings";
 
+    // Number of worker threads loading icons and sizes in parallel.
+    private static final int LOADER_THREAD_COUNT = 4;
+    private static final long LOADER_KEEP_ALIVE_SECONDS = 10;
+    // Number of icons loaded per MSG_LOAD_ICONS, rebuilds are handled between batches.
+    @VisibleForTesting
+    static final int ICON_BATCH_SIZE = 16;
+    // Number of package sizes queried per MSG_LOAD_SIZES.
+    @VisibleForTesting
+    static final int SIZE_BATCH_SIZE = 8;
+    // A size query which didn't complete after this delay is issued again.
+    private static final long SIZE_LOAD_RETRY_MILLIS = 20 * 1000;
+    private static final String SNAPSHOT_FILE_NAME = "app_entries_snapshot";
+
     @VisibleForTesting
     static ApplicationsState sInstance;
 
@@ -147,9 +170,6 @@ public class ApplicationsState {
     final ArrayList<AppEntry> mAppEntries = new ArrayList<>();
     List<ApplicationInfo> mApplications = new ArrayList<>();
     long mCurId = 1;
-    UUID mCurComputingSizeUuid;
-    String mCurComputingSizePkg;
-    int mCurComputingSizeUserId;
     boolean mSessionsChanged;
     // Maps all installed modules on the system to whether they're hidden or not.
     final HashMap<String, Boolean> mSystemModules = new HashMap<>();
@@ -159,6 +179,12 @@ public class ApplicationsState {
 
     final HandlerThread mThread;
     final BackgroundHandler mBackgroundHandler;
+    // Loads icons and sizes for the background handler, which waits for each batch.
+    final ExecutorService mLoaderExecutor;
+    // Labels and sizes of the last session, to build entries quickly on a cold start.
+    // Only loaded and saved on the background thread.
+    final AppEntriesSnapshot mSnapshot;
+    boolean mSnapshotLoaded;
     final MainHandler mMainHandler = new MainHandler(Looper.getMainLooper());
 
     /** Requests that the home app is loaded. */
@@ -213,6 +239,17 @@ public class ApplicationsState {
         mThread = new HandlerThread("ApplicationsState.Loader");
         mThread.start();
         mBackgroundHandler = new BackgroundHandler(mThread.getLooper());
+        final AtomicInteger workerCount = new AtomicInteger();
+        final ThreadPoolExecutor loaderExecutor = new ThreadPoolExecutor(LOADER_THREAD_COUNT,
+                LOADER_THREAD_COUNT, LOADER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "ApplicationsState.Worker-" + workerCount.incrementAndGet()));
+        loaderExecutor.allowCoreThreadTimeOut(true);
+        mLoaderExecutor = loaderExecutor;
+        mSnapshot = new AppEntriesSnapshot(new File(mContext.getCacheDir(), SNAPSHOT_FILE_NAME));
 
         // Only the owner can see all apps.
         mAdminRetrieveFlags = PackageManager.MATCH_ANY_USER |
@@ -306,6 +343,9 @@ public class ApplicationsState {
             // If an interesting part of the configuration has changed, we
             // should completely reload the app entries.
             clearEntries();
+            // The snapshot may hold labels of other locales, load it again.
+            mSnapshot.clear();
+            mSnapshotLoaded = false;
         } else {
             for (int i = 0; i < mAppEntries.size(); i++) {
                 mAppEntries.get(i).sizeStale = true;
@@ -345,7 +385,6 @@ public class ApplicationsState {
             // some apps have been uninstalled.
             clearEntries();
         }
-        mCurComputingSizePkg = null;
         if (!mBackgroundHandler.hasMessages(BackgroundHandler.MSG_LOAD_ENTRIES)) {
             mBackgroundHandler.sendEmptyMessage(BackgroundHandler.MSG_LOAD_ENTRIES);
         }
@@ -753,7 +792,13 @@ public class ApplicationsState {
             if (DEBUG) {
                 Log.i(TAG, "Creating AppEntry for " + info.packageName);
             }
-            entry = new AppEntry(mContext, info, mCurId++);
+            final AppEntriesSnapshot.Record record = mSnapshot.get(info);
+            entry = new AppEntry(mContext, info, mCurId++, record);
+            if (record != null) {
+                entry.sizeStr = getSizeStr(entry.size);
+                entry.internalSizeStr = getSizeStr(entry.internalSize);
+                entry.externalSizeStr = getSizeStr(entry.externalSize);
+            }
             userEntriesMap = mEntriesMap.get(userId);
             if (userEntriesMap != null) {
                 userEntriesMap.put(info.packageName, entry);
@@ -787,6 +832,32 @@ public class ApplicationsState {
         return SIZE_INVALID;
     }
 
+    private String getSnapshotLocales() {
+        return mContext.getResources().getConfiguration().getLocales().toLanguageTags();
+    }
+
+    /**
+     * Loads the snapshot of the previous session, if not done yet. Called on the background
+     * thread before the entries are first created.
+     */
+    private void loadSnapshotIfNeeded() {
+        synchronized (mEntriesMap) {
+            if (mSnapshotLoaded) {
+                return;
+            }
+            mSnapshotLoaded = true;
+        }
+        mSnapshot.load(getSnapshotLocales());
+    }
+
+    private void saveSnapshot() {
+        final List<AppEntriesSnapshot.Record> records;
+        synchronized (mEntriesMap) {
+            records = AppEntriesSnapshot.toRecords(mAppEntries);
+        }
+        mSnapshot.save(records, getSnapshotLocales());
+    }
+
     private String getSizeStr(long size) {
         if (size >= 0) {
             return Formatter.formatFileSize(mContext, size);
@@ -1139,6 +1210,9 @@ public class ApplicationsState {
         static final int MSG_LOAD_SIZES = 7;
 
         boolean mRunning;
+        // Entries whose icon was already requested during the current MSG_LOAD_ICONS pass.
+        private final Set<AppEntry> mIconsAttempted =
+                Collections.newSetFromMap(new IdentityHashMap<>());
 
         BackgroundHandler(Looper looper) {
             super(looper);
@@ -1166,6 +1240,7 @@ public class ApplicationsState {
                 case MSG_REBUILD_LIST: {
                 } break;
                 case MSG_LOAD_ENTRIES: {
+                    loadSnapshotIfNeeded();
                     int numDone = 0;
                     synchronized (mEntriesMap) {
                         if (DEBUG_LOCKING) Log.v(TAG, "MSG_LOAD_ENTRIES acquired lock");
@@ -1179,8 +1254,11 @@ public class ApplicationsState {
                             ApplicationInfo info = mApplications.get(i);
                             int userId = UserHandle.getUserId(info.uid);
                             if (mEntriesMap.get(userId).get(info.packageName) == null) {
-                                numDone++;
-                                getEntryLocked(info);
+                                final AppEntry entry = getEntryLocked(info);
+                                // Entries restored from the snapshot are cheap to create.
+                                if (entry == null || !entry.restoredFromSnapshot) {
+                                    numDone++;
+                                }
                             }
                             if (userId != 0 && mEntriesMap.indexOfKey(0) >= 0) {
                                 // If this app is for a profile and we are on the owner, remove
@@ -1220,6 +1298,12 @@ public class ApplicationsState {
                                 if (DEBUG_LOCKING) Log.v(TAG, "MSG_LOAD_HOME_APP acquired lock");
                                 final HashMap<String, AppEntry> userEntries = mEntriesMap.valueAt(
                                         i);
+                                for (AppEntry entry : userEntries.values()) {
+                                    if (entry.restoredFromSnapshot) {
+                                        // Recomputed below.
+                                        entry.isHomeApp = false;
+                                    }
+                                }
                                 for (ResolveInfo activity : homeActivities) {
                                     String packageName = activity.activityInfo.packageName;
                                     AppEntry entry = userEntries.get(packageName);
@@ -1261,6 +1345,15 @@ public class ApplicationsState {
                             synchronized (mEntriesMap) {
                                 if (DEBUG_LOCKING) Log.v(TAG, "MSG_LOAD_LAUNCHER acquired lock");
                                 HashMap<String, AppEntry> userEntries = mEntriesMap.valueAt(i);
+                                if (msg.what == MSG_LOAD_LAUNCHER) {
+                                    for (AppEntry entry : userEntries.values()) {
+                                        if (entry.restoredFromSnapshot) {
+                                            // Recomputed below.
+                                            entry.hasLauncherEntry = false;
+                                            entry.launcherEntryEnabled = false;
+                                        }
+                                    }
+                                }
                                 final int N = intents.size();
                                 for (int j = 0; j < N; j++) {
                                     ResolveInfo resolveInfo = intents.get(j);
@@ -1291,34 +1384,36 @@ public class ApplicationsState {
                 } break;
                 case MSG_LOAD_ICONS: {
                     if (hasFlag(flags, FLAG_SESSION_REQUEST_ICONS)) {
-                        int numDone = 0;
+                        if (msg.arg1 == 0) {
+                            // A new pass over all entries.
+                            mIconsAttempted.clear();
+                        }
+                        final List<AppEntry> entries;
                         synchronized (mEntriesMap) {
                             if (DEBUG_LOCKING) Log.v(TAG, "MSG_LOAD_ICONS acquired lock");
-                            for (int i = 0; i < mAppEntries.size() && numDone < 2; i++) {
-                                AppEntry entry = mAppEntries.get(i);
-                                if (entry.icon == null || !entry.mounted) {
-                                    synchronized (entry) {
-                                        if (entry.ensureIconLocked(mContext)) {
-                                            if (!mRunning) {
-                                                mRunning = true;
-                                                Message m = mMainHandler.obtainMessage(
-                                                        MainHandler.MSG_RUNNING_STATE_CHANGED, 1);
-                                                mMainHandler.sendMessage(m);
-                                            }
-                                            numDone++;
-                                        }
-                                    }
-                                }
-                            }
+                            entries = getEntriesNeedingIconLocked();
                             if (DEBUG_LOCKING) Log.v(TAG, "MSG_LOAD_ICONS releasing lock");
                         }
-                        if (numDone > 0) {
-                            if (!mMainHandler.hasMessages(MainHandler.MSG_PACKAGE_ICON_CHANGED)) {
-                                mMainHandler.sendEmptyMessage(MainHandler.MSG_PACKAGE_ICON_CHANGED);
+                        if (!entries.isEmpty()) {
+                            if (!mRunning) {
+                                mRunning = true;
+                                Message m = mMainHandler.obtainMessage(
+                                        MainHandler.MSG_RUNNING_STATE_CHANGED, 1);
+                                mMainHandler.sendMessage(m);
                             }
-                        }
-                        if (numDone >= 2) {
-                            sendEmptyMessage(MSG_LOAD_ICONS);
+                            final int numDone = loadInParallel(entries, entry -> {
+                                synchronized (entry) {
+                                    return entry.ensureIconLocked(mContext);
+                                }
+                            });
+                            if (numDone > 0) {
+                                if (!mMainHandler.hasMessages(
+                                        MainHandler.MSG_PACKAGE_ICON_CHANGED)) {
+                                    mMainHandler.sendEmptyMessage(
+                                            MainHandler.MSG_PACKAGE_ICON_CHANGED);
+                                }
+                            }
+                            sendMessage(obtainMessage(MSG_LOAD_ICONS, 1 /* arg1 */, 0));
                             break;
                         }
                     }
@@ -1326,85 +1421,164 @@ public class ApplicationsState {
                 } break;
                 case MSG_LOAD_SIZES: {
                     if (hasFlag(flags, FLAG_SESSION_REQUEST_SIZES)) {
+                        final List<AppEntry> entries = new ArrayList<>();
                         synchronized (mEntriesMap) {
                             if (DEBUG_LOCKING) Log.v(TAG, "MSG_LOAD_SIZES acquired lock");
-                            if (mCurComputingSizePkg != null) {
-                                if (DEBUG_LOCKING) {
-                                    Log.v(TAG,
-                                            "MSG_LOAD_SIZES releasing: currently computing");
+                            final boolean sizesPending = getEntriesNeedingSizeLocked(entries);
+                            if (entries.isEmpty()) {
+                                final boolean allSizesComputed = !sizesPending
+                                        && !mMainHandler.hasMessages(
+                                                MainHandler.MSG_ALL_SIZES_COMPUTED);
+                                if (allSizesComputed) {
+                                    mMainHandler.sendEmptyMessage(
+                                            MainHandler.MSG_ALL_SIZES_COMPUTED);
+                                    mRunning = false;
+                                    Message m = mMainHandler.obtainMessage(
+                                            MainHandler.MSG_RUNNING_STATE_CHANGED, 0);
+                                    mMainHandler.sendMessage(m);
+                                    post(ApplicationsState.this::saveSnapshot);
                                 }
-                                return;
+                                if (DEBUG_LOCKING) Log.v(TAG, "MSG_LOAD_SIZES releasing lock");
+                                break;
                             }
-
-                            long now = SystemClock.uptimeMillis();
-                            for (int i = 0; i < mAppEntries.size(); i++) {
-                                AppEntry entry = mAppEntries.get(i);
-                                if (hasFlag(entry.info.flags, ApplicationInfo.FLAG_INSTALLED)
-                                        && (entry.size == SIZE_UNKNOWN || entry.sizeStale)) {
-                                    if (entry.sizeLoadStart == 0 ||
-                                            (entry.sizeLoadStart < (now - 20 * 1000))) {
-                                        if (!mRunning) {
-                                            mRunning = true;
-                                            Message m = mMainHandler.obtainMessage(
-                                                    MainHandler.MSG_RUNNING_STATE_CHANGED, 1);
-                                            mMainHandler.sendMessage(m);
-                                        }
-                                        entry.sizeLoadStart = now;
-                                        mCurComputingSizeUuid = entry.info.storageUuid;
-                                        mCurComputingSizePkg = entry.info.packageName;
-                                        mCurComputingSizeUserId = UserHandle.getUserId(
-                                                entry.info.uid);
-
-                                        mBackgroundHandler.post(() -> {
-                                            try {
-                                                final StorageStats stats =
-                                                        mStats.queryStatsForPackage(
-                                                                mCurComputingSizeUuid,
-                                                                mCurComputingSizePkg,
-                                                                UserHandle.of(
-                                                                        mCurComputingSizeUserId));
-                                                final PackageStats legacy = new PackageStats(
-                                                        mCurComputingSizePkg,
-                                                        mCurComputingSizeUserId);
-                                                legacy.codeSize = stats.getAppBytes();
-                                                legacy.dataSize = stats.getDataBytes();
-                                                legacy.cacheSize = stats.getCacheBytes();
-                                                try {
-                                                    mStatsObserver.onGetStatsCompleted(legacy,
-                                                            true);
-                                                } catch (RemoteException ignored) {
-                                                }
-                                            } catch (NameNotFoundException | IOException e) {
-                                                Log.w(TAG, "Failed to query stats: " + e);
-                                                try {
-                                                    mStatsObserver.onGetStatsCompleted(null, false);
-                                                } catch (RemoteException ignored) {
-                                                }
-                                            }
-
-                                        });
-                                    }
-                                    if (DEBUG_LOCKING) {
-                                        Log.v(TAG,
-                                                "MSG_LOAD_SIZES releasing: now computing");
-                                    }
-                                    return;
-                                }
-                            }
-                            if (!mMainHandler.hasMessages(MainHandler.MSG_ALL_SIZES_COMPUTED)) {
-                                mMainHandler.sendEmptyMessage(MainHandler.MSG_ALL_SIZES_COMPUTED);
-                                mRunning = false;
+                            if (!mRunning) {
+                                mRunning = true;
                                 Message m = mMainHandler.obtainMessage(
-                                        MainHandler.MSG_RUNNING_STATE_CHANGED, 0);
+                                        MainHandler.MSG_RUNNING_STATE_CHANGED, 1);
                                 mMainHandler.sendMessage(m);
                             }
-                            if (DEBUG_LOCKING) Log.v(TAG, "MSG_LOAD_SIZES releasing lock");
+                            if (DEBUG_LOCKING) {
+                                Log.v(TAG, "MSG_LOAD_SIZES releasing: now computing");
+                            }
                         }
+                        loadInParallel(entries, this::loadSize);
+                        sendEmptyMessage(MSG_LOAD_SIZES);
                     }
                 } break;
             }
         }
 
+        /**
+         * Returns the next batch of entries without an icon, starting with the entries of the
+         * lists last delivered to resumed sessions, in their display order.
+         */
+        private List<AppEntry> getEntriesNeedingIconLocked() {
+            final List<AppEntry> entries = new ArrayList<>(ICON_BATCH_SIZE);
+            final Predicate<AppEntry> needsIcon = entry -> {
+                if ((entry.icon != null && entry.mounted) || mIconsAttempted.contains(entry)) {
+                    return false;
+                }
+                // Skip entries of the session lists which were removed since.
+                final HashMap<String, AppEntry> userEntries =
+                        mEntriesMap.get(UserHandle.getUserId(entry.info.uid));
+                return userEntries != null && userEntries.get(entry.info.packageName) == entry;
+            };
+            for (Session session : mSessions) {
+                final List<AppEntry> visibleEntries = session.mLastAppList;
+                if (!session.mResumed || visibleEntries == null
+                        || !hasFlag(session.mFlags, FLAG_SESSION_REQUEST_ICONS)) {
+                    continue;
+                }
+                addEntries(visibleEntries, needsIcon, entries);
+            }
+            addEntries(mAppEntries, needsIcon, entries);
+            return entries;
+        }
+
+        private void addEntries(List<AppEntry> candidates, Predicate<AppEntry> filter,
+                List<AppEntry> entries) {
+            for (int i = 0; i < candidates.size() && entries.size() < ICON_BATCH_SIZE; i++) {
+                final AppEntry entry = candidates.get(i);
+                if (filter.test(entry)) {
+                    mIconsAttempted.add(entry);
+                    entries.add(entry);
+                }
+            }
+        }
+
+        /**
+         * Adds to {@param entries} the next batch of installed entries with a stale size, all on
+         * the same user and volume as the first one found.
+         *
+         * @return whether any entry still has a stale size, including the ones already loading.
+         */
+        private boolean getEntriesNeedingSizeLocked(List<AppEntry> entries) {
+            final long now = SystemClock.uptimeMillis();
+            boolean sizesPending = false;
+            for (int i = 0; i < mAppEntries.size() && entries.size() < SIZE_BATCH_SIZE; i++) {
+                final AppEntry entry = mAppEntries.get(i);
+                if (!hasFlag(entry.info.flags, ApplicationInfo.FLAG_INSTALLED)
+                        || (entry.size != SIZE_UNKNOWN && !entry.sizeStale)) {
+                    continue;
+                }
+                sizesPending = true;
+                if (entry.sizeLoadStart != 0
+                        && entry.sizeLoadStart >= now - SIZE_LOAD_RETRY_MILLIS) {
+                    // Already loading.
+                    continue;
+                }
+                if (!entries.isEmpty()) {
+                    final ApplicationInfo first = entries.get(0).info;
+                    if (UserHandle.getUserId(first.uid) != UserHandle.getUserId(entry.info.uid)
+                            || !Objects.equals(first.storageUuid, entry.info.storageUuid)) {
+                        continue;
+                    }
+                }
+                entry.sizeLoadStart = now;
+                entries.add(entry);
+            }
+            return sizesPending;
+        }
+
+        private boolean loadSize(AppEntry entry) {
+            final ApplicationInfo info = entry.info;
+            final int userId = UserHandle.getUserId(info.uid);
+            try {
+                final StorageStats stats = mStats.queryStatsForPackage(info.storageUuid,
+                        info.packageName, UserHandle.of(userId));
+                final PackageStats legacy = new PackageStats(info.packageName, userId);
+                legacy.codeSize = stats.getAppBytes();
+                legacy.dataSize = stats.getDataBytes();
+                legacy.cacheSize = stats.getCacheBytes();
+                try {
+                    mStatsObserver.onGetStatsCompleted(legacy, true);
+                } catch (RemoteException ignored) {
+                }
+                return true;
+            } catch (NameNotFoundException | IOException e) {
+                Log.w(TAG, "Failed to query stats: " + e);
+                return false;
+            }
+        }
+
+        /**
+         * Runs {@param loader} on each of {@param entries} with {@link #mLoaderExecutor} and
+         * waits for all of them.
+         *
+         * @return the number of entries for which {@param loader} returned {@code true}.
+         */
+        private int loadInParallel(List<AppEntry> entries, Predicate<AppEntry> loader) {
+            final List<Callable<Boolean>> tasks = new ArrayList<>(entries.size());
+            for (AppEntry entry : entries) {
+                tasks.add(() -> loader.test(entry));
+            }
+            int numDone = 0;
+            try {
+                for (Future<Boolean> future : mLoaderExecutor.invokeAll(tasks)) {
+                    try {
+                        if (future.get()) {
+                            numDone++;
+                        }
+                    } catch (ExecutionException e) {
+                        Log.w(TAG, "Failed to load entry", e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Interrupted while loading entries");
+            }
+            return numDone;
+        }
+
         @SessionFlags
         private int getCombinedSessionFlags(List<Session> sessions) {
             synchronized (mEntriesMap) {
@@ -1474,12 +1648,6 @@ public class ApplicationsState {
                             mMainHandler.sendMessage(msg);
                         }
                     }
-                    if (mCurComputingSizePkg != null
-                            && (mCurComputingSizePkg.equals(stats.packageName)
-                            && mCurComputingSizeUserId == stats.userHandle)) {
-                        mCurComputingSizePkg = null;
-                        sendEmptyMessage(MSG_LOAD_SIZES);
-                    }
                     if (DEBUG_LOCKING) Log.v(TAG, "onGetStatsCompleted releasing lock");
                 }
             }
@@ -1669,13 +1837,24 @@ public class ApplicationsState {
         // A location where extra info can be placed to be used by custom filters.
         public Object extraInfo;
 
+        // Whether the label, flags and sizes were restored from an AppEntriesSnapshot.
+        boolean restoredFromSnapshot;
+
         @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
         public AppEntry(Context context, ApplicationInfo info, long id) {
+            this(context, info, id, null /* record */);
+        }
+
+        AppEntry(Context context, ApplicationInfo info, long id,
+                AppEntriesSnapshot.Record record) {
             apkFile = new File(info.sourceDir);
             this.id = id;
             this.info = info;
             this.size = SIZE_UNKNOWN;
             this.sizeStale = true;
+            if (record != null) {
+                record.applyTo(this);
+            }
             ensureLabel(context);
             // Speed up the cache of the label description if they haven't been created.
             if (this.labelDescription == null) {
@@ -32,6 +32,7 @@ import androidx.annotation.NonNull;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.List;
 
 /**
  * BluetoothCallback provides a callback interface for the settings
@@ -72,6 +73,19 @@ public interface BluetoothCallback {
      */
     default void onDeviceAdded(@NonNull CachedBluetoothDevice cachedDevice) {}
 
+    /**
+     * It will be called instead of {@link #onDeviceAdded} for the callbacks registered through
+     * {@link BluetoothEventManager#registerCoalescingCallback}, with the devices added since the
+     * last call, in the order they were added.
+     *
+     * @param cachedDevices the Bluetooth devices.
+     */
+    default void onDevicesAdded(@NonNull List<CachedBluetoothDevice> cachedDevices) {
+        for (CachedBluetoothDevice cachedDevice : cachedDevices) {
+            onDeviceAdded(cachedDevice);
+        }
+    }
+
     /**
      * It will be called when requiring to remove a remote device from CachedBluetoothDevice list
      *
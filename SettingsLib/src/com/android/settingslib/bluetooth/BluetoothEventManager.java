@@ -28,6 +28,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.os.Looper;
 import android.os.UserHandle;
 import android.telephony.TelephonyManager;
 import android.util.Log;
@@ -38,12 +39,16 @@ import androidx.annotation.VisibleForTesting;
 
 import com.android.settingslib.R;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * BluetoothEventManager receives broadcasts and callbacks from the Bluetooth
@@ -53,6 +58,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class BluetoothEventManager {
     private static final String TAG = "BluetoothEventManager";
     private static final boolean DEBUG = Log.isLoggable(TAG, Log.DEBUG);
+    // About one frame, so a burst of found devices is shown in a single list update.
+    @VisibleForTesting
+    static final long COALESCING_WINDOW_MS = 16;
 
     private final LocalBluetoothAdapter mLocalAdapter;
     private final CachedBluetoothDeviceManager mDeviceManager;
@@ -61,7 +69,13 @@ public class BluetoothEventManager {
     private final BroadcastReceiver mBroadcastReceiver = new BluetoothBroadcastReceiver();
     private final BroadcastReceiver mProfileBroadcastReceiver = new BluetoothBroadcastReceiver();
     private final Collection<BluetoothCallback> mCallbacks = new CopyOnWriteArrayList<>();
+    private final Collection<BluetoothCallback> mCoalescingCallbacks =
+            new CopyOnWriteArraySet<>();
+    // Devices added since the coalescing callbacks were last notified.
+    private final Set<CachedBluetoothDevice> mPendingAddedDevices = new LinkedHashSet<>();
+    private final Runnable mDispatchPendingDevicesAdded = this::dispatchPendingDevicesAdded;
     private final android.os.Handler mReceiverHandler;
+    private final android.os.Handler mCoalescingHandler;
     private final UserHandle mUserHandle;
     private final Context mContext;
 
@@ -89,6 +103,8 @@ public class BluetoothEventManager {
         mContext = context;
         mUserHandle = userHandle;
         mReceiverHandler = handler;
+        mCoalescingHandler = handler != null
+                ? handler : new android.os.Handler(Looper.getMainLooper());
 
         // Bluetooth on/off broadcasts
         addHandler(BluetoothAdapter.ACTION_STATE_CHANGED, new AdapterStateChangedHandler());
@@ -139,9 +155,22 @@ public class BluetoothEventManager {
         mCallbacks.add(callback);
     }
 
+    /**
+     * Register to start receiving callbacks for Bluetooth events, with the added devices batched
+     * over a short window and delivered through {@link BluetoothCallback#onDevicesAdded}.
+     *
+     * <p>Use this for screens which rebuild their device list on every added device, so a burst
+     * of devices found during discovery only updates them once.
+     */
+    public void registerCoalescingCallback(BluetoothCallback callback) {
+        mCoalescingCallbacks.add(callback);
+        mCallbacks.add(callback);
+    }
+
     /** Unregister to stop receiving callbacks for Bluetooth events. */
     public void unregisterCallback(BluetoothCallback callback) {
         mCallbacks.remove(callback);
+        mCoalescingCallbacks.remove(callback);
     }
 
     @VisibleForTesting
@@ -196,11 +225,41 @@ public class BluetoothEventManager {
 
     void dispatchDeviceAdded(@NonNull CachedBluetoothDevice cachedDevice) {
         for (BluetoothCallback callback : mCallbacks) {
-            callback.onDeviceAdded(cachedDevice);
+            if (!mCoalescingCallbacks.contains(callback)) {
+                callback.onDeviceAdded(cachedDevice);
+            }
+        }
+        if (mCoalescingCallbacks.isEmpty()) {
+            return;
+        }
+        synchronized (mPendingAddedDevices) {
+            if (mPendingAddedDevices.isEmpty()) {
+                mCoalescingHandler.postDelayed(mDispatchPendingDevicesAdded,
+                        COALESCING_WINDOW_MS);
+            }
+            mPendingAddedDevices.add(cachedDevice);
+        }
+    }
+
+    private void dispatchPendingDevicesAdded() {
+        final List<CachedBluetoothDevice> addedDevices;
+        synchronized (mPendingAddedDevices) {
+            addedDevices = new ArrayList<>(mPendingAddedDevices);
+            mPendingAddedDevices.clear();
+        }
+        if (addedDevices.isEmpty()) {
+            return;
+        }
+        for (BluetoothCallback callback : mCoalescingCallbacks) {
+            callback.onDevicesAdded(addedDevices);
         }
     }
 
     void dispatchDeviceRemoved(@NonNull CachedBluetoothDevice cachedDevice) {
+        // A device removed before the coalescing callbacks were told about it is just dropped.
+        synchronized (mPendingAddedDevices) {
+            mPendingAddedDevices.remove(cachedDevice);
+        }
         for (BluetoothCallback callback : mCallbacks) {
             callback.onDeviceDeleted(cachedDevice);
         }
@@ -29,7 +29,9 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * CachedBluetoothDeviceManager manages the set of remote Bluetooth devices.
@@ -45,6 +47,9 @@ public class CachedBluetoothDeviceManager {
 
     @VisibleForTesting
     final List<CachedBluetoothDevice> mCachedDevices = new ArrayList<CachedBluetoothDevice>();
+    // The main, member and sub devices by BluetoothDevice. Only modified while holding the lock.
+    private final Map<BluetoothDevice, CachedBluetoothDevice> mDevicesByAddress =
+            new ConcurrentHashMap<>();
     @VisibleForTesting
     HearingAidDeviceManager mHearingAidDeviceManager;
     @VisibleForTesting
@@ -83,11 +88,26 @@ public class CachedBluetoothDeviceManager {
      * to create and return a new {@link CachedBluetoothDevice} for
      * a newly discovered {@link BluetoothDevice}.
      *
+     * <p>The lookup goes through an index of the main, member and sub devices without taking the
+     * lock, unless it runs while devices of a group switch content.
+     *
      * @param device the address of the Bluetooth device
      * @return the cached device object for this device, or null if it has
      *   not been previously seen
      */
-    public synchronized CachedBluetoothDevice findDevice(BluetoothDevice device) {
+    public CachedBluetoothDevice findDevice(BluetoothDevice device) {
+        if (device == null) {
+            return null;
+        }
+        final CachedBluetoothDevice cachedDevice = mDevicesByAddress.get(device);
+        if (cachedDevice == null || cachedDevice.getDevice().equals(device)) {
+            return cachedDevice;
+        }
+        // The devices of a group are switching content and not indexed again yet.
+        return findDeviceInGroups(device);
+    }
+
+    private synchronized CachedBluetoothDevice findDeviceInGroups(BluetoothDevice device) {
         for (CachedBluetoothDevice cachedDevice : mCachedDevices) {
             if (cachedDevice.getDevice().equals(device)) {
                 return cachedDevice;
@@ -126,6 +146,8 @@ public class CachedBluetoothDeviceManager {
                 newDevice = new CachedBluetoothDevice(mContext, profileManager, device);
                 mCsipDeviceManager.initCsipDeviceIfNeeded(newDevice);
                 mHearingAidDeviceManager.initHearingAidDeviceIfNeeded(newDevice);
+                // Indexed the same way whether it becomes a main, member or sub device.
+                indexDevice(newDevice);
                 if (!mCsipDeviceManager.setMemberDeviceIfNeeded(newDevice)
                         && !mHearingAidDeviceManager.setSubDeviceIfNeeded(newDevice)) {
                     mCachedDevices.add(newDevice);
@@ -197,6 +219,7 @@ public class CachedBluetoothDeviceManager {
      */
     public synchronized void updateHearingAidsDevices() {
         mHearingAidDeviceManager.updateHearingAidsDevices();
+        indexAllGroups();
     }
 
     /**
@@ -205,6 +228,7 @@ public class CachedBluetoothDeviceManager {
      */
     public synchronized void updateCsipDevices() {
         mCsipDeviceManager.updateCsipDevices();
+        indexAllGroups();
     }
 
     /**
@@ -243,6 +267,7 @@ public class CachedBluetoothDeviceManager {
                 .forEach(cachedDevice -> {
                     cachedDevice.release();
                     removedCachedDevice.add(cachedDevice);
+                    unindexGroup(cachedDevice);
                 });
         mCachedDevices.removeAll(removedCachedDevice);
     }
@@ -257,6 +282,7 @@ public class CachedBluetoothDeviceManager {
                     // Member device exists and it is not bonded
                     if (memberDevice.getDevice().getBondState() == BluetoothDevice.BOND_NONE) {
                         cachedDevice.removeMemberDevice(memberDevice);
+                        unindexDevice(memberDevice);
                     }
                 }
                 return;
@@ -267,6 +293,7 @@ public class CachedBluetoothDeviceManager {
                 // Sub device exists and it is not bonded
                 subDevice.release();
                 cachedDevice.setSubDevice(null);
+                unindexDevice(subDevice);
             }
         }
     }
@@ -303,6 +330,7 @@ public class CachedBluetoothDeviceManager {
                     for (CachedBluetoothDevice memberDevice : memberDevices) {
                         if (memberDevice.getBondState() != BluetoothDevice.BOND_BONDED) {
                             cachedDevice.removeMemberDevice(memberDevice);
+                            unindexDevice(memberDevice);
                         }
                     }
                 } else {
@@ -310,6 +338,7 @@ public class CachedBluetoothDeviceManager {
                     if (subDevice != null) {
                         if (subDevice.getBondState() != BluetoothDevice.BOND_BONDED) {
                             cachedDevice.setSubDevice(null);
+                            unindexDevice(subDevice);
                         }
                     }
                 }
@@ -317,6 +346,7 @@ public class CachedBluetoothDeviceManager {
                     cachedDevice.setJustDiscovered(false);
                     cachedDevice.release();
                     mCachedDevices.remove(i);
+                    unindexGroup(cachedDevice);
                 }
             }
 
@@ -329,18 +359,21 @@ public class CachedBluetoothDeviceManager {
 
     public synchronized boolean onProfileConnectionStateChangedIfProcessed(CachedBluetoothDevice
             cachedDevice, int state, int profileId) {
+        boolean processed = false;
         if (profileId == BluetoothProfile.HEARING_AID) {
-            return mHearingAidDeviceManager.onProfileConnectionStateChangedIfProcessed(cachedDevice,
-                state);
-        }
-        if (profileId == BluetoothProfile.HEADSET
+            processed = mHearingAidDeviceManager.onProfileConnectionStateChangedIfProcessed(
+                    cachedDevice, state);
+        } else if (profileId == BluetoothProfile.HEADSET
                 || profileId == BluetoothProfile.A2DP
                 || profileId == BluetoothProfile.LE_AUDIO
                 || profileId == BluetoothProfile.CSIP_SET_COORDINATOR) {
-            return mCsipDeviceManager.onProfileConnectionStateChangedIfProcessed(cachedDevice,
-                state);
+            processed = mCsipDeviceManager.onProfileConnectionStateChangedIfProcessed(cachedDevice,
+                    state);
         }
-        return false;
+        if (processed) {
+            indexGroupOf(cachedDevice);
+        }
+        return processed;
     }
 
     /** Handles when the device been set as active/inactive. */
@@ -360,6 +393,7 @@ public class CachedBluetoothDeviceManager {
                 memberDevice.unpair();
                 memberDevice.setGroupId(BluetoothCsipSetCoordinator.GROUP_ID_INVALID);
                 device.removeMemberDevice(memberDevice);
+                unindexDevice(memberDevice);
             }
         } else if (mainDevice != null) {
             // the member device unpaired, to unpair main device
@@ -371,10 +405,12 @@ public class CachedBluetoothDeviceManager {
             // Main device is unpaired, to unpair sub device
             subDevice.unpair();
             device.setSubDevice(null);
+            unindexDevice(subDevice);
         } else if (mainDevice != null) {
             // Sub device unpaired, to unpair main device
             mainDevice.unpair();
             mainDevice.setSubDevice(null);
+            unindexDevice(device);
         }
     }
 
@@ -514,7 +550,8 @@ public class CachedBluetoothDeviceManager {
                 CachedBluetoothDevice newDevice =
                         new CachedBluetoothDevice(mContext, profileManager, device);
                 mCachedDevices.add(newDevice);
-                findDevice(device).connect();
+                indexDevice(newDevice);
+                newDevice.connect();
             }
         }
 
@@ -534,6 +571,56 @@ public class CachedBluetoothDeviceManager {
         return mOngoingSetMemberPair != null && mOngoingSetMemberPair.equals(device);
     }
 
+    private void indexDevice(CachedBluetoothDevice cachedDevice) {
+        mDevicesByAddress.put(cachedDevice.getDevice(), cachedDevice);
+    }
+
+    private void unindexDevice(CachedBluetoothDevice cachedDevice) {
+        mDevicesByAddress.remove(cachedDevice.getDevice(), cachedDevice);
+    }
+
+    /** Indexes {@param mainDevice} with its member and sub devices. */
+    private void indexGroup(CachedBluetoothDevice mainDevice) {
+        indexDevice(mainDevice);
+        for (CachedBluetoothDevice memberDevice : mainDevice.getMemberDevice()) {
+            indexDevice(memberDevice);
+        }
+        final CachedBluetoothDevice subDevice = mainDevice.getSubDevice();
+        if (subDevice != null) {
+            indexDevice(subDevice);
+        }
+    }
+
+    /** Removes {@param mainDevice} with its member and sub devices from the index. */
+    private void unindexGroup(CachedBluetoothDevice mainDevice) {
+        unindexDevice(mainDevice);
+        for (CachedBluetoothDevice memberDevice : mainDevice.getMemberDevice()) {
+            unindexDevice(memberDevice);
+        }
+        final CachedBluetoothDevice subDevice = mainDevice.getSubDevice();
+        if (subDevice != null) {
+            unindexDevice(subDevice);
+        }
+    }
+
+    /**
+     * Indexes the group of {@param cachedDevice} again, since its devices may have switched
+     * content when the main device changed.
+     */
+    private void indexGroupOf(CachedBluetoothDevice cachedDevice) {
+        CachedBluetoothDevice mainDevice = mCsipDeviceManager.findMainDevice(cachedDevice);
+        if (mainDevice == null) {
+            mainDevice = mHearingAidDeviceManager.findMainDevice(cachedDevice);
+        }
+        indexGroup(mainDevice != null ? mainDevice : cachedDevice);
+    }
+
+    private void indexAllGroups() {
+        for (CachedBluetoothDevice cachedDevice : mCachedDevices) {
+            indexGroup(cachedDevice);
+        }
+    }
+
     private void log(String msg) {
         if (DEBUG) {
             Log.d(TAG, msg);
@@ -20,17 +20,24 @@ import android.text.TextUtils;
 import android.util.Log;
 import android.util.Xml;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -46,6 +53,10 @@ import java.util.zip.GZIPInputStream;
  * The utility class that generate a license html file from xml files.
  * All the HTML snippets and logic are copied from build/make/tools/generate-notice-files.py.
  *
+ * The xml files are read twice so license contents are never all held in memory: the first pass
+ * only indexes file names and where each license content is, the second pass spools the license
+ * contents to a temporary file from which they are copied into the html in order.
+ *
  * TODO: Remove duplicate codes once backward support ends.
  */
 class LicenseHtmlGeneratorFromXml {
@@ -105,12 +116,10 @@ class LicenseHtmlGeneratorFromXml {
             new HashMap();
 
     /*
-     * A map from a content id (MD5 sum of file content) to a license file content.
-     * For example, "9645f39e9db895a4aa6e02cb57294595" maps to the content string of
-     * packages/services/Telephony/MODULE_LICENSE_APACHE2. Here "9645f39e9db895a4aa6e02cb57294595"
-     * is a MD5 sum of the file content.
+     * A map from a content id (MD5 sum of file content) to the index in mXmlFiles of the first xml
+     * file with a license file content for it.
      */
-    private final Map<String, String> mContentIdToFileContentMap = new HashMap();
+    private final Map<String, Integer> mContentIdToXmlFileIndexMap = new HashMap();
 
     static class ContentIdAndFileNames {
         final String mContentId;
@@ -121,6 +130,28 @@ class LicenseHtmlGeneratorFromXml {
         }
     }
 
+    /**
+     * Receives the license file contents found while parsing an xml file.
+     */
+    interface ContentConsumer {
+        /**
+         * @return whether the license file content for {@param contentId} should be read.
+         */
+        boolean wantsContent(String contentId);
+
+        /**
+         * Called with the non-empty license file {@param content} for {@param contentId}.
+         */
+        void onContent(String contentId, String content) throws IOException;
+    }
+
+    /**
+     * Writes the license file content for a content id to the html.
+     */
+    interface ContentWriter {
+        void writeContent(PrintWriter writer, String contentId) throws IOException;
+    }
+
     private LicenseHtmlGeneratorFromXml(List<File> xmlFiles) {
         mXmlFiles = xmlFiles;
     }
@@ -132,20 +163,29 @@ class LicenseHtmlGeneratorFromXml {
     }
 
     private boolean generateHtml(File outputFile, String noticeHeader) {
-        for (File xmlFile : mXmlFiles) {
-            parse(xmlFile);
+        for (int i = 0; i < mXmlFiles.size(); i++) {
+            index(i);
         }
 
-        if (mFileNameToLibraryToContentIdMap.isEmpty() || mContentIdToFileContentMap.isEmpty()) {
+        if (mFileNameToLibraryToContentIdMap.isEmpty() || mContentIdToXmlFileIndexMap.isEmpty()) {
             return false;
         }
 
         PrintWriter writer = null;
+        ContentSpool spool = null;
         try {
+            spool = new ContentSpool(new File(outputFile.getPath() + ".contents"));
+            for (int i = 0; i < mXmlFiles.size(); i++) {
+                if (mContentIdToXmlFileIndexMap.containsValue(i)
+                        && !parse(mXmlFiles.get(i), null, getSpoolingConsumer(i, spool))) {
+                    return false;
+                }
+            }
+
             writer = new PrintWriter(outputFile);
 
-            generateHtml(mXmlFiles, mFileNameToLibraryToContentIdMap, mContentIdToFileContentMap,
-                    writer, noticeHeader);
+            generateHtml(mXmlFiles, mFileNameToLibraryToContentIdMap, spool, writer,
+                    noticeHeader);
 
             writer.flush();
             writer.close();
@@ -157,12 +197,57 @@ class LicenseHtmlGeneratorFromXml {
                 writer.close();
             }
             return false;
+        } finally {
+            if (spool != null) {
+                spool.close();
+            }
+        }
+    }
+
+    /*
+     * Indexes the file names of the xml file at {@param xmlFileIndex} and which license file
+     * contents it has.
+     */
+    private void index(int xmlFileIndex) {
+        final Map<String, Integer> contentIdToXmlFileIndexMap = new HashMap<>();
+        final boolean parsed = parse(mXmlFiles.get(xmlFileIndex),
+                mFileNameToLibraryToContentIdMap, new ContentConsumer() {
+                    @Override
+                    public boolean wantsContent(String contentId) {
+                        return !mContentIdToXmlFileIndexMap.containsKey(contentId)
+                                && !contentIdToXmlFileIndexMap.containsKey(contentId);
+                    }
+
+                    @Override
+                    public void onContent(String contentId, String content) {
+                        contentIdToXmlFileIndexMap.put(contentId, xmlFileIndex);
+                    }
+                });
+        if (parsed) {
+            mContentIdToXmlFileIndexMap.putAll(contentIdToXmlFileIndexMap);
         }
     }
 
-    private void parse(File xmlFile) {
+    private ContentConsumer getSpoolingConsumer(int xmlFileIndex, ContentSpool spool) {
+        return new ContentConsumer() {
+            @Override
+            public boolean wantsContent(String contentId) {
+                final Integer index = mContentIdToXmlFileIndexMap.get(contentId);
+                return index != null && index == xmlFileIndex && !spool.contains(contentId);
+            }
+
+            @Override
+            public void onContent(String contentId, String content) throws IOException {
+                spool.write(contentId, content);
+            }
+        };
+    }
+
+    private static boolean parse(File xmlFile,
+            @Nullable Map<String, Map<String, Set<String>>> outFileNameToLibraryToContentIdMap,
+            ContentConsumer contentConsumer) {
         if (xmlFile == null || !xmlFile.exists() || xmlFile.length() == 0) {
-            return;
+            return false;
         }
 
         InputStreamReader in = null;
@@ -173,9 +258,10 @@ class LicenseHtmlGeneratorFromXml {
                 in = new FileReader(xmlFile);
             }
 
-            parse(in, mFileNameToLibraryToContentIdMap, mContentIdToFileContentMap);
+            parse(in, outFileNameToLibraryToContentIdMap, contentConsumer);
 
             in.close();
+            return true;
         } catch (XmlPullParserException | IOException e) {
             Log.e(TAG, "Failed to parse " + xmlFile, e);
             if (in != null) {
@@ -185,6 +271,7 @@ class LicenseHtmlGeneratorFromXml {
                     Log.w(TAG, "Failed to close " + xmlFile);
                 }
             }
+            return false;
         }
     }
 
@@ -209,9 +296,31 @@ class LicenseHtmlGeneratorFromXml {
             Map<String, Map<String, Set<String>>> outFileNameToLibraryToContentIdMap,
             Map<String, String> outContentIdToFileContentMap)
                     throws XmlPullParserException, IOException {
+        Map<String, String> contentIdToFileContentMap = new HashMap<String, String>();
+        parse(in, outFileNameToLibraryToContentIdMap, new ContentConsumer() {
+            @Override
+            public boolean wantsContent(String contentId) {
+                return !outContentIdToFileContentMap.containsKey(contentId)
+                        && !contentIdToFileContentMap.containsKey(contentId);
+            }
+
+            @Override
+            public void onContent(String contentId, String content) {
+                contentIdToFileContentMap.put(contentId, content);
+            }
+        });
+        outContentIdToFileContentMap.putAll(contentIdToFileContentMap);
+    }
+
+    /*
+     * Same as above, but only fills the file names map if it isn't null, and passes the license
+     * file contents wanted by {@param contentConsumer} to it instead of keeping them.
+     */
+    private static void parse(InputStreamReader in,
+            @Nullable Map<String, Map<String, Set<String>>> outFileNameToLibraryToContentIdMap,
+            ContentConsumer contentConsumer) throws XmlPullParserException, IOException {
         Map<String, Map<String, Set<String>>> fileNameToLibraryToContentIdMap =
                 new HashMap<String, Map<String, Set<String>>>();
-        Map<String, String> contentIdToFileContentMap = new HashMap<String, String>();
 
         XmlPullParser parser = Xml.newPullParser();
         parser.setInput(in);
@@ -222,7 +331,8 @@ class LicenseHtmlGeneratorFromXml {
         int state = parser.getEventType();
         while (state != XmlPullParser.END_DOCUMENT) {
             if (state == XmlPullParser.START_TAG) {
-                if (TAG_FILE_NAME.equals(parser.getName())) {
+                if (TAG_FILE_NAME.equals(parser.getName())
+                        && outFileNameToLibraryToContentIdMap != null) {
                     String contentId = parser.getAttributeValue("", ATTR_CONTENT_ID);
                     String libraryName = parser.getAttributeValue("", ATTR_LIBRARY_NAME);
                     if (!TextUtils.isEmpty(contentId)) {
@@ -238,12 +348,10 @@ class LicenseHtmlGeneratorFromXml {
                     }
                 } else if (TAG_FILE_CONTENT.equals(parser.getName())) {
                     String contentId = parser.getAttributeValue("", ATTR_CONTENT_ID);
-                    if (!TextUtils.isEmpty(contentId)
-                            && !outContentIdToFileContentMap.containsKey(contentId)
-                            && !contentIdToFileContentMap.containsKey(contentId)) {
+                    if (!TextUtils.isEmpty(contentId) && contentConsumer.wantsContent(contentId)) {
                         String fileContent = readText(parser);
                         if (!TextUtils.isEmpty(fileContent)) {
-                            contentIdToFileContentMap.put(contentId, fileContent);
+                            contentConsumer.onContent(contentId, fileContent);
                         }
                     }
                 }
@@ -251,6 +359,9 @@ class LicenseHtmlGeneratorFromXml {
 
             state = parser.next();
         }
+        if (outFileNameToLibraryToContentIdMap == null) {
+            return;
+        }
         for (Map.Entry<String, Map<String, Set<String>>> mapEntry :
                 fileNameToLibraryToContentIdMap.entrySet()) {
             outFileNameToLibraryToContentIdMap.merge(
@@ -264,7 +375,6 @@ class LicenseHtmlGeneratorFromXml {
                         return m1;
                     });
         }
-        outContentIdToFileContentMap.putAll(contentIdToFileContentMap);
     }
 
     private static String readText(XmlPullParser parser)
@@ -295,6 +405,15 @@ class LicenseHtmlGeneratorFromXml {
             Map<String, Map<String, Set<String>>> fileNameToLibraryToContentIdMap,
             Map<String, String> contentIdToFileContentMap, PrintWriter writer,
             String noticeHeader) throws IOException {
+        generateHtml(xmlFiles, fileNameToLibraryToContentIdMap,
+                (w, contentId) -> w.println(contentIdToFileContentMap.get(contentId)),
+                writer, noticeHeader);
+    }
+
+    private static void generateHtml(List<File> xmlFiles,
+            Map<String, Map<String, Set<String>>> fileNameToLibraryToContentIdMap,
+            ContentWriter contentWriter, PrintWriter writer,
+            String noticeHeader) throws IOException {
         List<String> fileNameList = new ArrayList();
         fileNameList.addAll(fileNameToLibraryToContentIdMap.keySet());
         Collections.sort(fileNameList);
@@ -414,8 +533,7 @@ class LicenseHtmlGeneratorFromXml {
                     writer.println("</div><!-- file-list -->");
                 }
                 writer.println("<pre class=\"license-text\">");
-                writer.println(contentIdToFileContentMap.get(
-                        contentIdAndFileNames.mContentId));
+                contentWriter.writeContent(writer, contentIdAndFileNames.mContentId);
                 writer.println("</pre><!-- license-text -->");
                 writer.println("</td></tr><!-- same-license -->");
             }
@@ -441,4 +559,68 @@ class LicenseHtmlGeneratorFromXml {
 
         writer.println(HTML_TAIL_STRING);
     }
+
+    /**
+     * Temporary file holding the license file contents in the order they were read, so they can
+     * be copied into the html in another order without holding them in memory.
+     */
+    private static class ContentSpool implements ContentWriter, Closeable {
+        private final File mFile;
+        // Offset and length in bytes of each license file content in the file.
+        private final Map<String, long[]> mContentIdToRangeMap = new HashMap<>();
+        private OutputStream mOut;
+        private RandomAccessFile mIn;
+        private long mLength;
+
+        ContentSpool(File file) throws IOException {
+            mFile = file;
+            mOut = new BufferedOutputStream(new FileOutputStream(file));
+        }
+
+        boolean contains(String contentId) {
+            return mContentIdToRangeMap.containsKey(contentId);
+        }
+
+        void write(String contentId, String content) throws IOException {
+            final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            mOut.write(bytes);
+            mContentIdToRangeMap.put(contentId, new long[] {mLength, bytes.length});
+            mLength += bytes.length;
+        }
+
+        @Override
+        public void writeContent(PrintWriter writer, String contentId) throws IOException {
+            if (mIn == null) {
+                mOut.close();
+                mOut = null;
+                mIn = new RandomAccessFile(mFile, "r");
+            }
+            final long[] range = mContentIdToRangeMap.get(contentId);
+            if (range == null) {
+                writer.println();
+                return;
+            }
+            final byte[] bytes = new byte[(int) range[1]];
+            mIn.seek(range[0]);
+            mIn.readFully(bytes);
+            writer.println(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (mOut != null) {
+                    mOut.close();
+                }
+                if (mIn != null) {
+                    mIn.close();
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to close " + mFile, e);
+            }
+            if (!mFile.delete()) {
+                Log.w(TAG, "Failed to delete " + mFile);
+            }
+        }
+    }
 }
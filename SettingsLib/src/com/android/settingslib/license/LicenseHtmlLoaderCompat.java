@@ -23,11 +23,20 @@ import com.android.settingslib.R;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.CRC32;
 
 /**
  * LicenseHtmlLoader is a loader which loads a license html file from default license xml files.
+ *
+ * The generated html file is cached along with the checksums of the xml files it was generated
+ * from, so it is only generated again once they change.
  */
 public class LicenseHtmlLoaderCompat extends AsyncLoaderCompat<File> {
     private static final String TAG = "LicenseHtmlLoaderCompat";
@@ -43,8 +52,11 @@ public class LicenseHtmlLoaderCompat extends AsyncLoaderCompat<File> {
             "/odm_dlkm/etc/NOTICE.xml.gz",
     };
     static final String NOTICE_HTML_FILE_NAME = "NOTICE.html";
+    static final String NOTICE_HTML_SOURCES_FILE_NAME = "NOTICE.html.sources";
 
     private final Context mContext;
+    // The sources of the xml files, read once per load by both the cache check and the generation.
+    private String mSources;
 
     public LicenseHtmlLoaderCompat(Context context) {
         super(context);
@@ -61,6 +73,7 @@ public class LicenseHtmlLoaderCompat extends AsyncLoaderCompat<File> {
     }
 
     private File generateHtmlFromDefaultXmlFiles() {
+        mSources = null;
         final List<File> xmlFiles = getVaildXmlFiles();
         if (xmlFiles.isEmpty()) {
             Log.e(TAG, "No notice file exists.");
@@ -92,21 +105,66 @@ public class LicenseHtmlLoaderCompat extends AsyncLoaderCompat<File> {
     }
 
     private boolean isCachedHtmlFileOutdated(List<File> xmlFiles, File cachedHtmlFile) {
-        boolean outdated = true;
-        if (cachedHtmlFile.exists() && cachedHtmlFile.length() != 0) {
-            outdated = false;
-            for (File file : xmlFiles) {
-                if (cachedHtmlFile.lastModified() < file.lastModified()) {
-                    outdated = true;
-                    break;
-                }
-            }
+        if (!cachedHtmlFile.exists() || cachedHtmlFile.length() == 0) {
+            return true;
+        }
+        // The xml files are on read-only partitions whose modification times don't change across
+        // updates, so compare their checksums instead.
+        final File sourcesFile = getSourcesFile(cachedHtmlFile);
+        try {
+            final String sources = new String(
+                    Files.readAllBytes(sourcesFile.toPath()), StandardCharsets.UTF_8);
+            return !sources.equals(getSources(xmlFiles));
+        } catch (IOException e) {
+            return true;
         }
-        return outdated;
     }
 
     private boolean generateHtmlFile(Context context, List<File> xmlFiles, File htmlFile) {
-        return LicenseHtmlGeneratorFromXml.generateHtml(xmlFiles, htmlFile,
-                context.getString(R.string.notice_header));
+        final File sourcesFile = getSourcesFile(htmlFile);
+        sourcesFile.delete();
+        if (!LicenseHtmlGeneratorFromXml.generateHtml(xmlFiles, htmlFile,
+                context.getString(R.string.notice_header))) {
+            return false;
+        }
+        try {
+            Files.write(sourcesFile.toPath(),
+                    getSources(xmlFiles).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // The html file is still valid, it will just be generated again next time.
+            Log.w(TAG, "Failed to write " + sourcesFile, e);
+        }
+        return true;
+    }
+
+    private static File getSourcesFile(File htmlFile) {
+        return new File(htmlFile.getParentFile(), NOTICE_HTML_SOURCES_FILE_NAME);
+    }
+
+    private String getSources(List<File> xmlFiles) throws IOException {
+        if (mSources == null) {
+            mSources = readSources(xmlFiles);
+        }
+        return mSources;
+    }
+
+    /**
+     * @return the path, size and checksum of each of the {@param xmlFiles}, one per line.
+     */
+    private static String readSources(List<File> xmlFiles) throws IOException {
+        final StringBuilder sources = new StringBuilder();
+        final byte[] buffer = new byte[8192];
+        for (File file : xmlFiles) {
+            final CRC32 crc = new CRC32();
+            try (InputStream in = new FileInputStream(file)) {
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, count);
+                }
+            }
+            sources.append(file.getPath()).append(' ').append(file.length()).append(' ')
+                    .append(Long.toHexString(crc.getValue())).append('\n');
+        }
+        return sources.toString();
     }
 }
@@ -55,6 +55,7 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -105,9 +106,18 @@ public class SettingsInjector {
     private final Handler mHandler;
 
     public SettingsInjector(Context context) {
+        this(context, context.getResources().getInteger(
+                R.integer.config_injectedSettingsMaxConcurrentStatusLoads));
+    }
+
+    /**
+     * @param maxConcurrentStatusLoads how many setting services may be started at once to load
+     *                                 their status.
+     */
+    public SettingsInjector(Context context, int maxConcurrentStatusLoads) {
         mContext = context;
         mSettings = new HashSet<Setting>();
-        mHandler = new StatusLoadingHandler(mSettings);
+        mHandler = new StatusLoadingHandler(mSettings, Math.max(1, maxConcurrentStatusLoads));
     }
 
     /**
@@ -331,9 +341,10 @@ public class SettingsInjector {
     }
 
     /**
-     * Loads the setting status values one at a time. Each load starts a subclass of {@link
+     * Loads the setting status values a few at a time. Each load starts a subclass of {@link
      * SettingInjectorService}, so to reduce memory pressure we don't want to load too many at
-     * once.
+     * once. Settings start loading in the order they were queued, and a setting is never loaded
+     * twice at once so the updates of its preference can't be reordered.
      */
     private static final class StatusLoadingHandler extends Handler {
         /**
@@ -347,14 +358,17 @@ public class SettingsInjector {
         private Deque<Setting> mSettingsToLoad = new ArrayDeque<Setting>();
 
         /**
-         * Settings that are being loaded now and haven't timed out. In practice this should have
-         * zero or one elements.
+         * Settings that are being loaded now and haven't timed out. This has at most
+         * {@link #mMaxSettingsBeingLoaded} elements.
          */
         private Set<Setting> mSettingsBeingLoaded = new ArraySet<Setting>();
 
-        public StatusLoadingHandler(Set<Setting> allSettings) {
+        private final int mMaxSettingsBeingLoaded;
+
+        public StatusLoadingHandler(Set<Setting> allSettings, int maxSettingsBeingLoaded) {
             super(Looper.getMainLooper());
             mAllSettings = new WeakReference<>(allSettings);
+            mMaxSettingsBeingLoaded = maxSettingsBeingLoaded;
         }
 
         @Override
@@ -392,37 +406,41 @@ public class SettingsInjector {
                     Log.wtf(TAG, "Unexpected what: " + msg);
             }
 
-            // Decide whether to load additional settings based on the new state. Start by seeing
-            // if we have headroom to load another setting.
-            if (mSettingsBeingLoaded.size() > 0) {
-                // Don't load any more settings until one of the pending settings has completed.
-                // To reduce memory pressure, we want to be loading at most one setting.
-                if (Log.isLoggable(TAG, Log.VERBOSE)) {
-                    Log.v(TAG, "too many services already live for " + msg + ", " + this);
+            // Decide whether to load additional settings based on the new state. Load settings
+            // in order while we have headroom, skipping the ones which are still being loaded so
+            // they are reloaded once their pending load completes.
+            final Iterator<Setting> iterator = mSettingsToLoad.iterator();
+            while (mSettingsBeingLoaded.size() < mMaxSettingsBeingLoaded && iterator.hasNext()) {
+                final Setting setting = iterator.next();
+                if (mSettingsBeingLoaded.contains(setting)) {
+                    continue;
+                }
+                iterator.remove();
+
+                // Request the status value
+                setting.startService();
+                mSettingsBeingLoaded.add(setting);
+
+                // Ensure that if receiving the status value takes too long, we start loading the
+                // next value anyway
+                Message timeoutMsg = obtainMessage(WHAT_TIMEOUT, setting);
+                sendMessageDelayed(timeoutMsg, INJECTED_STATUS_UPDATE_TIMEOUT_MILLIS);
+
+                if (Log.isLoggable(TAG, Log.DEBUG)) {
+                    Log.d(TAG, "handleMessage " + msg + ", started loading " + setting);
                 }
-                return;
             }
 
-            if (mSettingsToLoad.isEmpty()) {
-                if (Log.isLoggable(TAG, Log.VERBOSE)) {
+            if (Log.isLoggable(TAG, Log.VERBOSE)) {
+                if (mSettingsToLoad.isEmpty()) {
                     Log.v(TAG, "nothing left to do for " + msg + ", " + this);
+                } else {
+                    // To reduce memory pressure, we don't load more settings at once.
+                    Log.v(TAG, "too many services already live for " + msg + ", " + this);
                 }
-                return;
             }
-            Setting setting = mSettingsToLoad.removeFirst();
-
-            // Request the status value
-            setting.startService();
-            mSettingsBeingLoaded.add(setting);
-
-            // Ensure that if receiving the status value takes too long, we start loading the
-            // next value anyway
-            Message timeoutMsg = obtainMessage(WHAT_TIMEOUT, setting);
-            sendMessageDelayed(timeoutMsg, INJECTED_STATUS_UPDATE_TIMEOUT_MILLIS);
-
             if (Log.isLoggable(TAG, Log.DEBUG)) {
-                Log.d(TAG, "handleMessage end " + msg + ", " + this
-                        + ", started loading " + setting);
+                Log.d(TAG, "handleMessage end " + msg + ", " + this);
             }
         }
 
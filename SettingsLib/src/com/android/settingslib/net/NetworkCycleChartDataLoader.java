@@ -16,11 +16,14 @@
 
 package com.android.settingslib.net;
 
-import android.app.usage.NetworkStats;
+import android.annotation.NonNull;
 import android.content.Context;
 import android.util.Log;
+import android.util.Range;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -32,30 +35,109 @@ public class NetworkCycleChartDataLoader
 
     private static final String TAG = "NetworkCycleChartLoader";
 
+    private static final String CACHE_FILE_NAME = "network_cycle_chart_data";
+
     private final List<NetworkCycleChartData> mData;
+    private final NetworkCycleDataCache mCache;
 
     private NetworkCycleChartDataLoader(Builder builder) {
         super(builder);
         mData = new ArrayList<>();
+        mCache = NetworkCycleDataCache.create(getContext(), CACHE_FILE_NAME);
     }
 
     @Override
     void recordUsage(long start, long end) {
-        try {
-            final NetworkStats.Bucket bucket = mNetworkStatsManager.querySummaryForDevice(
-                    mNetworkTemplate, start, end);
-            final long total = bucket == null ? 0L : bucket.getRxBytes() + bucket.getTxBytes();
+        recordUsage(Collections.singletonList(new Range<>(start, end)));
+    }
+
+    /**
+     * Records the total and daily usage of the {@param cycles}. The usage is cached as the total
+     * followed by the usage of each day.
+     */
+    @Override
+    void recordUsage(@NonNull List<Range<Long>> cycles) {
+        final long[][] usages = new long[cycles.size()][];
+        final List<Integer> uncachedIndices = new ArrayList<>();
+        for (int i = 0; i < cycles.size(); i++) {
+            final Range<Long> cycle = cycles.get(i);
+            usages[i] = getCachedUsage(cycle.getLower(), cycle.getUpper());
+            if (usages[i] == null) {
+                uncachedIndices.add(i);
+            }
+        }
+        if (!uncachedIndices.isEmpty() && !loadUsage(cycles, uncachedIndices, usages)) {
+            return;
+        }
+        for (int i = 0; i < cycles.size(); i++) {
+            final long total = usages[i][0];
             if (total > 0L) {
+                final long start = cycles.get(i).getLower();
                 final NetworkCycleChartData.Builder builder = new NetworkCycleChartData.Builder();
-                builder.setUsageBuckets(getUsageBuckets(start, end))
+                builder.setUsageBuckets(getUsageBuckets(start, usages[i]))
                     .setStartTime(start)
-                    .setEndTime(end)
+                    .setEndTime(cycles.get(i).getUpper())
                     .setTotalUsage(total);
                 mData.add(builder.build());
             }
+        }
+    }
+
+    /**
+     * Loads the usage of the cycles at {@param indices} from a single query, splitting each cycle
+     * into its days and the part of a day left at its end, and caches the closed ones.
+     *
+     * @return false if the usage could not be queried
+     */
+    private boolean loadUsage(List<Range<Long>> cycles, List<Integer> indices, long[][] usages) {
+        indices.sort(Comparator.comparingLong(i -> cycles.get(i).getLower()));
+        final int[] segmentCounts = new int[indices.size()];
+        int segmentCount = 0;
+        for (int j = 0; j < indices.size(); j++) {
+            final Range<Long> cycle = cycles.get(indices.get(j));
+            final long duration = cycle.getUpper() - cycle.getLower();
+            segmentCounts[j] = (int) (duration / NetworkCycleChartData.BUCKET_DURATION_MS)
+                    + (duration % NetworkCycleChartData.BUCKET_DURATION_MS > 0 ? 1 : 0);
+            segmentCount += segmentCounts[j];
+        }
+        final long[] starts = new long[segmentCount];
+        final long[] ends = new long[segmentCount];
+        int segment = 0;
+        for (int j = 0; j < indices.size(); j++) {
+            final Range<Long> cycle = cycles.get(indices.get(j));
+            for (int k = 0; k < segmentCounts[j]; k++, segment++) {
+                starts[segment] = cycle.getLower() + k * NetworkCycleChartData.BUCKET_DURATION_MS;
+                ends[segment] = Math.min(starts[segment] + NetworkCycleChartData.BUCKET_DURATION_MS,
+                        cycle.getUpper());
+            }
+        }
+        final long[] segmentUsages = new long[segmentCount];
+        try {
+            addUsage(mNetworkStatsManager.queryDetailsForDevice(mNetworkTemplate,
+                    cycles.get(indices.get(0)).getLower(),
+                    cycles.get(indices.get(indices.size() - 1)).getUpper()),
+                    starts, ends, segmentUsages);
         } catch (RuntimeException e) {
             Log.e(TAG, "Exception querying network detail.", e);
+            return false;
+        }
+        segment = 0;
+        for (int j = 0; j < indices.size(); j++) {
+            final Range<Long> cycle = cycles.get(indices.get(j));
+            // Only whole days are shown as buckets, the part of a day left counts to the total.
+            final int dayCount = (int) ((cycle.getUpper() - cycle.getLower())
+                    / NetworkCycleChartData.BUCKET_DURATION_MS);
+            final long[] usage = new long[1 + dayCount];
+            for (int k = 0; k < segmentCounts[j]; k++, segment++) {
+                usage[0] += segmentUsages[segment];
+                if (k < dayCount) {
+                    usage[1 + k] = segmentUsages[segment];
+                }
+            }
+            usages[indices.get(j)] = usage;
+            putCachedUsage(cycle.getLower(), cycle.getUpper(), usage);
         }
+        return true;
     }
 
     @Override
@@ -72,25 +154,19 @@ public class NetworkCycleChartDataLoader
         };
     }
 
-    private List<NetworkCycleData> getUsageBuckets(long start, long end) {
+    @Override
+    NetworkCycleDataCache getCache() {
+        return mCache;
+    }
+
+    private static List<NetworkCycleData> getUsageBuckets(long start, long[] usage) {
         final List<NetworkCycleData> data = new ArrayList<>();
         long bucketStart = start;
-        long bucketEnd = start + NetworkCycleChartData.BUCKET_DURATION_MS;
-        while (bucketEnd <= end) {
-            long usage = 0L;
-            try {
-                final NetworkStats.Bucket bucket = mNetworkStatsManager.querySummaryForDevice(
-                        mNetworkTemplate, bucketStart, bucketEnd);
-                if (bucket != null) {
-                    usage = bucket.getRxBytes() + bucket.getTxBytes();
-                }
-            } catch (RuntimeException e) {
-                Log.e(TAG, "Exception querying network detail.", e);
-            }
+        for (int i = 1; i < usage.length; i++) {
+            final long bucketEnd = bucketStart + NetworkCycleChartData.BUCKET_DURATION_MS;
             data.add(new NetworkCycleData.Builder()
-                .setStartTime(bucketStart).setEndTime(bucketEnd).setTotalUsage(usage).build());
+                .setStartTime(bucketStart).setEndTime(bucketEnd).setTotalUsage(usage[i]).build());
             bucketStart = bucketEnd;
-            bucketEnd += NetworkCycleChartData.BUCKET_DURATION_MS;
         }
         return data;
     }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settingslib.net;
+
+import android.content.Context;
+import android.text.format.DateUtils;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.utils.VersionedFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-disk cache of the usage of closed network cycles, which does not change anymore, so the
+ * loaders do not query {@link android.app.usage.NetworkStatsManager} for them again.
+ *
+ * Values are keyed by the loader, which includes the network template, the uids and the cycle
+ * bounds in the key. The oldest values are dropped once there are more than {@link #MAX_SIZE}.
+ * Several loaders may share a file: each save merges with the values the others saved.
+ */
+class NetworkCycleDataCache {
+
+    private static final int MAGIC = 0x4e434443; // "NCDC"
+    @VisibleForTesting
+    static final int FORMAT_VERSION = 1;
+    @VisibleForTesting
+    static final int MAX_SIZE = 500;
+    /**
+     * Usage is recorded with some delay, so a cycle is only closed once it ended this long ago.
+     */
+    @VisibleForTesting
+    static final long CLOSED_CYCLE_DELAY_MS = DateUtils.DAY_IN_MILLIS;
+
+    private final VersionedFile mFile;
+    private final Map<String, long[]> mValues = new LinkedHashMap<>();
+    private boolean mIsDirty;
+
+    /**
+     * Creates the cache {@param fileName} in the cache dir of {@param context}, or returns null if
+     * there is none.
+     */
+    @Nullable
+    static NetworkCycleDataCache create(@Nullable Context context, String fileName) {
+        final File cacheDir = context == null ? null : context.getCacheDir();
+        return cacheDir == null
+                ? null : new NetworkCycleDataCache(new File(cacheDir, fileName));
+    }
+
+    @VisibleForTesting
+    NetworkCycleDataCache(File file) {
+        mFile = new VersionedFile(file, MAGIC, FORMAT_VERSION);
+    }
+
+    /**
+     * @return whether the usage of a cycle ending at {@param end} does not change anymore.
+     */
+    static boolean isClosed(long end) {
+        return end <= System.currentTimeMillis() - CLOSED_CYCLE_DELAY_MS;
+    }
+
+    /**
+     * Reads the cached values from disk.
+     */
+    synchronized void load() {
+        mValues.clear();
+        mIsDirty = false;
+        if (!mFile.read(in -> readValues(in, mValues))) {
+            mValues.clear();
+            mIsDirty = true;
+        }
+    }
+
+    /**
+     * @return the values cached for {@param key}, or {@code null} if there are none.
+     */
+    @Nullable
+    synchronized long[] get(String key) {
+        return mValues.get(key);
+    }
+
+    /**
+     * Caches the {@param values} of a closed cycle for {@param key}.
+     */
+    synchronized void put(String key, long[] values) {
+        mValues.put(key, values);
+        mIsDirty = true;
+    }
+
+    /**
+     * Writes the cached values to disk if they changed, along with the values other loaders saved
+     * in the meantime.
+     */
+    synchronized void save() {
+        if (mIsDirty && mFile.update(this::mergeValues, this::writeValues)) {
+            mIsDirty = false;
+        }
+    }
+
+    private boolean mergeValues(DataInputStream in) throws IOException {
+        final Map<String, long[]> savedValues = new LinkedHashMap<>();
+        readValues(in, savedValues);
+        // Values of closed cycles never change, so only the order needs care: ours are the most
+        // recently used.
+        for (Map.Entry<String, long[]> entry : mValues.entrySet()) {
+            savedValues.remove(entry.getKey());
+            savedValues.put(entry.getKey(), entry.getValue());
+        }
+        mValues.clear();
+        mValues.putAll(savedValues);
+        return true;
+    }
+
+    private static boolean readValues(DataInputStream in, Map<String, long[]> values)
+            throws IOException {
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            final String key = in.readUTF();
+            final long[] value = new long[in.readInt()];
+            for (int j = 0; j < value.length; j++) {
+                value[j] = in.readLong();
+            }
+            values.put(key, value);
+        }
+        return true;
+    }
+
+    private void writeValues(DataOutputStream out) throws IOException {
+        final Iterator<String> iterator = mValues.keySet().iterator();
+        while (mValues.size() > MAX_SIZE) {
+            iterator.next();
+            iterator.remove();
+        }
+        out.writeInt(mValues.size());
+        for (Map.Entry<String, long[]> entry : mValues.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            for (long value : entry.getValue()) {
+                out.writeLong(value);
+            }
+        }
+    }
+}
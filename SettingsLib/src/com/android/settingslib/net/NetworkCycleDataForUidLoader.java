@@ -16,16 +16,20 @@
 
 package com.android.settingslib.net;
 
+import static android.app.usage.NetworkStats.Bucket.STATE_ALL;
 import static android.app.usage.NetworkStats.Bucket.STATE_FOREGROUND;
 import static android.net.NetworkStats.TAG_NONE;
 
-import android.app.usage.NetworkStats;
+import android.annotation.NonNull;
 import android.content.Context;
 import android.util.Log;
+import android.util.Range;
 
 import androidx.annotation.VisibleForTesting;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -36,48 +40,117 @@ public class NetworkCycleDataForUidLoader extends
         NetworkCycleDataLoader<List<NetworkCycleDataForUid>> {
     private static final String TAG = "NetworkDataForUidLoader";
 
+    private static final String CACHE_FILE_NAME = "network_cycle_data_for_uid";
+
     private final List<NetworkCycleDataForUid> mData;
     private final List<Integer> mUids;
     private final boolean mRetrieveDetail;
+    private final NetworkCycleDataCache mCache;
 
     private NetworkCycleDataForUidLoader(Builder builder) {
         super(builder);
         mUids = builder.mUids;
         mRetrieveDetail = builder.mRetrieveDetail;
         mData = new ArrayList<>();
+        mCache = NetworkCycleDataCache.create(getContext(), CACHE_FILE_NAME);
     }
 
     @Override
     void recordUsage(long start, long end) {
-        try {
-            long totalUsage = 0L;
-            long totalForeground = 0L;
-            for (int uid : mUids) {
-                final NetworkStats stats = mNetworkStatsManager.queryDetailsForUidTagState(
-                        mNetworkTemplate, start, end, uid, NetworkStats.Bucket.TAG_NONE,
-                        NetworkStats.Bucket.STATE_ALL);
-                final long usage = getTotalUsage(stats);
-                if (usage > 0L) {
-                    totalUsage += usage;
-                    if (mRetrieveDetail) {
-                        totalForeground += getForegroundUsage(start, end, uid);
-                    }
-                }
+        recordUsage(Collections.singletonList(new Range<>(start, end)));
+    }
+
+    @Override
+    void recordUsage(@NonNull List<Range<Long>> cycles) {
+        final long[] totalUsages = new long[cycles.size()];
+        final long[] foregroundUsages = new long[cycles.size()];
+        final List<Integer> uncachedIndices = new ArrayList<>();
+        for (int i = 0; i < cycles.size(); i++) {
+            final Range<Long> cycle = cycles.get(i);
+            final long[] usage = getCachedUsage(cycle.getLower(), cycle.getUpper());
+            if (usage == null) {
+                uncachedIndices.add(i);
+            } else {
+                totalUsages[i] = usage[0];
+                foregroundUsages[i] = usage[1];
             }
+        }
+        if (!uncachedIndices.isEmpty()
+                && !loadUsage(cycles, uncachedIndices, totalUsages, foregroundUsages)) {
+            return;
+        }
+        for (int i = 0; i < cycles.size(); i++) {
+            final long totalUsage = totalUsages[i];
             if (totalUsage > 0L) {
                 final NetworkCycleDataForUid.Builder builder = new NetworkCycleDataForUid.Builder();
-                builder.setStartTime(start)
-                    .setEndTime(end)
+                builder.setStartTime(cycles.get(i).getLower())
+                    .setEndTime(cycles.get(i).getUpper())
                     .setTotalUsage(totalUsage);
                 if (mRetrieveDetail) {
-                    builder.setBackgroundUsage(totalUsage - totalForeground)
-                        .setForegroundUsage(totalForeground);
+                    builder.setBackgroundUsage(totalUsage - foregroundUsages[i])
+                        .setForegroundUsage(foregroundUsages[i]);
                 }
                 mData.add(builder.build());
             }
+        }
+    }
+
+    /**
+     * Loads the usage of the cycles at {@param indices} with one query per uid and state, and
+     * caches the closed ones.
+     *
+     * @return false if the usage could not be queried
+     */
+    private boolean loadUsage(List<Range<Long>> cycles, List<Integer> indices,
+            long[] totalUsages, long[] foregroundUsages) {
+        indices.sort(Comparator.comparingLong(i -> cycles.get(i).getLower()));
+        final long[] starts = new long[indices.size()];
+        final long[] ends = new long[indices.size()];
+        for (int j = 0; j < indices.size(); j++) {
+            starts[j] = cycles.get(indices.get(j)).getLower();
+            ends[j] = cycles.get(indices.get(j)).getUpper();
+        }
+        final long start = starts[0];
+        final long end = ends[ends.length - 1];
+        final long[] totals = new long[indices.size()];
+        final long[] foregrounds = new long[indices.size()];
+        try {
+            for (int uid : mUids) {
+                final long[] usages = new long[indices.size()];
+                addUsage(mNetworkStatsManager.queryDetailsForUidTagState(mNetworkTemplate,
+                        start, end, uid, TAG_NONE, STATE_ALL), starts, ends, usages);
+                boolean hasUsage = false;
+                for (int j = 0; j < usages.length; j++) {
+                    totals[j] += usages[j];
+                    hasUsage |= usages[j] > 0L;
+                }
+                if (mRetrieveDetail && hasUsage) {
+                    addUsage(mNetworkStatsManager.queryDetailsForUidTagState(mNetworkTemplate,
+                            start, end, uid, TAG_NONE, STATE_FOREGROUND), starts, ends,
+                            foregrounds);
+                }
+            }
         } catch (Exception e) {
             Log.e(TAG, "Exception querying network detail.", e);
+            return false;
         }
+        for (int j = 0; j < indices.size(); j++) {
+            totalUsages[indices.get(j)] = totals[j];
+            foregroundUsages[indices.get(j)] = foregrounds[j];
+            putCachedUsage(starts[j], ends[j], new long[] {totals[j], foregrounds[j]});
+        }
+        return true;
+    }
+
+    @Override
+    NetworkCycleDataCache getCache() {
+        return mCache;
+    }
+
+    @Override
+    String getCacheKey(long start, long end) {
+        final String key = super.getCacheKey(start, end);
+        return key == null ? null : key + ":" + mUids + ":" + mRetrieveDetail;
     }
 
     @Override
@@ -99,12 +172,6 @@ public class NetworkCycleDataForUidLoader extends
         return mUids;
     }
 
-    private long getForegroundUsage(long start, long end, int uid) {
-        final NetworkStats stats = mNetworkStatsManager.queryDetailsForUidTagState(
-                mNetworkTemplate, start, end, uid, TAG_NONE, STATE_FOREGROUND);
-        return getTotalUsage(stats);
-    }
-
     public static abstract class Builder<T extends NetworkCycleDataForUidLoader>
             extends NetworkCycleDataLoader.Builder<T> {
 
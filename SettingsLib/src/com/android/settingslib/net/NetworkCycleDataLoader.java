@@ -17,6 +17,7 @@
 package com.android.settingslib.net;
 
 import android.annotation.NonNull;
+import android.annotation.Nullable;
 import android.app.usage.NetworkStats;
 import android.app.usage.NetworkStatsManager;
 import android.content.Context;
@@ -35,6 +36,7 @@ import com.android.settingslib.NetworkPolicyEditor;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Loader for network data usage history. It returns a list of usage data per billing cycle.
@@ -65,6 +67,10 @@ public abstract class NetworkCycleDataLoader<D> extends AsyncTaskLoader<D> {
     }
 
     public D loadInBackground() {
+        final NetworkCycleDataCache cache = getCache();
+        if (cache != null) {
+            cache.load();
+        }
         if (mCycles != null && mCycles.size() > 1) {
             loadDataForSpecificCycles();
         } else if (mPolicy == null) {
@@ -72,19 +78,24 @@ public abstract class NetworkCycleDataLoader<D> extends AsyncTaskLoader<D> {
         } else {
             loadPolicyData();
         }
+        if (cache != null) {
+            cache.save();
+        }
         return getCycleUsage();
     }
 
     @VisibleForTesting
     void loadPolicyData() {
+        final List<Range<Long>> cycles = new ArrayList<>();
         final Iterator<Pair<ZonedDateTime, ZonedDateTime>> iterator =
             NetworkPolicyManager.cycleIterator(mPolicy);
         while (iterator.hasNext()) {
             final Pair<ZonedDateTime, ZonedDateTime> cycle = iterator.next();
             final long cycleStart = cycle.first.toInstant().toEpochMilli();
             final long cycleEnd = cycle.second.toInstant().toEpochMilli();
-            recordUsage(cycleStart, cycleEnd);
+            cycles.add(new Range<>(cycleStart, cycleEnd));
         }
+        recordUsage(cycles);
     }
 
     @Override
@@ -107,12 +118,14 @@ public abstract class NetworkCycleDataLoader<D> extends AsyncTaskLoader<D> {
         try {
             final Range<Long> historyTimeRange = getTimeRangeOf(stats);
 
+            final List<Range<Long>> cycles = new ArrayList<>();
             long cycleEnd = historyTimeRange.getUpper();
             while (cycleEnd > historyTimeRange.getLower()) {
                 final long cycleStart = cycleEnd - (DateUtils.WEEK_IN_MILLIS * 4);
-                recordUsage(cycleStart, cycleEnd);
+                cycles.add(new Range<>(cycleStart, cycleEnd));
                 cycleEnd = cycleStart;
             }
+            recordUsage(cycles);
         } catch (IllegalArgumentException e) {
             // Empty history, ignore.
         }
@@ -120,18 +133,75 @@ public abstract class NetworkCycleDataLoader<D> extends AsyncTaskLoader<D> {
 
     @VisibleForTesting
     void loadDataForSpecificCycles() {
+        final List<Range<Long>> cycles = new ArrayList<>();
         long cycleEnd = mCycles.get(0);
         final int lastCycleIndex = mCycles.size() - 1;
         for (int i = 1; i <= lastCycleIndex; i++) {
             final long cycleStart = mCycles.get(i);
-            recordUsage(cycleStart, cycleEnd);
+            cycles.add(new Range<>(cycleStart, cycleEnd));
             cycleEnd = cycleStart;
         }
+        recordUsage(cycles);
+    }
+
+    /**
+     * Records the usage of all {@param cycles}, in order. Loaders which can load several cycles
+     * at once override this, the default records each cycle separately.
+     */
+    @VisibleForTesting
+    void recordUsage(@NonNull List<Range<Long>> cycles) {
+        for (Range<Long> cycle : cycles) {
+            recordUsage(cycle.getLower(), cycle.getUpper());
+        }
     }
 
     @VisibleForTesting
     abstract void recordUsage(long start, long end);
 
+    /**
+     * @return the cached usage of the cycle from {@param start} to {@param end}, or {@code null}
+     * if it is not cached.
+     */
+    @Nullable
+    long[] getCachedUsage(long start, long end) {
+        final NetworkCycleDataCache cache = getCache();
+        final String key = getCacheKey(start, end);
+        return cache == null || key == null ? null : cache.get(key);
+    }
+
+    /**
+     * Caches the {@param usage} of the cycle from {@param start} to {@param end} if the cycle is
+     * closed.
+     */
+    void putCachedUsage(long start, long end, @NonNull long[] usage) {
+        final NetworkCycleDataCache cache = getCache();
+        final String key = getCacheKey(start, end);
+        if (cache != null && key != null && NetworkCycleDataCache.isClosed(end)) {
+            cache.put(key, usage);
+        }
+    }
+
+    /**
+     * @return the cache of the usage of closed cycles, or {@code null} if it is not cached.
+     */
+    @Nullable
+    NetworkCycleDataCache getCache() {
+        return null;
+    }
+
+    /**
+     * @return the key of the usage of the cycle from {@param start} to {@param end} in
+     * {@link #getCache()}, or {@code null} if it cannot be cached.
+     */
+    @Nullable
+    String getCacheKey(long start, long end) {
+        if (mNetworkTemplate == null) {
+            return null;
+        }
+        // The template string scrubs subscriber ids, so the hash code tells them apart.
+        return mNetworkTemplate + "#" + mNetworkTemplate.hashCode() + ":" + start + "-" + end;
+    }
+
     abstract D getCycleUsage();
 
     public static Builder<?> builder(Context context) {
@@ -155,6 +225,56 @@ public abstract class NetworkCycleDataLoader<D> extends AsyncTaskLoader<D> {
         return bytes;
     }
 
+    /**
+     * Adds the usage of every bucket of {@param stats} to the ranges it overlaps, in proportion to
+     * the overlap like {@link NetworkStatsManager#querySummaryForDevice} does, so a single query
+     * spanning several ranges fills all of them. The ranges must be sorted and must not overlap.
+     *
+     * @param starts the start of each range
+     * @param ends the end of each range
+     * @param usages the usage of each range, which is added to
+     */
+    @VisibleForTesting
+    void addUsage(@Nullable NetworkStats stats, @NonNull long[] starts, @NonNull long[] ends,
+            @NonNull long[] usages) {
+        if (stats == null) {
+            return;
+        }
+        try {
+            while (hasNextBucket(stats)) {
+                final NetworkStats.Bucket bucket = getNextBucket(stats);
+                final long bucketStart = bucket.getStartTimeStamp();
+                final long bucketEnd = bucket.getEndTimeStamp();
+                final long bytes = bucket.getRxBytes() + bucket.getTxBytes();
+                final long duration = bucketEnd - bucketStart;
+                if (duration <= 0) {
+                    continue;
+                }
+                // The first range which ends after the bucket starts.
+                int low = 0;
+                int high = ends.length;
+                while (low < high) {
+                    final int mid = (low + high) >>> 1;
+                    if (ends[mid] <= bucketStart) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                for (int i = low; i < starts.length && starts[i] < bucketEnd; i++) {
+                    final long overlap = Math.min(bucketEnd, ends[i])
+                            - Math.max(bucketStart, starts[i]);
+                    if (overlap > 0) {
+                        usages[i] += overlap == duration
+                                ? bytes : Math.round((double) bytes * overlap / duration);
+                    }
+                }
+            }
+        } finally {
+            stats.close();
+        }
+    }
+
     @NonNull
     @VisibleForTesting
     Range getTimeRangeOf(@NonNull NetworkStats stats) {
@@ -16,31 +16,57 @@
 
 package com.android.settingslib.utils;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.Icon;
+import android.util.LruCache;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
-import androidx.collection.ArrayMap;
-
 
 /**
  * Icon cache to avoid multiple loads on the same icon.
+ *
+ * The cache is bounded by the memory used by its drawables and evicts the least recently used
+ * icons first. It can be registered through
+ * {@link Context#registerComponentCallbacks(android.content.ComponentCallbacks)} to shrink
+ * itself when the system is low on memory.
  */
-public class IconCache {
+public class IconCache implements ComponentCallbacks2 {
+    private static final float CACHE_RATIO = 0.05f;
+    // Rough estimate each pixel will use 4 bytes by default.
+    private static final int BYTES_PER_PIXEL = 4;
+
     private final Context mContext;
     @VisibleForTesting
-    final ArrayMap<Icon, Drawable> mMap = new ArrayMap<>();
+    final LruCache<Icon, Drawable> mCache;
 
     public IconCache(Context context) {
+        this(context, getDefaultMaxCacheInKb());
+    }
+
+    /**
+     * @param maxSizeInKb maximum memory, in kilobytes, used by the cached drawables.
+     */
+    public IconCache(Context context, int maxSizeInKb) {
         mContext = context;
+        mCache = new LruCache<Icon, Drawable>(maxSizeInKb) {
+            @Override
+            protected int sizeOf(Icon icon, Drawable drawable) {
+                return getSizeInKb(drawable);
+            }
+        };
     }
 
     public Drawable getIcon(Icon icon) {
         if (icon == null) {
             return null;
         }
-        Drawable drawable = mMap.get(icon);
+        Drawable drawable = mCache.get(icon);
         if (drawable == null) {
             drawable = icon.loadDrawable(mContext);
             updateIcon(icon, drawable);
@@ -49,6 +75,84 @@ public class IconCache {
     }
 
     public void updateIcon(Icon icon, Drawable drawable) {
-        mMap.put(icon, drawable);
+        if (drawable == null) {
+            mCache.remove(icon);
+            return;
+        }
+        mCache.put(icon, drawable);
+    }
+
+    /**
+     * @return the number of lookups which found a cached drawable.
+     */
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * @return the number of lookups which had to load the drawable.
+     */
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * @return the number of drawables evicted to stay within the size bound.
+     */
+    public int getEvictionCount() {
+        return mCache.evictionCount();
+    }
+
+    /**
+     * @return the memory, in kilobytes, currently accounted to the cached drawables.
+     */
+    public int getSizeInKb() {
+        return mCache.size();
+    }
+
+    /**
+     * Clears as much memory as possible.
+     *
+     * @see ComponentCallbacks2#onTrimMemory(int)
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            // Time to clear everything
+            mCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            // Tough time but still affordable, clear half of the cache
+            mCache.trimToSize(mCache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        mCache.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    @VisibleForTesting
+    static int getSizeInKb(Drawable drawable) {
+        int bytes = 0;
+        if (drawable instanceof BitmapDrawable) {
+            final Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+            if (bitmap != null) {
+                bytes = bitmap.getAllocationByteCount();
+            }
+        } else {
+            bytes = Math.max(drawable.getIntrinsicWidth(), 0)
+                    * Math.max(drawable.getIntrinsicHeight(), 0) * BYTES_PER_PIXEL;
+        }
+        // Account at least 1KB per entry so that drawables without a size still bound the cache.
+        return Math.max(1, bytes / 1024);
+    }
+
+    private static int getDefaultMaxCacheInKb() {
+        return Math.round(CACHE_RATIO * Runtime.getRuntime().maxMemory() / 1024);
     }
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settingslib.utils;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background executor behind {@link ThreadUtils#postOnBackgroundThread}.
+ *
+ * Tasks are submitted in one of the {@link ThreadUtils.Priority} lanes. UI and normal tasks share
+ * a pool whose queue always hands out UI tasks first, while bulk tasks run on their own smaller
+ * pool of background priority threads, so long running work such as indexing can never occupy
+ * the threads needed to load what is on screen. Queue depth and latency are tracked per lane and
+ * exposed through {@link #getLaneStats()}.
+ */
+public class PriorityExecutor {
+
+    private static final String[] LANE_NAMES = {"ui", "normal", "bulk"};
+
+    private final ThreadPoolExecutor mForegroundExecutor;
+    private final ThreadPoolExecutor mBulkExecutor;
+    private final Lane[] mLanes = new Lane[LANE_NAMES.length];
+    private final AtomicLong mSequence = new AtomicLong();
+
+    PriorityExecutor(int foregroundThreads, int bulkThreads) {
+        for (int i = 0; i < mLanes.length; i++) {
+            mLanes[i] = new Lane();
+        }
+        mForegroundExecutor = new ThreadPoolExecutor(foregroundThreads, foregroundThreads,
+                0L /* keepAliveTime */, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                new NamedThreadFactory("SettingsBg", Process.THREAD_PRIORITY_DEFAULT));
+        mBulkExecutor = new ThreadPoolExecutor(bulkThreads, bulkThreads,
+                0L /* keepAliveTime */, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                new NamedThreadFactory("SettingsBulk", Process.THREAD_PRIORITY_BACKGROUND));
+    }
+
+    /**
+     * Runs {@param callable} in the lane of {@param priority}.
+     */
+    public <T> Future<T> submit(Callable<T> callable, @ThreadUtils.Priority int priority) {
+        final PrioritizedTask<T> task = new PrioritizedTask<>(callable, priority);
+        mLanes[priority].mQueued.incrementAndGet();
+        if (priority == ThreadUtils.PRIORITY_BULK) {
+            mBulkExecutor.execute(task);
+        } else {
+            mForegroundExecutor.execute(task);
+        }
+        return task;
+    }
+
+    /**
+     * Runs {@param runnable} in the lane of {@param priority}.
+     */
+    public Future<?> submit(Runnable runnable, @ThreadUtils.Priority int priority) {
+        return submit(() -> {
+            runnable.run();
+            return null;
+        }, priority);
+    }
+
+    /**
+     * @return a snapshot of the metrics of each lane, ordered by priority.
+     */
+    public List<LaneStats> getLaneStats() {
+        final List<LaneStats> stats = new ArrayList<>(mLanes.length);
+        for (int i = 0; i < mLanes.length; i++) {
+            stats.add(new LaneStats(LANE_NAMES[i], mLanes[i]));
+        }
+        return stats;
+    }
+
+    /**
+     * Metrics of one lane since the executor was created.
+     */
+    public static class LaneStats {
+        public final String name;
+        /** Tasks waiting for a thread. */
+        public final int queued;
+        /** Tasks currently running. */
+        public final int active;
+        public final long completed;
+        public final long averageWaitMillis;
+        public final long maxWaitMillis;
+        public final long averageRunMillis;
+        public final long maxRunMillis;
+
+        LaneStats(String name, Lane lane) {
+            this.name = name;
+            queued = lane.mQueued.get();
+            active = lane.mActive.get();
+            completed = lane.mCompleted.get();
+            averageWaitMillis = completed == 0 ? 0 : lane.mTotalWaitMillis.get() / completed;
+            maxWaitMillis = lane.mMaxWaitMillis.get();
+            averageRunMillis = completed == 0 ? 0 : lane.mTotalRunMillis.get() / completed;
+            maxRunMillis = lane.mMaxRunMillis.get();
+        }
+
+        @Override
+        public String toString() {
+            return name + "{queued=" + queued + ", active=" + active + ", completed=" + completed
+                    + ", avgWait=" + averageWaitMillis + "ms, maxWait=" + maxWaitMillis
+                    + "ms, avgRun=" + averageRunMillis + "ms, maxRun=" + maxRunMillis + "ms}";
+        }
+    }
+
+    private static class Lane {
+        final AtomicInteger mQueued = new AtomicInteger();
+        final AtomicInteger mActive = new AtomicInteger();
+        final AtomicLong mCompleted = new AtomicLong();
+        final AtomicLong mTotalWaitMillis = new AtomicLong();
+        final AtomicLong mMaxWaitMillis = new AtomicLong();
+        final AtomicLong mTotalRunMillis = new AtomicLong();
+        final AtomicLong mMaxRunMillis = new AtomicLong();
+    }
+
+    private class PrioritizedTask<T> extends FutureTask<T>
+            implements Comparable<PrioritizedTask<?>> {
+        private final int mPriority;
+        private final long mSequence;
+        private final long mEnqueueTime;
+
+        PrioritizedTask(Callable<T> callable, int priority) {
+            super(callable);
+            mPriority = priority;
+            mSequence = PriorityExecutor.this.mSequence.getAndIncrement();
+            mEnqueueTime = SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void run() {
+            final Lane lane = mLanes[mPriority];
+            final long startTime = SystemClock.elapsedRealtime();
+            final long waitMillis = startTime - mEnqueueTime;
+            lane.mQueued.decrementAndGet();
+            lane.mActive.incrementAndGet();
+            try {
+                super.run();
+            } finally {
+                final long runMillis = SystemClock.elapsedRealtime() - startTime;
+                lane.mActive.decrementAndGet();
+                lane.mCompleted.incrementAndGet();
+                lane.mTotalWaitMillis.addAndGet(waitMillis);
+                lane.mMaxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+                lane.mTotalRunMillis.addAndGet(runMillis);
+                lane.mMaxRunMillis.accumulateAndGet(runMillis, Math::max);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> other) {
+            if (mPriority != other.mPriority) {
+                return Integer.compare(mPriority, other.mPriority);
+            }
+            return Long.compare(mSequence, other.mSequence);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String mPrefix;
+        private final int mThreadPriority;
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix, int threadPriority) {
+            mPrefix = prefix;
+            mThreadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(mThreadPriority);
+                runnable.run();
+            }, mPrefix + "-" + mCount.getAndIncrement());
+        }
+    }
+}
@@ -18,16 +18,33 @@ package com.android.settingslib.utils;
 import android.os.Handler;
 import android.os.Looper;
 
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 public class ThreadUtils {
 
+    /**
+     * Lanes of the shared background thread pool. Lower values are dequeued first.
+     */
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({PRIORITY_UI, PRIORITY_NORMAL, PRIORITY_BULK})
+    public @interface Priority {}
+
+    /** Work whose result is about to be shown, e.g. summaries of the screen being opened. */
+    public static final int PRIORITY_UI = 0;
+    /** Default priority of background work. */
+    public static final int PRIORITY_NORMAL = 1;
+    /** Long running work nobody is waiting on, e.g. indexing. Runs on separate threads. */
+    public static final int PRIORITY_BULK = 2;
+
     private static volatile Thread sMainThread;
     private static volatile Handler sMainThreadHandler;
-    private static volatile ExecutorService sThreadExecutor;
+    private static volatile PriorityExecutor sThreadExecutor;
 
     /**
      * Returns true if the current thread is the UI thread.
@@ -65,7 +82,17 @@ public class ThreadUtils {
      * @Return A future of the task that can be monitored for updates or cancelled.
      */
     public static Future postOnBackgroundThread(Runnable runnable) {
-        return getThreadExecutor().submit(runnable);
+        return postOnBackgroundThread(runnable, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Posts runnable in background using shared background thread pool, in the lane of
+     * {@param priority}.
+     *
+     * @Return A future of the task that can be monitored for updates or cancelled.
+     */
+    public static Future postOnBackgroundThread(Runnable runnable, @Priority int priority) {
+        return getThreadExecutor().submit(runnable, priority);
     }
 
     /**
@@ -74,7 +101,24 @@ public class ThreadUtils {
      * @Return A future of the task that can be monitored for updates or cancelled.
      */
     public static Future postOnBackgroundThread(Callable callable) {
-        return getThreadExecutor().submit(callable);
+        return postOnBackgroundThread(callable, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Posts callable in background using shared background thread pool, in the lane of
+     * {@param priority}.
+     *
+     * @Return A future of the task that can be monitored for updates or cancelled.
+     */
+    public static Future postOnBackgroundThread(Callable callable, @Priority int priority) {
+        return getThreadExecutor().submit(callable, priority);
+    }
+
+    /**
+     * Returns the queue depth and latency metrics of each lane of the shared background pool.
+     */
+    public static List<PriorityExecutor.LaneStats> getBackgroundThreadStats() {
+        return getThreadExecutor().getLaneStats();
     }
 
     /**
@@ -91,10 +135,10 @@ public class ThreadUtils {
         getUiThreadHandler().postDelayed(runnable, delayMillis);
     }
 
-    private static synchronized ExecutorService getThreadExecutor() {
+    private static synchronized PriorityExecutor getThreadExecutor() {
         if (sThreadExecutor == null) {
-            sThreadExecutor = Executors.newFixedThreadPool(
-                    Runtime.getRuntime().availableProcessors());
+            final int processors = Runtime.getRuntime().availableProcessors();
+            sThreadExecutor = new PriorityExecutor(processors, Math.max(1, processors / 2));
         }
         return sThreadExecutor;
     }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settingslib.utils;
+
+import android.util.AtomicFile;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary file backing an on-disk cache, written atomically and tagged with a magic number and a
+ * format version.
+ *
+ * The content is serialized by the caller through a {@link Writer} and a {@link Reader}. A file
+ * of another magic or format version is ignored, and an unreadable one is deleted. Instances for
+ * the same path share a lock. Several loaders sharing a file must save through
+ * {@link #update}, so they merge with what the others wrote instead of overwriting it.
+ */
+public class VersionedFile {
+
+    private static final String TAG = "VersionedFile";
+
+    private static final Map<String, Object> sLocks = new HashMap<>();
+
+    private final AtomicFile mFile;
+    private final int mMagic;
+    private final int mFormatVersion;
+    private final Object mLock;
+
+    /**
+     * Reads the content following the header.
+     */
+    public interface Reader {
+        /**
+         * @return {@code false} if the content is outdated and should be ignored.
+         */
+        boolean read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * Reads the content following the header from a memory mapped buffer.
+     */
+    public interface BufferReader {
+        /**
+         * @return {@code false} if the content is outdated and should be ignored.
+         */
+        boolean read(ByteBuffer buffer) throws IOException;
+    }
+
+    /**
+     * Writes the content following the header.
+     */
+    public interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    public VersionedFile(@NonNull File file, int magic, int formatVersion) {
+        mFile = new AtomicFile(file);
+        mMagic = magic;
+        mFormatVersion = formatVersion;
+        synchronized (sLocks) {
+            mLock = sLocks.computeIfAbsent(file.getAbsolutePath(), path -> new Object());
+        }
+    }
+
+    /**
+     * Reads the file through {@param reader}.
+     *
+     * @return {@code true} if the file exists, has the expected header and was accepted by
+     * {@param reader}. Otherwise whatever {@param reader} read so far should be discarded.
+     */
+    public boolean read(@NonNull Reader reader) {
+        synchronized (mLock) {
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(mFile.openRead()))) {
+                return in.readInt() == mMagic && in.readInt() == mFormatVersion
+                        && reader.read(in);
+            } catch (FileNotFoundException e) {
+                // Nothing is written yet.
+                return false;
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Discarding unreadable " + mFile.getBaseFile(), e);
+                mFile.delete();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #read(Reader)}, but maps the file in memory for {@param reader} instead of
+     * copying it through a stream.
+     */
+    public boolean readMapped(@NonNull BufferReader reader) {
+        synchronized (mLock) {
+            try (FileInputStream in = mFile.openRead();
+                 FileChannel channel = in.getChannel()) {
+                final ByteBuffer buffer =
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return buffer.getInt() == mMagic && buffer.getInt() == mFormatVersion
+                        && reader.read(buffer);
+            } catch (FileNotFoundException e) {
+                // Nothing is written yet.
+                return false;
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "Discarding unreadable " + mFile.getBaseFile(), e);
+                mFile.delete();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Replaces the file with the header followed by what {@param writer} writes.
+     *
+     * @return whether the file was written.
+     */
+    public boolean write(@NonNull Writer writer) {
+        synchronized (mLock) {
+            final File dir = mFile.getBaseFile().getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                Log.w(TAG, "Unable to create " + dir);
+                return false;
+            }
+            FileOutputStream fileOut = null;
+            try {
+                fileOut = mFile.startWrite();
+                final DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(fileOut));
+                out.writeInt(mMagic);
+                out.writeInt(mFormatVersion);
+                writer.write(out);
+                out.flush();
+                mFile.finishWrite(fileOut);
+                return true;
+            } catch (IOException e) {
+                Log.w(TAG, "Unable to write " + mFile.getBaseFile(), e);
+                mFile.failWrite(fileOut);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Reads the file through {@param reader}, then replaces it with what {@param writer} writes.
+     * No other instance for the same path writes the file in between. {@param writer} is called
+     * even if the file could not be read, see {@link #read}.
+     *
+     * @return whether the file was written.
+     */
+    public boolean update(@NonNull Reader reader, @NonNull Writer writer) {
+        synchronized (mLock) {
+            read(reader);
+            return write(writer);
+        }
+    }
+
+    /**
+     * Deletes the file.
+     */
+    public void delete() {
+        synchronized (mLock) {
+            mFile.delete();
+        }
+    }
+}
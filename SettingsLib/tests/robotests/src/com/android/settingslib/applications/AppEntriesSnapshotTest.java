@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settingslib.applications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppEntriesSnapshotTest {
+
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final String LOCALES = "en-US";
+
+    private Context mContext;
+    private File mFile;
+    private AppEntriesSnapshot mSnapshot;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mFile = new File(mContext.getCacheDir(), "snapshot");
+        mSnapshot = new AppEntriesSnapshot(mFile);
+    }
+
+    @Test
+    public void saveAndLoad_sameLocales_restoresEntry() {
+        final AppEntry entry = createEntry(createApplicationInfo("dir1", 1L));
+        entry.isHomeApp = true;
+        entry.size = 100L;
+        entry.codeSize = 60L;
+        entry.dataSize = 40L;
+        mSnapshot.save(AppEntriesSnapshot.toRecords(Collections.singletonList(entry)), LOCALES);
+
+        final AppEntriesSnapshot snapshot = new AppEntriesSnapshot(mFile);
+        snapshot.load(LOCALES);
+        final ApplicationInfo info = createApplicationInfo("dir1", 1L);
+        final AppEntry restored = new AppEntry(mContext, info, 2L, snapshot.get(info));
+
+        assertThat(restored.restoredFromSnapshot).isTrue();
+        assertThat(restored.label).isEqualTo("label");
+        assertThat(restored.getNormalizedLabel()).isEqualTo("label");
+        assertThat(restored.isHomeApp).isTrue();
+        assertThat(restored.hasLauncherEntry).isFalse();
+        assertThat(restored.size).isEqualTo(100L);
+        assertThat(restored.codeSize).isEqualTo(60L);
+        assertThat(restored.dataSize).isEqualTo(40L);
+        assertThat(restored.sizeStale).isTrue();
+    }
+
+    @Test
+    public void load_otherLocales_hasNoRecord() {
+        final AppEntry entry = createEntry(createApplicationInfo("dir1", 1L));
+        entry.size = 100L;
+        mSnapshot.save(AppEntriesSnapshot.toRecords(Collections.singletonList(entry)), LOCALES);
+
+        mSnapshot.load("fr-FR");
+
+        assertThat(mSnapshot.get(createApplicationInfo("dir1", 1L))).isNull();
+    }
+
+    @Test
+    public void get_packageUpdated_returnsNull() {
+        final AppEntry entry = createEntry(createApplicationInfo("dir1", 1L));
+        entry.size = 100L;
+        mSnapshot.save(AppEntriesSnapshot.toRecords(Collections.singletonList(entry)), LOCALES);
+
+        mSnapshot.load(LOCALES);
+
+        assertThat(mSnapshot.get(createApplicationInfo("dir1", 1L))).isNotNull();
+        assertThat(mSnapshot.get(createApplicationInfo("dir2", 1L))).isNull();
+        assertThat(mSnapshot.get(createApplicationInfo("dir1", 2L))).isNull();
+    }
+
+    @Test
+    public void toRecords_unknownSize_skipsEntry() {
+        final AppEntry entry = createEntry(createApplicationInfo("dir1", 1L));
+
+        assertThat(AppEntriesSnapshot.toRecords(Collections.singletonList(entry))).isEmpty();
+    }
+
+    @Test
+    public void load_noFile_hasNoRecord() {
+        mSnapshot.load(LOCALES);
+
+        assertThat(mSnapshot.get(createApplicationInfo("dir1", 1L))).isNull();
+    }
+
+    private AppEntry createEntry(ApplicationInfo info) {
+        final AppEntry entry = new AppEntry(mContext, info, 1L);
+        entry.label = "label";
+        entry.mounted = true;
+        return entry;
+    }
+
+    private static ApplicationInfo createApplicationInfo(String sourceDir, long versionCode) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = PACKAGE_NAME;
+        info.sourceDir = sourceDir;
+        info.longVersionCode = versionCode;
+        info.flags |= ApplicationInfo.FLAG_INSTALLED;
+        return info;
+    }
+}
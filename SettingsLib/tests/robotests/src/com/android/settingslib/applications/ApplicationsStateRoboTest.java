@@ -363,6 +363,24 @@ public class ApplicationsStateRoboTest {
         assertThat(launchableEntry.size).isGreaterThan(0L);
     }
 
+    @Test
+    public void testDefaultSession_moreEntriesThanBatchSize_loadsAllIconsAndSizes() {
+        mSession.onResume();
+
+        final int appCount = ApplicationsState.ICON_BATCH_SIZE * 2 + 1;
+        for (int i = 1; i <= appCount; i++) {
+            addApp(PKG_1 + i, i);
+        }
+        mSession.rebuild(ApplicationsState.FILTER_EVERYTHING, ApplicationsState.ALPHA_COMPARATOR);
+        processAllMessages();
+
+        for (AppEntry appEntry : mApplicationsState.mAppEntries) {
+            assertThat(appEntry.icon).isNotNull();
+            assertThat(appEntry.size).isGreaterThan(0L);
+        }
+        verify(mCallbacks).onAllSizesComputed();
+    }
+
     @Test
     public void testCustomSessionLoadsHomeOnly() {
         mSession.setSessionFlags(ApplicationsState.FLAG_SESSION_REQUEST_HOME_APP);
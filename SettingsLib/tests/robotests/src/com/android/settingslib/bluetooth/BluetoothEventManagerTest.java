@@ -21,6 +21,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -44,6 +45,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -474,4 +476,35 @@ public class BluetoothEventManagerTest {
         verify(mErrorListener).onShowError(any(Context.class), eq(DEVICE_NAME),
                 eq(R.string.bluetooth_pairing_pin_error_message));
     }
+
+    @Test
+    public void dispatchDeviceAdded_coalescingCallback_dispatchesAddedDevicesOnce() {
+        final BluetoothCallback coalescingCallback = mock(BluetoothCallback.class);
+        mBluetoothEventManager.registerCallback(mBluetoothCallback);
+        mBluetoothEventManager.registerCoalescingCallback(coalescingCallback);
+
+        mBluetoothEventManager.dispatchDeviceAdded(mCachedDevice1);
+        mBluetoothEventManager.dispatchDeviceAdded(mCachedDevice2);
+        mBluetoothEventManager.dispatchDeviceAdded(mCachedDevice1);
+
+        verify(mBluetoothCallback, times(2)).onDeviceAdded(mCachedDevice1);
+        verify(mBluetoothCallback).onDeviceAdded(mCachedDevice2);
+        verify(coalescingCallback, never()).onDevicesAdded(any());
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        verify(coalescingCallback).onDevicesAdded(List.of(mCachedDevice1, mCachedDevice2));
+        verify(coalescingCallback, never()).onDeviceAdded(any());
+    }
+
+    @Test
+    public void dispatchDeviceRemoved_pendingAddedDevice_notDispatchedToCoalescingCallback() {
+        final BluetoothCallback coalescingCallback = mock(BluetoothCallback.class);
+        mBluetoothEventManager.registerCoalescingCallback(coalescingCallback);
+
+        mBluetoothEventManager.dispatchDeviceAdded(mCachedDevice1);
+        mBluetoothEventManager.dispatchDeviceAdded(mCachedDevice2);
+        mBluetoothEventManager.dispatchDeviceRemoved(mCachedDevice1);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        verify(coalescingCallback).onDevicesAdded(List.of(mCachedDevice2));
+    }
 }
@@ -26,9 +26,11 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothClass;
 import android.bluetooth.BluetoothCsipSetCoordinator;
 import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothProfile;
 import android.bluetooth.BluetoothUuid;
 import android.content.Context;
 import android.os.Parcel;
@@ -247,6 +249,66 @@ public class CachedBluetoothDeviceManagerTest {
         assertThat(mCachedDeviceManager.findDevice(mDevice2)).isEqualTo(cachedDevice2);
     }
 
+    /**
+     * Test to verify findDevice(), non-bonded member device is cleared from the group.
+     */
+    @Test
+    public void findDevice_memberDeviceCleared_returnsNull() {
+        doReturn(CAP_GROUP1).when(mCsipSetCoordinatorProfile).getGroupUuidMapByDevice(mDevice1);
+        doReturn(CAP_GROUP1).when(mCsipSetCoordinatorProfile).getGroupUuidMapByDevice(mDevice2);
+        when(mDevice1.getBondState()).thenReturn(BluetoothDevice.BOND_BONDED);
+        when(mDevice2.getBondState()).thenReturn(BluetoothDevice.BOND_NONE);
+        CachedBluetoothDevice cachedDevice1 = mCachedDeviceManager.addDevice(mDevice1);
+        CachedBluetoothDevice cachedDevice2 = mCachedDeviceManager.addDevice(mDevice2);
+        assertThat(cachedDevice1.getMemberDevice()).contains(cachedDevice2);
+        assertThat(mCachedDeviceManager.findDevice(mDevice2)).isEqualTo(cachedDevice2);
+
+        mCachedDeviceManager.clearNonBondedDevices();
+
+        assertThat(mCachedDeviceManager.findDevice(mDevice1)).isEqualTo(cachedDevice1);
+        assertThat(mCachedDeviceManager.findDevice(mDevice2)).isNull();
+    }
+
+    /**
+     * Test to verify findDevice(), main device and its sub device are cleared when Bluetooth is
+     * turning off.
+     */
+    @Test
+    public void findDevice_mainDeviceCleared_returnsNull() {
+        doAnswer((invocation) -> HISYNCID1).when(mHearingAidProfile).getHiSyncId(mDevice1);
+        doAnswer((invocation) -> HISYNCID1).when(mHearingAidProfile).getHiSyncId(mDevice2);
+        when(mDevice1.getBondState()).thenReturn(BluetoothDevice.BOND_NONE);
+        when(mDevice2.getBondState()).thenReturn(BluetoothDevice.BOND_NONE);
+        CachedBluetoothDevice cachedDevice1 = mCachedDeviceManager.addDevice(mDevice1);
+        CachedBluetoothDevice cachedDevice2 = mCachedDeviceManager.addDevice(mDevice2);
+        assertThat(cachedDevice1.getSubDevice()).isEqualTo(cachedDevice2);
+
+        mCachedDeviceManager.onBluetoothStateChanged(BluetoothAdapter.STATE_TURNING_OFF);
+
+        assertThat(mCachedDeviceManager.findDevice(mDevice1)).isNull();
+        assertThat(mCachedDeviceManager.findDevice(mDevice2)).isNull();
+    }
+
+    /**
+     * Test to verify findDevice(), main and sub device switch content when only the sub device
+     * connects.
+     */
+    @Test
+    public void findDevice_subDeviceConnected_returnsSwitchedDevices() {
+        doAnswer((invocation) -> HISYNCID1).when(mHearingAidProfile).getHiSyncId(mDevice1);
+        doAnswer((invocation) -> HISYNCID1).when(mHearingAidProfile).getHiSyncId(mDevice2);
+        CachedBluetoothDevice cachedDevice1 = mCachedDeviceManager.addDevice(mDevice1);
+        CachedBluetoothDevice cachedDevice2 = mCachedDeviceManager.addDevice(mDevice2);
+        assertThat(cachedDevice1.getSubDevice()).isEqualTo(cachedDevice2);
+
+        mCachedDeviceManager.onProfileConnectionStateChangedIfProcessed(cachedDevice2,
+                BluetoothProfile.STATE_CONNECTED, BluetoothProfile.HEARING_AID);
+
+        assertThat(cachedDevice1.getDevice()).isEqualTo(mDevice2);
+        assertThat(mCachedDeviceManager.findDevice(mDevice1)).isEqualTo(cachedDevice2);
+        assertThat(mCachedDeviceManager.findDevice(mDevice2)).isEqualTo(cachedDevice1);
+    }
+
     /**
      * Test to verify getName().
      */
@@ -18,7 +18,9 @@ package com.android.settingslib.license;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.xmlpull.v1.XmlPullParserException;
@@ -29,6 +31,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -39,6 +43,9 @@ import java.util.Set;
 
 @RunWith(RobolectricTestRunner.class)
 public class LicenseHtmlGeneratorFromXmlTest {
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
     private static final String VALID_OLD_XML_STRING =
             "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
             + "<licenses>\n"
@@ -317,4 +324,45 @@ public class LicenseHtmlGeneratorFromXmlTest {
                 new PrintWriter(output), HTML_CUSTOM_HEADING);
         assertThat(output.toString()).isEqualTo(EXPECTED_NEW_HTML_STRING_WITH_CUSTOM_HEADING);
     }
+
+    @Test
+    public void testGenerateHtmlFromFiles_sameAsFromParsedMaps() throws Exception {
+        List<File> xmlFiles = new ArrayList<>();
+        xmlFiles.add(writeXmlFile("first.xml", VALID_NEW_XML_STRING));
+        xmlFiles.add(writeXmlFile("second.xml",
+                "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                + "<licenses>\n"
+                + "<file-name contentId=\"1\">/file2</file-name>\n"
+                + "<file-name contentId=\"0\" lib=\"libC\">/file3</file-name>\n"
+                + "<file-content contentId=\"1\"><![CDATA[license content #1]]></file-content>\n"
+                + "<file-content contentId=\"0\"><![CDATA[ignored content]]></file-content>\n"
+                + "</licenses>"));
+        File outputFile = new File(mTemporaryFolder.getRoot(), "NOTICE.html");
+
+        assertThat(LicenseHtmlGeneratorFromXml.generateHtml(
+                xmlFiles, outputFile, HTML_CUSTOM_HEADING)).isTrue();
+
+        Map<String, Map<String, Set<String>>> fileNameToLibraryToContentIdMap = new HashMap<>();
+        Map<String, String> contentIdToFileContentMap = new HashMap<>();
+        for (File xmlFile : xmlFiles) {
+            LicenseHtmlGeneratorFromXml.parse(
+                    new InputStreamReader(new ByteArrayInputStream(
+                            Files.readAllBytes(xmlFile.toPath()))),
+                    fileNameToLibraryToContentIdMap, contentIdToFileContentMap);
+        }
+        StringWriter expected = new StringWriter();
+        LicenseHtmlGeneratorFromXml.generateHtml(
+                xmlFiles, fileNameToLibraryToContentIdMap, contentIdToFileContentMap,
+                new PrintWriter(expected), HTML_CUSTOM_HEADING);
+        assertThat(new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8))
+                .isEqualTo(expected.toString());
+        assertThat(mTemporaryFolder.getRoot().list())
+                .asList().containsExactly("first.xml", "second.xml", "NOTICE.html");
+    }
+
+    private File writeXmlFile(String name, String content) throws IOException {
+        File file = mTemporaryFolder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.android.settingslib.location;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.os.UserHandle;
+
+import androidx.preference.Preference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class SettingsInjectorTest {
+
+    private static final String PACKAGE_NAME = "com.example.location";
+    private static final long STATUS_TIMEOUT_MILLIS = 1000;
+
+    @Mock
+    private ActivityManager mActivityManager;
+    private Context mContext;
+    private final List<Intent> mStartedServices = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        when(mContext.getSystemService(Context.ACTIVITY_SERVICE)).thenReturn(mActivityManager);
+        when(mActivityManager.isUserRunning(anyInt())).thenReturn(true);
+        doAnswer(invocation -> {
+            mStartedServices.add(invocation.getArgument(0));
+            return null;
+        }).when(mContext).startServiceAsUser(any(Intent.class), any(UserHandle.class));
+    }
+
+    @Test
+    public void reloadStatusMessages_moreSettingsThanLimit_startsOnlyLimit() {
+        final SettingsInjector injector = createInjector(/* maxConcurrentStatusLoads= */ 2,
+                "Service1", "Service2", "Service3");
+
+        injector.reloadStatusMessages();
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mStartedServices).hasSize(2);
+    }
+
+    @Test
+    public void reloadStatusMessages_settingBeingLoaded_startsItAgainOnlyAfterStatus()
+            throws RemoteException {
+        final SettingsInjector injector = createInjector(/* maxConcurrentStatusLoads= */ 2,
+                "Service1");
+
+        injector.reloadStatusMessages();
+        ShadowLooper.idleMainLooper();
+        injector.reloadStatusMessages();
+        ShadowLooper.idleMainLooper();
+
+        // Queued again, but not started while its first load is pending.
+        assertThat(mStartedServices).hasSize(1);
+
+        final Messenger messenger =
+                mStartedServices.get(0).getParcelableExtra(SettingInjectorService.MESSENGER_KEY);
+        messenger.send(Message.obtain());
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mStartedServices).hasSize(2);
+    }
+
+    @Test
+    public void reloadStatusMessages_settingTimedOut_startsNextSetting() {
+        final SettingsInjector injector = createInjector(/* maxConcurrentStatusLoads= */ 1,
+                "Service1", "Service2");
+
+        injector.reloadStatusMessages();
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mStartedServices).hasSize(1);
+
+        ShadowLooper.idleMainLooper(STATUS_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertThat(mStartedServices).hasSize(2);
+        assertThat(mStartedServices.get(1).getComponent())
+                .isNotEqualTo(mStartedServices.get(0).getComponent());
+    }
+
+    private SettingsInjector createInjector(int maxConcurrentStatusLoads, String... classNames) {
+        final SettingsInjector injector = new SettingsInjector(mContext, maxConcurrentStatusLoads);
+        for (String className : classNames) {
+            final InjectedSetting setting = new InjectedSetting.Builder()
+                    .setPackageName(PACKAGE_NAME)
+                    .setClassName(className)
+                    .setTitle(className)
+                    .setSettingsActivity(className)
+                    .setUserHandle(UserHandle.CURRENT)
+                    .build();
+            injector.mSettings.add(injector.new Setting(setting, new Preference(mContext)));
+        }
+        return injector;
+    }
+}
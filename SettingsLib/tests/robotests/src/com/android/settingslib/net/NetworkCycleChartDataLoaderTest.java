@@ -16,9 +16,15 @@
 
 package com.android.settingslib.net;
 
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.app.usage.NetworkStats;
 import android.app.usage.NetworkStatsManager;
 import android.content.Context;
 import android.net.NetworkPolicy;
@@ -26,6 +32,7 @@ import android.net.NetworkPolicyManager;
 import android.net.NetworkTemplate;
 import android.os.RemoteException;
 import android.text.format.DateUtils;
+import android.util.Range;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -34,6 +41,9 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @RunWith(RobolectricTestRunner.class)
 public class NetworkCycleChartDataLoaderTest {
 
@@ -59,7 +69,7 @@ public class NetworkCycleChartDataLoaderTest {
     }
 
     @Test
-    public void recordUsage_shouldQueryNetworkSummaryForDevice() throws RemoteException {
+    public void recordUsage_shouldQueryNetworkDetailsForDevice() throws RemoteException {
         final long end = System.currentTimeMillis();
         final long start = end - (DateUtils.WEEK_IN_MILLIS * 4);
         mLoader = NetworkCycleChartDataLoader.builder(mContext)
@@ -68,6 +78,50 @@ public class NetworkCycleChartDataLoaderTest {
 
         mLoader.recordUsage(start, end);
 
-        verify(mNetworkStatsManager).querySummaryForDevice(mNetworkTemplate, start, end);
+        verify(mNetworkStatsManager).queryDetailsForDevice(mNetworkTemplate, start, end);
+    }
+
+    @Test
+    public void recordUsage_multipleCycles_shouldQueryOnceAndFillDailyBuckets() {
+        final long start = 0L;
+        final long middle = start + DateUtils.DAY_IN_MILLIS * 2;
+        // The second cycle ends half a day after its last whole day.
+        final long end = middle + DateUtils.DAY_IN_MILLIS * 5 / 2;
+        mLoader = spy(NetworkCycleChartDataLoader.builder(mContext)
+                .setNetworkTemplate(mNetworkTemplate)
+                .build());
+        final NetworkStats stats = mock(NetworkStats.class);
+        when(mNetworkStatsManager.queryDetailsForDevice(mNetworkTemplate, start, end))
+                .thenReturn(stats);
+        doReturn(true).doReturn(true).doReturn(false).when(mLoader).hasNextBucket(stats);
+        doReturn(makeMockBucket(start, middle, 200L))
+                .doReturn(makeMockBucket(end - DateUtils.DAY_IN_MILLIS, end, 100L))
+                .when(mLoader).getNextBucket(stats);
+
+        mLoader.recordUsage(List.of(new Range<>(middle, end), new Range<>(start, middle)));
+
+        verify(mNetworkStatsManager).queryDetailsForDevice(mNetworkTemplate, start, end);
+        final List<NetworkCycleChartData> data = mLoader.getCycleUsage();
+        assertThat(data).hasSize(2);
+        assertThat(data.get(0).getTotalUsage()).isEqualTo(100L);
+        assertThat(getBucketUsages(data.get(0))).containsExactly(0L, 50L).inOrder();
+        assertThat(data.get(1).getTotalUsage()).isEqualTo(200L);
+        assertThat(getBucketUsages(data.get(1))).containsExactly(100L, 100L).inOrder();
+    }
+
+    private static List<Long> getBucketUsages(NetworkCycleChartData data) {
+        final List<Long> usages = new ArrayList<>();
+        for (NetworkCycleData bucket : data.getUsageBuckets()) {
+            usages.add(bucket.getTotalUsage());
+        }
+        return usages;
+    }
+
+    private static NetworkStats.Bucket makeMockBucket(long start, long end, long rxBytes) {
+        final NetworkStats.Bucket bucket = mock(NetworkStats.Bucket.class);
+        when(bucket.getStartTimeStamp()).thenReturn(start);
+        when(bucket.getEndTimeStamp()).thenReturn(end);
+        when(bucket.getRxBytes()).thenReturn(rxBytes);
+        return bucket;
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settingslib.net;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+
+@RunWith(RobolectricTestRunner.class)
+public class NetworkCycleDataCacheTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mFile = new File(context.getCacheDir(), "test_network_cycle_data");
+        mFile.delete();
+    }
+
+    @Test
+    public void get_afterSaveAndLoad_returnsSameValues() {
+        final NetworkCycleDataCache cache = new NetworkCycleDataCache(mFile);
+        cache.load();
+        cache.put("key", new long[] {1L, 2L, 3L});
+        cache.save();
+
+        final NetworkCycleDataCache loadedCache = new NetworkCycleDataCache(mFile);
+        loadedCache.load();
+
+        assertThat(loadedCache.get("key")).asList().containsExactly(1L, 2L, 3L).inOrder();
+        assertThat(loadedCache.get("other")).isNull();
+    }
+
+    @Test
+    public void save_twoCachesSharingFile_keepsValuesOfBoth() {
+        final NetworkCycleDataCache cache = new NetworkCycleDataCache(mFile);
+        cache.load();
+        final NetworkCycleDataCache otherCache = new NetworkCycleDataCache(mFile);
+        otherCache.load();
+        cache.put("key", new long[] {1L});
+        otherCache.put("other", new long[] {2L});
+        cache.save();
+        otherCache.save();
+
+        final NetworkCycleDataCache loadedCache = new NetworkCycleDataCache(mFile);
+        loadedCache.load();
+
+        assertThat(loadedCache.get("key")).asList().containsExactly(1L);
+        assertThat(loadedCache.get("other")).asList().containsExactly(2L);
+    }
+
+    @Test
+    public void save_moreThanMaxSize_dropsOldestValues() {
+        final NetworkCycleDataCache cache = new NetworkCycleDataCache(mFile);
+        cache.load();
+        for (int i = 0; i <= NetworkCycleDataCache.MAX_SIZE; i++) {
+            cache.put("key" + i, new long[] {i});
+        }
+        cache.save();
+
+        final NetworkCycleDataCache loadedCache = new NetworkCycleDataCache(mFile);
+        loadedCache.load();
+
+        assertThat(loadedCache.get("key0")).isNull();
+        assertThat(loadedCache.get("key" + NetworkCycleDataCache.MAX_SIZE)).isNotNull();
+    }
+
+    @Test
+    public void isClosed_onlyForCyclesEndedLongEnoughAgo() {
+        final long now = System.currentTimeMillis();
+
+        assertThat(NetworkCycleDataCache.isClosed(
+                now - NetworkCycleDataCache.CLOSED_CYCLE_DELAY_MS * 2)).isTrue();
+        assertThat(NetworkCycleDataCache.isClosed(now)).isFalse();
+    }
+}
@@ -20,8 +20,13 @@ import static android.app.usage.NetworkStats.Bucket.STATE_ALL;
 import static android.app.usage.NetworkStats.Bucket.STATE_FOREGROUND;
 import static android.net.NetworkStats.TAG_NONE;
 
+import static com.google.common.truth.Truth.assertThat;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -34,6 +39,7 @@ import android.net.NetworkPolicyManager;
 import android.net.NetworkStats;
 import android.net.NetworkTemplate;
 import android.text.format.DateUtils;
+import android.util.Range;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -42,6 +48,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 
+import java.util.List;
 import java.util.Set;
 
 @RunWith(RobolectricTestRunner.class)
@@ -80,7 +87,7 @@ public class NetworkCycleDataForUidLoaderTest {
                 .addUid(uid)
                 .setNetworkTemplate(mNetworkTemplate)
                 .build());
-        doReturn(1024L).when(mLoader).getTotalUsage(any());
+        mockUsage(start, end, 1024L);
 
         mLoader.recordUsage(start, end);
 
@@ -95,7 +102,7 @@ public class NetworkCycleDataForUidLoaderTest {
         final int uid = 1;
         mLoader = spy(NetworkCycleDataForUidLoader.builder(mContext)
                 .setRetrieveDetail(false).addUid(uid).build());
-        doReturn(1024L).when(mLoader).getTotalUsage(any());
+        mockUsage(start, end, 1024L);
 
         mLoader.recordUsage(start, end);
         verify(mNetworkStatsManager, never()).queryDetailsForUidTagState(
@@ -112,7 +119,7 @@ public class NetworkCycleDataForUidLoaderTest {
                 .addUid(3)
                 .setNetworkTemplate(mNetworkTemplate)
                 .build());
-        doReturn(1024L).when(mLoader).getTotalUsage(any());
+        mockUsage(start, end, 1024L);
 
         mLoader.recordUsage(start, end);
 
@@ -124,4 +131,42 @@ public class NetworkCycleDataForUidLoaderTest {
                 TAG_NONE, STATE_ALL);
     }
 
+    @Test
+    public void recordUsage_multipleCycles_shouldQueryOnceAndSplitUsage() {
+        final long end = System.currentTimeMillis();
+        final long middle = end - DateUtils.WEEK_IN_MILLIS;
+        final long start = middle - DateUtils.WEEK_IN_MILLIS;
+        final int uid = 1;
+        mLoader = spy(NetworkCycleDataForUidLoader.builder(mContext)
+                .addUid(uid)
+                .setRetrieveDetail(false)
+                .setNetworkTemplate(mNetworkTemplate)
+                .build());
+        // One bucket spanning the last day of the first cycle and the first day of the second.
+        mockUsage(middle - DateUtils.DAY_IN_MILLIS, middle + DateUtils.DAY_IN_MILLIS, 2048L);
+
+        mLoader.recordUsage(List.of(new Range<>(middle, end), new Range<>(start, middle)));
+
+        verify(mNetworkStatsManager).queryDetailsForUidTagState(
+                mNetworkTemplate, start, end, uid, TAG_NONE, STATE_ALL);
+        final List<NetworkCycleDataForUid> data = mLoader.getCycleUsage();
+        assertThat(data).hasSize(2);
+        assertThat(data.get(0).getStartTime()).isEqualTo(middle);
+        assertThat(data.get(0).getTotalUsage()).isEqualTo(1024L);
+        assertThat(data.get(1).getStartTime()).isEqualTo(start);
+        assertThat(data.get(1).getTotalUsage()).isEqualTo(1024L);
+    }
+
+    private void mockUsage(long start, long end, long bytes) {
+        final android.app.usage.NetworkStats stats = mock(android.app.usage.NetworkStats.class);
+        final android.app.usage.NetworkStats.Bucket bucket =
+                mock(android.app.usage.NetworkStats.Bucket.class);
+        when(bucket.getStartTimeStamp()).thenReturn(start);
+        when(bucket.getEndTimeStamp()).thenReturn(end);
+        when(bucket.getRxBytes()).thenReturn(bytes);
+        when(mNetworkStatsManager.queryDetailsForUidTagState(
+                any(), anyLong(), anyLong(), anyInt(), anyInt(), anyInt())).thenReturn(stats);
+        doReturn(true).doReturn(false).when(mLoader).hasNextBucket(stats);
+        doReturn(bucket).when(mLoader).getNextBucket(stats);
+    }
 }
@@ -26,7 +26,10 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.Icon;
 
@@ -67,6 +70,58 @@ public class IconCacheTest {
     @Test
     public void testGetIcon_iconLoadedFirstTime() {
         mIconCache.getIcon(mIcon);
-        assertTrue(mIconCache.mMap.containsKey(mIcon));
+        assertTrue(mIconCache.mCache.snapshot().containsKey(mIcon));
+    }
+
+    @Test
+    public void testGetIcon_countsHitsAndMisses() {
+        mIconCache.getIcon(mIcon);
+        mIconCache.getIcon(mIcon);
+        mIconCache.getIcon(mIcon);
+
+        assertThat(mIconCache.getMissCount()).isEqualTo(1);
+        assertThat(mIconCache.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testUpdateIcon_exceedsMaxSize_evictsLeastRecentlyUsed() {
+        final IconCache iconCache = new IconCache(mContext, 2 /* maxSizeInKb */);
+        final Icon first = mock(Icon.class);
+        final Icon second = mock(Icon.class);
+        final Icon third = mock(Icon.class);
+
+        iconCache.updateIcon(first, mock(Drawable.class));
+        iconCache.updateIcon(second, mock(Drawable.class));
+        iconCache.getIcon(first);
+        iconCache.updateIcon(third, mock(Drawable.class));
+
+        assertThat(iconCache.mCache.snapshot().keySet()).containsExactly(first, third);
+        assertThat(iconCache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetSizeInKb_bitmapDrawable_accountsBitmapBytes() {
+        final Bitmap bitmap = Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888);
+        final BitmapDrawable drawable = new BitmapDrawable(mContext.getResources(), bitmap);
+
+        assertThat(IconCache.getSizeInKb(drawable)).isEqualTo(16);
+    }
+
+    @Test
+    public void testGetSizeInKb_otherDrawable_estimatesFromIntrinsicSize() {
+        final Drawable drawable = mock(Drawable.class);
+        doReturn(32).when(drawable).getIntrinsicWidth();
+        doReturn(32).when(drawable).getIntrinsicHeight();
+
+        assertThat(IconCache.getSizeInKb(drawable)).isEqualTo(4);
+    }
+
+    @Test
+    public void testOnTrimMemory_background_clearsCache() {
+        mIconCache.getIcon(mIcon);
+
+        mIconCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        assertThat(mIconCache.getSizeInKb()).isEqualTo(0);
     }
 }
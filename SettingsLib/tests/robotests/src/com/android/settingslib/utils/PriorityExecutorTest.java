@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settingslib.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class PriorityExecutorTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private PriorityExecutor mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = new PriorityExecutor(1 /* foregroundThreads */, 1 /* bulkThreads */);
+    }
+
+    @Test
+    public void submit_queuedTasks_runUiTasksFirst() throws Exception {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final List<String> order = new CopyOnWriteArrayList<>();
+        mExecutor.submit(() -> awaitQuietly(blocker), ThreadUtils.PRIORITY_NORMAL);
+        mExecutor.submit(() -> order.add("normal1"), ThreadUtils.PRIORITY_NORMAL);
+        mExecutor.submit(() -> order.add("normal2"), ThreadUtils.PRIORITY_NORMAL);
+        final Future<?> last = mExecutor.submit(() -> order.add("ui"), ThreadUtils.PRIORITY_UI);
+
+        blocker.countDown();
+        last.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        waitForQueue(ThreadUtils.PRIORITY_NORMAL);
+
+        assertThat(order).containsExactly("ui", "normal1", "normal2").inOrder();
+    }
+
+    @Test
+    public void submit_bulkTask_doesNotBlockUiTasks() throws Exception {
+        final CountDownLatch blocker = new CountDownLatch(1);
+        mExecutor.submit(() -> awaitQuietly(blocker), ThreadUtils.PRIORITY_BULK);
+
+        final String threadName = mExecutor.submit(() -> Thread.currentThread().getName(),
+                ThreadUtils.PRIORITY_UI).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        blocker.countDown();
+        assertThat(threadName).startsWith("SettingsBg-");
+    }
+
+    @Test
+    public void submit_bulkTask_runsOnNamedBulkThread() throws Exception {
+        final String threadName = mExecutor.submit(() -> Thread.currentThread().getName(),
+                ThreadUtils.PRIORITY_BULK).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertThat(threadName).startsWith("SettingsBulk-");
+    }
+
+    @Test
+    public void getLaneStats_countsCompletedTasksPerLane() throws Exception {
+        mExecutor.submit(() -> { }, ThreadUtils.PRIORITY_UI).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        mExecutor.submit(() -> { }, ThreadUtils.PRIORITY_BULK)
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        mExecutor.submit(() -> { }, ThreadUtils.PRIORITY_BULK)
+                .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        waitForQueue(ThreadUtils.PRIORITY_BULK);
+
+        final List<PriorityExecutor.LaneStats> stats = mExecutor.getLaneStats();
+
+        assertThat(stats.get(ThreadUtils.PRIORITY_UI).name).isEqualTo("ui");
+        assertThat(stats.get(ThreadUtils.PRIORITY_UI).completed).isEqualTo(1);
+        assertThat(stats.get(ThreadUtils.PRIORITY_NORMAL).completed).isEqualTo(0);
+        assertThat(stats.get(ThreadUtils.PRIORITY_BULK).completed).isEqualTo(2);
+        assertThat(stats.get(ThreadUtils.PRIORITY_BULK).queued).isEqualTo(0);
+    }
+
+    private void waitForQueue(int priority) throws Exception {
+        // Stats are updated after the future completes, wait for the lane to drain.
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(
+                TIMEOUT_SECONDS);
+        while (System.currentTimeMillis() < deadline) {
+            final PriorityExecutor.LaneStats stats = mExecutor.getLaneStats().get(priority);
+            if (stats.queued == 0 && stats.active == 0) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
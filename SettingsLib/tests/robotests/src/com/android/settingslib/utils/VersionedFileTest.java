@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settingslib.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+@RunWith(RobolectricTestRunner.class)
+public class VersionedFileTest {
+
+    private static final int MAGIC = 0x54455354; // "TEST"
+
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mFile = new File(new File(context.getCacheDir(), "versioned"), "test_file");
+        mFile.getParentFile().mkdirs();
+        mFile.delete();
+    }
+
+    @Test
+    public void read_noFile_returnsFalse() {
+        assertThat(new VersionedFile(mFile, MAGIC, 1).read(in -> true)).isFalse();
+    }
+
+    @Test
+    public void read_afterWrite_readsContent() {
+        assertThat(new VersionedFile(mFile, MAGIC, 1).write(out -> out.writeUTF("value")))
+                .isTrue();
+
+        final String[] value = new String[1];
+        final boolean read = new VersionedFile(mFile, MAGIC, 1).read(in -> {
+            value[0] = in.readUTF();
+            return true;
+        });
+
+        assertThat(read).isTrue();
+        assertThat(value[0]).isEqualTo("value");
+    }
+
+    @Test
+    public void readMapped_afterWrite_readsContent() {
+        new VersionedFile(mFile, MAGIC, 1).write(out -> out.writeInt(42));
+
+        final int[] value = new int[1];
+        final boolean read = new VersionedFile(mFile, MAGIC, 1).readMapped(buffer -> {
+            value[0] = buffer.getInt();
+            return true;
+        });
+
+        assertThat(read).isTrue();
+        assertThat(value[0]).isEqualTo(42);
+    }
+
+    @Test
+    public void readMapped_truncatedContent_deletesFile() {
+        new VersionedFile(mFile, MAGIC, 1).write(out -> out.writeByte(1));
+
+        assertThat(new VersionedFile(mFile, MAGIC, 1).readMapped(buffer -> {
+            buffer.getInt();
+            return true;
+        })).isFalse();
+        assertThat(mFile.exists()).isFalse();
+    }
+
+    @Test
+    public void read_otherFormatVersion_returnsFalse() {
+        new VersionedFile(mFile, MAGIC, 1).write(out -> out.writeUTF("value"));
+
+        assertThat(new VersionedFile(mFile, MAGIC, 2).read(in -> true)).isFalse();
+        assertThat(mFile.exists()).isTrue();
+    }
+
+    @Test
+    public void read_rejectedByReader_returnsFalse() {
+        new VersionedFile(mFile, MAGIC, 1).write(out -> out.writeUTF("value"));
+
+        assertThat(new VersionedFile(mFile, MAGIC, 1).read(in -> false)).isFalse();
+    }
+
+    @Test
+    public void read_truncatedFile_deletesFile() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(mFile)) {
+            out.write(new byte[] {0x54, 0x45});
+        }
+
+        assertThat(new VersionedFile(mFile, MAGIC, 1).read(in -> true)).isFalse();
+        assertThat(mFile.exists()).isFalse();
+    }
+
+    @Test
+    public void update_readsThenReplacesContent() {
+        final VersionedFile file = new VersionedFile(mFile, MAGIC, 1);
+        file.write(out -> out.writeInt(1));
+
+        final int[] previous = new int[1];
+        assertThat(file.update(in -> {
+            previous[0] = in.readInt();
+            return true;
+        }, out -> out.writeInt(previous[0] + 1))).isTrue();
+
+        final int[] current = new int[1];
+        file.read(in -> {
+            current[0] = in.readInt();
+            return true;
+        });
+        assertThat(current[0]).isEqualTo(2);
+    }
+}
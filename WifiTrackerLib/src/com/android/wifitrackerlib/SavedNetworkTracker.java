@@ -394,7 +394,7 @@ public class SavedNetworkTracker extends BaseWifiTracker {
 
         // Group scans by StandardWifiEntry key
         final Map<ScanResultKey, List<ScanResult>> scanResultsByKey = scanResults.stream()
-                .collect(Collectors.groupingBy(StandardWifiEntry.ScanResultKey::new));
+                .collect(Collectors.groupingBy(ScanResultInfoCache::getScanResultKey));
 
         // Iterate through current entries and update each entry's scan results
         mStandardWifiEntryCache.forEach(entry -> {
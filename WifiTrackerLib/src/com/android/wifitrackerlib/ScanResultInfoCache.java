@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.StandardWifiEntry.ScanResultKey;
+
+import android.net.wifi.ScanResult;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Cache of the security types and ScanResultKey computed for each scan result, so scans which are
+ * reported again in the following scan updates are not classified again.
+ *
+ * A scan is identified by its BSSID, SSID, capabilities and timestamp. A new timestamp means a new
+ * sighting of the BSSID, which may advertise different capabilities. Scans without a BSSID are
+ * never cached since they cannot be told apart.
+ *
+ * Thread-safe.
+ */
+class ScanResultInfoCache {
+    @VisibleForTesting
+    static final int MAX_SIZE = 1024;
+
+    private static final LruCache<Key, Info> sCache = new LruCache<>(MAX_SIZE);
+
+    private ScanResultInfoCache() {
+    }
+
+    /**
+     * Returns the unmodifiable list of WifiInfo SECURITY_TYPE_* supported by a ScanResult.
+     */
+    @NonNull
+    static List<Integer> getSecurityTypes(@NonNull ScanResult scanResult) {
+        return getInfo(scanResult).mSecurityTypes;
+    }
+
+    /**
+     * Returns the ScanResultKey of a ScanResult.
+     */
+    @NonNull
+    static ScanResultKey getScanResultKey(@NonNull ScanResult scanResult) {
+        return getInfo(scanResult).getScanResultKey();
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        sCache.evictAll();
+    }
+
+    @VisibleForTesting
+    static int size() {
+        return sCache.size();
+    }
+
+    @NonNull
+    private static Info getInfo(@NonNull ScanResult scanResult) {
+        if (scanResult.BSSID == null) {
+            return new Info(scanResult);
+        }
+        final Key key = new Key(scanResult);
+        Info info = sCache.get(key);
+        if (info == null) {
+            info = new Info(scanResult);
+            sCache.put(key, info);
+        }
+        return info;
+    }
+
+    private static class Key {
+        @NonNull private final String mBssid;
+        @Nullable private final String mSsid;
+        @Nullable private final String mCapabilities;
+        private final long mTimestamp;
+        private final boolean mIsPasspointNetwork;
+
+        Key(@NonNull ScanResult scanResult) {
+            mBssid = scanResult.BSSID;
+            mSsid = scanResult.SSID;
+            mCapabilities = scanResult.capabilities;
+            mTimestamp = scanResult.timestamp;
+            mIsPasspointNetwork = scanResult.isPasspointNetwork();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key that = (Key) o;
+            return mTimestamp == that.mTimestamp
+                    && mIsPasspointNetwork == that.mIsPasspointNetwork
+                    && mBssid.equals(that.mBssid)
+                    && Objects.equals(mSsid, that.mSsid)
+                    && Objects.equals(mCapabilities, that.mCapabilities);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mBssid, mSsid, mCapabilities, mTimestamp, mIsPasspointNetwork);
+        }
+    }
+
+    private static class Info {
+        @Nullable private final String mSsid;
+        @NonNull private final List<Integer> mSecurityTypes;
+        @Nullable private volatile ScanResultKey mScanResultKey;
+
+        Info(@NonNull ScanResult scanResult) {
+            mSsid = scanResult.SSID;
+            mSecurityTypes = Collections.unmodifiableList(
+                    Utils.computeSecurityTypesFromScanResult(scanResult));
+        }
+
+        @NonNull
+        ScanResultKey getScanResultKey() {
+            ScanResultKey scanResultKey = mScanResultKey;
+            if (scanResultKey == null) {
+                scanResultKey = new ScanResultKey(mSsid, mSecurityTypes);
+                mScanResultKey = scanResultKey;
+            }
+            return scanResultKey;
+        }
+    }
+}
@@ -17,26 +17,48 @@
 package com.android.wifitrackerlib;
 
 import android.net.wifi.ScanResult;
-import android.util.ArrayMap;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * Utility class to keep a running list of scan results merged by SSID+BSSID pair.
  *
+ * Scan results are also indexed by timestamp, so evicting old scans and filtering scans by age
+ * only visit the scans which are too old or new enough. The number of scan results kept is
+ * capped, evicting the least recently updated ones first.
+ *
  * Thread-safe.
  */
 public class ScanResultUpdater {
-    private Map<Pair<String, String>, ScanResult> mScanResultsBySsidAndBssid = new ArrayMap<>();
+    @VisibleForTesting
+    static final int DEFAULT_MAX_SCAN_RESULTS = 2000;
+
+    private static final Comparator<ScanEntry> SCAN_AGE_COMPARATOR =
+            Comparator.<ScanEntry>comparingLong(entry -> entry.mTimestampMillis)
+                    .thenComparingLong(entry -> entry.mSequence);
+
+    // Scans by SSID+BSSID pair, in least recently updated order.
+    private final Map<Pair<String, String>, ScanEntry> mScansBySsidAndBssid =
+            new LinkedHashMap<>();
+    // The same scans ordered by timestamp, oldest first.
+    private final TreeSet<ScanEntry> mScansByTimestamp = new TreeSet<>(SCAN_AGE_COMPARATOR);
     private final long mMaxScanAgeMillis;
+    private final int mMaxScanResults;
     private final Object mLock = new Object();
     private final Clock mClock;
+    private long mNextSequence;
 
     /**
      * Creates a ScanResultUpdater with no max scan age.
@@ -52,7 +74,20 @@ public class ScanResultUpdater {
      * will be pruned upon update/retrieval to keep the size of the scan list down.
      */
     public ScanResultUpdater(Clock clock, long maxScanAgeMillis) {
+        this(clock, maxScanAgeMillis, DEFAULT_MAX_SCAN_RESULTS);
+    }
+
+    /**
+     * Creates a ScanResultUpdater with a max scan age in milliseconds and a max number of scan
+     * results. Once there are more scan results than this limit, the least recently updated ones
+     * are pruned.
+     */
+    public ScanResultUpdater(Clock clock, long maxScanAgeMillis, int maxScanResults) {
+        if (maxScanResults <= 0) {
+            throw new IllegalArgumentException("maxScanResults must be positive!");
+        }
         mMaxScanAgeMillis = maxScanAgeMillis;
+        mMaxScanResults = maxScanResults;
         mClock = clock;
     }
 
@@ -61,15 +96,25 @@ public class ScanResultUpdater {
      */
     public void update(@NonNull List<ScanResult> newResults) {
         synchronized (mLock) {
-            evictOldScans();
+            evictOldScans(mClock.millis());
 
             for (ScanResult result : newResults) {
                 final Pair<String, String> key = new Pair(result.SSID, result.BSSID);
-                ScanResult prevResult = mScanResultsBySsidAndBssid.get(key);
-                if (prevResult == null || (prevResult.timestamp < result.timestamp)) {
-                    mScanResultsBySsidAndBssid.put(key, result);
+                final ScanEntry prevEntry = mScansBySsidAndBssid.get(key);
+                if (prevEntry != null) {
+                    if (prevEntry.mResult.timestamp >= result.timestamp) {
+                        continue;
+                    }
+                    // Remove first so the key moves to the most recently updated end.
+                    mScansBySsidAndBssid.remove(key);
+                    mScansByTimestamp.remove(prevEntry);
                 }
+                final ScanEntry entry = new ScanEntry(key, result, mNextSequence++);
+                mScansBySsidAndBssid.put(key, entry);
+                mScansByTimestamp.add(entry);
             }
+
+            evictLeastRecentlyUpdatedScans();
         }
     }
 
@@ -92,20 +137,63 @@ public class ScanResultUpdater {
                     "maxScanAgeMillis argument cannot be greater than mMaxScanAgeMillis!");
         }
         synchronized (mLock) {
-            List<ScanResult> ageFilteredResults = new ArrayList<>();
-            for (ScanResult result : mScanResultsBySsidAndBssid.values()) {
-                if (mClock.millis() - result.timestamp / 1000 <= maxScanAgeMillis) {
-                    ageFilteredResults.add(result);
-                }
+            // Matches every scan with mClock.millis() - timestamp <= maxScanAgeMillis.
+            final ScanEntry oldestAllowed =
+                    new ScanEntry(null, null, mClock.millis() - maxScanAgeMillis, Long.MIN_VALUE);
+            final List<ScanResult> ageFilteredResults = new ArrayList<>();
+            for (ScanEntry entry : mScansByTimestamp.tailSet(oldestAllowed, true)) {
+                ageFilteredResults.add(entry.mResult);
             }
             return ageFilteredResults;
         }
     }
 
-    private void evictOldScans() {
+    private void evictOldScans(long nowMillis) {
         synchronized (mLock) {
-            mScanResultsBySsidAndBssid.entrySet().removeIf((entry) ->
-                    mClock.millis() - entry.getValue().timestamp / 1000 > mMaxScanAgeMillis);
+            final Iterator<ScanEntry> iterator = mScansByTimestamp.iterator();
+            while (iterator.hasNext()) {
+                final ScanEntry entry = iterator.next();
+                if (nowMillis - entry.mTimestampMillis <= mMaxScanAgeMillis) {
+                    return;
+                }
+                iterator.remove();
+                mScansBySsidAndBssid.remove(entry.mSsidAndBssid);
+            }
+        }
+    }
+
+    private void evictLeastRecentlyUpdatedScans() {
+        synchronized (mLock) {
+            final Iterator<ScanEntry> iterator = mScansBySsidAndBssid.values().iterator();
+            while (mScansBySsidAndBssid.size() > mMaxScanResults) {
+                mScansByTimestamp.remove(iterator.next());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * A scan result and its position in the timestamp index.
+     */
+    private static class ScanEntry {
+        private final Pair<String, String> mSsidAndBssid;
+        private final ScanResult mResult;
+        private final long mTimestampMillis;
+        // Tie-breaker of scans with the same timestamp.
+        private final long mSequence;
+
+        ScanEntry(@NonNull Pair<String, String> ssidAndBssid, @NonNull ScanResult result,
+                long sequence) {
+            this(ssidAndBssid, result, result.timestamp / 1000, sequence);
+        }
+
+        // Entries without a scan result are only used as bounds to search the timestamp index.
+        ScanEntry(@Nullable Pair<String, String> ssidAndBssid, @Nullable ScanResult result,
+                long timestampMillis, long sequence) {
+            mSsidAndBssid = ssidAndBssid;
+            mResult = result;
+            mTimestampMillis = timestampMillis;
+            mSequence = sequence;
         }
     }
 }
@@ -181,7 +181,8 @@ public class StandardNetworkDetailsTracker extends NetworkDetailsTracker {
             scanAgeWindow += mScanIntervalMillis;
         }
         mChosenEntry.updateScanResultInfo(mScanResultUpdater.getScanResults(scanAgeWindow).stream()
-                .filter(scan -> new ScanResultKey(scan).equals(mKey.getScanResultKey()))
+                .filter(scan -> ScanResultInfoCache.getScanResultKey(scan)
+                        .equals(mKey.getScanResultKey()))
                 .collect(toList()));
     }
 
@@ -42,7 +42,6 @@ import static com.android.wifitrackerlib.Utils.getConnectedDescription;
 import static com.android.wifitrackerlib.Utils.getConnectingDescription;
 import static com.android.wifitrackerlib.Utils.getDisconnectedDescription;
 import static com.android.wifitrackerlib.Utils.getMeteredDescription;
-import static com.android.wifitrackerlib.Utils.getSecurityTypesFromScanResult;
 import static com.android.wifitrackerlib.Utils.getSecurityTypesFromWifiConfiguration;
 import static com.android.wifitrackerlib.Utils.getSingleSecurityTypeFromMultipleSecurityTypes;
 import static com.android.wifitrackerlib.Utils.getVerboseLoggingDescription;
@@ -733,7 +732,7 @@ public class StandardWifiEntry extends WifiEntry {
         mMatchingScanResults.clear();
         final Set<Integer> keySecurityTypes = mKey.getScanResultKey().getSecurityTypes();
         for (ScanResult scan : scanResults) {
-            for (int security : getSecurityTypesFromScanResult(scan)) {
+            for (int security : ScanResultInfoCache.getSecurityTypes(scan)) {
                 if (!keySecurityTypes.contains(security) || !isSecurityTypeSupported(security)) {
                     continue;
                 }
@@ -1301,7 +1300,7 @@ public class StandardWifiEntry extends WifiEntry {
          * @param scanResult
          */
         ScanResultKey(@NonNull ScanResult scanResult) {
-            this(scanResult.SSID, getSecurityTypesFromScanResult(scanResult));
+            this(scanResult.SSID, ScanResultInfoCache.getSecurityTypes(scanResult));
         }
 
         /**
@@ -85,6 +85,12 @@ public class Utils {
     // Returns a list of WifiInfo SECURITY_TYPE_* supported by a ScanResult.
     @NonNull
     public static List<Integer> getSecurityTypesFromScanResult(@NonNull ScanResult scanResult) {
+        return new ArrayList<>(ScanResultInfoCache.getSecurityTypes(scanResult));
+    }
+
+    // Computes the list of WifiInfo SECURITY_TYPE_* supported by a ScanResult, without caching.
+    @NonNull
+    static List<Integer> computeSecurityTypesFromScanResult(@NonNull ScanResult scanResult) {
         List<Integer> securityTypes = new ArrayList<>();
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
             for (int securityType : scanResult.getSecurityTypes()) {
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural changes of the WifiEntry lists returned by WifiPickerTracker between two
+ * consecutive {@link WifiPickerTracker.IncrementalWifiPickerTrackerCallback} callbacks.
+ *
+ * Entries are compared by identity, since a new WifiEntry object for the same key must be bound
+ * again. Changes to the contents of an entry are not part of the diff, they are delivered through
+ * {@link WifiEntry.WifiEntryCallback#onUpdated()} of that entry.
+ */
+public class WifiEntryListDiff {
+    @NonNull private final List<WifiEntry> mWifiEntries;
+    @NonNull private final List<WifiEntry> mAddedEntries;
+    @NonNull private final List<WifiEntry> mRemovedEntries;
+    @NonNull private final List<WifiEntry> mMovedEntries;
+    private final boolean mActiveWifiEntriesChanged;
+    private final boolean mMergedCarrierEntryChanged;
+
+    private WifiEntryListDiff(@NonNull List<WifiEntry> wifiEntries,
+            @NonNull List<WifiEntry> addedEntries,
+            @NonNull List<WifiEntry> removedEntries,
+            @NonNull List<WifiEntry> movedEntries,
+            boolean activeWifiEntriesChanged,
+            boolean mergedCarrierEntryChanged) {
+        mWifiEntries = Collections.unmodifiableList(wifiEntries);
+        mAddedEntries = Collections.unmodifiableList(addedEntries);
+        mRemovedEntries = Collections.unmodifiableList(removedEntries);
+        mMovedEntries = Collections.unmodifiableList(movedEntries);
+        mActiveWifiEntriesChanged = activeWifiEntriesChanged;
+        mMergedCarrierEntryChanged = mergedCarrierEntryChanged;
+    }
+
+    /**
+     * Computes the diff from the previously delivered lists to the current ones.
+     *
+     * @param oldWifiEntries WifiEntries delivered with the previous diff
+     * @param newWifiEntries current value of {@link WifiPickerTracker#getWifiEntries()}
+     * @param oldActiveWifiEntries active WifiEntries delivered with the previous diff
+     * @param newActiveWifiEntries current value of {@link WifiPickerTracker#getActiveWifiEntries()}
+     * @param oldMergedCarrierEntry MergedCarrierEntry delivered with the previous diff
+     * @param newMergedCarrierEntry current value of
+     *                              {@link WifiPickerTracker#getMergedCarrierEntry()}
+     */
+    @NonNull
+    static WifiEntryListDiff compute(@NonNull List<WifiEntry> oldWifiEntries,
+            @NonNull List<WifiEntry> newWifiEntries,
+            @NonNull List<WifiEntry> oldActiveWifiEntries,
+            @NonNull List<WifiEntry> newActiveWifiEntries,
+            @Nullable MergedCarrierEntry oldMergedCarrierEntry,
+            @Nullable MergedCarrierEntry newMergedCarrierEntry) {
+        final Map<WifiEntry, Integer> oldIndices = new IdentityHashMap<>();
+        for (int i = 0; i < oldWifiEntries.size(); i++) {
+            oldIndices.put(oldWifiEntries.get(i), i);
+        }
+        final Map<WifiEntry, Boolean> newEntries = new IdentityHashMap<>();
+        for (WifiEntry entry : newWifiEntries) {
+            newEntries.put(entry, true);
+        }
+
+        final List<WifiEntry> removedEntries = new ArrayList<>();
+        for (WifiEntry entry : oldWifiEntries) {
+            if (!newEntries.containsKey(entry)) {
+                removedEntries.add(entry);
+            }
+        }
+        final List<WifiEntry> addedEntries = new ArrayList<>();
+        final List<WifiEntry> keptEntries = new ArrayList<>();
+        final List<Integer> keptOldIndices = new ArrayList<>();
+        for (WifiEntry entry : newWifiEntries) {
+            final Integer oldIndex = oldIndices.get(entry);
+            if (oldIndex == null) {
+                addedEntries.add(entry);
+            } else {
+                keptEntries.add(entry);
+                keptOldIndices.add(oldIndex);
+            }
+        }
+        // The kept entries in the longest run which is still in the old order stay in place, so
+        // the fewest entries are reported as moved.
+        final boolean[] inPlace = getLongestIncreasingSubsequence(keptOldIndices);
+        final List<WifiEntry> movedEntries = new ArrayList<>();
+        for (int i = 0; i < keptEntries.size(); i++) {
+            if (!inPlace[i]) {
+                movedEntries.add(keptEntries.get(i));
+            }
+        }
+
+        return new WifiEntryListDiff(new ArrayList<>(newWifiEntries), addedEntries,
+                removedEntries, movedEntries,
+                !isSameList(oldActiveWifiEntries, newActiveWifiEntries),
+                oldMergedCarrierEntry != newMergedCarrierEntry);
+    }
+
+    /**
+     * Returns the current list of disconnected, in-range WifiEntries, in display order.
+     */
+    @NonNull
+    public List<WifiEntry> getWifiEntries() {
+        return mWifiEntries;
+    }
+
+    /**
+     * Returns the WifiEntries which were not in the previous list, in display order.
+     */
+    @NonNull
+    public List<WifiEntry> getAddedEntries() {
+        return mAddedEntries;
+    }
+
+    /**
+     * Returns the WifiEntries of the previous list which are not in the current list.
+     */
+    @NonNull
+    public List<WifiEntry> getRemovedEntries() {
+        return mRemovedEntries;
+    }
+
+    /**
+     * Returns the WifiEntries which are in both lists but changed position relative to the other
+     * kept entries, in display order.
+     */
+    @NonNull
+    public List<WifiEntry> getMovedEntries() {
+        return mMovedEntries;
+    }
+
+    /**
+     * Returns whether {@link WifiPickerTracker#getActiveWifiEntries()} changed.
+     */
+    public boolean isActiveWifiEntriesChanged() {
+        return mActiveWifiEntriesChanged;
+    }
+
+    /**
+     * Returns whether {@link WifiPickerTracker#getMergedCarrierEntry()} changed.
+     */
+    public boolean isMergedCarrierEntryChanged() {
+        return mMergedCarrierEntryChanged;
+    }
+
+    /**
+     * Returns whether nothing changed structurally since the previous callback.
+     */
+    public boolean isEmpty() {
+        return mAddedEntries.isEmpty() && mRemovedEntries.isEmpty() && mMovedEntries.isEmpty()
+                && !mActiveWifiEntriesChanged && !mMergedCarrierEntryChanged;
+    }
+
+    @Override
+    public String toString() {
+        return "WifiEntryListDiff{"
+                + "added=" + mAddedEntries
+                + ", removed=" + mRemovedEntries
+                + ", moved=" + mMovedEntries
+                + ", activeChanged=" + mActiveWifiEntriesChanged
+                + ", mergedCarrierChanged=" + mMergedCarrierEntryChanged
+                + "}";
+    }
+
+    private static boolean isSameList(@NonNull List<WifiEntry> a, @NonNull List<WifiEntry> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns which of the given distinct values are part of one longest increasing subsequence.
+     */
+    @VisibleForTesting
+    @NonNull
+    static boolean[] getLongestIncreasingSubsequence(@NonNull List<Integer> values) {
+        final int size = values.size();
+        // tailIndices[k] is the index of the smallest tail of an increasing run of length k + 1.
+        final int[] tailIndices = new int[size];
+        final int[] previousIndices = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            final int value = values.get(i);
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (values.get(tailIndices[mid]) < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previousIndices[i] = low > 0 ? tailIndices[low - 1] : -1;
+            tailIndices[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        final boolean[] inSubsequence = new boolean[size];
+        for (int i = length > 0 ? tailIndices[length - 1] : -1; i >= 0; i = previousIndices[i]) {
+            inSubsequence[i] = true;
+        }
+        return inSubsequence;
+    }
+}
@@ -103,6 +103,11 @@ public class WifiPickerTracker extends BaseWifiTracker {
     // List representing the return value of the getWifiEntries() API
     @GuardedBy("mLock")
     @NonNull private final List<WifiEntry> mWifiEntries = new ArrayList<>();
+    // Lists last delivered to an IncrementalWifiPickerTrackerCallback. Must be accessed only by the
+    // worker thread.
+    @NonNull private List<WifiEntry> mNotifiedWifiEntries = Collections.emptyList();
+    @NonNull private List<WifiEntry> mNotifiedActiveWifiEntries = Collections.emptyList();
+    @Nullable private MergedCarrierEntry mNotifiedMergedCarrierEntry;
     // NetworkRequestEntry representing a network that was connected through the NetworkRequest API
     private NetworkRequestEntry mNetworkRequestEntry;
 
@@ -685,6 +690,28 @@ public class WifiPickerTracker extends BaseWifiTracker {
         // do nothing
     }
 
+    /**
+     * Groups the scan results with an SSID by their ScanResultKey.
+     */
+    @NonNull
+    private static Map<ScanResultKey, List<ScanResult>> groupScanResultsByKey(
+            @NonNull List<ScanResult> scanResults) {
+        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey = new ArrayMap<>();
+        for (ScanResult scan : scanResults) {
+            if (TextUtils.isEmpty(scan.SSID)) {
+                continue;
+            }
+            final ScanResultKey scanKey = ScanResultInfoCache.getScanResultKey(scan);
+            List<ScanResult> scans = scanResultsByKey.get(scanKey);
+            if (scans == null) {
+                scans = new ArrayList<>();
+                scanResultsByKey.put(scanKey, scans);
+            }
+            scans.add(scan);
+        }
+        return scanResultsByKey;
+    }
+
     /**
      * Updates or removes scan results for the corresponding StandardWifiEntries.
      * New entries will be created for scan results without an existing entry.
@@ -697,9 +724,8 @@ public class WifiPickerTracker extends BaseWifiTracker {
         checkNotNull(scanResults, "Scan Result list should not be null!");
 
         // Group scans by ScanResultKey key
-        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey = scanResults.stream()
-                .filter(scan -> !TextUtils.isEmpty(scan.SSID))
-                .collect(Collectors.groupingBy(ScanResultKey::new));
+        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey =
+                groupScanResultsByKey(scanResults);
         final Set<ScanResultKey> newScanKeys = new ArraySet<>(scanResultsByKey.keySet());
 
         // Iterate through current entries and update each entry's scan results
@@ -745,9 +771,8 @@ public class WifiPickerTracker extends BaseWifiTracker {
                         .collect(Collectors.toSet());
 
         // Group scans by ScanResultKey key
-        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey = scanResults.stream()
-                .filter(scan -> !TextUtils.isEmpty(scan.SSID))
-                .collect(Collectors.groupingBy(ScanResultKey::new));
+        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey =
+                groupScanResultsByKey(scanResults);
 
         // Iterate through current entries and update each entry's scan results and shareability.
         final Set<StandardWifiEntryKey> seenEntryKeys = new ArraySet<>();
@@ -872,9 +897,8 @@ public class WifiPickerTracker extends BaseWifiTracker {
         checkNotNull(scanResults, "Scan Result list should not be null!");
 
         // Group scans by ScanResultKey key
-        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey = scanResults.stream()
-                .filter(scan -> !TextUtils.isEmpty(scan.SSID))
-                .collect(Collectors.groupingBy(ScanResultKey::new));
+        final Map<ScanResultKey, List<ScanResult>> scanResultsByKey =
+                groupScanResultsByKey(scanResults);
 
         // Create a map of KnownNetwork data by ScanResultKey
         final Map<ScanResultKey, KnownNetwork> knownNetworkDataByKey =
@@ -1002,7 +1026,7 @@ public class WifiPickerTracker extends BaseWifiTracker {
         final ScanResultKey scanKey =
                 mNetworkRequestEntry.getStandardWifiEntryKey().getScanResultKey();
         List<ScanResult> matchedScans = scanResults.stream()
-                .filter(scan -> scanKey.equals(new ScanResultKey(scan)))
+                .filter(scan -> scanKey.equals(ScanResultInfoCache.getScanResultKey(scan)))
                 .collect(toList());
         mNetworkRequestEntry.updateScanResultInfo(matchedScans);
     }
@@ -1315,7 +1339,27 @@ public class WifiPickerTracker extends BaseWifiTracker {
      */
     @WorkerThread
     private void notifyOnWifiEntriesChanged() {
-        if (mListener != null) {
+        if (mListener instanceof IncrementalWifiPickerTrackerCallback) {
+            final IncrementalWifiPickerTrackerCallback listener =
+                    (IncrementalWifiPickerTrackerCallback) mListener;
+            final List<WifiEntry> wifiEntries;
+            final List<WifiEntry> activeWifiEntries;
+            synchronized (mLock) {
+                wifiEntries = new ArrayList<>(mWifiEntries);
+                activeWifiEntries = new ArrayList<>(mActiveWifiEntries);
+            }
+            final WifiEntryListDiff diff = WifiEntryListDiff.compute(
+                    mNotifiedWifiEntries, wifiEntries,
+                    mNotifiedActiveWifiEntries, activeWifiEntries,
+                    mNotifiedMergedCarrierEntry, mMergedCarrierEntry);
+            mNotifiedWifiEntries = wifiEntries;
+            mNotifiedActiveWifiEntries = activeWifiEntries;
+            mNotifiedMergedCarrierEntry = mMergedCarrierEntry;
+            if (isVerboseLoggingEnabled()) {
+                Log.v(TAG, "WifiEntries diff: " + diff);
+            }
+            mMainHandler.post(() -> listener.onWifiEntriesChanged(diff));
+        } else if (mListener != null) {
             mMainHandler.post(mListener::onWifiEntriesChanged);
         }
     }
@@ -1370,4 +1414,25 @@ public class WifiPickerTracker extends BaseWifiTracker {
         @MainThread
         void onNumSavedSubscriptionsChanged();
     }
+
+    /**
+     * WifiPickerTrackerCallback which receives the structural changes of the WifiEntry lists
+     * instead of having to compare the whole lists on every update.
+     *
+     * These callbacks must be run on the MainThread.
+     */
+    public interface IncrementalWifiPickerTrackerCallback extends WifiPickerTrackerCallback {
+        /**
+         * Called instead of {@link #onWifiEntriesChanged()} when there are changes to
+         *      {@link #getConnectedWifiEntry()}
+         *      {@link #getWifiEntries()}
+         *      {@link #getMergedCarrierEntry()}
+         *
+         * The first callback after the tracker is created reports every entry as added.
+         *
+         * @param diff the changes since the previous callback
+         */
+        @MainThread
+        void onWifiEntriesChanged(@NonNull WifiEntryListDiff diff);
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.android.wifitrackerlib.TestUtils.buildScanResult;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScanResultInfoCacheTest {
+    private static final String SSID = "ssid";
+    private static final String BSSID = "11:11:11:11:11:11";
+
+    @Before
+    public void setUp() {
+        ScanResultInfoCache.clear();
+    }
+
+    /**
+     * Verify that the same sighting of a BSSID reuses the cached security types and key.
+     */
+    @Test
+    public void testGetScanResultKey_sameSighting_returnsCachedKey() {
+        final ScanResult scan = buildScanResult(SSID, BSSID, 10, "[PSK]");
+        final ScanResult sameScan = buildScanResult(SSID, BSSID, 10, "[PSK]");
+
+        assertThat(ScanResultInfoCache.getScanResultKey(sameScan))
+                .isSameInstanceAs(ScanResultInfoCache.getScanResultKey(scan));
+        assertThat(ScanResultInfoCache.getSecurityTypes(sameScan))
+                .isSameInstanceAs(ScanResultInfoCache.getSecurityTypes(scan));
+        assertThat(ScanResultInfoCache.getSecurityTypes(scan))
+                .containsExactly(WifiInfo.SECURITY_TYPE_PSK);
+        assertThat(ScanResultInfoCache.size()).isEqualTo(1);
+    }
+
+    /**
+     * Verify that a new sighting with different capabilities is classified again.
+     */
+    @Test
+    public void testGetSecurityTypes_newSighting_returnsNewSecurityTypes() {
+        final ScanResult scan = buildScanResult(SSID, BSSID, 10, "[PSK]");
+        final ScanResult newScan = buildScanResult(SSID, BSSID, 20, "[SAE]");
+
+        assertThat(ScanResultInfoCache.getSecurityTypes(scan))
+                .containsExactly(WifiInfo.SECURITY_TYPE_PSK);
+        assertThat(ScanResultInfoCache.getSecurityTypes(newScan))
+                .containsExactly(WifiInfo.SECURITY_TYPE_SAE);
+        assertThat(ScanResultInfoCache.getScanResultKey(newScan))
+                .isEqualTo(new StandardWifiEntry.ScanResultKey(newScan));
+    }
+
+    /**
+     * Verify that scans without a BSSID are not cached.
+     */
+    @Test
+    public void testGetSecurityTypes_noBssid_isNotCached() {
+        final ScanResult scan = buildScanResult(SSID, null, 10, "[PSK]");
+
+        assertThat(ScanResultInfoCache.getSecurityTypes(scan))
+                .containsExactly(WifiInfo.SECURITY_TYPE_PSK);
+        assertThat(ScanResultInfoCache.size()).isEqualTo(0);
+    }
+
+    /**
+     * Verify that the cache does not grow beyond its max size.
+     */
+    @Test
+    public void testGetSecurityTypes_manyScans_isBounded() {
+        for (int i = 0; i < ScanResultInfoCache.MAX_SIZE * 2; i++) {
+            ScanResultInfoCache.getSecurityTypes(buildScanResult(SSID, BSSID, i, "[PSK]"));
+        }
+
+        assertThat(ScanResultInfoCache.size()).isEqualTo(ScanResultInfoCache.MAX_SIZE);
+    }
+}
@@ -145,4 +145,43 @@ public class ScanResultUpdaterTest {
         scanResults = sru.getScanResults();
         assertThat(scanResults).containsExactly(scan1, scan2);
     }
+
+    /**
+     * Verify that the least recently updated scan results are evicted once there are more scan
+     * results than the max number of scan results.
+     */
+    @Test
+    public void testUpdate_maxScanResults_evictsLeastRecentlyUpdatedScans() {
+        ScanResultUpdater sru = new ScanResultUpdater(mMockClock, 15_000, 2);
+
+        ScanResult scan1 = buildScanResult(SSID, BSSID_1, NOW_MILLIS - 10_000);
+        ScanResult scan2 = buildScanResult(SSID, BSSID_2, NOW_MILLIS - 5_000);
+        ScanResult newScan1 = buildScanResult(SSID, BSSID_1, NOW_MILLIS);
+        ScanResult scan3 = buildScanResult(SSID, BSSID_3, NOW_MILLIS);
+
+        sru.update(Arrays.asList(scan1, scan2));
+        // Updating BSSID_1 makes BSSID_2 the least recently updated scan.
+        sru.update(Arrays.asList(newScan1));
+        sru.update(Arrays.asList(scan3));
+
+        assertThat(sru.getScanResults()).containsExactly(newScan1, scan3);
+    }
+
+    /**
+     * Verify that scans evicted for their age can be added again by a newer scan.
+     */
+    @Test
+    public void testUpdate_evictedOldScan_replacedByNewScan() {
+        ScanResultUpdater sru = new ScanResultUpdater(mMockClock, 15_000);
+
+        ScanResult oldScan = buildScanResult(SSID, BSSID_1, NOW_MILLIS - 20_000);
+        ScanResult otherScan = buildScanResult(SSID, BSSID_2, NOW_MILLIS - 20_000);
+        ScanResult newScan = buildScanResult(SSID, BSSID_1, NOW_MILLIS);
+
+        sru.update(Arrays.asList(oldScan, otherScan));
+        sru.update(Arrays.asList(newScan));
+
+        assertThat(sru.getScanResults()).containsExactly(newScan);
+        assertThat(sru.getScanResults(0)).containsExactly(newScan);
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.wifitrackerlib;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class WifiEntryListDiffTest {
+    private final WifiEntry mEntryA = mock(WifiEntry.class);
+    private final WifiEntry mEntryB = mock(WifiEntry.class);
+    private final WifiEntry mEntryC = mock(WifiEntry.class);
+    private final WifiEntry mEntryD = mock(WifiEntry.class);
+
+    /**
+     * Verify that identical lists result in an empty diff.
+     */
+    @Test
+    public void testCompute_sameLists_isEmpty() {
+        final List<WifiEntry> entries = Arrays.asList(mEntryA, mEntryB);
+
+        final WifiEntryListDiff diff = compute(entries, Arrays.asList(mEntryA, mEntryB));
+
+        assertThat(diff.isEmpty()).isTrue();
+        assertThat(diff.getWifiEntries()).containsExactly(mEntryA, mEntryB).inOrder();
+    }
+
+    /**
+     * Verify that added and removed entries are reported.
+     */
+    @Test
+    public void testCompute_addedAndRemovedEntries() {
+        final WifiEntryListDiff diff = compute(
+                Arrays.asList(mEntryA, mEntryB, mEntryC),
+                Arrays.asList(mEntryD, mEntryA, mEntryC));
+
+        assertThat(diff.isEmpty()).isFalse();
+        assertThat(diff.getAddedEntries()).containsExactly(mEntryD);
+        assertThat(diff.getRemovedEntries()).containsExactly(mEntryB);
+        assertThat(diff.getMovedEntries()).isEmpty();
+    }
+
+    /**
+     * Verify that only the fewest entries needed to restore the order are reported as moved.
+     */
+    @Test
+    public void testCompute_reorderedEntries_reportsFewestMoves() {
+        final WifiEntryListDiff diff = compute(
+                Arrays.asList(mEntryA, mEntryB, mEntryC, mEntryD),
+                Arrays.asList(mEntryD, mEntryA, mEntryB, mEntryC));
+
+        assertThat(diff.getMovedEntries()).containsExactly(mEntryD);
+        assertThat(diff.getAddedEntries()).isEmpty();
+        assertThat(diff.getRemovedEntries()).isEmpty();
+    }
+
+    /**
+     * Verify that changes to the active entries and merged carrier entry are reported.
+     */
+    @Test
+    public void testCompute_activeAndMergedCarrierEntriesChanged() {
+        final List<WifiEntry> entries = Collections.singletonList(mEntryA);
+
+        final WifiEntryListDiff diff = WifiEntryListDiff.compute(entries, entries,
+                Collections.emptyList(), Collections.singletonList(mEntryB),
+                null, mock(MergedCarrierEntry.class));
+
+        assertThat(diff.isEmpty()).isFalse();
+        assertThat(diff.isActiveWifiEntriesChanged()).isTrue();
+        assertThat(diff.isMergedCarrierEntryChanged()).isTrue();
+    }
+
+    /**
+     * Verify the longest increasing subsequence of distinct values.
+     */
+    @Test
+    public void testGetLongestIncreasingSubsequence() {
+        final boolean[] inSubsequence = WifiEntryListDiff.getLongestIncreasingSubsequence(
+                Arrays.asList(3, 0, 1, 4, 2));
+
+        assertThat(inSubsequence).asList().containsExactly(false, true, true, false, true)
+                .inOrder();
+        assertThat(WifiEntryListDiff.getLongestIncreasingSubsequence(Collections.emptyList()))
+                .isEmpty();
+    }
+
+    private static WifiEntryListDiff compute(
+            List<WifiEntry> oldWifiEntries, List<WifiEntry> newWifiEntries) {
+        return WifiEntryListDiff.compute(oldWifiEntries, newWifiEntries,
+                Collections.emptyList(), Collections.emptyList(), null, null);
+    }
+}
@@ -307,6 +307,51 @@ public class WifiPickerTrackerTest {
         verify(mMockCallback, atLeastOnce()).onWifiEntriesChanged();
     }
 
+    /**
+     * Tests that an IncrementalWifiPickerTrackerCallback receives the entries added and removed by
+     * scans, and an empty diff if a scan does not change the list.
+     */
+    @Test
+    public void testScanResultsAvailableAction_incrementalCallback_notifiesDiff() {
+        final WifiPickerTracker.IncrementalWifiPickerTrackerCallback callback =
+                mock(WifiPickerTracker.IncrementalWifiPickerTrackerCallback.class);
+        final Handler testHandler = new Handler(mTestLooper.getLooper());
+        final WifiPickerTracker wifiPickerTracker = new WifiPickerTracker(mInjector,
+                mMockLifecycle, mMockContext, mMockWifiManager, mMockConnectivityManager,
+                testHandler, testHandler, mMockClock, MAX_SCAN_AGE_MILLIS, SCAN_INTERVAL_MILLIS,
+                callback);
+        wifiPickerTracker.onStart();
+        mTestLooper.dispatchAll();
+        verify(mMockContext).registerReceiver(mBroadcastReceiverCaptor.capture(),
+                any(), any(), any());
+        final ArgumentCaptor<WifiEntryListDiff> diffCaptor =
+                ArgumentCaptor.forClass(WifiEntryListDiff.class);
+
+        when(mMockWifiManager.getScanResults()).thenReturn(Arrays.asList(
+                buildScanResult("ssid0", "bssid0", START_MILLIS)));
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        mTestLooper.dispatchAll();
+        verify(callback, atLeastOnce()).onWifiEntriesChanged(diffCaptor.capture());
+        final WifiEntry entry = wifiPickerTracker.getWifiEntries().get(0);
+        assertThat(diffCaptor.getValue().getWifiEntries()).containsExactly(entry);
+
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        mTestLooper.dispatchAll();
+        verify(callback, atLeastOnce()).onWifiEntriesChanged(diffCaptor.capture());
+        assertThat(diffCaptor.getValue().isEmpty()).isTrue();
+
+        when(mMockClock.millis()).thenReturn(START_MILLIS + MAX_SCAN_AGE_MILLIS + 1);
+        when(mMockWifiManager.getScanResults()).thenReturn(new ArrayList<>());
+        mBroadcastReceiverCaptor.getValue().onReceive(mMockContext,
+                new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        mTestLooper.dispatchAll();
+        verify(callback, atLeastOnce()).onWifiEntriesChanged(diffCaptor.capture());
+        assertThat(diffCaptor.getValue().getRemovedEntries()).containsExactly(entry);
+        verify(callback, never()).onWifiEntriesChanged();
+    }
+
     /**
      * Tests that an empty list of WifiEntries is returned if no scans are available.
      */
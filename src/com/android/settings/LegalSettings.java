@@ -20,6 +20,7 @@ import android.app.settings.SettingsEnums;
 
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.NonIndexableKeysSignals;
 import com.android.settingslib.search.SearchIndexable;
 
 @SearchIndexable
@@ -43,5 +44,11 @@ public class LegalSettings extends DashboardFragment {
     }
 
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.about_legal);
+            new BaseSearchIndexProvider(R.xml.about_legal) {
+                @Override
+                public NonIndexableKeysSignals getNonIndexableKeysSignals() {
+                    // The legal activities are only looked up in the installed packages.
+                    return NonIndexableKeysSignals.NONE;
+                }
+            };
 }
@@ -24,10 +24,13 @@ import android.net.Uri;
 import android.provider.Settings;
 import android.util.FeatureFlagUtils;
 
+import com.android.settings.accessibility.AccessibilityControllerCreators;
 import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
 import com.android.settings.activityembedding.ActivityEmbeddingUtils;
 import com.android.settings.core.instrumentation.ElapsedTimeUtils;
 import com.android.settings.homepage.SettingsHomepageActivity;
+import com.android.settings.language.LanguageControllerCreators;
+import com.android.settings.network.NetworkControllerCreators;
 import com.android.settings.spa.SettingsSpaEnvironment;
 import com.android.settingslib.applications.AppIconCacheManager;
 import com.android.settingslib.spa.framework.common.SpaEnvironmentFactory;
@@ -55,6 +58,8 @@ public class SettingsApplication extends Application {
         // Set Spa environment.
         setSpaEnvironment();
 
+        registerPreferenceControllerCreators();
+
         if (ActivityEmbeddingUtils.isSettingsSplitEnabled(this)
                 && FeatureFlagUtils.isEnabled(this,
                         FeatureFlagUtils.SETTINGS_SUPPORT_LARGE_SCREEN)) {
@@ -74,6 +79,15 @@ public class SettingsApplication extends Application {
         SpaEnvironmentFactory.INSTANCE.reset(new SettingsSpaEnvironment(this));
     }
 
+    /**
+     * Registers the reflection-free creators of the controllers of the heaviest screens.
+     */
+    protected void registerPreferenceControllerCreators() {
+        AccessibilityControllerCreators.register();
+        LanguageControllerCreators.register();
+        NetworkControllerCreators.register();
+    }
+
     public void setHomeActivity(SettingsHomepageActivity homeActivity) {
         mHomeActivity = new WeakReference<>(homeActivity);
     }
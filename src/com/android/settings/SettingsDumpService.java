@@ -41,6 +41,8 @@ import com.android.settings.datausage.lib.DataUsageLib;
 import com.android.settings.fuelgauge.batterytip.AnomalyConfigJobService;
 import com.android.settings.network.MobileNetworkRepository;
 import com.android.settingslib.net.DataUsageController;
+import com.android.settingslib.utils.PriorityExecutor;
+import com.android.settingslib.utils.ThreadUtils;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -68,6 +70,8 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_BACKGROUND_THREADS = "background_threads";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
@@ -100,6 +104,7 @@ public class SettingsDumpService extends Service {
                 dump.put(KEY_MEMORY, dumpMemory());
                 dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
                 dump.put(KEY_ANOMALY_DETECTION, dumpAnomalyDetection());
+                dump.put(KEY_BACKGROUND_THREADS, dumpBackgroundThreads());
             } catch (Exception e) {
                 Log.w(TAG, "exception in dump: ", e);
             }
@@ -211,6 +216,23 @@ public class SettingsDumpService extends Service {
         return obj;
     }
 
+    @VisibleForTesting
+    JSONObject dumpBackgroundThreads() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        for (PriorityExecutor.LaneStats stats : ThreadUtils.getBackgroundThreadStats()) {
+            final JSONObject laneObj = new JSONObject();
+            laneObj.put("queued", stats.queued);
+            laneObj.put("active", stats.active);
+            laneObj.put("completed", stats.completed);
+            laneObj.put("avg_wait_ms", stats.averageWaitMillis);
+            laneObj.put("max_wait_ms", stats.maxWaitMillis);
+            laneObj.put("avg_run_ms", stats.averageRunMillis);
+            laneObj.put("max_run_ms", stats.maxRunMillis);
+            obj.put(stats.name, laneObj);
+        }
+        return obj;
+    }
+
     private void dumpMobileNetworkSettings(IndentingPrintWriter writer) {
         MobileNetworkRepository.getInstance(this).dump(writer);
     }
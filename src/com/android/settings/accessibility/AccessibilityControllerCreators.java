@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.android.settings.accessibility;
+
+import com.android.settings.core.PreferenceControllerFactory;
+
+/**
+ * Registers the controllers of the accessibility screens with {@link PreferenceControllerFactory},
+ * since they are constructed every time the screens are opened.
+ */
+public final class AccessibilityControllerCreators {
+
+    private AccessibilityControllerCreators() {
+    }
+
+    /** Registers the creators of the accessibility controllers. */
+    public static void register() {
+        PreferenceControllerFactory.register(
+                AccessibilityHearingAidPreferenceController.class.getName(),
+                AccessibilityHearingAidPreferenceController::new);
+        PreferenceControllerFactory.register(
+                AudioDescriptionPreferenceController.class.getName(),
+                AudioDescriptionPreferenceController::new);
+        PreferenceControllerFactory.register(CaptioningPreferenceController.class.getName(),
+                CaptioningPreferenceController::new);
+        PreferenceControllerFactory.register(
+                FlashNotificationsPreferenceController.class.getName(),
+                FlashNotificationsPreferenceController::new);
+        PreferenceControllerFactory.register(LiveCaptionPreferenceController.class.getName(),
+                LiveCaptionPreferenceController::new);
+        PreferenceControllerFactory.register(MagnificationPreferenceController.class.getName(),
+                MagnificationPreferenceController::new);
+        PreferenceControllerFactory.register(RTTSettingPreferenceController.class.getName(),
+                RTTSettingPreferenceController::new);
+        PreferenceControllerFactory.register(
+                ReduceBrightColorsPreferenceController.class.getName(),
+                ReduceBrightColorsPreferenceController::new);
+        PreferenceControllerFactory.register(
+                TextReadingFragmentForA11ySettingsController.class.getName(),
+                TextReadingFragmentForA11ySettingsController::new);
+        PreferenceControllerFactory.register(VibrationPreferenceController.class.getName(),
+                VibrationPreferenceController::new);
+    }
+}
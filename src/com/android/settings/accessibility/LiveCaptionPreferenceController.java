@@ -28,7 +28,8 @@ import com.android.settings.core.BasePreferenceController;
 
 import java.util.List;
 
-public class LiveCaptionPreferenceController extends BasePreferenceController {
+public class LiveCaptionPreferenceController extends BasePreferenceController implements
+        BasePreferenceController.ConcurrentAvailability {
 
     @VisibleForTesting
     static final Intent LIVE_CAPTION_INTENT = new Intent(
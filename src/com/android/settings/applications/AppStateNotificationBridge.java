@@ -18,6 +18,7 @@ package com.android.settings.applications;
 import android.app.usage.IUsageStatsManager;
 import android.app.usage.UsageEvents;
 import android.content.Context;
+import android.content.pm.PackageInfo;
 import android.os.RemoteException;
 import android.os.UserHandle;
 import android.os.UserManager;
@@ -51,6 +52,7 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
     private IUsageStatsManager mUsageStatsManager;
     protected List<Integer> mUserIds;
     private NotificationBackend mBackend;
+    private NotificationSentAggregate mSentAggregate;
     private static final int DAYS_TO_CHECK = 7;
 
     public AppStateNotificationBridge(Context context, ApplicationsState appState,
@@ -79,14 +81,22 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         }
 
         final Map<String, NotificationsSentState> map = getAggregatedUsageEvents();
+        // Query the packages of each user once instead of once per app.
+        final ArrayMap<Integer, Map<String, PackageInfo>> packagesByUser = new ArrayMap<>();
         for (AppEntry entry : apps) {
-            NotificationsSentState stats =
-                    map.get(getKey(UserHandle.getUserId(entry.info.uid), entry.info.packageName));
+            final int userId = UserHandle.getUserId(entry.info.uid);
+            NotificationsSentState stats = map.get(getKey(userId, entry.info.packageName));
             if (stats == null) {
                 stats = new NotificationsSentState();
             }
             calculateAvgSentCounts(stats);
-            addBlockStatus(entry, stats);
+            Map<String, PackageInfo> packages = packagesByUser.get(userId);
+            if (packages == null) {
+                packages = mBackend.getPackagesWithPermissions(mContext, userId);
+                packagesByUser.put(userId, packages);
+            }
+            addBlockStatus(entry, stats, packages == null ? null
+                    : packages.get(entry.info.packageName));
             entry.extraInfo = stats;
         }
     }
@@ -96,7 +106,7 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         NotificationsSentState stats = getAggregatedUsageEvents(
                 UserHandle.getUserId(entry.info.uid), entry.info.packageName);
         calculateAvgSentCounts(stats);
-        addBlockStatus(entry, stats);
+        addBlockStatus(entry, stats, null /* packageInfo */);
         entry.extraInfo = stats;
     }
 
@@ -120,10 +130,13 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         }
     }
 
-    private void addBlockStatus(AppEntry entry, NotificationsSentState stats) {
+    private void addBlockStatus(AppEntry entry, NotificationsSentState stats,
+            PackageInfo packageInfo) {
         if (stats != null) {
             stats.blocked = mBackend.getNotificationsBanned(entry.info.packageName, entry.info.uid);
-            stats.blockable = mBackend.enableSwitch(mContext, entry.info);
+            stats.blockable = packageInfo != null
+                    ? mBackend.enableSwitch(packageInfo)
+                    : mBackend.enableSwitch(mContext, entry.info);
         }
     }
 
@@ -136,41 +149,53 @@ public class AppStateNotificationBridge extends AppStateBaseBridge {
         }
     }
 
+    /**
+     * Aggregates the notifications sent in the last {@link #DAYS_TO_CHECK} days. Only the events
+     * newer than the ones already counted by the persisted {@link NotificationSentAggregate} are
+     * read.
+     */
     protected Map<String, NotificationsSentState> getAggregatedUsageEvents() {
-        ArrayMap<String, NotificationsSentState> aggregatedStats = new ArrayMap<>();
+        if (mSentAggregate == null) {
+            mSentAggregate = NotificationSentAggregate.create(mContext);
+            mSentAggregate.load();
+        }
 
         long now = System.currentTimeMillis();
         long startTime = now - (DateUtils.DAY_IN_MILLIS * DAYS_TO_CHECK);
+        mSentAggregate.removeEventsBefore(startTime);
         for (int userId : mUserIds) {
-            UsageEvents events = null;
-            try {
-                events = mUsageStatsManager.queryEventsForUser(
-                        startTime, now, userId, mContext.getPackageName());
-            } catch (RemoteException e) {
-                e.printStackTrace();
+            long countedUntil = mSentAggregate.getCountedUntil(userId);
+            if (countedUntil > now) {
+                // The clock went back, count everything again.
+                mSentAggregate.removeUser(userId);
+                countedUntil = 0;
             }
-            if (events != null) {
-                UsageEvents.Event event = new UsageEvents.Event();
-                while (events.hasNextEvent()) {
-                    events.getNextEvent(event);
-                    NotificationsSentState stats =
-                            aggregatedStats.get(getKey(userId, event.getPackageName()));
-                    if (stats == null) {
-                        stats = new NotificationsSentState();
-                        aggregatedStats.put(getKey(userId, event.getPackageName()), stats);
-                    }
-
-                    if (event.getEventType() == UsageEvents.Event.NOTIFICATION_INTERRUPTION) {
-                        if (event.getTimeStamp() > stats.lastSent) {
-                            stats.lastSent = event.getTimeStamp();
-                        }
-                        stats.sentCount++;
-                    }
-
+            if (mSentAggregate.hasEdgeDayEvents(userId)) {
+                // Drop the notifications sent on the first day of the window before it started.
+                final UsageEvents edgeDayEvents = queryEventsForUser(startTime,
+                        Math.min(countedUntil, mSentAggregate.getEdgeDayEnd()), userId);
+                if (edgeDayEvents != null) {
+                    mSentAggregate.recountEdgeDay(userId, edgeDayEvents);
                 }
             }
+            final UsageEvents events =
+                    queryEventsForUser(Math.max(startTime, countedUntil), now, userId);
+            if (events != null) {
+                mSentAggregate.addEvents(userId, events, now);
+            }
+        }
+        mSentAggregate.save();
+        return mSentAggregate.getSentStates();
+    }
+
+    private UsageEvents queryEventsForUser(long beginTime, long endTime, int userId) {
+        try {
+            return mUsageStatsManager.queryEventsForUser(beginTime, endTime, userId,
+                    mContext.getPackageName());
+        } catch (RemoteException e) {
+            e.printStackTrace();
+            return null;
         }
-        return aggregatedStats;
     }
 
     protected NotificationsSentState getAggregatedUsageEvents(int userId, String pkg) {
@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.app.usage.UsageEvents;
+import android.content.Context;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+import android.util.SparseArray;
+import android.util.SparseLongArray;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.applications.AppStateNotificationBridge.NotificationsSentState;
+import com.android.settingslib.utils.VersionedFile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Rolling per day count of the notifications sent by each package of each user, persisted so
+ * {@link AppStateNotificationBridge} only needs to read the usage events newer than the ones it
+ * already counted.
+ *
+ * <p>For each user, the aggregate remembers until when events were counted. Days are local time
+ * days and are dropped once they fall out of the window the counts are shown for. The first day of
+ * the window only partly is in it, so it is counted again from the window start with
+ * {@link #recountEdgeDay}. That keeps the counts equal to the ones of
+ * {@link AppStateNotificationBridge#getAggregatedUsageEvents(int, String)}.</p>
+ *
+ * <p>Not thread-safe, it is meant to be used from the bridge's background thread only.</p>
+ */
+final class NotificationSentAggregate {
+    private static final String FILE_NAME = "notification_sent_aggregate";
+    private static final int MAGIC = 0x4e534147; // "NSAG"
+    @VisibleForTesting
+    static final int FORMAT_VERSION = 3;
+
+    @Nullable
+    private final VersionedFile mFile;
+    // Time until which the events of each user were counted.
+    private final SparseLongArray mCountedUntil = new SparseLongArray();
+    private final Map<String, PackageSentCounts> mPackages = new ArrayMap<>();
+    // Days are counted in this time zone, the aggregate is dropped when it changes.
+    private TimeZone mTimeZone = TimeZone.getDefault();
+    private long mWindowStart;
+    private boolean mIsDirty;
+
+    /**
+     * Creates the aggregate persisted in the cache dir of {@param context}, or only kept in memory
+     * if there is none.
+     */
+    static NotificationSentAggregate create(Context context) {
+        final File cacheDir = context.getCacheDir();
+        return new NotificationSentAggregate(
+                cacheDir == null ? null : new File(cacheDir, FILE_NAME));
+    }
+
+    @VisibleForTesting
+    NotificationSentAggregate(@Nullable File file) {
+        mFile = file == null ? null : new VersionedFile(file, MAGIC, FORMAT_VERSION);
+    }
+
+    /** Reads the aggregate from disk. */
+    void load() {
+        clear();
+        mIsDirty = false;
+        if (mFile == null) {
+            return;
+        }
+        if (!mFile.read(this::readAggregate)) {
+            // Replaced by the next write, once there is something to count.
+            clear();
+        }
+    }
+
+    /**
+     * @return the time until which the events of {@param userId} were counted, or 0 if none
+     * were.
+     */
+    long getCountedUntil(int userId) {
+        return mCountedUntil.get(userId, 0);
+    }
+
+    /** Drops everything counted for {@param userId}. */
+    void removeUser(int userId) {
+        mCountedUntil.delete(userId);
+        final Iterator<PackageSentCounts> iterator = mPackages.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().mUserId == userId) {
+                iterator.remove();
+            }
+        }
+        mIsDirty = true;
+    }
+
+    /**
+     * Moves the window to start at {@param windowStart} and drops the days before the one of
+     * {@param windowStart}. The notifications sent on that day before {@param windowStart} are
+     * dropped by {@link #recountEdgeDay}.
+     */
+    void removeEventsBefore(long windowStart) {
+        final TimeZone timeZone = TimeZone.getDefault();
+        if (!timeZone.getID().equals(mTimeZone.getID())) {
+            // The days were counted in another time zone, count everything again.
+            clear();
+            mTimeZone = timeZone;
+            mIsDirty = true;
+        }
+        mWindowStart = windowStart;
+        final int firstDay = getDay(windowStart);
+        final Iterator<PackageSentCounts> iterator = mPackages.values().iterator();
+        while (iterator.hasNext()) {
+            final PackageSentCounts counts = iterator.next();
+            if (getCountedUntil(counts.mUserId) <= windowStart) {
+                // Everything counted for the user was sent before the window.
+                iterator.remove();
+                mIsDirty = true;
+                continue;
+            }
+            // Days are sorted, so the old ones are at the start.
+            while (counts.mDays.size() > 0 && counts.mDays.keyAt(0) < firstDay) {
+                counts.mDays.removeAt(0);
+                mIsDirty = true;
+            }
+            if (counts.mDays.size() == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return whether notifications of {@param userId} were counted on the first day of the
+     * window, so they must be recounted with {@link #recountEdgeDay}.
+     */
+    boolean hasEdgeDayEvents(int userId) {
+        final int edgeDay = getDay(mWindowStart);
+        for (PackageSentCounts counts : mPackages.values()) {
+            if (counts.mUserId == userId && counts.mDays.get(edgeDay) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return the end of the first day of the window, see {@link #recountEdgeDay}. */
+    long getEdgeDayEnd() {
+        final Calendar calendar = Calendar.getInstance(mTimeZone);
+        calendar.setTimeInMillis(mWindowStart);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Replaces the counts of {@param userId} on the first day of the window with the notifications
+     * in {@param events}, which were queried from the window start until the earlier of
+     * {@link #getEdgeDayEnd} and {@link #getCountedUntil}.
+     */
+    void recountEdgeDay(int userId, UsageEvents events) {
+        final int edgeDay = getDay(mWindowStart);
+        final Map<String, DaySentCount> recounted = new ArrayMap<>();
+        final UsageEvents.Event event = new UsageEvents.Event();
+        while (events.hasNextEvent()) {
+            events.getNextEvent(event);
+            if (event.getEventType() != UsageEvents.Event.NOTIFICATION_INTERRUPTION
+                    || getDay(event.getTimeStamp()) != edgeDay) {
+                continue;
+            }
+            DaySentCount count = recounted.get(event.getPackageName());
+            if (count == null) {
+                count = new DaySentCount();
+                recounted.put(event.getPackageName(), count);
+            }
+            count.add(event.getTimeStamp());
+        }
+
+        final Iterator<PackageSentCounts> iterator = mPackages.values().iterator();
+        while (iterator.hasNext()) {
+            final PackageSentCounts counts = iterator.next();
+            if (counts.mUserId != userId) {
+                continue;
+            }
+            final DaySentCount previous = counts.mDays.get(edgeDay);
+            final DaySentCount current = recounted.remove(counts.mPackageName);
+            if (previous == null ? current == null : previous.equals(current)) {
+                continue;
+            }
+            mIsDirty = true;
+            if (current == null) {
+                counts.mDays.remove(edgeDay);
+                if (counts.mDays.size() == 0) {
+                    iterator.remove();
+                }
+            } else {
+                counts.mDays.put(edgeDay, current);
+            }
+        }
+        // Packages that had no count on that day yet.
+        for (Map.Entry<String, DaySentCount> entry : recounted.entrySet()) {
+            getOrCreatePackage(userId, entry.getKey()).mDays.put(edgeDay, entry.getValue());
+            mIsDirty = true;
+        }
+    }
+
+    /**
+     * Counts the notifications in {@param events} of {@param userId}, which were queried until
+     * {@param end}.
+     */
+    void addEvents(int userId, UsageEvents events, long end) {
+        final UsageEvents.Event event = new UsageEvents.Event();
+        while (events.hasNextEvent()) {
+            events.getNextEvent(event);
+            if (event.getEventType() != UsageEvents.Event.NOTIFICATION_INTERRUPTION) {
+                continue;
+            }
+            final PackageSentCounts counts = getOrCreatePackage(userId, event.getPackageName());
+            final int day = getDay(event.getTimeStamp());
+            DaySentCount count = counts.mDays.get(day);
+            if (count == null) {
+                count = new DaySentCount();
+                counts.mDays.put(day, count);
+            }
+            count.add(event.getTimeStamp());
+            mIsDirty = true;
+        }
+        // Not worth a write on its own, reading the same time range again finds no notifications
+        // either.
+        mCountedUntil.put(userId, end);
+    }
+
+    /**
+     * @return how many notifications each package sent and when it sent the last one, keyed by
+     * {@link AppStateNotificationBridge#getKey}.
+     */
+    Map<String, NotificationsSentState> getSentStates() {
+        final Map<String, NotificationsSentState> states = new ArrayMap<>(mPackages.size());
+        for (Map.Entry<String, PackageSentCounts> entry : mPackages.entrySet()) {
+            final SparseArray<DaySentCount> days = entry.getValue().mDays;
+            final NotificationsSentState state = new NotificationsSentState();
+            for (int i = 0; i < days.size(); i++) {
+                state.sentCount += days.valueAt(i).mSentCount;
+                state.lastSent = Math.max(state.lastSent, days.valueAt(i).mLastSent);
+            }
+            states.put(entry.getKey(), state);
+        }
+        return states;
+    }
+
+    /** Writes the aggregate to disk if it changed. */
+    void save() {
+        if (mFile != null && mIsDirty && mFile.write(this::writeAggregate)) {
+            mIsDirty = false;
+        }
+    }
+
+    private void clear() {
+        mCountedUntil.clear();
+        mPackages.clear();
+    }
+
+    private PackageSentCounts getOrCreatePackage(int userId, String packageName) {
+        final String key = AppStateNotificationBridge.getKey(userId, packageName);
+        PackageSentCounts counts = mPackages.get(key);
+        if (counts == null) {
+            counts = new PackageSentCounts(userId, packageName);
+            mPackages.put(key, counts);
+        }
+        return counts;
+    }
+
+    /** @return the local time day of {@param timestamp}, in days since the epoch. */
+    private int getDay(long timestamp) {
+        return (int) Math.floorDiv(timestamp + mTimeZone.getOffset(timestamp),
+                DateUtils.DAY_IN_MILLIS);
+    }
+
+    private boolean readAggregate(DataInputStream in) throws IOException {
+        if (!mTimeZone.getID().equals(in.readUTF())) {
+            return false;
+        }
+        final int userCount = in.readInt();
+        for (int i = 0; i < userCount; i++) {
+            mCountedUntil.put(in.readInt(), in.readLong());
+        }
+        final int packageCount = in.readInt();
+        for (int i = 0; i < packageCount; i++) {
+            final PackageSentCounts counts = new PackageSentCounts(in.readInt(), in.readUTF());
+            final int dayCount = in.readInt();
+            if (dayCount <= 0) {
+                return false;
+            }
+            for (int j = 0; j < dayCount; j++) {
+                final int day = in.readInt();
+                final DaySentCount count = new DaySentCount();
+                count.mSentCount = in.readInt();
+                count.mLastSent = in.readLong();
+                counts.mDays.put(day, count);
+            }
+            mPackages.put(counts.getKey(), counts);
+        }
+        return true;
+    }
+
+    private void writeAggregate(DataOutputStream out) throws IOException {
+        out.writeUTF(mTimeZone.getID());
+        out.writeInt(mCountedUntil.size());
+        for (int i = 0; i < mCountedUntil.size(); i++) {
+            out.writeInt(mCountedUntil.keyAt(i));
+            out.writeLong(mCountedUntil.valueAt(i));
+        }
+        out.writeInt(mPackages.size());
+        for (PackageSentCounts counts : mPackages.values()) {
+            out.writeInt(counts.mUserId);
+            out.writeUTF(counts.mPackageName);
+            out.writeInt(counts.mDays.size());
+            for (int i = 0; i < counts.mDays.size(); i++) {
+                final DaySentCount count = counts.mDays.valueAt(i);
+                out.writeInt(counts.mDays.keyAt(i));
+                out.writeInt(count.mSentCount);
+                out.writeLong(count.mLastSent);
+            }
+        }
+    }
+
+    private static final class PackageSentCounts {
+        final int mUserId;
+        final String mPackageName;
+        // Keyed by getDay().
+        final SparseArray<DaySentCount> mDays = new SparseArray<>();
+
+        PackageSentCounts(int userId, String packageName) {
+            mUserId = userId;
+            mPackageName = packageName;
+        }
+
+        String getKey() {
+            return AppStateNotificationBridge.getKey(mUserId, mPackageName);
+        }
+    }
+
+    private static final class DaySentCount {
+        int mSentCount;
+        long mLastSent;
+
+        void add(long timestamp) {
+            mSentCount++;
+            mLastSent = Math.max(mLastSent, timestamp);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DaySentCount)) {
+                return false;
+            }
+            final DaySentCount other = (DaySentCount) o;
+            return mSentCount == other.mSentCount && mLastSent == other.mLastSent;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mSentCount + Long.hashCode(mLastSent);
+        }
+    }
+}
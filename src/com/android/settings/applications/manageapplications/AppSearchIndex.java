@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import android.text.TextUtils;
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.applications.ApplicationsState;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Search index of an app list, matching queries case and accent insensitively against the app
+ * labels and package names.
+ *
+ * An app matches a query if its label or package name contains the query, or if every word of the
+ * query is a prefix of a word of its label, e.g. "goo ma" matches "Google Maps". Labels are folded
+ * once when the index is built, and a query extending the previous one only searches the apps which
+ * matched the previous one.
+ *
+ * Not thread-safe, it is meant to be used from the filtering thread only.
+ */
+class AppSearchIndex {
+
+    private final List<AppEntry> mEntries;
+    private final String[] mLabels;
+    private final String[][] mLabelWords;
+    private final String[] mPackageNames;
+
+    private String mLastQuery;
+    private int[] mLastMatches;
+    private int mLastMatchCount;
+
+    AppSearchIndex(@NonNull List<AppEntry> entries) {
+        mEntries = entries;
+        final int size = entries.size();
+        mLabels = new String[size];
+        mLabelWords = new String[size][];
+        mPackageNames = new String[size];
+        // Work profile duplicates and clones share their label, only fold it once.
+        final Map<String, Integer> foldedLabels = new ArrayMap<>();
+        for (int i = 0; i < size; i++) {
+            final AppEntry entry = entries.get(i);
+            final String label = entry.label != null ? entry.label : "";
+            final Integer sameLabel = foldedLabels.get(label);
+            if (sameLabel != null) {
+                mLabels[i] = mLabels[sameLabel];
+                mLabelWords[i] = mLabelWords[sameLabel];
+            } else {
+                mLabels[i] = entry.normalizedLabel != null
+                        ? entry.normalizedLabel : ApplicationsState.normalize(label);
+                mLabelWords[i] = getWords(mLabels[i]);
+                foldedLabels.put(label, i);
+            }
+            mPackageNames[i] = entry.info != null && entry.info.packageName != null
+                    ? entry.info.packageName.toLowerCase(Locale.ROOT) : "";
+        }
+    }
+
+    /**
+     * @return whether this index was built for {@param entries}.
+     */
+    boolean isIndexOf(List<AppEntry> entries) {
+        return mEntries == entries;
+    }
+
+    /**
+     * @return the apps matching {@param query}, in the order of the indexed list.
+     */
+    @WorkerThread
+    @NonNull
+    ArrayList<AppEntry> search(CharSequence query) {
+        final String foldedQuery =
+                TextUtils.isEmpty(query) ? "" : ApplicationsState.normalize(query.toString());
+        if (foldedQuery.isEmpty()) {
+            mLastQuery = null;
+            return new ArrayList<>(mEntries);
+        }
+        final String[] queryWords = getWords(foldedQuery);
+
+        // Any app matching a longer query also matches its prefixes, so only the previous
+        // matches need to be searched while the query grows.
+        final boolean isRefinement = mLastQuery != null && foldedQuery.startsWith(mLastQuery);
+        final int candidateCount = isRefinement ? mLastMatchCount : mEntries.size();
+        final int[] matches = new int[candidateCount];
+        int matchCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            final int index = isRefinement ? mLastMatches[i] : i;
+            if (matches(index, foldedQuery, queryWords)) {
+                matches[matchCount++] = index;
+            }
+        }
+        mLastQuery = foldedQuery;
+        mLastMatches = matches;
+        mLastMatchCount = matchCount;
+
+        final ArrayList<AppEntry> matchedEntries = new ArrayList<>(matchCount);
+        for (int i = 0; i < matchCount; i++) {
+            matchedEntries.add(mEntries.get(matches[i]));
+        }
+        return matchedEntries;
+    }
+
+    private boolean matches(int index, String query, String[] queryWords) {
+        if (mLabels[index].contains(query) || mPackageNames[index].contains(query)) {
+            return true;
+        }
+        if (queryWords.length == 0) {
+            return false;
+        }
+        for (String queryWord : queryWords) {
+            if (!hasWordWithPrefix(mLabelWords[index], queryWord)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasWordWithPrefix(String[] words, String prefix) {
+        for (String word : words) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits {@param text} into its words, i.e. its runs of letters and digits.
+     */
+    private static String[] getWords(String text) {
+        final List<String> words = new ArrayList<>();
+        final int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            final boolean isWordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+}
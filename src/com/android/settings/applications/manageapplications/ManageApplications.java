@@ -1940,23 +1940,26 @@ public class ManageApplications extends InstrumentedFragment
         }
 
         /**
-         * An array filter that constrains the content of the array adapter with a substring.
-         * Item that does not contains the specified substring will be removed from the list.</p>
+         * An array filter that constrains the content of the array adapter with a query.
+         * Item that does not match the query in its {@link AppSearchIndex} will be removed from
+         * the list.</p>
          */
         private class SearchFilter extends Filter {
+            // Only accessed from the filtering thread, rebuilt for each new list of entries.
+            private AppSearchIndex mSearchIndex;
+
             @WorkerThread
             @Override
             protected FilterResults performFiltering(CharSequence query) {
+                final ArrayList<ApplicationsState.AppEntry> originalEntries = mOriginalEntries;
                 final ArrayList<ApplicationsState.AppEntry> matchedEntries;
                 if (TextUtils.isEmpty(query)) {
-                    matchedEntries = mOriginalEntries;
+                    matchedEntries = originalEntries;
                 } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
+                    if (mSearchIndex == null || !mSearchIndex.isIndexOf(originalEntries)) {
+                        mSearchIndex = new AppSearchIndex(originalEntries);
                     }
+                    matchedEntries = mSearchIndex.search(query);
                 }
                 final FilterResults results = new FilterResults();
                 results.values = matchedEntries;
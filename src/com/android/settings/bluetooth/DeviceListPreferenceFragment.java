@@ -138,7 +138,8 @@ public abstract class DeviceListPreferenceFragment extends
         if (mLocalManager == null || isUiRestricted()) return;
 
         mLocalManager.setForegroundActivity(getActivity());
-        mLocalManager.getEventManager().registerCallback(this);
+        // Devices found in a burst during discovery are added to the list together.
+        mLocalManager.getEventManager().registerCoalescingCallback(this);
     }
 
     @Override
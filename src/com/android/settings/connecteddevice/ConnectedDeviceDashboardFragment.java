@@ -18,8 +18,10 @@ package com.android.settings.connecteddevice;
 import static com.android.settings.Utils.SETTINGS_PACKAGE_NAME;
 
 import android.app.settings.SettingsEnums;
+import android.bluetooth.BluetoothAdapter;
 import android.content.Context;
 import android.net.Uri;
+import android.nfc.NfcAdapter;
 import android.provider.DeviceConfig;
 import android.text.TextUtils;
 import android.util.Log;
@@ -32,6 +34,7 @@ import com.android.settings.Utils;
 import com.android.settings.core.SettingsUIDeviceConfig;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.NonIndexableKeysSignals;
 import com.android.settings.slices.SlicePreferenceController;
 import com.android.settingslib.search.SearchIndexable;
 
@@ -100,5 +103,16 @@ public class ConnectedDeviceDashboardFragment extends DashboardFragment {
      * For Search.
      */
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
-            new BaseSearchIndexProvider(R.xml.connected_devices);
+            new BaseSearchIndexProvider(R.xml.connected_devices) {
+                @Override
+                public NonIndexableKeysSignals getNonIndexableKeysSignals() {
+                    // The controllers only read the Bluetooth and NFC states and the device
+                    // config of Settings.
+                    return new NonIndexableKeysSignals.Builder()
+                            .addBroadcastAction(BluetoothAdapter.ACTION_STATE_CHANGED)
+                            .addBroadcastAction(NfcAdapter.ACTION_ADAPTER_STATE_CHANGED)
+                            .addDeviceConfigNamespace(DeviceConfig.NAMESPACE_SETTINGS_UI)
+                            .build();
+                }
+            };
 }
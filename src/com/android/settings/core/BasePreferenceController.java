@@ -42,8 +42,6 @@ import com.android.settingslib.search.SearchIndexableRaw;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
 /**
@@ -131,45 +129,29 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and user-defined key.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through {@link PreferenceControllerFactory}, which falls back to reflection.
+     * Do not use this method unless you know what you are doing.
      */
     public static BasePreferenceController createInstance(Context context,
             String controllerName, String key) {
-        try {
-            final Class<?> clazz = Class.forName(controllerName);
-            final Constructor<?> preferenceConstructor =
-                    clazz.getConstructor(Context.class, String.class);
-            final Object[] params = new Object[]{context, key};
-            return (BasePreferenceController) preferenceConstructor.newInstance(params);
-        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException |
-                IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new IllegalStateException(
-                    "Invalid preference controller: " + controllerName, e);
-        }
+        return PreferenceControllerFactory.createInstance(context, controllerName, key);
     }
 
     /**
      * Instantiate a controller as specified controller type.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through {@link PreferenceControllerFactory}, which falls back to reflection.
+     * Do not use this method unless you know what you are doing.
      */
     public static BasePreferenceController createInstance(Context context, String controllerName) {
-        try {
-            final Class<?> clazz = Class.forName(controllerName);
-            final Constructor<?> preferenceConstructor = clazz.getConstructor(Context.class);
-            final Object[] params = new Object[]{context};
-            return (BasePreferenceController) preferenceConstructor.newInstance(params);
-        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException |
-                IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new IllegalStateException(
-                    "Invalid preference controller: " + controllerName, e);
-        }
+        return PreferenceControllerFactory.createInstance(context, controllerName);
     }
 
     /**
      * Instantiate a controller as specified controller type and work profile
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through {@link PreferenceControllerFactory}, which falls back to reflection.
+     * Do not use this method unless you know what you are doing.
      *
      * @param context        application context
      * @param controllerName class name of the {@link BasePreferenceController}
@@ -178,20 +160,10 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static BasePreferenceController createInstance(Context context, String controllerName,
             String key, boolean isWorkProfile) {
-        try {
-            final Class<?> clazz = Class.forName(controllerName);
-            final Constructor<?> preferenceConstructor =
-                    clazz.getConstructor(Context.class, String.class);
-            final Object[] params = new Object[]{context, key};
-            final BasePreferenceController controller =
-                    (BasePreferenceController) preferenceConstructor.newInstance(params);
-            controller.setForWork(isWorkProfile);
-            return controller;
-        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException
-                | IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new IllegalStateException(
-                    "Invalid preference controller: " + controllerName, e);
-        }
+        final BasePreferenceController controller =
+                PreferenceControllerFactory.createInstance(context, controllerName, key);
+        controller.setForWork(isWorkProfile);
+        return controller;
     }
 
     public BasePreferenceController(Context context, String preferenceKey) {
@@ -279,6 +251,13 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     @Override
     public void displayPreference(PreferenceScreen screen) {
+        if (this instanceof ConcurrentAvailability) {
+            // Availability is not known on the UI thread yet. The hosting DashboardFragment shows
+            // the preference (and disables it for DISABLED_DEPENDENT_SETTING) once the background
+            // check reports back.
+            displayConcurrentPreference(screen);
+            return;
+        }
         super.displayPreference(screen);
         if (getAvailabilityStatus() == DISABLED_DEPENDENT_SETTING) {
             // Disable preference if it depends on another setting.
@@ -289,6 +268,22 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
         }
     }
 
+    private void displayConcurrentPreference(PreferenceScreen screen) {
+        final String prefKey = getPreferenceKey();
+        if (TextUtils.isEmpty(prefKey)) {
+            Log.w(TAG, "Skipping displayPreference because key is empty:" + getClass().getName());
+            return;
+        }
+        final Preference preference = screen.findPreference(prefKey);
+        if (preference == null) {
+            return;
+        }
+        preference.setVisible(false);
+        if (this instanceof Preference.OnPreferenceChangeListener) {
+            preference.setOnPreferenceChangeListener((Preference.OnPreferenceChangeListener) this);
+        }
+    }
+
     /**
      * @return the UI type supported by the controller.
      */
@@ -415,6 +410,21 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     public interface UiBlocker {
     }
 
+    /**
+     * Used to mark a {@link BasePreferenceController} whose {@link #getAvailabilityStatus()} is
+     * safe to call from a background thread, concurrently with other controllers.
+     *
+     * Availability of such controllers is evaluated on a background thread pool when the hosting
+     * {@link com.android.settings.dashboard.DashboardFragment} updates its preferences, which keeps
+     * slow (i.e. Binder) checks off the UI thread. {@link #displayPreference} does not check
+     * availability for such controllers. Until the first result is posted back, the preference is
+     * hidden and the page is held by the UiBlockerController like a {@link UiBlocker}.
+     *
+     * This must be used in {@link BasePreferenceController}
+     */
+    public interface ConcurrentAvailability {
+    }
+
     /**
      * Set the metrics category of the parent fragment.
      *
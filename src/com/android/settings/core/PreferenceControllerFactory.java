@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instantiates {@link BasePreferenceController}s from their class names.
+ * <p/>
+ * Controllers registered through {@link #register(String, Creator)} are built with a direct
+ * constructor reference, feature packages register the ones of their screens when the app starts.
+ * Other controllers fall back to reflection, and the constructors found for each class are cached
+ * so that {@link Class#forName(String)} and the constructor lookup only happen once per class.
+ */
+public final class PreferenceControllerFactory {
+
+    /**
+     * Creates a controller through its {@code (Context, String)} constructor.
+     */
+    public interface Creator {
+        BasePreferenceController create(Context context, String key);
+    }
+
+    private static final Map<String, Creator> sCreators = new ConcurrentHashMap<>();
+    private static final Map<String, ControllerConstructors> sConstructors =
+            new ConcurrentHashMap<>();
+
+    private PreferenceControllerFactory() {
+    }
+
+    /**
+     * Registers a reflection-free {@link Creator} for {@param controllerName}.
+     * <p/>
+     * Only register controllers without a {@code (Context)} constructor, since xml inflation
+     * prefers that constructor when it exists.
+     */
+    public static void register(@NonNull String controllerName, @NonNull Creator creator) {
+        sCreators.put(controllerName, creator);
+    }
+
+    @VisibleForTesting
+    static void unregister(String controllerName) {
+        sCreators.remove(controllerName);
+    }
+
+    /**
+     * @return whether {@param controllerName} can be built with a {@code (Context)} constructor.
+     */
+    public static boolean hasContextConstructor(String controllerName) {
+        if (sCreators.containsKey(controllerName)) {
+            return false;
+        }
+        final ControllerConstructors constructors = getConstructors(controllerName);
+        return constructors != null && constructors.mContextConstructor != null;
+    }
+
+    /**
+     * Instantiates {@param controllerName} through its {@code (Context)} constructor.
+     *
+     * @throws IllegalStateException if the class or constructor doesn't exist.
+     */
+    public static BasePreferenceController createInstance(Context context,
+            String controllerName) {
+        final ControllerConstructors constructors = getConstructors(controllerName);
+        if (constructors == null || constructors.mContextConstructor == null) {
+            throw new IllegalStateException("Invalid preference controller: " + controllerName);
+        }
+        return newInstance(controllerName, constructors.mContextConstructor, context);
+    }
+
+    /**
+     * Instantiates {@param controllerName} through its {@code (Context, String)} constructor.
+     *
+     * @throws IllegalStateException if the class or constructor doesn't exist.
+     */
+    public static BasePreferenceController createInstance(Context context,
+            String controllerName, String key) {
+        final Creator creator = sCreators.get(controllerName);
+        if (creator != null) {
+            try {
+                return creator.create(context, key);
+            } catch (RuntimeException e) {
+                throw new IllegalStateException(
+                        "Invalid preference controller: " + controllerName, e);
+            }
+        }
+        final ControllerConstructors constructors = getConstructors(controllerName);
+        if (constructors == null || constructors.mKeyConstructor == null) {
+            throw new IllegalStateException("Invalid preference controller: " + controllerName);
+        }
+        return newInstance(controllerName, constructors.mKeyConstructor, context, key);
+    }
+
+    @VisibleForTesting
+    static boolean isRegistered(String controllerName) {
+        return sCreators.containsKey(controllerName);
+    }
+
+    private static BasePreferenceController newInstance(String controllerName,
+            Constructor<?> constructor, Object... params) {
+        try {
+            return (BasePreferenceController) constructor.newInstance(params);
+        } catch (InstantiationException | IllegalArgumentException | InvocationTargetException
+                | IllegalAccessException | ClassCastException e) {
+            throw new IllegalStateException(
+                    "Invalid preference controller: " + controllerName, e);
+        }
+    }
+
+    private static ControllerConstructors getConstructors(String controllerName) {
+        ControllerConstructors constructors = sConstructors.get(controllerName);
+        if (constructors == null) {
+            final Class<?> clazz;
+            try {
+                clazz = Class.forName(controllerName);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+            constructors = new ControllerConstructors(
+                    getConstructor(clazz, Context.class),
+                    getConstructor(clazz, Context.class, String.class));
+            sConstructors.put(controllerName, constructors);
+        }
+        return constructors;
+    }
+
+    private static Constructor<?> getConstructor(Class<?> clazz, Class<?>... parameterTypes) {
+        try {
+            return clazz.getConstructor(parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static class ControllerConstructors {
+        private final Constructor<?> mContextConstructor;
+        private final Constructor<?> mKeyConstructor;
+
+        ControllerConstructors(Constructor<?> contextConstructor, Constructor<?> keyConstructor) {
+            mContextConstructor = contextConstructor;
+            mKeyConstructor = keyConstructor;
+        }
+    }
+}
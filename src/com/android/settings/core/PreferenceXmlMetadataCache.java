@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_APPEND;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_CONTROLLER;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_FOR_WORK;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_HIGHLIGHTABLE_MENU_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_ICON;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEYWORDS;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_PREF_TYPE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SEARCHABLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SUMMARY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_TITLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_UNAVAILABLE_SLICE_SUBTITLE;
+
+import android.annotation.Nullable;
+import android.annotation.XmlRes;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.LruCache;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.utils.ThreadUtils;
+import com.android.settingslib.utils.VersionedFile;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cache of the metadata extracted by
+ * {@link PreferenceXmlParserUtils#extractMetadata(Context, int, int)}.
+ *
+ * Metadata of the recently used xmls is kept in memory for the current fingerprint, see
+ * {@link #getFingerprint(Context)}. Background callers, such as the search and slice indexers,
+ * also read and fill an on-disk copy with one memory mapped file per preference xml, so the UI
+ * thread never touches the disk.
+ */
+class PreferenceXmlMetadataCache {
+
+    private static final String CACHE_DIR = "preference_metadata";
+    private static final int MAGIC = 0x50584d43; // "PXMC"
+    @VisibleForTesting
+    static final int FORMAT_VERSION = 3;
+    // Enough for the pages the user moves between, indexing all xmls goes through the disk.
+    @VisibleForTesting
+    static final int MAX_MEMORY_ENTRIES = 32;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+
+    private static PreferenceXmlMetadataCache sInstance;
+
+    // Metadata of mFingerprint keyed by getCacheKey().
+    private final LruCache<String, List<Bundle>> mMetadata = new LruCache<>(MAX_MEMORY_ENTRIES);
+    private String mFingerprint;
+    private String mVersionFingerprint;
+
+    static synchronized PreferenceXmlMetadataCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new PreferenceXmlMetadataCache();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    PreferenceXmlMetadataCache() {
+    }
+
+    /**
+     * @return the cached metadata of {@param xmlResId} extracted with {@param flags}, or
+     * {@code null} if it isn't cached for the current configuration. The disk is only read off
+     * the UI thread.
+     */
+    @Nullable
+    List<Bundle> get(Context context, @XmlRes int xmlResId, int flags) {
+        final String fingerprint = getFingerprint(context);
+        final String key = getCacheKey(xmlResId, flags);
+        List<Bundle> metadata = getFromMemory(fingerprint, key);
+        if (metadata != null || ThreadUtils.isMainThread()) {
+            return metadata;
+        }
+
+        final List<List<Bundle>> result = new ArrayList<>(1);
+        getCacheFile(context, key).readMapped(buffer -> {
+            final List<Bundle> diskMetadata = readMetadata(buffer, fingerprint);
+            if (diskMetadata == null) {
+                return false;
+            }
+            result.add(diskMetadata);
+            return true;
+        });
+        if (result.isEmpty()) {
+            return null;
+        }
+        metadata = result.get(0);
+        putInMemory(fingerprint, key, metadata);
+        return metadata;
+    }
+
+    /**
+     * Stores the {@param metadata} of {@param xmlResId} extracted with {@param flags}. It is only
+     * written to disk off the UI thread.
+     */
+    void put(Context context, @XmlRes int xmlResId, int flags, List<Bundle> metadata) {
+        final String fingerprint = getFingerprint(context);
+        final String key = getCacheKey(xmlResId, flags);
+        putInMemory(fingerprint, key, metadata);
+        if (!ThreadUtils.isMainThread()) {
+            getCacheFile(context, key).write(out -> writeMetadata(out, metadata, fingerprint));
+        }
+    }
+
+    private synchronized List<Bundle> getFromMemory(String fingerprint, String key) {
+        return fingerprint.equals(mFingerprint) ? mMetadata.get(key) : null;
+    }
+
+    private synchronized void putInMemory(String fingerprint, String key, List<Bundle> metadata) {
+        if (!fingerprint.equals(mFingerprint)) {
+            mMetadata.evictAll();
+            mFingerprint = fingerprint;
+        }
+        mMetadata.put(key, metadata);
+    }
+
+    @VisibleForTesting
+    static void writeMetadata(DataOutputStream out, List<Bundle> metadata, String fingerprint)
+            throws IOException {
+        writeString(out, fingerprint);
+        out.writeInt(metadata.size());
+        for (Bundle bundle : metadata) {
+            out.writeInt(bundle.size());
+            for (String key : bundle.keySet()) {
+                writeString(out, key);
+                switch (getType(key)) {
+                    case TYPE_INT:
+                        out.writeByte(TYPE_INT);
+                        out.writeInt(bundle.getInt(key));
+                        break;
+                    case TYPE_BOOLEAN:
+                        out.writeByte(TYPE_BOOLEAN);
+                        out.writeBoolean(bundle.getBoolean(key));
+                        break;
+                    default:
+                        final String value = bundle.getString(key);
+                        if (value == null) {
+                            out.writeByte(TYPE_NULL);
+                        } else {
+                            out.writeByte(TYPE_STRING);
+                            writeString(out, value);
+                        }
+                        break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the decoded metadata, or {@code null} if it was written for another fingerprint.
+     */
+    @VisibleForTesting
+    @Nullable
+    static List<Bundle> readMetadata(ByteBuffer buffer, String fingerprint) throws IOException {
+        if (!fingerprint.equals(readString(buffer))) {
+            return null;
+        }
+        final int bundleCount = buffer.getInt();
+        final List<Bundle> metadata = new ArrayList<>(bundleCount);
+        for (int i = 0; i < bundleCount; i++) {
+            final int entryCount = buffer.getInt();
+            final Bundle bundle = new Bundle(entryCount);
+            for (int j = 0; j < entryCount; j++) {
+                final String key = readString(buffer);
+                final byte type = buffer.get();
+                switch (type) {
+                    case TYPE_NULL:
+                        bundle.putString(key, null);
+                        break;
+                    case TYPE_STRING:
+                        bundle.putString(key, readString(buffer));
+                        break;
+                    case TYPE_INT:
+                        bundle.putInt(key, buffer.getInt());
+                        break;
+                    case TYPE_BOOLEAN:
+                        bundle.putBoolean(key, buffer.get() != 0);
+                        break;
+                    default:
+                        throw new IOException("Unknown type " + type);
+                }
+            }
+            metadata.add(bundle);
+        }
+        return metadata;
+    }
+
+    /**
+     * @return the type {@link PreferenceXmlParserUtils#extractMetadata} stores {@param key} as.
+     */
+    private static byte getType(String key) throws IOException {
+        switch (key) {
+            case METADATA_ICON:
+                return TYPE_INT;
+            case METADATA_SEARCHABLE:
+            case METADATA_APPEND:
+            case METADATA_FOR_WORK:
+                return TYPE_BOOLEAN;
+            case METADATA_PREF_TYPE:
+            case METADATA_KEY:
+            case METADATA_CONTROLLER:
+            case METADATA_TITLE:
+            case METADATA_SUMMARY:
+            case METADATA_KEYWORDS:
+            case METADATA_UNAVAILABLE_SLICE_SUBTITLE:
+            case METADATA_HIGHLIGHTABLE_MENU_KEY:
+                return TYPE_STRING;
+            default:
+                throw new IOException("Unsupported metadata " + key);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a string which changes whenever the extracted metadata may change: the resource
+     * configuration used to resolve the xml, the resource overlays applied to the package, and the
+     * installed version of the package.
+     */
+    @VisibleForTesting
+    String getFingerprint(Context context) {
+        final Configuration config = context.getResources().getConfiguration();
+        final ApplicationInfo info = context.getApplicationInfo();
+        return getVersionFingerprint(context)
+                + "|" + config.getLocales().toLanguageTags()
+                + "|" + config.mcc + "|" + config.mnc
+                + "|" + config.uiMode
+                + "|" + config.smallestScreenWidthDp
+                + "|" + config.assetsSeq
+                + "|" + Arrays.hashCode(info.overlayPaths)
+                + "|" + Arrays.hashCode(info.resourceDirs);
+    }
+
+    private synchronized String getVersionFingerprint(Context context) {
+        if (mVersionFingerprint == null) {
+            try {
+                final PackageInfo info = context.getPackageManager().getPackageInfo(
+                        context.getPackageName(), 0 /* flags */);
+                mVersionFingerprint = info.getLongVersionCode() + ":" + info.lastUpdateTime;
+            } catch (PackageManager.NameNotFoundException e) {
+                mVersionFingerprint = Build.FINGERPRINT;
+            }
+        }
+        return mVersionFingerprint;
+    }
+
+    private static String getCacheKey(@XmlRes int xmlResId, int flags) {
+        return Integer.toHexString(xmlResId) + "_" + Integer.toHexString(flags);
+    }
+
+    private static VersionedFile getCacheFile(Context context, String key) {
+        return new VersionedFile(new File(new File(context.getCacheDir(), CACHE_DIR), key), MAGIC,
+                FORMAT_VERSION);
+    }
+}
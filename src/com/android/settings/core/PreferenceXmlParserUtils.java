@@ -171,7 +171,8 @@ public class PreferenceXmlParserUtils {
     }
 
     /**
-     * Extracts metadata from preference xml and put them into a {@link Bundle}.
+     * Extracts metadata from preference xml and put them into a {@link Bundle}. The bundles are
+     * cached and shared between callers, so they must not be modified.
      *
      * @param xmlResId xml res id of a preference screen
      * @param flags    Should be one or more of {@link MetadataFlag}.
@@ -179,11 +180,22 @@ public class PreferenceXmlParserUtils {
     @NonNull
     public static List<Bundle> extractMetadata(Context context, @XmlRes int xmlResId, int flags)
             throws IOException, XmlPullParserException {
-        final List<Bundle> metadata = new ArrayList<>();
         if (xmlResId <= 0) {
             Log.d(TAG, xmlResId + " is invalid.");
-            return metadata;
+            return new ArrayList<>();
+        }
+        final PreferenceXmlMetadataCache cache = PreferenceXmlMetadataCache.getInstance();
+        List<Bundle> metadata = cache.get(context, xmlResId, flags);
+        if (metadata == null) {
+            metadata = parseMetadata(context, xmlResId, flags);
+            cache.put(context, xmlResId, flags, metadata);
         }
+        return new ArrayList<>(metadata);
+    }
+
+    private static List<Bundle> parseMetadata(Context context, @XmlRes int xmlResId, int flags)
+            throws IOException, XmlPullParserException {
+        final List<Bundle> metadata = new ArrayList<>();
         final XmlResourceParser parser = context.getResources().getXml(xmlResId);
 
         int type;
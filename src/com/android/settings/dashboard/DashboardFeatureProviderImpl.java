@@ -279,7 +279,7 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             if (!TextUtils.equals(titleFromUri, preference.getTitle())) {
                 observer.post(() -> preference.setTitle(titleFromUri));
             }
-        });
+        }, ThreadUtils.PRIORITY_UI);
     }
 
     private DynamicDataObserver bindSummaryAndGetObserver(Preference preference, Tile tile) {
@@ -309,7 +309,7 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             if (!TextUtils.equals(summaryFromUri, preference.getSummary())) {
                 observer.post(() -> preference.setSummary(summaryFromUri));
             }
-        });
+        }, ThreadUtils.PRIORITY_UI);
     }
 
     private DynamicDataObserver bindSwitchAndGetObserver(Preference preference, Tile tile) {
@@ -362,7 +362,7 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
                 setSwitchChecked(preference, checked);
                 setSwitchEnabled(preference, true);
             });
-        });
+        }, ThreadUtils.PRIORITY_UI);
     }
 
     private void setSwitchChecked(Preference pref, boolean checked) {
@@ -24,6 +24,7 @@ import android.os.Bundle;
 import android.preference.PreferenceManager.OnActivityResultListener;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.CallSuper;
@@ -50,6 +51,7 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.search.Indexable;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -78,6 +80,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             new ArrayMap<>();
     private final List<DynamicDataObserver> mRegisteredObservers = new ArrayList<>();
     private final List<AbstractPreferenceController> mControllers = new ArrayList<>();
+    private final Map<AbstractPreferenceController, Boolean> mConcurrentAvailability =
+            new ArrayMap<>();
+    private final Set<AbstractPreferenceController> mPendingAvailabilityChecks = new ArraySet<>();
+    // ConcurrentAvailability controllers whose preference was displayed but not evaluated yet.
+    private final Set<AbstractPreferenceController> mUnevaluatedDisplays = new ArraySet<>();
     @VisibleForTesting
     UiBlockerController mBlockerController;
     private DashboardFeatureProvider mDashboardFeatureProvider;
@@ -137,8 +144,15 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     void checkUiBlocker(List<AbstractPreferenceController> controllers) {
         final List<String> keys = new ArrayList<>();
         final List<BasePreferenceController> baseControllers = new ArrayList<>();
+        final List<AbstractPreferenceController> concurrentControllers = new ArrayList<>();
         controllers.forEach(controller -> {
-            if (controller instanceof BasePreferenceController.UiBlocker
+            if (controller instanceof BasePreferenceController.ConcurrentAvailability) {
+                // Keep the UI blocked until the background availability check reports back.
+                concurrentControllers.add(controller);
+                if (!mConcurrentAvailability.containsKey(controller)) {
+                    keys.add(controller.getPreferenceKey());
+                }
+            } else if (controller instanceof BasePreferenceController.UiBlocker
                     && controller.isAvailable()) {
                 ((BasePreferenceController) controller).setUiBlockListener(this);
                 keys.add(controller.getPreferenceKey());
@@ -153,6 +167,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 baseControllers.forEach(controller -> controller.setUiBlockerFinished(true));
             });
         }
+        if (!concurrentControllers.isEmpty()) {
+            evaluateConcurrentAvailability(Collections.singletonList(concurrentControllers));
+        }
     }
 
     @Override
@@ -359,10 +376,19 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     /**
      * Perform {@link AbstractPreferenceController#displayPreference(PreferenceScreen)}
      * on all {@link AbstractPreferenceController}s.
+     * <p>
+     * Preferences of {@link BasePreferenceController.ConcurrentAvailability} controllers stay
+     * hidden until their background availability check reports back.
      */
     protected void displayResourceTilesToScreen(PreferenceScreen screen) {
         mPreferenceControllers.values().stream().flatMap(Collection::stream).forEach(
-                controller -> controller.displayPreference(screen));
+                controller -> {
+                    if (controller instanceof BasePreferenceController.ConcurrentAvailability) {
+                        mUnevaluatedDisplays.add(controller);
+                    }
+                    controller.displayPreference(screen);
+                });
+        evaluateConcurrentAvailability(mPreferenceControllers.values());
     }
 
     /**
@@ -379,9 +405,10 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         final PreferenceScreen screen = getPreferenceScreen();
         Collection<List<AbstractPreferenceController>> controllerLists =
                 mPreferenceControllers.values();
+        evaluateConcurrentAvailability(controllerLists);
         for (List<AbstractPreferenceController> controllerList : controllerLists) {
             for (AbstractPreferenceController controller : controllerList) {
-                if (!controller.isAvailable()) {
+                if (!isAvailable(controller)) {
                     continue;
                 }
 
@@ -403,6 +430,99 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         }
     }
 
+    /**
+     * Evaluates the availability of every controller marked as
+     * {@link BasePreferenceController.ConcurrentAvailability} on the background thread pool.
+     * Results are posted back to the UI thread, see {@link #onConcurrentAvailabilityEvaluated}.
+     * Controllers whose check is already in flight are skipped.
+     */
+    @VisibleForTesting
+    void evaluateConcurrentAvailability(
+            Collection<List<AbstractPreferenceController>> controllerLists) {
+        for (List<AbstractPreferenceController> controllerList : controllerLists) {
+            for (AbstractPreferenceController controller : controllerList) {
+                if (!(controller instanceof BasePreferenceController.ConcurrentAvailability)
+                        || !mPendingAvailabilityChecks.add(controller)) {
+                    continue;
+                }
+                ThreadUtils.postOnBackgroundThread(() -> {
+                    boolean available;
+                    boolean disabledDependent;
+                    try {
+                        available = controller.isAvailable();
+                        disabledDependent = available
+                                && ((BasePreferenceController) controller).getAvailabilityStatus()
+                                == BasePreferenceController.DISABLED_DEPENDENT_SETTING;
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Availability check failed: "
+                                + controller.getClass().getSimpleName() + ", " + e);
+                        available = false;
+                        disabledDependent = false;
+                    }
+                    final boolean availableResult = available;
+                    final boolean disabledDependentResult = disabledDependent;
+                    ThreadUtils.postOnMainThread(() -> onConcurrentAvailabilityEvaluated(
+                            controller, availableResult, disabledDependentResult));
+                }, ThreadUtils.PRIORITY_UI);
+            }
+        }
+    }
+
+    /**
+     * Records the availability of a {@link BasePreferenceController.ConcurrentAvailability}
+     * controller and applies it to its preference. The first result after the preference is
+     * displayed also applies {@link BasePreferenceController#DISABLED_DEPENDENT_SETTING}, which
+     * {@link BasePreferenceController#displayPreference} leaves to this fragment. While the
+     * {@link UiBlockerController} is not finished, visibility is left to
+     * {@link #updatePreferenceVisibility}.
+     */
+    @VisibleForTesting
+    void onConcurrentAvailabilityEvaluated(AbstractPreferenceController controller,
+            boolean available, boolean disabledDependent) {
+        mPendingAvailabilityChecks.remove(controller);
+        if (!isAdded()) {
+            return;
+        }
+        mConcurrentAvailability.put(controller, available);
+        final boolean firstSinceDisplay = mUnevaluatedDisplays.remove(controller);
+        final String key = controller.getPreferenceKey();
+        if (mBlockerController != null) {
+            mBlockerController.countDown(key);
+        }
+
+        final PreferenceScreen screen = getPreferenceScreen();
+        if (screen == null || TextUtils.isEmpty(key)) {
+            return;
+        }
+        final Preference preference = screen.findPreference(key);
+        if (preference == null) {
+            return;
+        }
+        if (firstSinceDisplay && disabledDependent) {
+            preference.setEnabled(false);
+        }
+        if (available) {
+            controller.updateState(preference);
+        }
+        if (mBlockerController == null || mBlockerController.isBlockerFinished()) {
+            preference.setVisible(available);
+        }
+    }
+
+    /**
+     * Returns the availability of {@code controller} without blocking. Controllers marked as
+     * {@link BasePreferenceController.ConcurrentAvailability} report their last background result
+     * and are treated as unavailable until the first one since their preference was displayed
+     * arrives.
+     */
+    private boolean isAvailable(AbstractPreferenceController controller) {
+        if (controller instanceof BasePreferenceController.ConcurrentAvailability) {
+            return !mUnevaluatedDisplays.contains(controller)
+                    && Boolean.TRUE.equals(mConcurrentAvailability.get(controller));
+        }
+        return controller.isAvailable();
+    }
+
     /**
      * Refresh all preference items, including both static prefs from xml, and dynamic items from
      * DashboardCategory.
@@ -437,6 +557,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (screen == null || mPreferenceControllers == null) {
             return;
         }
+        evaluateConcurrentAvailability(mPreferenceControllers.values());
         for (List<AbstractPreferenceController> controllerList : mPreferenceControllers.values()) {
             for (AbstractPreferenceController controller : controllerList) {
                 final String key = controller.getPreferenceKey();
@@ -444,7 +565,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 if (preference == null) {
                     continue;
                 }
-                final boolean available = controller.isAvailable();
+                final boolean available = isAvailable(controller);
                 if (available) {
                     controller.updateState(preference);
                 }
@@ -473,9 +594,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 if (controller instanceof BasePreferenceController.UiBlocker) {
                     final boolean prefVisible =
                             ((BasePreferenceController) controller).getSavedPrefVisibility();
-                    preference.setVisible(visible && controller.isAvailable() && prefVisible);
+                    preference.setVisible(visible && isAvailable(controller) && prefVisible);
                 } else {
-                    preference.setVisible(visible && controller.isAvailable());
+                    preference.setVisible(visible && isAvailable(controller));
                 }
             }
         }
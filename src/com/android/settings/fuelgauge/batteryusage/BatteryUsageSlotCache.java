@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.annotation.Nullable;
+
+import com.android.internal.annotations.VisibleForTesting;
+import com.android.settingslib.utils.VersionedFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Persists the hourly {@link BatteryDiffEntry} data computed by {@link DataProcessor} for each
+ * time slot, so only the open or invalidated slots are computed again on the next load.
+ *
+ * <p>Slots are keyed by their start and end timestamps. Each data version, e.g. for another user or
+ * with or without app usage periods, is kept in its own file, so callers computing different data
+ * versions don't drop each other's slots.</p>
+ */
+final class BatteryUsageSlotCache {
+    private static final String TAG = "BatteryUsageSlotCache";
+
+    private static final String DIRECTORY_NAME = "battery_usage_slots";
+    private static final int MAGIC = 0x42555343; // "BUSC"
+    @VisibleForTesting
+    static final int FORMAT_VERSION = 1;
+
+    private final Context mContext;
+    private final File mDirectory;
+    @Nullable
+    private VersionedFile mFile;
+    private final Map<Pair<Long, Long>, byte[]> mSlots = new ArrayMap<>();
+    private long mDataVersion;
+    private boolean mIsDirty;
+
+    /** Creates the cache in the cache dir of {@param context}, or null if there is none. */
+    @Nullable
+    static BatteryUsageSlotCache create(Context context) {
+        final File cacheDir = context.getCacheDir();
+        return cacheDir == null
+                ? null : new BatteryUsageSlotCache(context, new File(cacheDir, DIRECTORY_NAME));
+    }
+
+    @VisibleForTesting
+    BatteryUsageSlotCache(Context context, File directory) {
+        mContext = context;
+        mDirectory = directory;
+    }
+
+    /** Computes the data version for the given slot computation parameters. */
+    static int getDataVersion(
+            final int currentUserId, final int workProfileUserId, final boolean hasAppUsage) {
+        return Objects.hash(currentUserId, workProfileUserId, hasAppUsage);
+    }
+
+    /** Loads the cached slots of {@param dataVersion}. */
+    void load(final long dataVersion) {
+        mSlots.clear();
+        mDataVersion = dataVersion;
+        mIsDirty = false;
+        mDirectory.mkdirs();
+        mFile = new VersionedFile(
+                new File(mDirectory, Long.toHexString(dataVersion)), MAGIC, FORMAT_VERSION);
+        final boolean read = mFile.read(in -> {
+            if (in.readLong() != dataVersion) {
+                Log.d(TAG, "discard slots of another data version");
+                return false;
+            }
+            final int slotCount = in.readInt();
+            for (int index = 0; index < slotCount; index++) {
+                final long startTimestamp = in.readLong();
+                final long endTimestamp = in.readLong();
+                final byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                mSlots.put(Pair.create(startTimestamp, endTimestamp), data);
+            }
+            return true;
+        });
+        if (!read) {
+            mSlots.clear();
+            mIsDirty = true;
+        }
+    }
+
+    /**
+     * @return the cached slot between {@param startTimestamp} and {@param endTimestamp}, or
+     * {@code null} if it is not cached.
+     */
+    @Nullable
+    Slot get(final long startTimestamp, final long endTimestamp) {
+        final byte[] data = mSlots.get(Pair.create(startTimestamp, endTimestamp));
+        if (data == null) {
+            return null;
+        }
+        try {
+            return Slot.read(mContext, new DataInputStream(new ByteArrayInputStream(data)));
+        } catch (IOException e) {
+            Log.w(TAG, "discard unreadable slot " + startTimestamp, e);
+            mSlots.remove(Pair.create(startTimestamp, endTimestamp));
+            mIsDirty = true;
+            return null;
+        }
+    }
+
+    /**
+     * Caches the {@param slot} between {@param startTimestamp} and {@param endTimestamp}. The slot
+     * is encoded right away, so it can still be modified afterwards.
+     */
+    void put(final long startTimestamp, final long endTimestamp, final Slot slot) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            final DataOutputStream out = new DataOutputStream(bytes);
+            slot.write(out);
+            out.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "unable to encode slot " + startTimestamp, e);
+            return;
+        }
+        mSlots.put(Pair.create(startTimestamp, endTimestamp), bytes.toByteArray());
+        mIsDirty = true;
+    }
+
+    /**
+     * Writes the cached slots to disk if they changed, dropping the slots which start before
+     * {@param earliestTimestamp} since they are not shown anymore.
+     */
+    void save(final long earliestTimestamp) {
+        final Iterator<Pair<Long, Long>> iterator = mSlots.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().first < earliestTimestamp) {
+                iterator.remove();
+                mIsDirty = true;
+            }
+        }
+        if (!mIsDirty || mFile == null) {
+            return;
+        }
+        final boolean written = mFile.write(out -> {
+            out.writeLong(mDataVersion);
+            out.writeInt(mSlots.size());
+            for (Map.Entry<Pair<Long, Long>, byte[]> slot : mSlots.entrySet()) {
+                out.writeLong(slot.getKey().first);
+                out.writeLong(slot.getKey().second);
+                out.writeInt(slot.getValue().length);
+                out.write(slot.getValue());
+            }
+        });
+        if (written) {
+            mIsDirty = false;
+        }
+    }
+
+    @VisibleForTesting
+    int size() {
+        return mSlots.size();
+    }
+
+    /** The usage diff entries of a time slot, before they are purged and combined. */
+    static final class Slot {
+        final long mScreenOnTime;
+        final List<BatteryDiffEntry> mEntries;
+
+        Slot(final long screenOnTime, final List<BatteryDiffEntry> entries) {
+            mScreenOnTime = screenOnTime;
+            mEntries = entries;
+        }
+
+        /** Wraps the entries into {@link BatteryDiffData}, or returns null if there is none. */
+        @Nullable
+        BatteryDiffData toBatteryDiffData(
+                final Context context,
+                final Set<String> systemAppsPackageNames,
+                final Set<Integer> systemAppsUids) {
+            final List<BatteryDiffEntry> appEntries = new ArrayList<>();
+            final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
+            for (BatteryDiffEntry entry : mEntries) {
+                if (entry.isSystemEntry()) {
+                    systemEntries.add(entry);
+                } else {
+                    appEntries.add(entry);
+                }
+            }
+            // If there is no data, return null instead of empty item.
+            if (appEntries.isEmpty() && systemEntries.isEmpty()) {
+                return null;
+            }
+            return new BatteryDiffData(context, mScreenOnTime, appEntries, systemEntries,
+                    systemAppsPackageNames, systemAppsUids, /* isAccumulated= */ false);
+        }
+
+        private void write(final DataOutputStream out) throws IOException {
+            out.writeLong(mScreenOnTime);
+            out.writeInt(mEntries.size());
+            for (BatteryDiffEntry entry : mEntries) {
+                out.writeLong(entry.mForegroundUsageTimeInMs);
+                out.writeLong(entry.mBackgroundUsageTimeInMs);
+                out.writeLong(entry.mScreenOnTimeInMs);
+                out.writeDouble(entry.mConsumePower);
+                out.writeDouble(entry.mForegroundUsageConsumePower);
+                out.writeDouble(entry.mForegroundServiceUsageConsumePower);
+                out.writeDouble(entry.mBackgroundUsageConsumePower);
+                out.writeDouble(entry.mCachedUsageConsumePower);
+                writeBatteryHistEntry(out, entry.mBatteryHistEntry);
+            }
+        }
+
+        private static Slot read(final Context context, final DataInputStream in)
+                throws IOException {
+            final long screenOnTime = in.readLong();
+            final int entryCount = in.readInt();
+            final List<BatteryDiffEntry> entries = new ArrayList<>(entryCount);
+            for (int index = 0; index < entryCount; index++) {
+                final long foregroundUsageTimeInMs = in.readLong();
+                final long backgroundUsageTimeInMs = in.readLong();
+                final long screenOnTimeInMs = in.readLong();
+                final double consumePower = in.readDouble();
+                final double foregroundUsageConsumePower = in.readDouble();
+                final double foregroundServiceUsageConsumePower = in.readDouble();
+                final double backgroundUsageConsumePower = in.readDouble();
+                final double cachedUsageConsumePower = in.readDouble();
+                entries.add(new BatteryDiffEntry(
+                        context,
+                        foregroundUsageTimeInMs,
+                        backgroundUsageTimeInMs,
+                        screenOnTimeInMs,
+                        consumePower,
+                        foregroundUsageConsumePower,
+                        foregroundServiceUsageConsumePower,
+                        backgroundUsageConsumePower,
+                        cachedUsageConsumePower,
+                        readBatteryHistEntry(in)));
+            }
+            return new Slot(screenOnTime, entries);
+        }
+
+        private static void writeBatteryHistEntry(
+                final DataOutputStream out, final BatteryHistEntry entry) throws IOException {
+            out.writeLong(entry.mUid);
+            out.writeLong(entry.mUserId);
+            out.writeBoolean(entry.mPackageName != null);
+            if (entry.mPackageName != null) {
+                out.writeUTF(entry.mPackageName);
+            }
+            out.writeLong(entry.mTimestamp);
+            out.writeInt(entry.mConsumerType);
+            final byte[] batteryInformation =
+                    ConvertUtils.convertToBatteryInformation(entry).toByteArray();
+            out.writeInt(batteryInformation.length);
+            out.write(batteryInformation);
+        }
+
+        private static BatteryHistEntry readBatteryHistEntry(final DataInputStream in)
+                throws IOException {
+            final ContentValues values = new ContentValues();
+            values.put(BatteryHistEntry.KEY_UID, in.readLong());
+            values.put(BatteryHistEntry.KEY_USER_ID, in.readLong());
+            values.put(BatteryHistEntry.KEY_PACKAGE_NAME, in.readBoolean() ? in.readUTF() : null);
+            values.put(BatteryHistEntry.KEY_TIMESTAMP, in.readLong());
+            values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, in.readInt());
+            final byte[] batteryInformation = new byte[in.readInt()];
+            in.readFully(batteryInformation);
+            values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation);
+            return new BatteryHistEntry(values);
+        }
+    }
+}
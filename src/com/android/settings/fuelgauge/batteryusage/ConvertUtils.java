@@ -103,8 +103,7 @@ public final class ConvertUtils {
                         batteryStatus,
                         batteryHealth,
                         bootTimestamp);
-        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION,
-                convertBatteryInformationToString(batteryInformation));
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
         // Save the BatteryInformation unencoded string into database for debugging.
         if (Build.TYPE.equals("userdebug")) {
             values.put(
@@ -135,7 +134,10 @@ public final class ConvertUtils {
         return values;
     }
 
-    /** Gets the encoded string from {@link BatteryInformation} instance. */
+    /**
+     * Gets the Base64 encoded string from {@link BatteryInformation} instance, which is the
+     * format stored by the battery usage database before it kept the raw proto bytes.
+     */
     public static String convertBatteryInformationToString(
             final BatteryInformation batteryInformation) {
         return Base64.encodeToString(batteryInformation.toByteArray(), Base64.DEFAULT);
@@ -146,20 +148,76 @@ public final class ConvertUtils {
             final ContentValues values, final String key) {
         final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
         if (values != null && values.containsKey(key)) {
-            return BatteryUtils.parseProtoFromString(values.getAsString(key), defaultInstance);
+            final Object value = values.get(key);
+            return value instanceof byte[]
+                    ? BatteryUtils.parseProtoFromBytes((byte[]) value, defaultInstance)
+                    : BatteryUtils.parseProtoFromString(values.getAsString(key), defaultInstance);
         }
         return defaultInstance;
     }
 
+    /**
+     * Gets the serialized {@link BatteryInformation} bytes from {@link ContentValues}, which may
+     * hold either the raw bytes or the legacy Base64 encoded string.
+     */
+    @Nullable
+    public static byte[] getBatteryInformationBytes(
+            final ContentValues values, final String key) {
+        final Object value = values.get(key);
+        if (value instanceof String) {
+            return Base64.decode((String) value, Base64.DEFAULT);
+        }
+        return values.getAsByteArray(key);
+    }
+
     /** Gets the {@link BatteryInformation} instance from {@link Cursor}. */
     public static BatteryInformation getBatteryInformation(final Cursor cursor, final String key) {
         final BatteryInformation defaultInstance = BatteryInformation.getDefaultInstance();
         final int columnIndex = cursor.getColumnIndex(key);
-        if (columnIndex >= 0) {
+        if (columnIndex < 0) {
+            return defaultInstance;
+        }
+        // Keeps reading the legacy Base64 encoded string for compatibility.
+        if (cursor.getType(columnIndex) == Cursor.FIELD_TYPE_STRING) {
             return BatteryUtils.parseProtoFromString(
                     cursor.getString(columnIndex), defaultInstance);
         }
-        return defaultInstance;
+        return BatteryUtils.parseProtoFromBytes(cursor.getBlob(columnIndex), defaultInstance);
+    }
+
+    /** Converts {@link BatteryHistEntry} back to {@link BatteryInformation}. */
+    public static BatteryInformation convertToBatteryInformation(final BatteryHistEntry entry) {
+        final DeviceBatteryState deviceBatteryState =
+                DeviceBatteryState
+                        .newBuilder()
+                        .setBatteryLevel(entry.mBatteryLevel)
+                        .setBatteryStatus(entry.mBatteryStatus)
+                        .setBatteryHealth(entry.mBatteryHealth)
+                        .build();
+        final BatteryInformation.Builder batteryInformationBuilder =
+                BatteryInformation
+                        .newBuilder()
+                        .setDeviceBatteryState(deviceBatteryState)
+                        .setIsHidden(entry.mIsHidden)
+                        .setBootTimestamp(entry.mBootTimestamp)
+                        .setTotalPower(entry.mTotalPower)
+                        .setConsumePower(entry.mConsumePower)
+                        .setForegroundUsageConsumePower(entry.mForegroundUsageConsumePower)
+                        .setForegroundServiceUsageConsumePower(
+                                entry.mForegroundServiceUsageConsumePower)
+                        .setBackgroundUsageConsumePower(entry.mBackgroundUsageConsumePower)
+                        .setCachedUsageConsumePower(entry.mCachedUsageConsumePower)
+                        .setPercentOfTotal(entry.mPercentOfTotal)
+                        .setDrainType(entry.mDrainType)
+                        .setForegroundUsageTimeInMs(entry.mForegroundUsageTimeInMs)
+                        .setBackgroundUsageTimeInMs(entry.mBackgroundUsageTimeInMs);
+        if (entry.mAppLabel != null) {
+            batteryInformationBuilder.setAppLabel(entry.mAppLabel);
+        }
+        if (entry.mZoneId != null) {
+            batteryInformationBuilder.setZoneId(entry.mZoneId);
+        }
+        return batteryInformationBuilder.build();
     }
 
     /** Converts to {@link BatteryHistEntry} */
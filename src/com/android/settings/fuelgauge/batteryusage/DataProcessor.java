@@ -137,6 +137,16 @@ public final class DataProcessor {
     public static Map<Integer, Map<Integer, BatteryDiffData>> getBatteryUsageData(
             Context context,
             @Nullable final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap) {
+        return getBatteryUsageData(
+                context, batteryHistoryMap, BatteryUsageSlotCache.create(context));
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static Map<Integer, Map<Integer, BatteryDiffData>> getBatteryUsageData(
+            Context context,
+            @Nullable final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
+            @Nullable final BatteryUsageSlotCache slotCache) {
         if (batteryHistoryMap == null || batteryHistoryMap.isEmpty()) {
             Log.d(TAG, "getBatteryLevelData() returns null");
             return null;
@@ -163,7 +173,8 @@ public final class DataProcessor {
                         context,
                         batteryLevelData.getHourlyBatteryLevelsPerDay(),
                         processedBatteryHistoryMap,
-                        /*appUsagePeriodMap=*/ null);
+                        /*appUsagePeriodMap=*/ null,
+                        slotCache);
     }
 
     /**
@@ -429,6 +440,40 @@ public final class DataProcessor {
         return resultMap;
     }
 
+    /**
+     * @return Returns the raw timestamps which {@link #getHistoryMapWithExpectedTimestamps} reads
+     * data from: the first and the last ones, and the nearest lower and upper ones of every hourly
+     * timestamp slot. The other raw timestamps can be dropped before decoding the history.
+     * The input list must be sorted in ascending order.
+     */
+    static Set<Long> getRawTimestampsForExpectedSlots(final List<Long> rawTimestampList) {
+        final Set<Long> resultSet = new ArraySet<>();
+        if (rawTimestampList.isEmpty()) {
+            return resultSet;
+        }
+        final int rawTimestampSize = rawTimestampList.size();
+        resultSet.add(rawTimestampList.get(0));
+        resultSet.add(rawTimestampList.get(rawTimestampSize - 1));
+        final List<Long> expectedTimestampSlots =
+                getTimestampSlots(rawTimestampList, getCurrentTimeMillis());
+        for (int index = 1; index < expectedTimestampSlots.size() - 1; index++) {
+            final long currentSlot = expectedTimestampSlots.get(index);
+            final int position = Collections.binarySearch(rawTimestampList, currentSlot);
+            if (position >= 0) {
+                resultSet.add(currentSlot);
+                continue;
+            }
+            final int upperPosition = -position - 1;
+            if (upperPosition > 0) {
+                resultSet.add(rawTimestampList.get(upperPosition - 1));
+            }
+            if (upperPosition < rawTimestampSize) {
+                resultSet.add(rawTimestampList.get(upperPosition));
+            }
+        }
+        return resultSet;
+    }
+
     @Nullable
     static BatteryLevelData getLevelDataThroughProcessedHistoryMap(
             Context context,
@@ -581,6 +626,22 @@ public final class DataProcessor {
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
             final Map<Integer, Map<Integer, Map<Long, Map<String, List<AppUsagePeriod>>>>>
                     appUsagePeriodMap) {
+        return getBatteryUsageMap(context, hourlyBatteryLevelsPerDay, batteryHistoryMap,
+                appUsagePeriodMap, /*slotCache=*/ null);
+    }
+
+    /**
+     * Same as {@link #getBatteryUsageMap(Context, List, Map, Map)}, but reuses the hourly slots
+     * which are still valid in {@param slotCache} and caches the newly closed ones into it.
+     */
+    @Nullable
+    static Map<Integer, Map<Integer, BatteryDiffData>> getBatteryUsageMap(
+            final Context context,
+            final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay,
+            final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
+            final Map<Integer, Map<Integer, Map<Long, Map<String, List<AppUsagePeriod>>>>>
+                    appUsagePeriodMap,
+            @Nullable final BatteryUsageSlotCache slotCache) {
         if (batteryHistoryMap.isEmpty()) {
             return null;
         }
@@ -589,7 +650,8 @@ public final class DataProcessor {
         final Set<Integer> systemAppsUids = getSystemAppsUids(context);
         // Insert diff data from [0][0] to [maxDailyIndex][maxHourlyIndex].
         insertHourlyUsageDiffData(context, systemAppsPackageNames, systemAppsUids,
-                hourlyBatteryLevelsPerDay, batteryHistoryMap, appUsagePeriodMap, resultMap);
+                hourlyBatteryLevelsPerDay, batteryHistoryMap, appUsagePeriodMap, slotCache,
+                resultMap);
         // Insert diff data from [0][SELECTED_INDEX_ALL] to [maxDailyIndex][SELECTED_INDEX_ALL].
         insertDailyUsageDiffData(context, hourlyBatteryLevelsPerDay, resultMap);
         // Insert diff data [SELECTED_INDEX_ALL][SELECTED_INDEX_ALL].
@@ -1213,12 +1275,28 @@ public final class DataProcessor {
             final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap,
             final Map<Integer, Map<Integer, Map<Long, Map<String, List<AppUsagePeriod>>>>>
                     appUsagePeriodMap,
+            @Nullable final BatteryUsageSlotCache slotCache,
             final Map<Integer, Map<Integer, BatteryDiffData>> resultMap) {
         final int currentUserId = context.getUserId();
         final UserHandle userHandle =
                 Utils.getManagedProfile(context.getSystemService(UserManager.class));
         final int workProfileUserId =
                 userHandle != null ? userHandle.getIdentifier() : Integer.MIN_VALUE;
+        // The last slot ends at the current time, so it is still open and never cached.
+        long earliestTimestamp = Long.MAX_VALUE;
+        long lastTimestamp = Long.MIN_VALUE;
+        for (BatteryLevelData.PeriodBatteryLevelData levelData : hourlyBatteryLevelsPerDay) {
+            if (levelData == null || levelData.getTimestamps().isEmpty()) {
+                continue;
+            }
+            final List<Long> timestamps = levelData.getTimestamps();
+            earliestTimestamp = Math.min(earliestTimestamp, timestamps.get(0));
+            lastTimestamp = Math.max(lastTimestamp, timestamps.get(timestamps.size() - 1));
+        }
+        if (slotCache != null) {
+            slotCache.load(BatteryUsageSlotCache.getDataVersion(
+                    currentUserId, workProfileUserId, appUsagePeriodMap != null));
+        }
         // Each time slot usage diff data =
         //     sum(Math.abs(timestamp[i+1] data - timestamp[i] data));
         // since we want to aggregate every hour usage diff data into a single time slot.
@@ -1233,6 +1311,13 @@ public final class DataProcessor {
             for (int hourlyIndex = 0; hourlyIndex < hourlyTimestamps.size() - 1; hourlyIndex++) {
                 final Long startTimestamp = hourlyTimestamps.get(hourlyIndex);
                 final Long endTimestamp = hourlyTimestamps.get(hourlyIndex + 1);
+                BatteryUsageSlotCache.Slot slot =
+                        slotCache == null ? null : slotCache.get(startTimestamp, endTimestamp);
+                if (slot != null) {
+                    dailyDiffMap.put(hourlyIndex, slot.toBatteryDiffData(
+                            context, systemAppsPackageNames, systemAppsUids));
+                    continue;
+                }
                 final long slotDuration = endTimestamp - startTimestamp;
                 List<Map<String, BatteryHistEntry>> slotBatteryHistoryList = new ArrayList<>();
                 slotBatteryHistoryList.add(
@@ -1245,22 +1330,31 @@ public final class DataProcessor {
                 slotBatteryHistoryList.add(
                         batteryHistoryMap.getOrDefault(endTimestamp, EMPTY_BATTERY_MAP));
 
-                final BatteryDiffData hourlyBatteryDiffData =
-                        insertHourlyUsageDiffDataPerSlot(
-                                context,
-                                currentUserId,
-                                workProfileUserId,
-                                slotDuration,
-                                systemAppsPackageNames,
-                                systemAppsUids,
-                                appUsagePeriodMap == null
-                                        || appUsagePeriodMap.get(dailyIndex) == null
-                                        ? null
-                                        : appUsagePeriodMap.get(dailyIndex).get(hourlyIndex),
-                                slotBatteryHistoryList);
-                dailyDiffMap.put(hourlyIndex, hourlyBatteryDiffData);
+                slot = getHourlyUsageSlot(
+                        context,
+                        currentUserId,
+                        workProfileUserId,
+                        slotDuration,
+                        appUsagePeriodMap == null
+                                || appUsagePeriodMap.get(dailyIndex) == null
+                                ? null
+                                : appUsagePeriodMap.get(dailyIndex).get(hourlyIndex),
+                        slotBatteryHistoryList);
+                if (slot == null) {
+                    dailyDiffMap.put(hourlyIndex, null);
+                    continue;
+                }
+                // A closed slot with enough data won't change anymore.
+                if (slotCache != null && endTimestamp < lastTimestamp) {
+                    slotCache.put(startTimestamp, endTimestamp, slot);
+                }
+                dailyDiffMap.put(hourlyIndex, slot.toBatteryDiffData(
+                        context, systemAppsPackageNames, systemAppsUids));
             }
         }
+        if (slotCache != null) {
+            slotCache.save(earliestTimestamp);
+        }
     }
 
     private static void insertDailyUsageDiffData(
@@ -1290,14 +1384,16 @@ public final class DataProcessor {
         resultMap.put(SELECTED_INDEX_ALL, allUsageMap);
     }
 
+    /**
+     * @return Returns the usage diff entries of a time slot, or null if there is no enough data
+     * to apply interpolation arithmetic in the slot.
+     */
     @Nullable
-    private static BatteryDiffData insertHourlyUsageDiffDataPerSlot(
+    private static BatteryUsageSlotCache.Slot getHourlyUsageSlot(
             final Context context,
             final int currentUserId,
             final int workProfileUserId,
             final long slotDuration,
-            final Set<String> systemAppsPackageNames,
-            final Set<Integer> systemAppsUids,
             final Map<Long, Map<String, List<AppUsagePeriod>>> appUsageMap,
             final List<Map<String, BatteryHistEntry>> slotBatteryHistoryList) {
         long slotScreenOnTime = 0L;
@@ -1320,8 +1416,7 @@ public final class DataProcessor {
                     Math.min(slotDuration, getScreenOnTime(flatAppUsagePeriodList));
         }
 
-        final List<BatteryDiffEntry> appEntries = new ArrayList<>();
-        final List<BatteryDiffEntry> systemEntries = new ArrayList<>();
+        final List<BatteryDiffEntry> slotEntries = new ArrayList<>();
 
         // Collects all keys in these three time slot records as all populations.
         final Set<String> allBatteryHistEntryKeys = new ArraySet<>();
@@ -1446,7 +1541,7 @@ public final class DataProcessor {
             // Make sure the background + screen-on time will not exceed the threshold.
             backgroundUsageTimeInMs = Math.min(
                     backgroundUsageTimeInMs, (long) slotDuration - screenOnTime);
-            final BatteryDiffEntry currentBatteryDiffEntry = new BatteryDiffEntry(
+            slotEntries.add(new BatteryDiffEntry(
                     context,
                     foregroundUsageTimeInMs,
                     backgroundUsageTimeInMs,
@@ -1456,21 +1551,9 @@ public final class DataProcessor {
                     foregroundServiceUsageConsumePower,
                     backgroundUsageConsumePower,
                     cachedUsageConsumePower,
-                    selectedBatteryEntry);
-            if (currentBatteryDiffEntry.isSystemEntry()) {
-                systemEntries.add(currentBatteryDiffEntry);
-            } else {
-                appEntries.add(currentBatteryDiffEntry);
-            }
+                    selectedBatteryEntry));
         }
-
-        // If there is no data, return null instead of empty item.
-        if (appEntries.isEmpty() && systemEntries.isEmpty()) {
-            return null;
-        }
-
-        return new BatteryDiffData(context, slotScreenOnTime, appEntries, systemEntries,
-                systemAppsPackageNames, systemAppsUids, /* isAccumulated= */ false);
+        return new BatteryUsageSlotCache.Slot(slotScreenOnTime, slotEntries);
     }
 
     private static long getScreenOnTime(@Nullable final List<AppUsagePeriod> appUsagePeriodList) {
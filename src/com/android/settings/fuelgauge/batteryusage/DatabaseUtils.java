@@ -46,6 +46,8 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -565,8 +567,17 @@ public final class DatabaseUtils {
             if (cursor == null || cursor.getCount() == 0) {
                 return resultMap;
             }
-            // Loads and recovers all BatteryHistEntry data from cursor.
+            // Reads the timestamps first, so only the rows around the hourly slots are decoded.
+            final int timestampIndex = cursor.getColumnIndex(BatteryHistEntry.KEY_TIMESTAMP);
+            final Set<Long> requiredTimestamps =
+                    timestampIndex < 0 ? null : getRequiredTimestamps(cursor, timestampIndex);
+            cursor.moveToPosition(-1);
+            // Loads and recovers the required BatteryHistEntry data from cursor.
             while (cursor.moveToNext()) {
+                if (requiredTimestamps != null
+                        && !requiredTimestamps.contains(cursor.getLong(timestampIndex))) {
+                    continue;
+                }
                 final BatteryHistEntry entry = new BatteryHistEntry(cursor);
                 final long timestamp = entry.mTimestamp;
                 final String key = entry.getKey();
@@ -587,6 +598,18 @@ public final class DatabaseUtils {
         return resultMap;
     }
 
+    private static Set<Long> getRequiredTimestamps(Cursor cursor, int timestampIndex) {
+        final Set<Long> rawTimestamps = new TreeSet<>();
+        while (cursor.moveToNext()) {
+            rawTimestamps.add(cursor.getLong(timestampIndex));
+        }
+        final Set<Long> requiredTimestamps =
+                DataProcessor.getRawTimestampsForExpectedSlots(new ArrayList<>(rawTimestamps));
+        Log.d(TAG, String.format("loadHistoryMapFromContentProvider() decodes %d of %d timestamps",
+                requiredTimestamps.size(), rawTimestamps.size()));
+        return requiredTimestamps;
+    }
+
     private static void clearMemory() {
         if (SystemClock.uptimeMillis() > CLEAR_MEMORY_THRESHOLD_MS) {
             return;
@@ -16,22 +16,62 @@
 
 package com.android.settings.fuelgauge.batteryusage.db;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Base64;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 /** A {@link RoomDatabase} for battery usage states history. */
 @Database(
         entities = {AppUsageEventEntity.class, BatteryEventEntity.class, BatteryState.class},
-        version = 1)
+        version = 2)
 public abstract class BatteryStateDatabase extends RoomDatabase {
     private static final String TAG = "BatteryStateDatabase";
 
     private static BatteryStateDatabase sBatteryStateDatabase;
 
+    /**
+     * Converts {@link BatteryState#batteryInformation} from a Base64 encoded string into the raw
+     * proto bytes. SQLite cannot decode Base64, so the rows are copied into a new table one by one.
+     */
+    @VisibleForTesting
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `BatteryState_new` ("
+                    + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`uid` INTEGER NOT NULL, `userId` INTEGER NOT NULL, "
+                    + "`packageName` TEXT, `timestamp` INTEGER NOT NULL, "
+                    + "`consumerType` INTEGER NOT NULL, "
+                    + "`isFullChargeCycleStart` INTEGER NOT NULL, "
+                    + "`batteryInformation` BLOB, `batteryInformationDebug` TEXT)");
+            try (Cursor cursor = database.query("SELECT * FROM `BatteryState`")) {
+                final ContentValues values = new ContentValues();
+                while (cursor.moveToNext()) {
+                    values.clear();
+                    DatabaseUtils.cursorRowToContentValues(cursor, values);
+                    final String batteryInformation = values.getAsString("batteryInformation");
+                    values.put("batteryInformation", batteryInformation == null
+                            ? null : decodeBatteryInformation(batteryInformation));
+                    database.insert("BatteryState_new", SQLiteDatabase.CONFLICT_REPLACE, values);
+                }
+            }
+            database.execSQL("DROP TABLE `BatteryState`");
+            database.execSQL("ALTER TABLE `BatteryState_new` RENAME TO `BatteryState`");
+        }
+    };
+
     /** Provides DAO for app usage event table. */
     public abstract AppUsageEventDao appUsageEventDao();
     /** Provides DAO for battery event table. */
@@ -47,6 +87,7 @@ public abstract class BatteryStateDatabase extends RoomDatabase {
                                     context, BatteryStateDatabase.class, "battery-usage-db-v8")
                             // Allows accessing data in the main thread for dumping bugreport.
                             .allowMainThreadQueries()
+                            .addMigrations(MIGRATION_1_2)
                             .fallbackToDestructiveMigration()
                             .build();
             Log.d(TAG, "initialize battery states database");
@@ -54,6 +95,15 @@ public abstract class BatteryStateDatabase extends RoomDatabase {
         return sBatteryStateDatabase;
     }
 
+    private static byte[] decodeBatteryInformation(String batteryInformation) {
+        try {
+            return Base64.decode(batteryInformation, Base64.DEFAULT);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "drop invalid battery information in migration", e);
+            return null;
+        }
+    }
+
     /** Sets the instance of {@link RoomDatabase}. */
     public static void setBatteryStateDatabase(BatteryStateDatabase database) {
         BatteryStateDatabase.sBatteryStateDatabase = database;
@@ -27,10 +27,13 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.Settings;
+import android.util.ArrayMap;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
@@ -41,10 +44,13 @@ import com.android.settingslib.utils.AsyncLoaderCompat;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>> {
@@ -57,6 +63,18 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
 
     private static final String TAG = "ContextualCardLoader";
     private static final long ELIGIBILITY_CHECKER_TIMEOUT_MS = 400;
+    private static final long ELIGIBILITY_CHECKER_KEEP_ALIVE_SECONDS = 30;
+    // Only this many cards are shown by default, and cards with a recent verdict are not checked
+    // again, so a load rarely has more cards to check than threads.
+    private static final int ELIGIBILITY_CHECKER_THREAD_COUNT = DEFAULT_CARD_COUNT;
+    // How long the following loads reuse the eligibility verdict of a card.
+    @VisibleForTesting
+    static final long CARD_VERDICT_TTL_MS = 30000;
+
+    private static ExecutorService sEligibilityExecutor;
+
+    // Recent eligibility verdicts, keyed by getVerdictKey(). Guarded by itself.
+    private final Map<String, CardVerdict> mCardVerdicts = new ArrayMap<>();
 
     private final ContentObserver mObserver = new ContentObserver(
             new Handler(Looper.getMainLooper())) {
@@ -64,6 +82,10 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
         public void onChange(boolean selfChange, Uri uri) {
             if (isStarted()) {
                 mNotifyUri = uri;
+                if (CardContentProvider.REFRESH_CARD_URI.equals(uri)) {
+                    // The data behind the cards changed, check all of them again.
+                    clearCardVerdicts();
+                }
                 forceLoad();
             }
         }
@@ -188,42 +210,110 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
             return candidates;
         }
 
-        final ExecutorService executor = Executors.newFixedThreadPool(candidates.size());
-        final List<ContextualCard> cards = new ArrayList<>();
-        List<Future<ContextualCard>> eligibleCards = new ArrayList<>();
-
-        final List<EligibleCardChecker> checkers = candidates.stream()
-                .map(card -> new EligibleCardChecker(mContext, card))
-                .collect(Collectors.toList());
-        try {
-            eligibleCards = executor.invokeAll(checkers, ELIGIBILITY_CHECKER_TIMEOUT_MS,
-                    TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Log.w(TAG, "Failed to get eligible states for all cards", e);
-        }
-        executor.shutdown();
-
-        // Collect future and eligible cards
-        for (int i = 0; i < eligibleCards.size(); i++) {
-            final Future<ContextualCard> cardFuture = eligibleCards.get(i);
-            if (cardFuture.isCancelled()) {
-                Log.w(TAG, "Timeout getting eligible state for card: "
-                        + candidates.get(i).getSliceUri());
-                continue;
+        // Cards with a recent verdict are not checked again.
+        final long now = SystemClock.elapsedRealtime();
+        final CardVerdict[] verdicts = new CardVerdict[candidates.size()];
+        final List<Integer> checkedIndexes = new ArrayList<>();
+        synchronized (mCardVerdicts) {
+            mCardVerdicts.values().removeIf(verdict -> verdict.isExpired(now));
+            for (int i = 0; i < candidates.size(); i++) {
+                verdicts[i] = mCardVerdicts.get(getVerdictKey(candidates.get(i)));
+                if (verdicts[i] == null) {
+                    checkedIndexes.add(i);
+                }
             }
+        }
 
+        if (!checkedIndexes.isEmpty()) {
+            final List<EligibleCardChecker> checkers = checkedIndexes.stream()
+                    .map(index -> createEligibleCardChecker(candidates.get(index)))
+                    .collect(Collectors.toList());
+            List<Future<ContextualCard>> eligibleCards = new ArrayList<>();
             try {
-                final ContextualCard card = cardFuture.get();
-                if (card != null) {
-                    cards.add(card);
+                eligibleCards = getEligibilityExecutor().invokeAll(checkers,
+                        ELIGIBILITY_CHECKER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Failed to get eligible states for all cards", e);
+            }
+
+            // Collect future and eligible cards
+            for (int i = 0; i < eligibleCards.size(); i++) {
+                final int index = checkedIndexes.get(i);
+                final ContextualCard candidate = candidates.get(index);
+                final Future<ContextualCard> cardFuture = eligibleCards.get(i);
+                if (cardFuture.isCancelled()) {
+                    Log.w(TAG, "Timeout getting eligible state for card: "
+                            + candidate.getSliceUri());
+                    continue;
+                }
+
+                try {
+                    verdicts[index] = new CardVerdict(cardFuture.get(), now);
+                } catch (Exception e) {
+                    Log.w(TAG, "Failed to get eligible state for card", e);
+                    continue;
+                }
+                synchronized (mCardVerdicts) {
+                    mCardVerdicts.put(getVerdictKey(candidate), verdicts[index]);
                 }
-            } catch (Exception e) {
-                Log.w(TAG, "Failed to get eligible state for card", e);
+            }
+        }
+
+        final List<ContextualCard> cards = new ArrayList<>();
+        for (CardVerdict verdict : verdicts) {
+            if (verdict != null && verdict.mEligibleCard != null) {
+                cards.add(verdict.mEligibleCard);
             }
         }
         return cards;
     }
 
+    @VisibleForTesting
+    EligibleCardChecker createEligibleCardChecker(ContextualCard card) {
+        return new EligibleCardChecker(mContext, card);
+    }
+
+    /**
+     * Forgets the eligibility verdicts, so the next load checks every card again.
+     */
+    @VisibleForTesting
+    void clearCardVerdicts() {
+        synchronized (mCardVerdicts) {
+            mCardVerdicts.clear();
+        }
+    }
+
+    /**
+     * Returns the key of the eligibility verdict of {@code card}. It covers the slice and every
+     * field read from the card provider, so a card whose state changed is checked again.
+     */
+    private static String getVerdictKey(ContextualCard card) {
+        return card.getTextSliceUri() + '|' + card.getName() + '|' + card.getCardType() + '|'
+                + card.getRankingScore() + '|' + card.getCategory() + '|'
+                + card.getPackageName() + '|' + card.getAppVersion() + '|'
+                + card.getTitleText() + '|' + card.getSummaryText() + '|'
+                + card.isLargeCard();
+    }
+
+    /**
+     * Returns the executor running {@link EligibleCardChecker}. It has a fixed number of threads,
+     * which time out when idle so the pool costs nothing between loads.
+     */
+    private static synchronized ExecutorService getEligibilityExecutor() {
+        if (sEligibilityExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    ELIGIBILITY_CHECKER_THREAD_COUNT, ELIGIBILITY_CHECKER_THREAD_COUNT,
+                    ELIGIBILITY_CHECKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable,
+                            "EligibleCardChecker-" + threadCount.incrementAndGet()));
+            executor.allowCoreThreadTimeOut(true);
+            sEligibilityExecutor = executor;
+        }
+        return sEligibilityExecutor;
+    }
+
     private boolean isLargeCard(ContextualCard card) {
         return card.getSliceUri().equals(CONTEXTUAL_WIFI_SLICE_URI)
                 || card.getSliceUri().equals(BLUETOOTH_DEVICES_SLICE_URI);
@@ -232,4 +322,23 @@ public class ContextualCardLoader extends AsyncLoaderCompat<List<ContextualCard>
     public interface CardContentLoaderListener {
         void onFinishCardLoading(List<ContextualCard> contextualCards);
     }
+
+    /**
+     * The eligibility of a card, as found by {@link EligibleCardChecker}.
+     */
+    private static class CardVerdict {
+        // The card to display, or null when the card is not eligible.
+        @Nullable
+        final ContextualCard mEligibleCard;
+        final long mCheckedTime;
+
+        CardVerdict(@Nullable ContextualCard eligibleCard, long checkedTime) {
+            mEligibleCard = eligibleCard;
+            mCheckedTime = checkedTime;
+        }
+
+        boolean isExpired(long now) {
+            return now - mCheckedTime >= CARD_VERDICT_TTL_MS;
+        }
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.android.settings.language;
+
+import com.android.settings.core.PreferenceControllerFactory;
+
+/**
+ * Registers the controllers of the language screens with {@link PreferenceControllerFactory},
+ * since they are constructed every time the screens are opened.
+ */
+public final class LanguageControllerCreators {
+
+    private LanguageControllerCreators() {
+    }
+
+    /** Registers the creators of the language controllers. */
+    public static void register() {
+        PreferenceControllerFactory.register(TtsPreferenceController.class.getName(),
+                TtsPreferenceController::new);
+    }
+}
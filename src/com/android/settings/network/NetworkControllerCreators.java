@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.android.settings.network;
+
+import com.android.settings.core.PreferenceControllerFactory;
+
+/**
+ * Registers the controllers of the network screens with {@link PreferenceControllerFactory}, since
+ * they are constructed every time the screens are opened.
+ */
+public final class NetworkControllerCreators {
+
+    private NetworkControllerCreators() {
+    }
+
+    /** Registers the creators of the network controllers. */
+    public static void register() {
+        PreferenceControllerFactory.register(
+                AdaptiveConnectivityPreferenceController.class.getName(),
+                AdaptiveConnectivityPreferenceController::new);
+        PreferenceControllerFactory.register(AirplaneModePreferenceController.class.getName(),
+                AirplaneModePreferenceController::new);
+        PreferenceControllerFactory.register(AllInOneTetherPreferenceController.class.getName(),
+                AllInOneTetherPreferenceController::new);
+    }
+}
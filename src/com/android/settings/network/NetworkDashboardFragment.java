@@ -22,7 +22,11 @@ import android.app.settings.SettingsEnums;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.provider.DeviceConfig;
 import android.provider.SearchIndexableResource;
+import android.provider.Settings;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
 import android.util.Log;
 
 import androidx.appcompat.app.AlertDialog;
@@ -36,6 +40,7 @@ import com.android.settings.core.OnActivityResultListener;
 import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.network.MobilePlanPreferenceController.MobilePlanPreferenceHost;
 import com.android.settings.search.BaseSearchIndexProvider;
+import com.android.settings.search.NonIndexableKeysSignals;
 import com.android.settings.wifi.WifiPrimarySwitchPreferenceController;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -181,5 +186,20 @@ public class NetworkDashboardFragment extends DashboardFragment implements
                             null /* metricsFeatureProvider */, null /* fragment */,
                             null /* mobilePlanHost */, null /* LifecycleOwner */);
                 }
+
+                @Override
+                public NonIndexableKeysSignals getNonIndexableKeysSignals() {
+                    // The controllers only read global settings and the SIM and radio states.
+                    return new NonIndexableKeysSignals.Builder()
+                            .addUri(Settings.Global.CONTENT_URI)
+                            .addBroadcastAction(Intent.ACTION_AIRPLANE_MODE_CHANGED)
+                            .addBroadcastAction(TelephonyManager.ACTION_SIM_CARD_STATE_CHANGED)
+                            .addBroadcastAction(
+                                    TelephonyManager.ACTION_SIM_APPLICATION_STATE_CHANGED)
+                            .addBroadcastAction(
+                                    SubscriptionManager.ACTION_DEFAULT_SUBSCRIPTION_CHANGED)
+                            .addDeviceConfigNamespace(DeviceConfig.NAMESPACE_SETTINGS_UI)
+                            .build();
+                }
             };
 }
@@ -50,6 +50,7 @@ import android.view.MenuItem;
 import android.view.View;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.app.AlertDialog;
@@ -93,6 +94,7 @@ import com.android.settingslib.wifi.WifiEnterpriseRestrictionUtils;
 import com.android.settingslib.wifi.WifiSavedConfigUtils;
 import com.android.wifitrackerlib.WifiEntry;
 import com.android.wifitrackerlib.WifiEntry.ConnectCallback;
+import com.android.wifitrackerlib.WifiEntryListDiff;
 import com.android.wifitrackerlib.WifiPickerTracker;
 
 import java.util.List;
@@ -105,7 +107,7 @@ import java.util.Optional;
  */
 @SearchIndexable
 public class NetworkProviderSettings extends RestrictedSettingsFragment
-        implements Indexable, WifiPickerTracker.WifiPickerTrackerCallback,
+        implements Indexable, WifiPickerTracker.IncrementalWifiPickerTrackerCallback,
         WifiDialog2.WifiDialog2Listener, DialogInterface.OnDismissListener,
         AirplaneModeEnabler.OnAirplaneModeChangedListener, InternetUpdater.InternetChangeListener {
 
@@ -885,10 +887,76 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
 
     @Override
     public void onWifiEntriesChanged() {
+        onWifiEntriesChanged(true /* isListChanged */);
+    }
+
+    @Override
+    public void onWifiEntriesChanged(@NonNull WifiEntryListDiff diff) {
+        // The preferences refresh themselves when their WifiEntry is updated, so only the added,
+        // removed and moved entries are applied. The list is only rebuilt if that isn't possible.
+        onWifiEntriesChanged(!diff.isEmpty() && !applyWifiEntryListDiff(diff));
+    }
+
+    /**
+     * Applies the structural changes of the disconnected WifiEntries to
+     * {@link #mWifiEntryPreferenceCategory} without rebuilding it.
+     *
+     * @return false if the list needs to be rebuilt instead.
+     */
+    @VisibleForTesting
+    boolean applyWifiEntryListDiff(@NonNull WifiEntryListDiff diff) {
+        if (mIsWifiEntryListStale || getActivity() == null || getView() == null || mIsRestricted
+                || mWifiPickerTracker == null
+                || mWifiPickerTracker.getWifiState() != WifiManager.WIFI_STATE_ENABLED
+                || diff.isActiveWifiEntriesChanged() || diff.isMergedCarrierEntryChanged()
+                || diff.getWifiEntries().isEmpty()
+                || mWifiEntryPreferenceCategory.findPreference(PREF_KEY_EMPTY_WIFI_LIST) != null) {
+            return false;
+        }
+        final Handler handler = getView().getHandler();
+        if (handler != null && handler.hasCallbacks(mUpdateWifiEntryPreferencesRunnable)) {
+            // The list is about to be rebuilt anyway.
+            return false;
+        }
+
+        for (WifiEntry wifiEntry : diff.getRemovedEntries()) {
+            final LongPressWifiEntryPreference pref =
+                    mWifiEntryPreferenceCategory.findPreference(wifiEntry.getKey());
+            if (pref != null && pref.getWifiEntry() == wifiEntry) {
+                mWifiEntryPreferenceCategory.removePreference(pref);
+            }
+        }
+        for (WifiEntry wifiEntry : diff.getAddedEntries()) {
+            // Replaces the preference of another WifiEntry object with the same key.
+            final Preference pref = mWifiEntryPreferenceCategory.findPreference(wifiEntry.getKey());
+            if (pref != null) {
+                mWifiEntryPreferenceCategory.removePreference(pref);
+            }
+            mWifiEntryPreferenceCategory.addPreference(createWifiEntryPreference(wifiEntry));
+        }
+        if (diff.getAddedEntries().isEmpty() && diff.getMovedEntries().isEmpty()) {
+            // Removing entries keeps the order of the other ones.
+            return true;
+        }
+
+        int index = 0;
+        for (WifiEntry wifiEntry : diff.getWifiEntries()) {
+            final LongPressWifiEntryPreference pref =
+                    mWifiEntryPreferenceCategory.findPreference(wifiEntry.getKey());
+            if (pref == null || pref.getWifiEntry() != wifiEntry) {
+                return false;
+            }
+            pref.setOrder(index++);
+        }
+        mAddWifiNetworkPreference.setOrder(index);
+        return true;
+    }
+
+    private void onWifiEntriesChanged(boolean isListChanged) {
         if (mIsWifiEntryListStale) {
             mIsWifiEntryListStale = false;
             updateWifiEntryPreferences();
-        } else {
+        } else if (isListChanged) {
             updateWifiEntryPreferencesDelayed();
         }
         changeNextButtonState(mWifiPickerTracker != null
@@ -1011,16 +1079,8 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
                 }
             }
 
-            pref = createLongPressWifiEntryPreference(wifiEntry);
-            pref.setKey(wifiEntry.getKey());
+            pref = createWifiEntryPreference(wifiEntry);
             pref.setOrder(index++);
-            pref.refresh();
-
-            if (wifiEntry.getHelpUriString() != null) {
-                pref.setOnButtonClickListener(preference -> {
-                    openSubscriptionHelpPage(wifiEntry);
-                });
-            }
             mWifiEntryPreferenceCategory.addPreference(pref);
         }
         removeCachedPrefs(mWifiEntryPreferenceCategory);
@@ -1043,6 +1103,19 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
         setAdditionalSettingsSummaries();
     }
 
+    private LongPressWifiEntryPreference createWifiEntryPreference(WifiEntry wifiEntry) {
+        final LongPressWifiEntryPreference pref = createLongPressWifiEntryPreference(wifiEntry);
+        pref.setKey(wifiEntry.getKey());
+        pref.refresh();
+
+        if (wifiEntry.getHelpUriString() != null) {
+            pref.setOnButtonClickListener(preference -> {
+                openSubscriptionHelpPage(wifiEntry);
+            });
+        }
+        return pref;
+    }
+
     @VisibleForTesting
     PreferenceCategory getConnectedWifiPreferenceCategory() {
         if (mInternetUpdater.getInternetType() == InternetUpdater.INTERNET_WIFI) {
@@ -160,16 +160,44 @@ public class NotificationBackend {
         try {
             PackageInfo info = context.getPackageManager().getPackageInfo(
                     app.packageName, PackageManager.GET_PERMISSIONS);
-            final AppRow row = new AppRow();
-            recordCanBeBlocked(info, row);
-            boolean systemBlockable = !row.systemApp || (row.systemApp && row.banned);
-            return systemBlockable && !row.lockedImportance;
+            return enableSwitch(info);
         } catch (PackageManager.NameNotFoundException e) {
             e.printStackTrace();
         }
         return false;
     }
 
+    /**
+     * Same as {@link #enableSwitch(Context, ApplicationInfo)} for a package that was queried with
+     * {@link PackageManager#GET_PERMISSIONS}, e.g. by {@link #getPackagesWithPermissions}.
+     */
+    public boolean enableSwitch(PackageInfo info) {
+        final AppRow row = new AppRow();
+        recordCanBeBlocked(info, row);
+        boolean systemBlockable = !row.systemApp || (row.systemApp && row.banned);
+        return systemBlockable && !row.lockedImportance;
+    }
+
+    /**
+     * Queries all the packages of {@param userId} with their requested permissions at once, so
+     * checking {@link #enableSwitch(PackageInfo)} for many apps doesn't query each package.
+     *
+     * @return the packages by package name, empty if they can't be queried.
+     */
+    public Map<String, PackageInfo> getPackagesWithPermissions(Context context, int userId) {
+        final Map<String, PackageInfo> packages = new HashMap<>();
+        try {
+            for (PackageInfo info : context.getPackageManager().getInstalledPackagesAsUser(
+                    PackageManager.GET_PERMISSIONS, userId)) {
+                packages.put(info.packageName, info);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error querying packages of user " + userId, e);
+            packages.clear();
+        }
+        return packages;
+    }
+
     public boolean getNotificationsBanned(String pkg, int uid) {
         try {
             final boolean enabled = sINM.areNotificationsEnabledForPackage(pkg, uid);
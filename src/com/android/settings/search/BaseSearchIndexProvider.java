@@ -131,6 +131,14 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
         return nonIndexableKeys;
     }
 
+    /**
+     * @return the state {@link #getNonIndexableKeys(Context)} depends on, so the keys are only
+     * computed again once it changes. Pages depending on less state should override this.
+     */
+    public NonIndexableKeysSignals getNonIndexableKeysSignals() {
+        return NonIndexableKeysSignals.DEFAULT;
+    }
+
     public List<AbstractPreferenceController> getPreferenceControllers(Context context) {
         List<AbstractPreferenceController> controllersFromCode = new ArrayList<>();
         try {
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.os.UserManager;
+import android.provider.DeviceConfig;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Pair;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caches the non-indexable keys of each search indexable page for each user, so repeated search
+ * sessions don't create and check all the preference controllers of unchanged pages again.
+ *
+ * <p>All the cached keys are dropped when a package or the user restrictions change. The keys of a
+ * page are also dropped when one of the {@link NonIndexableKeysSignals} it declares fires. Pages
+ * can depend on undeclared state too, so cached keys also expire after
+ * {@link #MAX_AGE_MILLIS}.</p>
+ *
+ * <p>Also records how long computing the keys of each page took, see {@link #dump}.</p>
+ */
+class NonIndexableKeysCache {
+
+    @VisibleForTesting
+    static final long MAX_AGE_MILLIS = 10 * DateUtils.MINUTE_IN_MILLIS;
+
+    private final Context mContext;
+    private final Map<Pair<String, Integer>, Entry> mEntries = new ArrayMap<>();
+    // The pages to drop for each declared signal which is listened to.
+    private final Map<Uri, Set<String>> mPagesByUri = new ArrayMap<>();
+    private final Map<String, Set<String>> mPagesByBroadcastAction = new ArrayMap<>();
+    private final Map<String, Set<String>> mPagesByDeviceConfigNamespace = new ArrayMap<>();
+    // Bumped when all the keys are dropped, and per page when the keys of the page are dropped, so
+    // keys computed meanwhile are not cached.
+    private long mGeneration;
+    private final Map<String, Long> mPageGenerations = new ArrayMap<>();
+    private boolean mIsListening;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidate();
+        }
+    };
+
+    NonIndexableKeysCache(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Starts listening to the invalidation signals if it didn't yet. Nothing is cached before.
+     */
+    synchronized void startListening() {
+        if (mIsListening) {
+            return;
+        }
+        mIsListening = true;
+
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addDataScheme("package");
+        mContext.registerReceiver(mReceiver, packageFilter);
+        mContext.registerReceiver(mReceiver,
+                new IntentFilter(UserManager.ACTION_USER_RESTRICTIONS_CHANGED));
+    }
+
+    /**
+     * Starts listening to the {@param signals} of {@param page}, if it didn't yet. Must be called
+     * before getting the generation to compute the keys of the page with.
+     */
+    synchronized void watch(String page, NonIndexableKeysSignals signals) {
+        if (!mIsListening) {
+            return;
+        }
+        for (Uri uri : signals.mUris) {
+            Set<String> pages = mPagesByUri.get(uri);
+            if (pages == null) {
+                pages = new ArraySet<>();
+                mPagesByUri.put(uri, pages);
+                registerContentObserver(uri, pages);
+            }
+            pages.add(page);
+        }
+        for (String action : signals.mBroadcastActions) {
+            Set<String> pages = mPagesByBroadcastAction.get(action);
+            if (pages == null) {
+                pages = new ArraySet<>();
+                mPagesByBroadcastAction.put(action, pages);
+                registerReceiver(action, pages);
+            }
+            pages.add(page);
+        }
+        for (String namespace : signals.mDeviceConfigNamespaces) {
+            Set<String> pages = mPagesByDeviceConfigNamespace.get(namespace);
+            if (pages == null) {
+                pages = new ArraySet<>();
+                mPagesByDeviceConfigNamespace.put(namespace, pages);
+                addDeviceConfigListener(namespace, pages);
+            }
+            pages.add(page);
+        }
+    }
+
+    /**
+     * @return the generation to pass to {@link #put} for keys of {@param page} computed from now
+     * on.
+     */
+    synchronized long getGeneration(String page) {
+        final Long pageGeneration = mPageGenerations.get(page);
+        return mGeneration + (pageGeneration != null ? pageGeneration : 0L);
+    }
+
+    /**
+     * @return a copy of the cached non-indexable keys of {@param page} for {@param userId}, or
+     * {@code null} if they need to be computed.
+     */
+    @Nullable
+    synchronized List<String> get(String page, int userId) {
+        final Entry entry = mEntries.get(Pair.create(page, userId));
+        if (entry == null || entry.mKeys == null) {
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - entry.mComputedAtMillis > MAX_AGE_MILLIS) {
+            entry.mKeys = null;
+            return null;
+        }
+        return new ArrayList<>(entry.mKeys);
+    }
+
+    /**
+     * Records the non-indexable {@param keys} of {@param page} for {@param userId} and how long
+     * computing them took. They are only cached if the keys of {@param page} were not dropped
+     * since {@param generation} was returned by {@link #getGeneration}.
+     */
+    synchronized void put(String page, int userId, List<String> keys, long computeMillis,
+            long generation) {
+        final Entry entry = new Entry();
+        entry.mComputeMillis = computeMillis;
+        entry.mComputedAtMillis = SystemClock.elapsedRealtime();
+        if (mIsListening && generation == getGeneration(page)) {
+            entry.mKeys = new ArrayList<>(keys);
+        }
+        mEntries.put(Pair.create(page, userId), entry);
+    }
+
+    /** Drops all the cached keys. */
+    synchronized void invalidate() {
+        mGeneration++;
+        for (Entry entry : mEntries.values()) {
+            entry.mKeys = null;
+        }
+    }
+
+    /** Drops the cached keys of {@param pages}. */
+    synchronized void invalidate(Set<String> pages) {
+        for (String page : pages) {
+            final Long pageGeneration = mPageGenerations.get(page);
+            mPageGenerations.put(page, pageGeneration != null ? pageGeneration + 1 : 1L);
+        }
+        for (Map.Entry<Pair<String, Integer>, Entry> entry : mEntries.entrySet()) {
+            if (pages.contains(entry.getKey().first)) {
+                entry.getValue().mKeys = null;
+            }
+        }
+    }
+
+    /** Prints the last compute time of each page, slowest first. */
+    synchronized void dump(PrintWriter writer) {
+        final List<Map.Entry<Pair<String, Integer>, Entry>> entries =
+                new ArrayList<>(mEntries.entrySet());
+        entries.sort((e1, e2) -> Long.compare(e2.getValue().mComputeMillis,
+                e1.getValue().mComputeMillis));
+        writer.println("Non-indexable keys compute times (generation " + mGeneration + "):");
+        for (Map.Entry<Pair<String, Integer>, Entry> entry : entries) {
+            writer.println("  " + entry.getKey().first + " u" + entry.getKey().second + ": "
+                    + entry.getValue().mComputeMillis + " ms"
+                    + (entry.getValue().mKeys != null ? ", cached" : ""));
+        }
+    }
+
+    private void registerContentObserver(Uri uri, Set<String> pages) {
+        mContext.getContentResolver().registerContentObserver(uri,
+                true /* notifyForDescendants */, new ContentObserver(null /* handler */) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        invalidate(pages);
+                    }
+                });
+    }
+
+    private void registerReceiver(String action, Set<String> pages) {
+        mContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidate(pages);
+            }
+        }, new IntentFilter(action));
+    }
+
+    private void addDeviceConfigListener(String namespace, Set<String> pages) {
+        DeviceConfig.addOnPropertiesChangedListener(namespace, Runnable::run,
+                properties -> invalidate(pages));
+    }
+
+    private static class Entry {
+        // Null once invalidated.
+        List<String> mKeys;
+        long mComputeMillis;
+        long mComputedAtMillis;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.android.settings.search;
+
+import android.bluetooth.BluetoothAdapter;
+import android.content.Intent;
+import android.net.Uri;
+import android.nfc.NfcAdapter;
+import android.provider.DeviceConfig;
+import android.provider.Settings;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+import android.util.ArraySet;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The state the non-indexable keys of a search indexable page depend on, so
+ * {@link NonIndexableKeysCache} only drops the keys of the page when that state changes.
+ *
+ * <p>Package changes and user restriction changes always drop the keys of every page, they don't
+ * need to be declared.</p>
+ */
+public final class NonIndexableKeysSignals {
+
+    /** For pages whose keys only depend on the installed packages and the user restrictions. */
+    public static final NonIndexableKeysSignals NONE = new Builder().build();
+
+    /**
+     * For pages which don't declare their signals: any setting, the SIM and radio states and the
+     * device config of Settings.
+     */
+    public static final NonIndexableKeysSignals DEFAULT = new Builder()
+            .addUri(Settings.Global.CONTENT_URI)
+            .addUri(Settings.Secure.CONTENT_URI)
+            .addUri(Settings.System.CONTENT_URI)
+            .addBroadcastAction(Intent.ACTION_AIRPLANE_MODE_CHANGED)
+            .addBroadcastAction(TelephonyManager.ACTION_SIM_CARD_STATE_CHANGED)
+            .addBroadcastAction(TelephonyManager.ACTION_SIM_APPLICATION_STATE_CHANGED)
+            .addBroadcastAction(SubscriptionManager.ACTION_DEFAULT_SUBSCRIPTION_CHANGED)
+            .addBroadcastAction(BluetoothAdapter.ACTION_STATE_CHANGED)
+            .addBroadcastAction(NfcAdapter.ACTION_ADAPTER_STATE_CHANGED)
+            .addDeviceConfigNamespace(DeviceConfig.NAMESPACE_SETTINGS_UI)
+            .addDeviceConfigNamespace(DeviceConfig.NAMESPACE_PRIVACY)
+            .build();
+
+    final Set<Uri> mUris;
+    final Set<String> mBroadcastActions;
+    final Set<String> mDeviceConfigNamespaces;
+
+    private NonIndexableKeysSignals(Builder builder) {
+        mUris = Collections.unmodifiableSet(new ArraySet<>(builder.mUris));
+        mBroadcastActions = Collections.unmodifiableSet(new ArraySet<>(builder.mBroadcastActions));
+        mDeviceConfigNamespaces =
+                Collections.unmodifiableSet(new ArraySet<>(builder.mDeviceConfigNamespaces));
+    }
+
+    /** Builder of {@link NonIndexableKeysSignals}. */
+    public static class Builder {
+        private final Set<Uri> mUris = new ArraySet<>();
+        private final Set<String> mBroadcastActions = new ArraySet<>();
+        private final Set<String> mDeviceConfigNamespaces = new ArraySet<>();
+
+        /** Drops the keys when the content at or below {@param uri} changes. */
+        public Builder addUri(@NonNull Uri uri) {
+            mUris.add(uri);
+            return this;
+        }
+
+        /** Drops the keys when the broadcast {@param action} is received. */
+        public Builder addBroadcastAction(@NonNull String action) {
+            mBroadcastActions.add(action);
+            return this;
+        }
+
+        /** Drops the keys when a device config property of {@param namespace} changes. */
+        public Builder addDeviceConfigNamespace(@NonNull String namespace) {
+            mDeviceConfigNamespaces.add(namespace);
+            return this;
+        }
+
+        public NonIndexableKeysSignals build() {
+            return new NonIndexableKeysSignals(this);
+        }
+    }
+}
@@ -50,6 +50,7 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.provider.SearchIndexableResource;
 import android.provider.SearchIndexablesContract;
 import android.provider.SearchIndexablesProvider;
@@ -77,6 +78,8 @@ import com.android.settingslib.search.Indexable;
 import com.android.settingslib.search.SearchIndexableData;
 import com.android.settingslib.search.SearchIndexableRaw;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -100,6 +103,8 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     // Search enabled states for injection (key: category key, value: search enabled)
     private Map<String, Boolean> mSearchEnabledByCategoryKeyMap;
 
+    private NonIndexableKeysCache mNonIndexableKeysCache;
+
     static {
         INVALID_KEYS = new ArraySet<>();
         INVALID_KEYS.add(null);
@@ -109,9 +114,15 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
     @Override
     public boolean onCreate() {
         mSearchEnabledByCategoryKeyMap = new ArrayMap<>();
+        mNonIndexableKeysCache = new NonIndexableKeysCache(getContext());
         return true;
     }
 
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        mNonIndexableKeysCache.dump(writer);
+    }
+
     @Override
     public Cursor queryXmlResources(String[] projection) {
         final MatrixCursor cursor = new MatrixCursor(INDEXABLES_XML_RES_COLUMNS);
@@ -275,11 +286,23 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
 
         final List<String> nonIndexableKeys = new ArrayList<>();
+        final int userId = context.getUserId();
+        mNonIndexableKeysCache.startListening();
 
         for (SearchIndexableData bundle : bundles) {
-            final long startTime = System.currentTimeMillis();
+            final String page = bundle.getTargetClass().getName();
+            List<String> providerNonIndexableKeys = mNonIndexableKeysCache.get(page, userId);
+            if (providerNonIndexableKeys != null) {
+                nonIndexableKeys.addAll(providerNonIndexableKeys);
+                continue;
+            }
+
             Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
-            List<String> providerNonIndexableKeys;
+            mNonIndexableKeysCache.watch(page, provider instanceof BaseSearchIndexProvider
+                    ? ((BaseSearchIndexProvider) provider).getNonIndexableKeysSignals()
+                    : NonIndexableKeysSignals.DEFAULT);
+            final long generation = mNonIndexableKeysCache.getGeneration(page);
+            final long startTime = SystemClock.elapsedRealtime();
             try {
                 providerNonIndexableKeys = provider.getNonIndexableKeys(context);
             } catch (Exception e) {
@@ -298,10 +321,11 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
             }
 
             if (providerNonIndexableKeys == null || providerNonIndexableKeys.isEmpty()) {
+                final long totalTime = SystemClock.elapsedRealtime() - startTime;
                 if (DEBUG) {
-                    final long totalTime = System.currentTimeMillis() - startTime;
                     Log.d(TAG, "No indexable, total time " + totalTime);
                 }
+                mNonIndexableKeysCache.put(page, userId, new ArrayList<>(), totalTime, generation);
                 continue;
             }
 
@@ -309,11 +333,13 @@ public class SettingsSearchIndexablesProvider extends SearchIndexablesProvider {
                 Log.v(TAG, provider + " tried to add an empty non-indexable key");
             }
 
+            final long totalTime = SystemClock.elapsedRealtime() - startTime;
             if (DEBUG) {
-                final long totalTime = System.currentTimeMillis() - startTime;
                 Log.d(TAG, "Non-indexables " + providerNonIndexableKeys.size() + ", total time "
                         + totalTime);
             }
+            mNonIndexableKeysCache.put(page, userId, providerNonIndexableKeys, totalTime,
+                    generation);
 
             nonIndexableKeys.addAll(providerNonIndexableKeys);
         }
@@ -148,6 +148,30 @@ public class SliceData {
         mHighlightMenuRes = builder.mHighlightMenuRes;
     }
 
+    private SliceData(SliceData data, Uri uri, @SliceType int sliceType) {
+        mKey = data.mKey;
+        mTitle = data.mTitle;
+        mSummary = data.mSummary;
+        mScreenTitle = data.mScreenTitle;
+        mKeywords = data.mKeywords;
+        mIconResource = data.mIconResource;
+        mFragmentClassName = data.mFragmentClassName;
+        mUri = uri;
+        mPreferenceController = data.mPreferenceController;
+        mSliceType = sliceType;
+        mUnavailableSliceSubtitle = data.mUnavailableSliceSubtitle;
+        mIsPublicSlice = data.mIsPublicSlice;
+        mHighlightMenuRes = data.mHighlightMenuRes;
+    }
+
+    /**
+     * @return a copy of this data bound to {@param uri} with {@param sliceType}. The data was
+     * already validated when it was built, so it is not validated again.
+     */
+    SliceData copyWithUri(Uri uri, @SliceType int sliceType) {
+        return new SliceData(this, uri, sliceType);
+    }
+
     @Override
     public int hashCode() {
         return mKey.hashCode();
@@ -35,9 +35,11 @@ import android.content.res.Resources;
 import android.content.res.XmlResourceParser;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.provider.SearchIndexableResource;
 import android.provider.SettingsSlicesContract;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.Xml;
@@ -67,7 +69,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Converts all Slice sources into {@link SliceData}.
@@ -81,6 +91,15 @@ class SliceDataConverter {
 
     private static final String NODE_NAME_PREFERENCE_SCREEN = "PreferenceScreen";
 
+    /**
+     * Providers whose sources take at least this long to convert are logged.
+     */
+    private static final long SLOW_PROVIDER_THRESHOLD_MS = 20;
+
+    private static final long CONVERTER_KEEP_ALIVE_SECONDS = 30;
+
+    private static ExecutorService sConverterExecutor;
+
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private Context mContext;
 
@@ -102,6 +121,24 @@ class SliceDataConverter {
     public List<SliceData> getSliceData() {
         List<SliceData> sliceData = new ArrayList<>();
 
+        for (SliceSource source : getSliceSources()) {
+            sliceData.addAll(getSliceDataFromSource(source));
+        }
+
+        final List<SliceData> a11ySliceData = getAccessibilitySliceData();
+        sliceData.addAll(a11ySliceData);
+        return sliceData;
+    }
+
+    /**
+     * @return every XML resource that contributes {@link SliceData}, in indexing order.
+     *
+     * Collecting sources only asks each {@link SearchIndexProvider} for its resource list and does
+     * not parse any XML, so the sources can then be converted in parallel.
+     */
+    public List<SliceSource> getSliceSources() {
+        final List<SliceSource> sources = new ArrayList<>();
+
         final Collection<SearchIndexableData> bundles = FeatureFactory.getFactory(mContext)
                 .getSearchFeatureProvider().getSearchIndexableResources().getProviderValues();
 
@@ -116,25 +153,124 @@ class SliceDataConverter {
                 continue;
             }
 
-            final List<SliceData> providerSliceData = getSliceDataFromProvider(provider,
-                    fragmentName);
-            sliceData.addAll(providerSliceData);
+            sources.addAll(getSliceSourcesFromProvider(provider, fragmentName));
         }
+        return sources;
+    }
 
-        final List<SliceData> a11ySliceData = getAccessibilitySliceData();
-        sliceData.addAll(a11ySliceData);
+    /**
+     * Converts {@param sources} using up to {@param parallelism} worker threads.
+     *
+     * @return the {@link SliceData} of each source, in the same order as {@param sources}, so the
+     * result is identical to converting them one at a time with
+     * {@link #getSliceDataFromSource(SliceSource)}.
+     */
+    public List<List<SliceData>> getSliceDataFromSources(List<SliceSource> sources,
+            int parallelism) {
+        final List<List<SliceData>> sliceData = new ArrayList<>(sources.size());
+        final Map<String, Long> providerTimes = new ArrayMap<>();
+        final int threadCount = Math.min(parallelism, sources.size());
+
+        if (threadCount <= 1) {
+            for (SliceSource source : sources) {
+                sliceData.add(timedGetSliceDataFromSource(source, providerTimes));
+            }
+            logSlowProviders(providerTimes);
+            return sliceData;
+        }
+
+        // Each worker converts the next source until there is none left, so at most threadCount
+        // threads of the shared executor are used.
+        sliceData.addAll(Collections.nCopies(sources.size(), Collections.emptyList()));
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final List<Future<?>> workers = new ArrayList<>(threadCount);
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                workers.add(getConverterExecutor().submit(() -> {
+                    int index;
+                    while ((index = nextIndex.getAndIncrement()) < sources.size()) {
+                        final SliceSource source = sources.get(index);
+                        try {
+                            sliceData.set(index,
+                                    timedGetSliceDataFromSource(source, providerTimes));
+                        } catch (RuntimeException e) {
+                            Log.w(TAG, "Failed to get slice data from " + source, e);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Failed to get slice data", e);
+        } catch (InterruptedException e) {
+            Log.w(TAG, "Interrupted while getting slice data", e);
+            Thread.currentThread().interrupt();
+        } finally {
+            // The workers don't start converting other sources once this returns.
+            nextIndex.set(sources.size());
+        }
+        logSlowProviders(providerTimes);
+        // Copied, since a worker may still be converting a source if this thread was interrupted.
+        return new ArrayList<>(sliceData);
+    }
+
+    /**
+     * Returns the executor converting the sources in parallel. Its threads are shared by the
+     * conversions and stop once idle for a while, since indexing only happens now and then.
+     */
+    private static synchronized ExecutorService getConverterExecutor() {
+        if (sConverterExecutor == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            sConverterExecutor = new ThreadPoolExecutor(0 /* corePoolSize */,
+                    Integer.MAX_VALUE, CONVERTER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(),
+                    runnable -> new Thread(runnable,
+                            "SliceDataConverter-" + threadCount.incrementAndGet()));
+        }
+        return sConverterExecutor;
+    }
+
+    /**
+     * @return the list of {@link SliceData} declared by a single {@link SliceSource}.
+     */
+    public List<SliceData> getSliceDataFromSource(SliceSource source) {
+        return getSliceDataFromXML(source.getXmlResId(), source.getFragmentName());
+    }
+
+    private List<SliceData> timedGetSliceDataFromSource(SliceSource source,
+            Map<String, Long> providerTimes) {
+        final long startTime = SystemClock.elapsedRealtime();
+        final List<SliceData> sliceData = getSliceDataFromSource(source);
+        final long elapsedTime = SystemClock.elapsedRealtime() - startTime;
+        synchronized (providerTimes) {
+            final Long providerTime = providerTimes.get(source.getFragmentName());
+            providerTimes.put(source.getFragmentName(),
+                    providerTime == null ? elapsedTime : providerTime + elapsedTime);
+        }
         return sliceData;
     }
 
-    private List<SliceData> getSliceDataFromProvider(SearchIndexProvider provider,
+    private void logSlowProviders(Map<String, Long> providerTimes) {
+        synchronized (providerTimes) {
+            for (Map.Entry<String, Long> entry : providerTimes.entrySet()) {
+                if (entry.getValue() >= SLOW_PROVIDER_THRESHOLD_MS) {
+                    Log.d(TAG, "Converting " + entry.getKey() + " took: " + entry.getValue());
+                }
+            }
+        }
+    }
+
+    private List<SliceSource> getSliceSourcesFromProvider(SearchIndexProvider provider,
             String fragmentName) {
-        final List<SliceData> sliceData = new ArrayList<>();
+        final List<SliceSource> sources = new ArrayList<>();
 
         final List<SearchIndexableResource> resList =
                 provider.getXmlResourcesToIndex(mContext, true /* enabled */);
 
         if (resList == null) {
-            return sliceData;
+            return sources;
         }
 
         // TODO (b/67996923) get a list of permanent NIKs and skip the invalid keys.
@@ -146,11 +282,10 @@ class SliceDataConverter {
                 continue;
             }
 
-            List<SliceData> xmlSliceData = getSliceDataFromXML(xmlResId, fragmentName);
-            sliceData.addAll(xmlSliceData);
+            sources.add(new SliceSource(fragmentName, xmlResId));
         }
 
-        return sliceData;
+        return sources;
     }
 
     private List<SliceData> getSliceDataFromXML(int xmlResId, String fragmentName) {
@@ -263,7 +398,10 @@ class SliceDataConverter {
         return xmlSliceData;
     }
 
-    private List<SliceData> getAccessibilitySliceData() {
+    /**
+     * @return the list of {@link SliceData} for the allow-listed accessibility services.
+     */
+    public List<SliceData> getAccessibilitySliceData() {
         final List<SliceData> sliceData = new ArrayList<>();
 
         final String accessibilityControllerClassName =
@@ -325,4 +463,31 @@ class SliceDataConverter {
                 mContext);
         return accessibilityManager.getInstalledAccessibilityServiceList();
     }
-}
\ No newline at end of file
+
+    /**
+     * A single XML resource, and the fragment hosting it, from which {@link SliceData} is built.
+     */
+    static class SliceSource {
+
+        private final String mFragmentName;
+        private final int mXmlResId;
+
+        SliceSource(String fragmentName, int xmlResId) {
+            mFragmentName = fragmentName;
+            mXmlResId = xmlResId;
+        }
+
+        public String getFragmentName() {
+            return mFragmentName;
+        }
+
+        public int getXmlResId() {
+            return mXmlResId;
+        }
+
+        @Override
+        public String toString() {
+            return mFragmentName + "/" + mXmlResId;
+        }
+    }
+}
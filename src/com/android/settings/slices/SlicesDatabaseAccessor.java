@@ -53,6 +53,20 @@ public class SlicesDatabaseAccessor {
             IndexColumns.HIGHLIGHT_MENU_RESOURCE,
     };
 
+    private static final int KEY_INDEX = getColumnIndex(IndexColumns.KEY);
+    private static final int TITLE_INDEX = getColumnIndex(IndexColumns.TITLE);
+    private static final int SUMMARY_INDEX = getColumnIndex(IndexColumns.SUMMARY);
+    private static final int SCREENTITLE_INDEX = getColumnIndex(IndexColumns.SCREENTITLE);
+    private static final int KEYWORDS_INDEX = getColumnIndex(IndexColumns.KEYWORDS);
+    private static final int ICON_RESOURCE_INDEX = getColumnIndex(IndexColumns.ICON_RESOURCE);
+    private static final int FRAGMENT_INDEX = getColumnIndex(IndexColumns.FRAGMENT);
+    private static final int CONTROLLER_INDEX = getColumnIndex(IndexColumns.CONTROLLER);
+    private static final int SLICE_TYPE_INDEX = getColumnIndex(IndexColumns.SLICE_TYPE);
+    private static final int UNAVAILABLE_SLICE_SUBTITLE_INDEX =
+            getColumnIndex(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE);
+    private static final int HIGHLIGHT_MENU_RESOURCE_INDEX =
+            getColumnIndex(IndexColumns.HIGHLIGHT_MENU_RESOURCE);
+
     private final Context mContext;
     private final SlicesDatabaseHelper mHelper;
 
@@ -72,9 +86,8 @@ public class SlicesDatabaseAccessor {
         if (pathData == null) {
             throw new IllegalStateException("Invalid Slices uri: " + uri);
         }
-        try (Cursor cursor = getIndexedSliceData(pathData.second /* key */)) {
-            return buildSliceData(cursor, uri, pathData.first /* isIntentOnly */);
-        }
+        return buildSliceData(getIndexedSliceData(pathData.second /* key */), uri,
+                pathData.first /* isIntentOnly */);
     }
 
     /**
@@ -83,9 +96,7 @@ public class SlicesDatabaseAccessor {
      * Used when handling the action of the {@link Slice}.
      */
     public SliceData getSliceDataFromKey(String key) {
-        try (Cursor cursor = getIndexedSliceData(key)) {
-            return buildSliceData(cursor, null /* uri */, false /* isIntentOnly */);
-        }
+        return getIndexedSliceData(key);
     }
 
     /**
@@ -116,30 +127,43 @@ public class SlicesDatabaseAccessor {
         return uris;
     }
 
-    private Cursor getIndexedSliceData(String path) {
+    /**
+     * @return the {@link SliceData} stored for {@param path}, without a {@link Uri}. Served from
+     * the in-memory cache of {@link SlicesDatabaseHelper} when possible.
+     */
+    private SliceData getIndexedSliceData(String path) {
         verifyIndexing();
 
+        final SliceData cachedData = mHelper.getCachedSliceData(path);
+        if (cachedData != null) {
+            return cachedData;
+        }
+
+        // Taken before querying, so a row read from an index replaced meanwhile isn't cached.
+        final int cacheGeneration = mHelper.getCacheGeneration();
         final String whereClause = buildKeyMatchWhereClause();
         final SQLiteDatabase database = mHelper.getReadableDatabase();
         final String[] selection = new String[]{path};
-        final Cursor resultCursor = database.query(TABLE_SLICES_INDEX, SELECT_COLUMNS_ALL,
-                whereClause, selection, null /* groupBy */, null /* having */, null /* orderBy */);
+        try (Cursor resultCursor = database.query(TABLE_SLICES_INDEX, SELECT_COLUMNS_ALL,
+                whereClause, selection, null /* groupBy */, null /* having */,
+                null /* orderBy */)) {
 
-        int numResults = resultCursor.getCount();
+            int numResults = resultCursor.getCount();
 
-        if (numResults == 0) {
-            resultCursor.close();
-            throw new IllegalStateException("Invalid Slices key from path: " + path);
-        }
+            if (numResults == 0) {
+                throw new IllegalStateException("Invalid Slices key from path: " + path);
+            }
 
-        if (numResults > 1) {
-            resultCursor.close();
-            throw new IllegalStateException(
-                    "Should not match more than 1 slice with path: " + path);
-        }
+            if (numResults > 1) {
+                throw new IllegalStateException(
+                        "Should not match more than 1 slice with path: " + path);
+            }
 
-        resultCursor.moveToFirst();
-        return resultCursor;
+            resultCursor.moveToFirst();
+            final SliceData sliceData = buildSliceData(resultCursor);
+            mHelper.putCachedSliceData(sliceData, cacheGeneration);
+            return sliceData;
+        }
     }
 
     private String buildKeyMatchWhereClause() {
@@ -148,46 +172,41 @@ public class SlicesDatabaseAccessor {
                 .toString();
     }
 
-    private static SliceData buildSliceData(Cursor cursor, Uri uri, boolean isIntentOnly) {
-        final String key = cursor.getString(cursor.getColumnIndex(IndexColumns.KEY));
-        final String title = cursor.getString(cursor.getColumnIndex(IndexColumns.TITLE));
-        final String summary = cursor.getString(cursor.getColumnIndex(IndexColumns.SUMMARY));
-        final String screenTitle = cursor.getString(
-                cursor.getColumnIndex(IndexColumns.SCREENTITLE));
-        final String keywords = cursor.getString(cursor.getColumnIndex(IndexColumns.KEYWORDS));
-        final int iconResource = cursor.getInt(cursor.getColumnIndex(IndexColumns.ICON_RESOURCE));
-        final String fragmentClassName = cursor.getString(
-                cursor.getColumnIndex(IndexColumns.FRAGMENT));
-        final String controllerClassName = cursor.getString(
-                cursor.getColumnIndex(IndexColumns.CONTROLLER));
-        int sliceType = cursor.getInt(
-                cursor.getColumnIndex(IndexColumns.SLICE_TYPE));
-        final String unavailableSliceSubtitle = cursor.getString(
-                cursor.getColumnIndex(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE));
-        final int highlightMenuRes = cursor.getInt(
-                cursor.getColumnIndex(IndexColumns.HIGHLIGHT_MENU_RESOURCE));
-
-        if (isIntentOnly) {
-            sliceType = SliceData.SliceType.INTENT;
-        }
-
+    private static SliceData buildSliceData(Cursor cursor) {
         return new SliceData.Builder()
-                .setKey(key)
-                .setTitle(title)
-                .setSummary(summary)
-                .setScreenTitle(screenTitle)
-                .setKeywords(keywords)
-                .setIcon(iconResource)
-                .setFragmentName(fragmentClassName)
-                .setPreferenceControllerClassName(controllerClassName)
-                .setUri(uri)
-                .setSliceType(sliceType)
-                .setUnavailableSliceSubtitle(unavailableSliceSubtitle)
-                .setHighlightMenuRes(highlightMenuRes)
+                .setKey(cursor.getString(KEY_INDEX))
+                .setTitle(cursor.getString(TITLE_INDEX))
+                .setSummary(cursor.getString(SUMMARY_INDEX))
+                .setScreenTitle(cursor.getString(SCREENTITLE_INDEX))
+                .setKeywords(cursor.getString(KEYWORDS_INDEX))
+                .setIcon(cursor.getInt(ICON_RESOURCE_INDEX))
+                .setFragmentName(cursor.getString(FRAGMENT_INDEX))
+                .setPreferenceControllerClassName(cursor.getString(CONTROLLER_INDEX))
+                .setSliceType(cursor.getInt(SLICE_TYPE_INDEX))
+                .setUnavailableSliceSubtitle(cursor.getString(UNAVAILABLE_SLICE_SUBTITLE_INDEX))
+                .setHighlightMenuRes(cursor.getInt(HIGHLIGHT_MENU_RESOURCE_INDEX))
                 .build();
     }
 
+    private static SliceData buildSliceData(SliceData indexedData, Uri uri,
+            boolean isIntentOnly) {
+        return indexedData.copyWithUri(uri,
+                isIntentOnly ? SliceData.SliceType.INTENT : indexedData.getSliceType());
+    }
+
+    private static int getColumnIndex(String column) {
+        for (int i = 0; i < SELECT_COLUMNS_ALL.length; i++) {
+            if (SELECT_COLUMNS_ALL[i].equals(column)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Column not selected: " + column);
+    }
+
     private void verifyIndexing() {
+        if (mHelper.isSliceDataIndexVerified()) {
+            return;
+        }
         final long uidToken = Binder.clearCallingIdentity();
         try {
             FeatureFactory.getFactory(
@@ -20,7 +20,9 @@ import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.os.Build;
+import android.text.TextUtils;
 import android.util.Log;
+import android.util.LruCache;
 
 import androidx.annotation.VisibleForTesting;
 
@@ -141,8 +143,29 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                     + " INTEGER DEFAULT 0 "
                     + ");";
 
+    private static final int SLICE_DATA_CACHE_SIZE = 64;
+
     private final Context mContext;
 
+    private final Object mCacheLock = new Object();
+
+    /**
+     * Recently read rows, keyed by {@link IndexColumns#KEY}. Cleared whenever the index changes.
+     */
+    private final LruCache<String, SliceData> mSliceDataCache =
+            new LruCache<>(SLICE_DATA_CACHE_SIZE);
+
+    /**
+     * Incremented whenever the cache is invalidated, so rows read from a replaced index are not
+     * cached afterwards. Guarded by {@link #mCacheLock}.
+     */
+    private int mCacheGeneration;
+
+    /**
+     * Locale for which the index was last known to be valid, or {@code null} if unknown.
+     */
+    private volatile String mVerifiedLocale;
+
     private static SlicesDatabaseHelper sSingleton;
 
     public static synchronized SlicesDatabaseHelper getInstance(Context context) {
@@ -176,6 +199,7 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
      * {@link#isNewIndexingState(Context)} will return {@code true}.
      */
     void reconstruct(SQLiteDatabase db) {
+        invalidateCache();
         mContext.getSharedPreferences(SHARED_PREFS_TAG, Context.MODE_PRIVATE)
                 .edit()
                 .clear()
@@ -186,11 +210,14 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
 
     /**
      * Marks the current state of the device for the validity of the data. Should be called after
-     * a full index of the TABLE_SLICES_INDEX.
+     * a full index of the TABLE_SLICES_INDEX was committed, so no reader can cache rows of the
+     * previous index afterwards.
      */
     public void setIndexedState() {
+        invalidateCache();
         setBuildIndexed();
         setLocaleIndexed();
+        mVerifiedLocale = Locale.getDefault().toString();
     }
 
     /**
@@ -199,7 +226,59 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
      * @return {@code true} if database should be rebuilt, {@code false} otherwise.
      */
     public boolean isSliceDataIndexed() {
-        return isBuildIndexed() && isLocaleIndexed();
+        final boolean indexed = isBuildIndexed() && isLocaleIndexed();
+        if (indexed) {
+            mVerifiedLocale = Locale.getDefault().toString();
+        }
+        return indexed;
+    }
+
+    /**
+     * Indicates whether a previous call already found the index valid for the current locale,
+     * without touching the shared preferences.
+     */
+    boolean isSliceDataIndexVerified() {
+        return TextUtils.equals(mVerifiedLocale, Locale.getDefault().toString());
+    }
+
+    /**
+     * @return the cached {@link SliceData} for {@param key}, or {@code null} if not cached.
+     */
+    SliceData getCachedSliceData(String key) {
+        if (!isSliceDataIndexVerified()) {
+            return null;
+        }
+        return mSliceDataCache.get(key);
+    }
+
+    /**
+     * @return the current cache generation, to be passed to {@link #putCachedSliceData} for rows
+     * read afterwards.
+     */
+    int getCacheGeneration() {
+        synchronized (mCacheLock) {
+            return mCacheGeneration;
+        }
+    }
+
+    /**
+     * Caches a {@link SliceData} read from the index so later lookups skip the database. Ignored
+     * if the cache was invalidated since {@param cacheGeneration} was read.
+     */
+    void putCachedSliceData(SliceData sliceData, int cacheGeneration) {
+        synchronized (mCacheLock) {
+            if (cacheGeneration == mCacheGeneration) {
+                mSliceDataCache.put(sliceData.getKey(), sliceData);
+            }
+        }
+    }
+
+    private void invalidateCache() {
+        synchronized (mCacheLock) {
+            mCacheGeneration++;
+            mVerifiedLocale = null;
+            mSliceDataCache.evictAll();
+        }
     }
 
     private void createDatabases(SQLiteDatabase db) {
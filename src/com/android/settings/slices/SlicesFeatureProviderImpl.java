@@ -54,7 +54,7 @@ public class SlicesFeatureProviderImpl implements SlicesFeatureProvider {
     @Override
     public void indexSliceDataAsync(Context context) {
         SlicesIndexer indexer = getSliceIndexer(context);
-        ThreadUtils.postOnBackgroundThread(indexer);
+        ThreadUtils.postOnBackgroundThread(indexer, ThreadUtils.PRIORITY_BULK);
     }
 
     @Override
@@ -16,9 +16,9 @@
 
 package com.android.settings.slices;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -29,6 +29,7 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.slices.SlicesDatabaseHelper.Tables;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -39,6 +40,25 @@ class SlicesIndexer implements Runnable {
 
     private static final String TAG = "SlicesIndexer";
 
+    private static final int MAX_CONVERSION_THREADS = 4;
+
+    private static final String INSERT_SLICE_STATEMENT =
+            "INSERT INTO " + Tables.TABLE_SLICES_INDEX + " ("
+                    + IndexColumns.KEY + ", "
+                    + IndexColumns.SLICE_URI + ", "
+                    + IndexColumns.TITLE + ", "
+                    + IndexColumns.SUMMARY + ", "
+                    + IndexColumns.SCREENTITLE + ", "
+                    + IndexColumns.KEYWORDS + ", "
+                    + IndexColumns.ICON_RESOURCE + ", "
+                    + IndexColumns.FRAGMENT + ", "
+                    + IndexColumns.CONTROLLER + ", "
+                    + IndexColumns.SLICE_TYPE + ", "
+                    + IndexColumns.UNAVAILABLE_SLICE_SUBTITLE + ", "
+                    + IndexColumns.PUBLIC_SLICE + ", "
+                    + IndexColumns.HIGHLIGHT_MENU_RESOURCE
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private Context mContext;
 
     private SlicesDatabaseHelper mHelper;
@@ -58,7 +78,10 @@ class SlicesIndexer implements Runnable {
 
     /**
      * Synchronously takes data obtained from {@link SliceDataConverter} and indexes it into a
-     * SQLite database
+     * SQLite database.
+     *
+     * The sources are converted before the transaction starts, so readers of the previous index
+     * are only blocked while the rows are written.
      */
     protected void indexSliceData() {
         if (mHelper.isSliceDataIndexed()) {
@@ -66,17 +89,15 @@ class SlicesIndexer implements Runnable {
             return;
         }
 
-        final SQLiteDatabase database = mHelper.getWritableDatabase();
-
         long startTime = System.currentTimeMillis();
+        final List<SliceData> indexData = getSliceData();
+
+        final SQLiteDatabase database = mHelper.getWritableDatabase();
         database.beginTransaction();
         try {
             mHelper.reconstruct(database);
-            List<SliceData> indexData = getSliceData();
             insertSliceData(database, indexData);
 
-            mHelper.setIndexedState();
-
             // TODO (b/71503044) Log indexing time.
             Log.d(TAG,
                     "Indexing slices database took: " + (System.currentTimeMillis() - startTime));
@@ -84,42 +105,74 @@ class SlicesIndexer implements Runnable {
         } finally {
             database.endTransaction();
         }
+        mHelper.setIndexedState();
     }
 
     @VisibleForTesting
     List<SliceData> getSliceData() {
+        final SliceDataConverter converter = getSliceDataConverter();
+        final List<SliceData> sliceData = new ArrayList<>();
+        for (List<SliceData> sourceSliceData : converter.getSliceDataFromSources(
+                converter.getSliceSources(), getConversionParallelism())) {
+            sliceData.addAll(sourceSliceData);
+        }
+        sliceData.addAll(converter.getAccessibilitySliceData());
+        return sliceData;
+    }
+
+    @VisibleForTesting
+    SliceDataConverter getSliceDataConverter() {
         return FeatureFactory.getFactory(mContext)
                 .getSlicesFeatureProvider()
-                .getSliceDataConverter(mContext)
-                .getSliceData();
+                .getSliceDataConverter(mContext);
+    }
+
+    /**
+     * @return the number of threads used to convert the sources.
+     */
+    @VisibleForTesting
+    int getConversionParallelism() {
+        return Math.min(MAX_CONVERSION_THREADS, Runtime.getRuntime().availableProcessors());
     }
 
     @VisibleForTesting
     void insertSliceData(SQLiteDatabase database, List<SliceData> indexData) {
-        ContentValues values;
-
-        for (SliceData dataRow : indexData) {
-            values = new ContentValues();
-            values.put(IndexColumns.KEY, dataRow.getKey());
-            values.put(IndexColumns.SLICE_URI, dataRow.getUri().toString());
-            values.put(IndexColumns.TITLE, dataRow.getTitle());
-            values.put(IndexColumns.SUMMARY, dataRow.getSummary());
-            final CharSequence screenTitle = dataRow.getScreenTitle();
-            if (screenTitle != null) {
-                values.put(IndexColumns.SCREENTITLE, screenTitle.toString());
+        if (indexData.isEmpty()) {
+            return;
+        }
+
+        final SQLiteStatement statement = database.compileStatement(INSERT_SLICE_STATEMENT);
+        try {
+            for (SliceData dataRow : indexData) {
+                final CharSequence screenTitle = dataRow.getScreenTitle();
+                bindStringOrNull(statement, 1, dataRow.getKey());
+                bindStringOrNull(statement, 2, dataRow.getUri().toString());
+                bindStringOrNull(statement, 3, dataRow.getTitle());
+                bindStringOrNull(statement, 4, dataRow.getSummary());
+                bindStringOrNull(statement, 5,
+                        screenTitle != null ? screenTitle.toString() : null);
+                bindStringOrNull(statement, 6, dataRow.getKeywords());
+                statement.bindLong(7, dataRow.getIconResource());
+                bindStringOrNull(statement, 8, dataRow.getFragmentClassName());
+                bindStringOrNull(statement, 9, dataRow.getPreferenceController());
+                statement.bindLong(10, dataRow.getSliceType());
+                bindStringOrNull(statement, 11, dataRow.getUnavailableSliceSubtitle());
+                statement.bindLong(12, dataRow.isPublicSlice() ? 1 : 0);
+                statement.bindLong(13, dataRow.getHighlightMenuRes());
+
+                statement.executeInsert();
+                statement.clearBindings();
             }
-            values.put(IndexColumns.KEYWORDS, dataRow.getKeywords());
-            values.put(IndexColumns.ICON_RESOURCE, dataRow.getIconResource());
-            values.put(IndexColumns.FRAGMENT, dataRow.getFragmentClassName());
-            values.put(IndexColumns.CONTROLLER, dataRow.getPreferenceController());
-            values.put(IndexColumns.SLICE_TYPE, dataRow.getSliceType());
-            values.put(IndexColumns.UNAVAILABLE_SLICE_SUBTITLE,
-                    dataRow.getUnavailableSliceSubtitle());
-            values.put(IndexColumns.PUBLIC_SLICE, dataRow.isPublicSlice());
-            values.put(IndexColumns.HIGHLIGHT_MENU_RESOURCE, dataRow.getHighlightMenuRes());
-
-            database.replaceOrThrow(Tables.TABLE_SLICES_INDEX, null /* nullColumnHack */,
-                    values);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
         }
     }
 }
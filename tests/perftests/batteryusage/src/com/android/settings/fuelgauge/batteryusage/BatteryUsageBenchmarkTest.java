@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static androidx.test.platform.app.InstrumentationRegistry.getArguments;
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Benchmarks the battery usage compute path on a synthetic battery history.
+ *
+ * <p>The history can be configured with the {@code app-count}, {@code days} and
+ * {@code events-per-hour} instrumentation arguments. The results are compared against the
+ * checked-in baselines only for the default history, on the device the baselines were measured
+ * on.</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class BatteryUsageBenchmarkTest {
+    private static final String TAG = "BatteryUsageBenchmark";
+    private static final String BASELINES_FILE = "battery_usage_baselines.properties";
+    private static final String REFERENCE_DEVICE = "reference_device";
+    private static final String ARG_APP_COUNT = "app-count";
+    private static final String ARG_DAYS = "days";
+    private static final String ARG_EVENTS_PER_HOUR = "events-per-hour";
+    private static final int DEFAULT_APP_COUNT = 50;
+    private static final int DEFAULT_DAYS = 6;
+    private static final int DEFAULT_EVENTS_PER_HOUR = 20;
+    /** The allowed regression over the baselines. */
+    private static final double TOLERANCE = 0.2;
+
+    private Context mContext;
+    private SyntheticBatteryHistory mHistory;
+    private long mEndTimestamp;
+    private boolean mIsDefaultHistory;
+
+    @Before
+    public void setUp() {
+        mContext = getInstrumentation().getTargetContext();
+        final int appCount = getIntArgument(ARG_APP_COUNT, DEFAULT_APP_COUNT);
+        final int days = getIntArgument(ARG_DAYS, DEFAULT_DAYS);
+        final int eventsPerHour = getIntArgument(ARG_EVENTS_PER_HOUR, DEFAULT_EVENTS_PER_HOUR);
+        mIsDefaultHistory = appCount == DEFAULT_APP_COUNT && days == DEFAULT_DAYS
+                && eventsPerHour == DEFAULT_EVENTS_PER_HOUR;
+        mEndTimestamp = System.currentTimeMillis();
+        DataProcessor.sTestCurrentTimeMillis = mEndTimestamp;
+        mHistory = new SyntheticBatteryHistory(
+                appCount, days, eventsPerHour, mContext.getUserId(), mEndTimestamp);
+    }
+
+    @After
+    public void tearDown() {
+        DataProcessor.sTestCurrentTimeMillis = 0;
+        DatabaseUtils.sFakeSupplier = null;
+    }
+
+    @Test
+    public void getBatteryUsageData() {
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+                mHistory.getBatteryHistoryMap();
+
+        // Without the slot cache, otherwise the warm up iterations fill it and only the open
+        // slots are computed afterwards.
+        report(BenchmarkRunner.measure("getBatteryUsageData",
+                () -> assertNotNull(DataProcessor.getBatteryUsageData(
+                        mContext, batteryHistoryMap, /*slotCache=*/ null))));
+    }
+
+    @Test
+    public void generateAppUsagePeriodMap() {
+        final Map<Long, Map<String, BatteryHistEntry>> processedBatteryHistoryMap =
+                DataProcessor.getHistoryMapWithExpectedTimestamps(
+                        mContext, mHistory.getBatteryHistoryMap());
+        final BatteryLevelData batteryLevelData =
+                DataProcessor.getLevelDataThroughProcessedHistoryMap(
+                        mContext, processedBatteryHistoryMap);
+        assertNotNull(batteryLevelData);
+        final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay =
+                batteryLevelData.getHourlyBatteryLevelsPerDay();
+        final long rawStartTimestamp = hourlyBatteryLevelsPerDay.get(0).getTimestamps().get(0);
+        final List<AppUsageEvent> appUsageEvents = mHistory.createAppUsageEvents();
+        final List<BatteryEvent> batteryEvents = new ArrayList<>();
+
+        report(BenchmarkRunner.measure("generateAppUsagePeriodMap",
+                () -> assertNotNull(DataProcessor.generateAppUsagePeriodMap(
+                        rawStartTimestamp, hourlyBatteryLevelsPerDay, appUsageEvents,
+                        batteryEvents))));
+    }
+
+    @Test
+    public void getHistoryMapSinceLastFullCharge() {
+        // Includes building the cursor, which is small compared to decoding its rows.
+        DatabaseUtils.sFakeSupplier = mHistory::createBatteryStateCursor;
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(mEndTimestamp);
+
+        report(BenchmarkRunner.measure("getHistoryMapSinceLastFullCharge",
+                () -> assertNotNull(
+                        DatabaseUtils.getHistoryMapSinceLastFullCharge(mContext, calendar))));
+    }
+
+    private void report(final BenchmarkRunner.Result result) {
+        Log.i(TAG, result.toString());
+        final Bundle status = result.toBundle();
+        getInstrumentation().sendStatus(0, status);
+        // One property per line, ready to be copied into the baselines.
+        Log.i(TAG, "battery_usage_baselines: " + REFERENCE_DEVICE + "=" + Build.MODEL);
+        Log.i(TAG, "battery_usage_baselines: " + result.mName + ".median_ns=" + result.mMedianNs);
+        Log.i(TAG, "battery_usage_baselines: "
+                + result.mName + ".allocated_bytes=" + result.mAllocatedBytesPerOp);
+        if (!mIsDefaultHistory) {
+            return;
+        }
+        final Properties baselines = loadBaselines();
+        final String referenceDevice = baselines.getProperty(REFERENCE_DEVICE);
+        if (!Build.MODEL.equals(referenceDevice)) {
+            Log.i(TAG, "Not comparing with the baselines of " + referenceDevice + " on "
+                    + Build.MODEL);
+            return;
+        }
+        assertWithinBaseline(result.mName + ".median_ns", result.mMedianNs, baselines);
+        assertWithinBaseline(
+                result.mName + ".allocated_bytes", result.mAllocatedBytesPerOp, baselines);
+    }
+
+    private static void assertWithinBaseline(
+            final String key, final long value, final Properties baselines) {
+        final String baseline = baselines.getProperty(key);
+        assertNotNull("no baseline for " + key, baseline);
+        final long limit = (long) (Long.parseLong(baseline) * (1 + TOLERANCE));
+        assertTrue(key + " regressed: " + value + " > " + limit, value <= limit);
+    }
+
+    private static Properties loadBaselines() {
+        final Properties baselines = new Properties();
+        try (InputStream in =
+                getInstrumentation().getContext().getAssets().open(BASELINES_FILE)) {
+            baselines.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to load " + BASELINES_FILE, e);
+        }
+        return baselines;
+    }
+
+    private static int getIntArgument(final String key, final int defaultValue) {
+        final String value = getArguments().getString(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+}
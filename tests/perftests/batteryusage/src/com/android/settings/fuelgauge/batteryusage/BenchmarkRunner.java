@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.os.Bundle;
+import android.os.Debug;
+import android.os.SystemClock;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/** Runs an operation repeatedly and measures its latency, throughput and allocations. */
+final class BenchmarkRunner {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 30;
+
+    private BenchmarkRunner() {
+    }
+
+    /** Measures {@param operation} after running it a few times to warm up. */
+    @SuppressWarnings("deprecation")
+    static Result measure(final String name, final Runnable operation) {
+        for (int index = 0; index < WARMUP_ITERATIONS; index++) {
+            operation.run();
+        }
+        Runtime.getRuntime().gc();
+
+        final long[] durationsNs = new long[MEASURED_ITERATIONS];
+        long allocatedBytes = 0;
+        Debug.startAllocCounting();
+        try {
+            for (int index = 0; index < MEASURED_ITERATIONS; index++) {
+                Debug.resetThreadAllocSize();
+                final long startTime = SystemClock.elapsedRealtimeNanos();
+                operation.run();
+                durationsNs[index] = SystemClock.elapsedRealtimeNanos() - startTime;
+                allocatedBytes += Debug.getThreadAllocSize();
+            }
+        } finally {
+            Debug.stopAllocCounting();
+        }
+        return new Result(name, durationsNs, allocatedBytes / MEASURED_ITERATIONS);
+    }
+
+    /** The measurements of a benchmark. */
+    static final class Result {
+        final String mName;
+        final long mMedianNs;
+        final long mP90Ns;
+        final long mMinNs;
+        final double mOpsPerSecond;
+        final long mAllocatedBytesPerOp;
+
+        Result(final String name, final long[] durationsNs, final long allocatedBytesPerOp) {
+            final long[] sortedDurationsNs = durationsNs.clone();
+            Arrays.sort(sortedDurationsNs);
+            mName = name;
+            mMedianNs = sortedDurationsNs[sortedDurationsNs.length / 2];
+            mP90Ns = sortedDurationsNs[sortedDurationsNs.length * 9 / 10];
+            mMinNs = sortedDurationsNs[0];
+            mOpsPerSecond = 1e9 * sortedDurationsNs.length / Arrays.stream(durationsNs).sum();
+            mAllocatedBytesPerOp = allocatedBytesPerOp;
+        }
+
+        /** @return the measurements, to be reported as instrumentation status. */
+        Bundle toBundle() {
+            final Bundle bundle = new Bundle();
+            bundle.putLong(mName + "_median_ns", mMedianNs);
+            bundle.putLong(mName + "_p90_ns", mP90Ns);
+            bundle.putLong(mName + "_min_ns", mMinNs);
+            bundle.putDouble(mName + "_ops_per_second", mOpsPerSecond);
+            bundle.putLong(mName + "_allocated_bytes", mAllocatedBytesPerOp);
+            return bundle;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s: median=%dns p90=%dns min=%dns throughput=%.2fops/s allocated=%dB/op",
+                    mName, mMedianNs, mP90Ns, mMinNs, mOpsPerSecond, mAllocatedBytesPerOp);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.os.BatteryManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates a deterministic battery history: one battery state snapshot per hour for every app
+ * and system component, and the app usage events in between.
+ */
+final class SyntheticBatteryHistory {
+    private static final long HOUR_IN_MS = Duration.ofHours(1).toMillis();
+    private static final long DAY_IN_MS = Duration.ofDays(1).toMillis();
+    private static final int SYSTEM_COMPONENT_COUNT = 8;
+    private static final int FIRST_APP_UID = 10000;
+    private static final String PACKAGE_NAME_PREFIX = "com.android.settings.perf.app";
+    private static final String[] CURSOR_COLUMNS = new String[] {
+            BatteryHistEntry.KEY_UID,
+            BatteryHistEntry.KEY_USER_ID,
+            BatteryHistEntry.KEY_PACKAGE_NAME,
+            BatteryHistEntry.KEY_TIMESTAMP,
+            BatteryHistEntry.KEY_CONSUMER_TYPE,
+            BatteryHistEntry.KEY_IS_FULL_CHARGE_CYCLE_START,
+            BatteryHistEntry.KEY_BATTERY_INFORMATION};
+
+    private final int mAppCount;
+    private final int mEventsPerHour;
+    private final long mUserId;
+    private final List<Long> mSnapshotTimestamps = new ArrayList<>();
+    private final List<Object[]> mRows = new ArrayList<>();
+    private final Map<Long, Map<String, BatteryHistEntry>> mBatteryHistoryMap = new HashMap<>();
+
+    /**
+     * @param appCount the number of apps consuming battery
+     * @param days the number of days covered by the history, ending at {@param endTimestamp}
+     * @param eventsPerHour the number of app usage events recorded per hour
+     */
+    SyntheticBatteryHistory(
+            final int appCount,
+            final int days,
+            final int eventsPerHour,
+            final long userId,
+            final long endTimestamp) {
+        mAppCount = appCount;
+        mEventsPerHour = eventsPerHour;
+        mUserId = userId;
+        // Snapshots are taken by a periodic job, so they are a few minutes off the hour.
+        final Random random = new Random(/* seed= */ days * 31 + appCount);
+        final long startTimestamp = endTimestamp - days * DAY_IN_MS;
+        final int hourCount = days * 24;
+        for (int hour = 0; hour <= hourCount; hour++) {
+            final long timestamp = hour == hourCount
+                    ? endTimestamp
+                    : startTimestamp + hour * HOUR_IN_MS + random.nextInt(5 * 60 * 1000);
+            mSnapshotTimestamps.add(timestamp);
+            addSnapshot(timestamp, hour, /* batteryLevel= */ 100 - 90 * hour / hourCount);
+        }
+    }
+
+    /** @return the raw battery history, keyed by snapshot timestamp and entry key. */
+    Map<Long, Map<String, BatteryHistEntry>> getBatteryHistoryMap() {
+        return mBatteryHistoryMap;
+    }
+
+    /** @return the battery history as returned by the battery usage content provider. */
+    Cursor createBatteryStateCursor() {
+        final MatrixCursor cursor = new MatrixCursor(CURSOR_COLUMNS, mRows.size());
+        for (Object[] row : mRows) {
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
+
+    /** @return the app usage events, spread evenly across the history. */
+    List<AppUsageEvent> createAppUsageEvents() {
+        final List<AppUsageEvent> events = new ArrayList<>();
+        final long startTimestamp = mSnapshotTimestamps.get(0);
+        final long endTimestamp = mSnapshotTimestamps.get(mSnapshotTimestamps.size() - 1);
+        // Each pair of events is an app resumed and later stopped.
+        final long sessionInterval = HOUR_IN_MS / Math.max(1, mEventsPerHour / 2);
+        int session = 0;
+        for (long timestamp = startTimestamp; timestamp + sessionInterval <= endTimestamp;
+                timestamp += sessionInterval, session++) {
+            final String packageName = getPackageName(session % mAppCount);
+            events.add(createAppUsageEvent(
+                    AppUsageEventType.ACTIVITY_RESUMED, timestamp, session, packageName));
+            events.add(createAppUsageEvent(
+                    AppUsageEventType.ACTIVITY_STOPPED, timestamp + sessionInterval * 2 / 3,
+                    session, packageName));
+        }
+        return events;
+    }
+
+    private void addSnapshot(final long timestamp, final int hour, final int batteryLevel) {
+        final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+        for (int index = 0; index < mAppCount; index++) {
+            // Apps drain at different rates, so they are ordered differently in each slot.
+            final double consumePower = 0.05 * (index % 10 + 1) * hour;
+            addEntry(entryMap, FIRST_APP_UID + index, getPackageName(index),
+                    ConvertUtils.CONSUMER_TYPE_UID_BATTERY, /* drainType= */ 0, timestamp, hour,
+                    batteryLevel, consumePower);
+        }
+        for (int index = 0; index < SYSTEM_COMPONENT_COUNT; index++) {
+            addEntry(entryMap, /* uid= */ 0, /* packageName= */ null,
+                    ConvertUtils.CONSUMER_TYPE_SYSTEM_BATTERY, /* drainType= */ index, timestamp,
+                    hour, batteryLevel, /* consumePower= */ 0.5 * hour);
+        }
+        mBatteryHistoryMap.put(timestamp, entryMap);
+    }
+
+    private void addEntry(
+            final Map<String, BatteryHistEntry> entryMap,
+            final long uid,
+            final String packageName,
+            final int consumerType,
+            final int drainType,
+            final long timestamp,
+            final int hour,
+            final int batteryLevel,
+            final double consumePower) {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setDeviceBatteryState(
+                                DeviceBatteryState.newBuilder()
+                                        .setBatteryLevel(batteryLevel)
+                                        .setBatteryStatus(BatteryManager.BATTERY_STATUS_DISCHARGING)
+                                        .setBatteryHealth(BatteryManager.BATTERY_HEALTH_GOOD)
+                                        .build())
+                        .setAppLabel(packageName != null ? packageName : "system" + drainType)
+                        .setBootTimestamp(hour * HOUR_IN_MS)
+                        .setZoneId("UTC")
+                        .setTotalPower(100.0 * hour)
+                        .setConsumePower(consumePower)
+                        .setForegroundUsageConsumePower(consumePower / 2)
+                        .setBackgroundUsageConsumePower(consumePower / 2)
+                        .setDrainType(drainType)
+                        .setForegroundUsageTimeInMs(60 * 1000L * hour)
+                        .setBackgroundUsageTimeInMs(120 * 1000L * hour)
+                        .build();
+        final byte[] batteryInformationBytes = batteryInformation.toByteArray();
+        final boolean isFullChargeCycleStart = hour == 0;
+        mRows.add(new Object[] {uid, mUserId, packageName, timestamp, consumerType,
+                isFullChargeCycleStart ? 1 : 0, batteryInformationBytes});
+
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, uid);
+        values.put(BatteryHistEntry.KEY_USER_ID, mUserId);
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, packageName);
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, timestamp);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, consumerType);
+        values.put(BatteryHistEntry.KEY_IS_FULL_CHARGE_CYCLE_START, isFullChargeCycleStart);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformationBytes);
+        final BatteryHistEntry entry = new BatteryHistEntry(values);
+        entryMap.put(entry.getKey(), entry);
+    }
+
+    private AppUsageEvent createAppUsageEvent(
+            final AppUsageEventType type,
+            final long timestamp,
+            final int instanceId,
+            final String packageName) {
+        return AppUsageEvent.newBuilder()
+                .setType(type)
+                .setTimestamp(timestamp)
+                .setUserId(mUserId)
+                .setInstanceId(instanceId)
+                .setPackageName(packageName)
+                .setTaskRootPackageName(packageName)
+                .build();
+    }
+
+    private static String getPackageName(final int index) {
+        return PACKAGE_NAME_PREFIX + index;
+    }
+}
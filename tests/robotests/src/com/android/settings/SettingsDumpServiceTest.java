@@ -100,6 +100,15 @@ public class SettingsDumpServiceTest {
                 ANOMALY_VERSION);
     }
 
+    @Test
+    public void testDumpBackgroundThreads_returnLaneStats() throws JSONException {
+        final JSONObject jsonObject = mTestService.dumpBackgroundThreads();
+
+        assertThat(jsonObject.has("ui")).isTrue();
+        assertThat(jsonObject.has("normal")).isTrue();
+        assertThat(jsonObject.getJSONObject("bulk").has("max_wait_ms")).isTrue();
+    }
+
     @Ignore
     @Test
     public void testDump_printServiceAsKey() {
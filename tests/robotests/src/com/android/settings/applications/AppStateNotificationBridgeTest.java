@@ -17,6 +17,7 @@
 package com.android.settings.applications;
 
 import static android.text.format.DateUtils.DAY_IN_MILLIS;
+import static android.text.format.DateUtils.MINUTE_IN_MILLIS;
 
 import static com.android.settings.applications.AppStateNotificationBridge.FILTER_APP_NOTIFICATION_BLOCKED;
 import static com.android.settings.applications.AppStateNotificationBridge.FILTER_APP_NOTIFICATION_FREQUENCY;
@@ -34,6 +35,8 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +45,7 @@ import android.app.usage.UsageEvents;
 import android.app.usage.UsageEvents.Event;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
 import android.content.pm.UserInfo;
 import android.os.Looper;
 import android.os.Parcel;
@@ -60,6 +64,7 @@ import com.android.settingslib.applications.ApplicationsState.AppEntry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
@@ -67,6 +72,7 @@ import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -338,6 +344,86 @@ public class AppStateNotificationBridgeTest {
         assertThat(((NotificationsSentState) apps.get(1).extraInfo).avgSentDaily).isEqualTo(1);
     }
 
+    @Test
+    public void testGetAggregatedUsageEvents_afterPreviousLoad_onlyQueriesNewEvents()
+            throws Exception {
+        final long now = System.currentTimeMillis();
+        Event first = new Event();
+        first.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        first.mPackage = PKG1;
+        first.mTimeStamp = now - DAY_IN_MILLIS;
+        Event second = new Event();
+        second.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        second.mPackage = PKG1;
+        second.mTimeStamp = now;
+        when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                .thenReturn(getUsageEvents(Collections.singletonList(first)),
+                        getUsageEvents(Collections.singletonList(second)));
+
+        mBridge.getAggregatedUsageEvents();
+        // A new bridge continues from the persisted aggregate.
+        mBridge = new AppStateNotificationBridge(mContext, mState,
+                mock(AppStateBaseBridge.Callback.class), mUsageStats, mUserManager, mBackend);
+        Map<String, NotificationsSentState> map = mBridge.getAggregatedUsageEvents();
+
+        ArgumentCaptor<Long> beginCaptor = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> endCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(mUsageStats, times(2)).queryEventsForUser(
+                beginCaptor.capture(), endCaptor.capture(), anyInt(), anyString());
+        assertThat(beginCaptor.getAllValues().get(1))
+                .isEqualTo(endCaptor.getAllValues().get(0));
+        assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).sentCount).isEqualTo(2);
+        assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).lastSent).isEqualTo(now);
+    }
+
+    @Test
+    public void testGetAggregatedUsageEvents_afterPreviousLoad_dropsEventsOutOfWindow()
+            throws Exception {
+        final long now = System.currentTimeMillis();
+        Event old = new Event();
+        old.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        old.mPackage = PKG1;
+        old.mTimeStamp = now - 7 * DAY_IN_MILLIS - MINUTE_IN_MILLIS;
+        Event recent = new Event();
+        recent.mEventType = Event.NOTIFICATION_INTERRUPTION;
+        recent.mPackage = PKG1;
+        recent.mTimeStamp = now - DAY_IN_MILLIS;
+        when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                .thenReturn(getUsageEvents(Arrays.asList(old, recent)),
+                        getUsageEvents(Collections.emptyList()));
+
+        mBridge.getAggregatedUsageEvents();
+        Map<String, NotificationsSentState> map = mBridge.getAggregatedUsageEvents();
+
+        // Even if it was sent on the same day as the start of the window.
+        assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).sentCount).isEqualTo(1);
+        assertThat(map.get(AppStateNotificationBridge.getKey(0, PKG1)).lastSent)
+                .isEqualTo(now - DAY_IN_MILLIS);
+    }
+
+    @Test
+    public void testLoadAllExtraInfo_queriesPackagesOncePerUser() throws RemoteException {
+        when(mUsageStats.queryEventsForUser(anyLong(), anyLong(), anyInt(), anyString()))
+                .thenReturn(mock(UsageEvents.class));
+        PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = PKG1;
+        when(mBackend.getPackagesWithPermissions(any(), eq(0)))
+                .thenReturn(Collections.singletonMap(PKG1, packageInfo));
+        when(mBackend.enableSwitch(packageInfo)).thenReturn(false);
+        ArrayList<AppEntry> apps = new ArrayList<>();
+        apps.add(getMockAppEntry(PKG1));
+        apps.add(getMockAppEntry(PKG2));
+        when(mSession.getAllApps()).thenReturn(apps);
+
+        mBridge.loadAllExtraInfo();
+
+        verify(mBackend).getPackagesWithPermissions(any(), eq(0));
+        verify(mBackend, never()).enableSwitch(any(), eq(apps.get(0).info));
+        assertThat(((NotificationsSentState) apps.get(0).extraInfo).blockable).isFalse();
+        // Packages missing from the query fall back to querying them one by one.
+        assertThat(((NotificationsSentState) apps.get(1).extraInfo).blockable).isTrue();
+    }
+
     @Test
     public void testUpdateExtraInfo_noEvents() throws RemoteException {
         when(mUsageStats.queryEventsForPackageForUser(
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static android.text.format.DateUtils.DAY_IN_MILLIS;
+import static android.text.format.DateUtils.HOUR_IN_MILLIS;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageEvents.Event;
+import android.os.Parcel;
+
+import com.android.settings.applications.AppStateNotificationBridge.NotificationsSentState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class NotificationSentAggregateTest {
+
+    private static final String PKG = "pkg";
+    private static final String KEY = AppStateNotificationBridge.getKey(0, PKG);
+
+    private File mFile;
+    private NotificationSentAggregate mAggregate;
+    private long mDayStart;
+
+    @Before
+    public void setUp() {
+        mFile = new File(RuntimeEnvironment.application.getCacheDir(), "aggregate");
+        mAggregate = new NotificationSentAggregate(mFile);
+        mAggregate.load();
+
+        final Calendar calendar = Calendar.getInstance();
+        calendar.set(2023, Calendar.MARCH, 1, 0, 0, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        mDayStart = calendar.getTimeInMillis();
+    }
+
+    @Test
+    public void recountEdgeDay_shouldDropNotificationsBeforeWindowStart() {
+        mAggregate.removeEventsBefore(mDayStart + HOUR_IN_MILLIS);
+        mAggregate.addEvents(0, getUsageEvents(mDayStart + 2 * HOUR_IN_MILLIS,
+                mDayStart + 4 * HOUR_IN_MILLIS, mDayStart + 2 * DAY_IN_MILLIS),
+                mDayStart + 3 * DAY_IN_MILLIS);
+
+        mAggregate.removeEventsBefore(mDayStart + 3 * HOUR_IN_MILLIS);
+        assertThat(mAggregate.hasEdgeDayEvents(0)).isTrue();
+        mAggregate.recountEdgeDay(0, getUsageEvents(mDayStart + 4 * HOUR_IN_MILLIS));
+
+        final NotificationsSentState state = mAggregate.getSentStates().get(KEY);
+        assertThat(state.sentCount).isEqualTo(2);
+        assertThat(state.lastSent).isEqualTo(mDayStart + 2 * DAY_IN_MILLIS);
+    }
+
+    @Test
+    public void removeEventsBefore_shouldDropDaysBeforeWindowStart() {
+        mAggregate.removeEventsBefore(mDayStart + HOUR_IN_MILLIS);
+        mAggregate.addEvents(0, getUsageEvents(mDayStart + 2 * HOUR_IN_MILLIS,
+                mDayStart + 2 * DAY_IN_MILLIS), mDayStart + 3 * DAY_IN_MILLIS);
+
+        mAggregate.removeEventsBefore(mDayStart + DAY_IN_MILLIS + HOUR_IN_MILLIS);
+
+        assertThat(mAggregate.hasEdgeDayEvents(0)).isFalse();
+        assertThat(mAggregate.getSentStates().get(KEY).sentCount).isEqualTo(1);
+    }
+
+    @Test
+    public void save_noNotificationsAdded_shouldNotWrite() {
+        mAggregate.removeEventsBefore(mDayStart);
+        mAggregate.addEvents(0, getUsageEvents(), mDayStart + DAY_IN_MILLIS);
+
+        mAggregate.save();
+
+        assertThat(mFile.exists()).isFalse();
+    }
+
+    @Test
+    public void save_edgeDayUnchanged_shouldNotWrite() {
+        mAggregate.removeEventsBefore(mDayStart);
+        mAggregate.addEvents(0, getUsageEvents(mDayStart + 2 * HOUR_IN_MILLIS),
+                mDayStart + DAY_IN_MILLIS);
+        mAggregate.save();
+        mFile.delete();
+
+        mAggregate.removeEventsBefore(mDayStart + HOUR_IN_MILLIS);
+        mAggregate.recountEdgeDay(0, getUsageEvents(mDayStart + 2 * HOUR_IN_MILLIS));
+        mAggregate.save();
+
+        assertThat(mFile.exists()).isFalse();
+    }
+
+    @Test
+    public void load_afterSave_shouldRestoreCounts() {
+        mAggregate.removeEventsBefore(mDayStart);
+        mAggregate.addEvents(0, getUsageEvents(mDayStart + HOUR_IN_MILLIS,
+                mDayStart + DAY_IN_MILLIS), mDayStart + 2 * DAY_IN_MILLIS);
+        mAggregate.save();
+
+        final NotificationSentAggregate loaded = new NotificationSentAggregate(mFile);
+        loaded.load();
+
+        assertThat(loaded.getCountedUntil(0)).isEqualTo(mDayStart + 2 * DAY_IN_MILLIS);
+        assertThat(loaded.getSentStates().get(KEY).sentCount).isEqualTo(2);
+        assertThat(loaded.getSentStates().get(KEY).lastSent).isEqualTo(mDayStart + DAY_IN_MILLIS);
+    }
+
+    private UsageEvents getUsageEvents(long... timestamps) {
+        final List<Event> events = new ArrayList<>();
+        for (long timestamp : timestamps) {
+            final Event event = new Event();
+            event.mEventType = Event.NOTIFICATION_INTERRUPTION;
+            event.mPackage = PKG;
+            event.mTimeStamp = timestamp;
+            events.add(event);
+        }
+        final UsageEvents usageEvents = new UsageEvents(events, new String[] {PKG});
+        final Parcel parcel = Parcel.obtain();
+        parcel.setDataPosition(0);
+        usageEvents.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        return UsageEvents.CREATOR.createFromParcel(parcel);
+    }
+}
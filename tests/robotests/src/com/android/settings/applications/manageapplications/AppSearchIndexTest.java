@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import android.content.pm.ApplicationInfo;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppSearchIndexTest {
+
+    @Test
+    public void search_ignoresCaseAndAccents() {
+        final AppEntry cafe = createAppEntry("Café Finder", "com.example.cafe");
+        final AppEntry maps = createAppEntry("Maps", "com.example.maps");
+        final AppSearchIndex index = new AppSearchIndex(List.of(cafe, maps));
+
+        assertThat(index.search("CAFE")).containsExactly(cafe);
+        assertThat(index.search("cafè")).containsExactly(cafe);
+    }
+
+    @Test
+    public void search_matchesWordPrefixesAndPackageNames() {
+        final AppEntry googleMaps = createAppEntry("Google Maps", "com.google.android.apps.maps");
+        final AppEntry mail = createAppEntry("Mail", "com.example.mail");
+        final AppSearchIndex index = new AppSearchIndex(List.of(googleMaps, mail));
+
+        assertThat(index.search("goo ma")).containsExactly(googleMaps);
+        assertThat(index.search("example")).containsExactly(mail);
+        assertThat(index.search("ma")).containsExactly(googleMaps, mail).inOrder();
+    }
+
+    @Test
+    public void search_growingAndShrinkingQuery_returnsSameAsFreshSearch() {
+        final List<AppEntry> entries = new ArrayList<>();
+        entries.add(createAppEntry("Banana", "com.example.banana"));
+        entries.add(createAppEntry("Cantaloupe", "com.example.cantaloupe"));
+        entries.add(createAppEntry("Mango", "com.example.mango"));
+        final AppSearchIndex index = new AppSearchIndex(entries);
+
+        assertThat(index.search("a")).hasSize(3);
+        assertThat(index.search("an")).hasSize(3);
+        assertThat(index.search("ang")).containsExactly(entries.get(2));
+        assertThat(index.search("an")).isEqualTo(new AppSearchIndex(entries).search("an"));
+        assertThat(index.search("")).isEqualTo(entries);
+    }
+
+    @Test
+    public void search_workProfileDuplicates_matchesAll() {
+        final AppEntry personal = createAppEntry("Files", "com.example.files");
+        final AppEntry work = createAppEntry("Files", "com.example.files");
+        final AppSearchIndex index = new AppSearchIndex(List.of(personal, work));
+
+        assertThat(index.search("fil")).containsExactly(personal, work).inOrder();
+    }
+
+    private static AppEntry createAppEntry(String label, String packageName) {
+        final AppEntry entry = mock(AppEntry.class);
+        entry.label = label;
+        entry.info = new ApplicationInfo();
+        entry.info.packageName = packageName;
+        return entry;
+    }
+}
@@ -176,6 +176,20 @@ public class BasePreferenceControllerTest {
         assertThat(preference.isEnabled()).isFalse();
     }
 
+    @Test
+    public void concurrentAvailability_displayPreference_hidesWithoutCheckingAvailability() {
+        final PreferenceScreen screen = mock(PreferenceScreen.class);
+        final Preference preference = new Preference(mContext);
+        when(screen.findPreference(anyString())).thenReturn(preference);
+        final FakeConcurrentPreferenceController controller =
+                new FakeConcurrentPreferenceController(mContext, "key");
+
+        controller.displayPreference(screen);
+
+        assertThat(preference.isVisible()).isFalse();
+        assertThat(controller.mAvailabilityChecks).isEqualTo(0);
+    }
+
     @Test
     public void updateNonIndexableKeys_controllerUnavailable_shouldAddKey() {
         final List<String> keys = new ArrayList<>();
@@ -233,4 +247,20 @@ public class BasePreferenceControllerTest {
             mAvailable = availability;
         }
     }
-}
\ No newline at end of file
+
+    private class FakeConcurrentPreferenceController extends BasePreferenceController
+            implements BasePreferenceController.ConcurrentAvailability {
+
+        private int mAvailabilityChecks;
+
+        private FakeConcurrentPreferenceController(Context context, String preferenceKey) {
+            super(context, preferenceKey);
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            mAvailabilityChecks++;
+            return AVAILABLE;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settings.slices.FakeContextOnlyPreferenceController;
+import com.android.settings.slices.FakePreferenceController;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceControllerFactoryTest {
+
+    private static final String KEY = "key";
+    private static final String REGISTERED_NAME =
+            "com.android.settings.core.RegisteredTestController";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void tearDown() {
+        PreferenceControllerFactory.unregister(REGISTERED_NAME);
+    }
+
+    @Test
+    public void createInstance_registeredController_usesCreator() {
+        PreferenceControllerFactory.register(REGISTERED_NAME,
+                (context, key) -> new FakePreferenceController(context, key));
+
+        final BasePreferenceController controller =
+                PreferenceControllerFactory.createInstance(mContext, REGISTERED_NAME, KEY);
+
+        assertThat(controller).isInstanceOf(FakePreferenceController.class);
+        assertThat(controller.getPreferenceKey()).isEqualTo(KEY);
+        assertThat(PreferenceControllerFactory.hasContextConstructor(REGISTERED_NAME)).isFalse();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void createInstance_registeredCreatorFails_throwsIllegalStateException() {
+        PreferenceControllerFactory.register(REGISTERED_NAME, (context, key) -> {
+            throw new IllegalArgumentException("no such key: " + key);
+        });
+
+        PreferenceControllerFactory.createInstance(mContext, REGISTERED_NAME, KEY);
+    }
+
+    @Test
+    public void createInstance_unregisteredController_usesReflection() {
+        final String name = FakePreferenceController.class.getName();
+
+        final BasePreferenceController controller =
+                PreferenceControllerFactory.createInstance(mContext, name, KEY);
+
+        assertThat(PreferenceControllerFactory.isRegistered(name)).isFalse();
+        assertThat(controller).isInstanceOf(FakePreferenceController.class);
+        assertThat(controller.getPreferenceKey()).isEqualTo(KEY);
+    }
+
+    @Test
+    public void hasContextConstructor_contextOnlyController_returnsTrue() {
+        assertThat(PreferenceControllerFactory.hasContextConstructor(
+                FakeContextOnlyPreferenceController.class.getName())).isTrue();
+        assertThat(PreferenceControllerFactory.hasContextConstructor(
+                FakePreferenceController.class.getName())).isFalse();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void createInstance_unknownClass_throwsIllegalStateException() {
+        PreferenceControllerFactory.createInstance(mContext, "not.a.Controller", KEY);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void createInstance_missingContextConstructor_throwsIllegalStateException() {
+        PreferenceControllerFactory.createInstance(mContext,
+                FakePreferenceController.class.getName());
+    }
+}
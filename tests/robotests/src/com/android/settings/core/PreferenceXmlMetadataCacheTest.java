@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_CONTROLLER;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_ICON;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_SEARCHABLE;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_TITLE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.junit.Assert.assertThrows;
+
+import android.content.Context;
+import android.os.Bundle;
+
+import com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowThreadUtils.class)
+public class PreferenceXmlMetadataCacheTest {
+
+    private static final int XML_RES_ID = 0x7f150001;
+    private static final int FLAGS = MetadataFlag.FLAG_NEED_KEY;
+
+    private Context mContext;
+    private PreferenceXmlMetadataCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = getApplicationContext();
+        mCache = new PreferenceXmlMetadataCache();
+        deleteCacheDir();
+    }
+
+    @After
+    public void tearDown() {
+        ShadowThreadUtils.reset();
+        deleteCacheDir();
+    }
+
+    @Test
+    public void writeAndReadMetadata_sameFingerprint_returnsSameMetadata() throws Exception {
+        final List<Bundle> metadata = getMetadata();
+
+        final List<Bundle> result = PreferenceXmlMetadataCache.readMetadata(
+                toBuffer(writeMetadata(metadata, "fp")), "fp");
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getString(METADATA_KEY)).isEqualTo("key1");
+        assertThat(result.get(0).getString(METADATA_TITLE)).isEqualTo("title1");
+        assertThat(result.get(0).getInt(METADATA_ICON)).isEqualTo(42);
+        assertThat(result.get(0).getBoolean(METADATA_SEARCHABLE)).isTrue();
+        assertThat(result.get(1).getString(METADATA_KEY)).isEqualTo("key2");
+        assertThat(result.get(1).containsKey(METADATA_CONTROLLER)).isTrue();
+        assertThat(result.get(1).getString(METADATA_CONTROLLER)).isNull();
+        assertThat(result.get(1).getBoolean(METADATA_SEARCHABLE)).isFalse();
+    }
+
+    @Test
+    public void readMetadata_otherFingerprint_returnsNull() throws Exception {
+        final byte[] data = writeMetadata(getMetadata(), "fp");
+
+        assertThat(PreferenceXmlMetadataCache.readMetadata(toBuffer(data), "other")).isNull();
+    }
+
+    @Test
+    public void get_afterPut_returnsMetadata() {
+        mCache.put(mContext, XML_RES_ID, FLAGS, getMetadata());
+
+        final List<Bundle> result = mCache.get(mContext, XML_RES_ID, FLAGS);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(1).getString(METADATA_KEY)).isEqualTo("key2");
+    }
+
+    @Test
+    public void put_moreThanMaxMemoryEntries_dropsLeastRecentlyUsed() {
+        for (int i = 0; i <= PreferenceXmlMetadataCache.MAX_MEMORY_ENTRIES; i++) {
+            mCache.put(mContext, XML_RES_ID + i, FLAGS, getMetadata());
+        }
+
+        assertThat(mCache.get(mContext, XML_RES_ID, FLAGS)).isNull();
+        assertThat(mCache.get(mContext,
+                XML_RES_ID + PreferenceXmlMetadataCache.MAX_MEMORY_ENTRIES, FLAGS)).isNotNull();
+    }
+
+    @Test
+    public void writeMetadata_unsupportedKey_throws() {
+        final Bundle bundle = new Bundle();
+        bundle.putLong("unsupported", 1L);
+
+        assertThrows(IOException.class,
+                () -> writeMetadata(Collections.singletonList(bundle), "fp"));
+    }
+
+    @Test
+    public void get_notCached_returnsNull() {
+        assertThat(mCache.get(mContext, XML_RES_ID, FLAGS | MetadataFlag.FLAG_NEED_PREF_TYPE))
+                .isNull();
+    }
+
+    @Test
+    public void put_onMainThread_isNotWrittenToDisk() {
+        mCache.put(mContext, XML_RES_ID, FLAGS, getMetadata());
+
+        ShadowThreadUtils.setIsMainThread(false);
+        assertThat(new PreferenceXmlMetadataCache().get(mContext, XML_RES_ID, FLAGS)).isNull();
+    }
+
+    @Test
+    public void put_offMainThread_isReadFromDiskByOtherInstance() {
+        ShadowThreadUtils.setIsMainThread(false);
+        mCache.put(mContext, XML_RES_ID, FLAGS, getMetadata());
+
+        final List<Bundle> result = new PreferenceXmlMetadataCache().get(mContext, XML_RES_ID,
+                FLAGS);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getString(METADATA_KEY)).isEqualTo("key1");
+    }
+
+    private void deleteCacheDir() {
+        final File[] files = new File(mContext.getCacheDir(), "preference_metadata").listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private static byte[] writeMetadata(List<Bundle> metadata, String fingerprint)
+            throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        PreferenceXmlMetadataCache.writeMetadata(out, metadata, fingerprint);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static ByteBuffer toBuffer(byte[] data) {
+        return ByteBuffer.wrap(data);
+    }
+
+    private static List<Bundle> getMetadata() {
+        final List<Bundle> metadata = new ArrayList<>();
+        final Bundle first = new Bundle();
+        first.putString(METADATA_KEY, "key1");
+        first.putString(METADATA_TITLE, "title1");
+        first.putInt(METADATA_ICON, 42);
+        first.putBoolean(METADATA_SEARCHABLE, true);
+        metadata.add(first);
+
+        final Bundle second = new Bundle();
+        second.putString(METADATA_KEY, "key2");
+        second.putString(METADATA_CONTROLLER, null);
+        second.putBoolean(METADATA_SEARCHABLE, false);
+        metadata.add(second);
+        return metadata;
+    }
+}
@@ -40,6 +40,7 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.preference.PreferenceManager.OnActivityResultListener;
 
+import androidx.fragment.app.FragmentHostCallback;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 import androidx.preference.PreferenceManager;
@@ -47,9 +48,11 @@ import androidx.preference.PreferenceScreen;
 import androidx.preference.SwitchPreference;
 
 import com.android.internal.logging.nano.MetricsProto.MetricsEvent;
+import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settings.slices.BlockingSlicePrefController;
 import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settingslib.PrimarySwitchPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
@@ -373,6 +376,133 @@ public class DashboardFragmentTest {
         verify(activityResultPref).onActivityResult(requestCode, resultCode, null);
     }
 
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void evaluateConcurrentAvailability_availableController_updatesPreference() {
+        final ConcurrentTestPreferenceController controller =
+                spy(new ConcurrentTestPreferenceController(mContext, "key", true /* available */));
+        final Preference preference = new Preference(mContext);
+        preference.setKey(controller.getPreferenceKey());
+        when(mTestFragment.mScreen.findPreference(controller.getPreferenceKey()))
+                .thenReturn(preference);
+        mTestFragment.markAdded();
+
+        mTestFragment.evaluateConcurrentAvailability(
+                Arrays.asList(Arrays.asList(controller)));
+
+        verify(controller).updateState(preference);
+        assertThat(preference.isVisible()).isTrue();
+    }
+
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void evaluateConcurrentAvailability_unavailableController_hidesPreference() {
+        final ConcurrentTestPreferenceController controller =
+                spy(new ConcurrentTestPreferenceController(mContext, "key", false /* available */));
+        final Preference preference = new Preference(mContext);
+        preference.setKey(controller.getPreferenceKey());
+        when(mTestFragment.mScreen.findPreference(controller.getPreferenceKey()))
+                .thenReturn(preference);
+        mTestFragment.markAdded();
+
+        mTestFragment.evaluateConcurrentAvailability(
+                Arrays.asList(Arrays.asList(controller)));
+
+        verify(controller, never()).updateState(preference);
+        assertThat(preference.isVisible()).isFalse();
+    }
+
+    @Test
+    public void checkUiBlocker_hasConcurrentController_blocksUntilAvailabilityIsKnown() {
+        final ConcurrentTestPreferenceController controller =
+                new ConcurrentTestPreferenceController(mContext, "key", true /* available */);
+        mTestFragment.mBlockerController = null;
+        mControllers.add(controller);
+
+        mTestFragment.checkUiBlocker(mControllers);
+
+        assertThat(mTestFragment.mBlockerController).isNotNull();
+        assertThat(mTestFragment.mBlockerController.isBlockerFinished()).isFalse();
+
+        mTestFragment.markAdded();
+        mTestFragment.onConcurrentAvailabilityEvaluated(controller, true,
+                false /* disabledDependent */);
+
+        assertThat(mTestFragment.mBlockerController.countDown("key")).isFalse();
+    }
+
+    @Test
+    public void onConcurrentAvailabilityEvaluated_fragmentNotAdded_leavesPreference() {
+        final ConcurrentTestPreferenceController controller =
+                spy(new ConcurrentTestPreferenceController(mContext, "key", true /* available */));
+        final Preference preference = new Preference(mContext);
+        preference.setKey(controller.getPreferenceKey());
+        preference.setVisible(false);
+        when(mTestFragment.mScreen.findPreference(controller.getPreferenceKey()))
+                .thenReturn(preference);
+
+        mTestFragment.onConcurrentAvailabilityEvaluated(controller, true,
+                false /* disabledDependent */);
+
+        verify(controller, never()).updateState(preference);
+        assertThat(preference.isVisible()).isFalse();
+    }
+
+    @Test
+    @Config(shadows = ShadowThreadUtils.class)
+    public void displayResourceTilesToScreen_concurrentController_hidesUntilEvaluated() {
+        final ConcurrentTestPreferenceController controller =
+                spy(new ConcurrentTestPreferenceController(mContext, "key", true /* available */));
+        final Preference preference = new Preference(mContext);
+        preference.setKey(controller.getPreferenceKey());
+        when(mTestFragment.mScreen.findPreference(controller.getPreferenceKey()))
+                .thenReturn(preference);
+        mTestFragment.addPreferenceController(controller);
+
+        mTestFragment.displayResourceTilesToScreen(mTestFragment.mScreen);
+
+        assertThat(preference.isVisible()).isFalse();
+
+        mTestFragment.markAdded();
+        mTestFragment.onConcurrentAvailabilityEvaluated(controller, true,
+                true /* disabledDependent */);
+
+        assertThat(preference.isVisible()).isTrue();
+        assertThat(preference.isEnabled()).isFalse();
+    }
+
+    @Test
+    public void updatePreferenceStates_concurrentControllerNotEvaluated_skipsPreference() {
+        final ConcurrentTestPreferenceController controller =
+                spy(new ConcurrentTestPreferenceController(mContext, "key", true /* available */));
+        final Preference preference = new Preference(mContext);
+        preference.setKey(controller.getPreferenceKey());
+        when(mTestFragment.mScreen.findPreference(controller.getPreferenceKey()))
+                .thenReturn(preference);
+        mTestFragment.addPreferenceController(controller);
+
+        mTestFragment.updatePreferenceStates();
+
+        verify(controller, never()).updateState(preference);
+    }
+
+    public static class ConcurrentTestPreferenceController extends BasePreferenceController
+            implements BasePreferenceController.ConcurrentAvailability {
+
+        private final boolean mAvailable;
+
+        public ConcurrentTestPreferenceController(Context context, String key,
+                boolean available) {
+            super(context, key);
+            mAvailable = available;
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return mAvailable ? AVAILABLE : UNSUPPORTED_ON_DEVICE;
+        }
+    }
+
     public static class TestPreferenceController extends AbstractPreferenceController
             implements PreferenceControllerMixin {
 
@@ -446,6 +576,11 @@ public class DashboardFragmentTest {
             return mContext;
         }
 
+        void markAdded() {
+            ReflectionHelpers.setField(this, "mHost", mock(FragmentHostCallback.class));
+            ReflectionHelpers.setField(this, "mAdded", true);
+        }
+
         @Override
         public int getMetricsCategory() {
             return DASHBOARD_CONTAINER;
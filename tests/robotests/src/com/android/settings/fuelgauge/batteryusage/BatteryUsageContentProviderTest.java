@@ -265,8 +265,6 @@ public final class BatteryUsageContentProviderTest {
                         .setBackgroundUsageTimeInMs(2000)
                         .setDrainType(1)
                         .build();
-        final String expectedBatteryInformationString =
-                ConvertUtils.convertBatteryInformationToString(batteryInformation);
         ContentValues values = new ContentValues();
         values.put(BatteryHistEntry.KEY_UID, Long.valueOf(101L));
         values.put(BatteryHistEntry.KEY_USER_ID, Long.valueOf(1001L));
@@ -274,7 +272,7 @@ public final class BatteryUsageContentProviderTest {
         values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(2100021L));
         values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, Integer.valueOf(2));
         values.put(BatteryHistEntry.KEY_IS_FULL_CHARGE_CYCLE_START, true);
-        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformationString);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, batteryInformation.toByteArray());
 
         final Uri uri = mProvider.insert(VALID_BATTERY_STATE_CONTENT_URI, values);
 
@@ -289,7 +287,7 @@ public final class BatteryUsageContentProviderTest {
         assertThat(states.get(0).timestamp).isEqualTo(2100021L);
         assertThat(states.get(0).consumerType).isEqualTo(2);
         assertThat(states.get(0).isFullChargeCycleStart).isTrue();
-        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformationString);
+        assertThat(states.get(0).batteryInformation).isEqualTo(batteryInformation.toByteArray());
     }
 
     @Test
@@ -307,12 +305,12 @@ public final class BatteryUsageContentProviderTest {
                         .newBuilder()
                         .setDeviceBatteryState(deviceBatteryState)
                         .build();
-        final String expectedBatteryInformationString =
+        final String legacyBatteryInformationString =
                 ConvertUtils.convertBatteryInformationToString(batteryInformation);
         final ContentValues values = new ContentValues();
         values.put(BatteryHistEntry.KEY_PACKAGE_NAME, new String("fake_data"));
         values.put(BatteryHistEntry.KEY_TIMESTAMP, Long.valueOf(2100022L));
-        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, expectedBatteryInformationString);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION, legacyBatteryInformationString);
 
         final Uri uri = mProvider.insert(VALID_BATTERY_STATE_CONTENT_URI, values);
 
@@ -323,7 +321,7 @@ public final class BatteryUsageContentProviderTest {
         assertThat(states).hasSize(1);
         assertThat(states.get(0).packageName).isEqualTo("fake_data");
         assertThat(states.get(0).timestamp).isEqualTo(2100022L);
-        assertThat(states.get(0).batteryInformation).isEqualTo(expectedBatteryInformationString);
+        assertThat(states.get(0).batteryInformation).isEqualTo(batteryInformation.toByteArray());
     }
 
     @Test
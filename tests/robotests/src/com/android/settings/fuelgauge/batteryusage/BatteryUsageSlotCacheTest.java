@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryUsageSlotCacheTest {
+    private static final long DATA_VERSION = 1234L;
+
+    private Context mContext;
+    private File mDirectory;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mDirectory = new File(mContext.getCacheDir(), "test_battery_usage_slots");
+        final File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void get_afterSaveAndLoad_returnsSameSlot() {
+        final BatteryUsageSlotCache cache = createCache();
+        cache.put(/*startTimestamp=*/ 100L, /*endTimestamp=*/ 200L, createSlot());
+        cache.save(/*earliestTimestamp=*/ 0L);
+
+        final BatteryUsageSlotCache loadedCache = createCache();
+        final BatteryUsageSlotCache.Slot slot = loadedCache.get(100L, 200L);
+
+        assertThat(slot.mScreenOnTime).isEqualTo(30L);
+        assertThat(slot.mEntries).hasSize(1);
+        final BatteryDiffEntry entry = slot.mEntries.get(0);
+        assertThat(entry.mForegroundUsageTimeInMs).isEqualTo(10L);
+        assertThat(entry.mBackgroundUsageTimeInMs).isEqualTo(20L);
+        assertThat(entry.mScreenOnTimeInMs).isEqualTo(30L);
+        assertThat(entry.mConsumePower).isEqualTo(5.0);
+        assertThat(entry.mForegroundUsageConsumePower).isEqualTo(1.0);
+        assertThat(entry.mForegroundServiceUsageConsumePower).isEqualTo(2.0);
+        assertThat(entry.mBackgroundUsageConsumePower).isEqualTo(1.5);
+        assertThat(entry.mCachedUsageConsumePower).isEqualTo(0.5);
+        assertThat(entry.mBatteryHistEntry.mUid).isEqualTo(1001L);
+        assertThat(entry.mBatteryHistEntry.mUserId).isEqualTo(0L);
+        assertThat(entry.mBatteryHistEntry.mPackageName).isEqualTo("com.android.settings");
+        assertThat(entry.mBatteryHistEntry.mAppLabel).isEqualTo("Settings");
+        assertThat(entry.mBatteryHistEntry.mTimestamp).isEqualTo(200L);
+        assertThat(entry.mBatteryHistEntry.mConsumerType)
+                .isEqualTo(ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        assertThat(loadedCache.get(200L, 300L)).isNull();
+    }
+
+    @Test
+    public void load_otherDataVersion_returnsNoSlot() {
+        final BatteryUsageSlotCache cache = createCache();
+        cache.put(/*startTimestamp=*/ 100L, /*endTimestamp=*/ 200L, createSlot());
+        cache.save(/*earliestTimestamp=*/ 0L);
+
+        final BatteryUsageSlotCache loadedCache =
+                new BatteryUsageSlotCache(mContext, mDirectory);
+        loadedCache.load(DATA_VERSION + 1);
+
+        assertThat(loadedCache.size()).isEqualTo(0);
+        assertThat(loadedCache.get(100L, 200L)).isNull();
+    }
+
+    @Test
+    public void save_otherDataVersion_keepsSlotsOfBothDataVersions() {
+        final BatteryUsageSlotCache cache = createCache();
+        cache.put(/*startTimestamp=*/ 100L, /*endTimestamp=*/ 200L, createSlot());
+        cache.save(/*earliestTimestamp=*/ 0L);
+        final BatteryUsageSlotCache otherCache =
+                new BatteryUsageSlotCache(mContext, mDirectory);
+        otherCache.load(DATA_VERSION + 1);
+        otherCache.put(/*startTimestamp=*/ 200L, /*endTimestamp=*/ 300L, createSlot());
+        otherCache.save(/*earliestTimestamp=*/ 0L);
+
+        final BatteryUsageSlotCache loadedCache = createCache();
+        final BatteryUsageSlotCache loadedOtherCache =
+                new BatteryUsageSlotCache(mContext, mDirectory);
+        loadedOtherCache.load(DATA_VERSION + 1);
+
+        assertThat(loadedCache.size()).isEqualTo(1);
+        assertThat(loadedCache.get(100L, 200L)).isNotNull();
+        assertThat(loadedOtherCache.size()).isEqualTo(1);
+        assertThat(loadedOtherCache.get(200L, 300L)).isNotNull();
+    }
+
+    @Test
+    public void save_dropsSlotsBeforeEarliestTimestamp() {
+        final BatteryUsageSlotCache cache = createCache();
+        cache.put(/*startTimestamp=*/ 100L, /*endTimestamp=*/ 200L, createSlot());
+        cache.put(/*startTimestamp=*/ 200L, /*endTimestamp=*/ 300L, createSlot());
+        cache.save(/*earliestTimestamp=*/ 200L);
+
+        final BatteryUsageSlotCache loadedCache = createCache();
+
+        assertThat(loadedCache.size()).isEqualTo(1);
+        assertThat(loadedCache.get(100L, 200L)).isNull();
+        assertThat(loadedCache.get(200L, 300L)).isNotNull();
+    }
+
+    @Test
+    public void toBatteryDiffData_noEntries_returnsNull() {
+        final BatteryUsageSlotCache.Slot slot =
+                new BatteryUsageSlotCache.Slot(/*screenOnTime=*/ 0L, List.of());
+
+        assertThat(slot.toBatteryDiffData(mContext, /*systemAppsPackageNames=*/ null,
+                /*systemAppsUids=*/ null)).isNull();
+    }
+
+    private BatteryUsageSlotCache createCache() {
+        final BatteryUsageSlotCache cache = new BatteryUsageSlotCache(mContext, mDirectory);
+        cache.load(DATA_VERSION);
+        return cache;
+    }
+
+    private BatteryUsageSlotCache.Slot createSlot() {
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_UID, 1001L);
+        values.put(BatteryHistEntry.KEY_USER_ID, 0L);
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, "com.android.settings");
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, 200L);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION,
+                BatteryInformation.newBuilder()
+                        .setAppLabel("Settings")
+                        .setConsumePower(5.0)
+                        .build()
+                        .toByteArray());
+        final BatteryDiffEntry entry = new BatteryDiffEntry(
+                mContext,
+                /*foregroundUsageTimeInMs=*/ 10L,
+                /*backgroundUsageTimeInMs=*/ 20L,
+                /*screenOnTimeInMs=*/ 30L,
+                /*consumePower=*/ 5.0,
+                /*foregroundUsageConsumePower=*/ 1.0,
+                /*foregroundServiceUsageConsumePower=*/ 2.0,
+                /*backgroundUsageConsumePower=*/ 1.5,
+                /*cachedUsageConsumePower=*/ 0.5,
+                new BatteryHistEntry(values));
+        return new BatteryUsageSlotCache.Slot(/*screenOnTime=*/ 30L, List.of(entry));
+    }
+}
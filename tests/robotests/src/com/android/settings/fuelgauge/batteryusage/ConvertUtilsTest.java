@@ -170,6 +170,37 @@ public final class ConvertUtilsTest {
                 .isEqualTo(ConvertUtils.FAKE_PACKAGE_NAME);
     }
 
+    @Test
+    public void getBatteryInformationBytes_legacyString_returnsDecodedBytes() {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder().setAppLabel("Settings").build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_BATTERY_INFORMATION,
+                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+
+        assertThat(ConvertUtils.getBatteryInformationBytes(
+                values, BatteryHistEntry.KEY_BATTERY_INFORMATION))
+                .isEqualTo(batteryInformation.toByteArray());
+    }
+
+    @Test
+    public void getBatteryInformation_fromBlobOrStringCursor_returnsSameInstance() {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder().setAppLabel("Settings").build();
+        final MatrixCursor cursor =
+                new MatrixCursor(new String[] {BatteryHistEntry.KEY_BATTERY_INFORMATION});
+        cursor.addRow(new Object[] {batteryInformation.toByteArray()});
+        cursor.addRow(new Object[] {
+                ConvertUtils.convertBatteryInformationToString(batteryInformation)});
+
+        cursor.moveToFirst();
+        assertThat(ConvertUtils.getBatteryInformation(
+                cursor, BatteryHistEntry.KEY_BATTERY_INFORMATION)).isEqualTo(batteryInformation);
+        cursor.moveToNext();
+        assertThat(ConvertUtils.getBatteryInformation(
+                cursor, BatteryHistEntry.KEY_BATTERY_INFORMATION)).isEqualTo(batteryInformation);
+    }
+
     @Test
     public void convertAppUsageEventToContentValues_returnsExpectedContentValues() {
         final AppUsageEvent appUsageEvent =
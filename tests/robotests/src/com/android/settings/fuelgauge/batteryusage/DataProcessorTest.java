@@ -54,6 +54,7 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -63,6 +64,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
+import java.util.stream.Collectors;
 
 @RunWith(RobolectricTestRunner.class)
 public final class DataProcessorTest {
@@ -369,6 +371,44 @@ public final class DataProcessorTest {
                 DataProcessor.CURRENT_TIME_BATTERY_HISTORY_PLACEHOLDER)).isTrue();
     }
 
+    @Test
+    public void getRawTimestampsForExpectedSlots_returnsTimestampsAroundSlots() {
+        // Timezone GMT+8
+        final long[] timestamps = {
+                1640966700000L, // 2022-01-01 00:05:00
+                1640967600000L, // 2022-01-01 00:20:00
+                1640968800000L, // 2022-01-01 00:40:00
+                1640970180000L, // 2022-01-01 01:03:00
+                1640971800000L, // 2022-01-01 01:30:00
+                1640973840000L, // 2022-01-01 02:04:00
+                1640976600000L  // 2022-01-01 02:50:00
+        };
+        final int[] levels = {100, 98, 96, 94, 92, 90, 88};
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+                createHistoryMap(timestamps, levels);
+        DataProcessor.sTestCurrentTimeMillis = timestamps[timestamps.length - 1];
+
+        final Set<Long> rawTimestamps = DataProcessor.getRawTimestampsForExpectedSlots(
+                Arrays.stream(timestamps).boxed().collect(Collectors.toList()));
+
+        assertThat(rawTimestamps).containsExactly(
+                1640966700000L, 1640968800000L, 1640970180000L, 1640971800000L,
+                1640973840000L, 1640976600000L);
+        // The dropped raw timestamps don't change the interpolated result.
+        final Map<Long, Map<String, BatteryHistEntry>> resultMap =
+                DataProcessor.getHistoryMapWithExpectedTimestamps(mContext, batteryHistoryMap);
+        batteryHistoryMap.keySet().retainAll(rawTimestamps);
+        final Map<Long, Map<String, BatteryHistEntry>> prunedResultMap =
+                DataProcessor.getHistoryMapWithExpectedTimestamps(mContext, batteryHistoryMap);
+        assertThat(prunedResultMap.keySet()).isEqualTo(resultMap.keySet());
+        for (long timestamp : resultMap.keySet()) {
+            for (String key : resultMap.get(timestamp).keySet()) {
+                assertThat(prunedResultMap.get(timestamp).get(key).mBatteryLevel)
+                        .isEqualTo(resultMap.get(timestamp).get(key).mBatteryLevel);
+            }
+        }
+    }
+
     @Test
     public void getLevelDataThroughProcessedHistoryMap_notEnoughData_returnNull() {
         final long[] timestamps = {100L};
@@ -1126,6 +1166,67 @@ public final class DataProcessorTest {
                 /*screenOnTimeInMs=*/ 9);
     }
 
+    @Test
+    public void getBatteryUsageMap_withSlotCache_returnsSameResultAsWithoutCache() {
+        final long[] batteryHistoryKeys = new long[]{
+                1641045600000L, // 2022-01-01 22:00:00
+                1641049200000L, // 2022-01-01 23:00:00
+                1641052800000L, // 2022-01-02 00:00:00
+                1641056400000L, // 2022-01-02 01:00:00
+        };
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new HashMap<>();
+        final int currentUserId = mContext.getUserId();
+        for (int index = 0; index < batteryHistoryKeys.length; index++) {
+            final Map<String, BatteryHistEntry> entryMap = new HashMap<>();
+            BatteryHistEntry entry = createBatteryHistEntry(
+                    "package1", "label1", /*consumePower=*/ 5.0 * index * index,
+                    /*foregroundUsageConsumePower=*/ 2 * index,
+                    /*foregroundServiceUsageConsumePower=*/ 0,
+                    /*backgroundUsageConsumePower=*/ 3 * index, /*cachedUsageConsumePower=*/ 0,
+                    /*uid=*/ 1L, currentUserId, ConvertUtils.CONSUMER_TYPE_UID_BATTERY,
+                    /*foregroundUsageTimeInMs=*/ 10L * index,
+                    /*backgroundUsageTimeInMs=*/ 20L * index, /*isHidden=*/ false);
+            entryMap.put(entry.getKey(), entry);
+            entry = createBatteryHistEntry(
+                    "package2", "Screen", /*consumePower=*/ 4.0 * index,
+                    /*foregroundUsageConsumePower=*/ index,
+                    /*foregroundServiceUsageConsumePower=*/ index,
+                    /*backgroundUsageConsumePower=*/ index, /*cachedUsageConsumePower=*/ index,
+                    /*uid=*/ 2L, currentUserId, ConvertUtils.CONSUMER_TYPE_SYSTEM_BATTERY,
+                    /*foregroundUsageTimeInMs=*/ 5L * index,
+                    /*backgroundUsageTimeInMs=*/ 5L * index, /*isHidden=*/ false);
+            entryMap.put(entry.getKey(), entry);
+            batteryHistoryMap.put(batteryHistoryKeys[index], entryMap);
+        }
+        final List<BatteryLevelData.PeriodBatteryLevelData> hourlyBatteryLevelsPerDay =
+                List.of(new BatteryLevelData.PeriodBatteryLevelData(
+                        Arrays.stream(batteryHistoryKeys).boxed().collect(Collectors.toList()),
+                        List.of(100, 99, 98, 97)));
+        final BatteryUsageSlotCache slotCache = new BatteryUsageSlotCache(
+                mContext, new File(mContext.getCacheDir(), "test_battery_usage_slots"));
+
+        final Map<Integer, Map<Integer, BatteryDiffData>> expectedMap =
+                DataProcessor.getBatteryUsageMap(mContext, hourlyBatteryLevelsPerDay,
+                        batteryHistoryMap, /*appUsagePeriodMap=*/ null);
+        final Map<Integer, Map<Integer, BatteryDiffData>> firstMap =
+                DataProcessor.getBatteryUsageMap(mContext, hourlyBatteryLevelsPerDay,
+                        batteryHistoryMap, /*appUsagePeriodMap=*/ null, slotCache);
+        // The closed slots are cached, the last one is still open.
+        assertThat(slotCache.size()).isEqualTo(2);
+        final Map<Integer, Map<Integer, BatteryDiffData>> cachedMap =
+                DataProcessor.getBatteryUsageMap(mContext, hourlyBatteryLevelsPerDay,
+                        batteryHistoryMap, /*appUsagePeriodMap=*/ null, slotCache);
+
+        assertThat(firstMap.get(0).keySet()).isEqualTo(expectedMap.get(0).keySet());
+        assertThat(cachedMap.get(0).keySet()).isEqualTo(expectedMap.get(0).keySet());
+        for (Integer hourlyIndex : expectedMap.get(0).keySet()) {
+            assertSameBatteryDiffData(
+                    firstMap.get(0).get(hourlyIndex), expectedMap.get(0).get(hourlyIndex));
+            assertSameBatteryDiffData(
+                    cachedMap.get(0).get(hourlyIndex), expectedMap.get(0).get(hourlyIndex));
+        }
+    }
+
     @Test
     public void getBatteryUsageMap_multipleUsers_returnsExpectedResult() {
         final long[] batteryHistoryKeys = new long[]{
@@ -2032,6 +2133,32 @@ public final class DataProcessorTest {
         assertThat(resultList).isEqualTo(expectedTimestamps);
     }
 
+    private static void assertSameBatteryDiffData(
+            final BatteryDiffData actual, final BatteryDiffData expected) {
+        assertThat(actual.getScreenOnTime()).isEqualTo(expected.getScreenOnTime());
+        assertSameBatteryDiffEntries(
+                actual.getAppDiffEntryList(), expected.getAppDiffEntryList());
+        assertSameBatteryDiffEntries(
+                actual.getSystemDiffEntryList(), expected.getSystemDiffEntryList());
+    }
+
+    private static void assertSameBatteryDiffEntries(
+            final List<BatteryDiffEntry> actual, final List<BatteryDiffEntry> expected) {
+        assertThat(actual).hasSize(expected.size());
+        for (int index = 0; index < expected.size(); index++) {
+            final BatteryDiffEntry actualEntry = actual.get(index);
+            final BatteryDiffEntry expectedEntry = expected.get(index);
+            assertThat(actualEntry.getKey()).isEqualTo(expectedEntry.getKey());
+            assertThat(actualEntry.mConsumePower).isEqualTo(expectedEntry.mConsumePower);
+            assertThat(actualEntry.getPercentage()).isEqualTo(expectedEntry.getPercentage());
+            assertThat(actualEntry.mForegroundUsageTimeInMs)
+                    .isEqualTo(expectedEntry.mForegroundUsageTimeInMs);
+            assertThat(actualEntry.mBackgroundUsageTimeInMs)
+                    .isEqualTo(expectedEntry.mBackgroundUsageTimeInMs);
+            assertThat(actualEntry.mScreenOnTimeInMs).isEqualTo(expectedEntry.mScreenOnTimeInMs);
+        }
+    }
+
     private static void assertBatteryDiffEntry(
             final BatteryDiffEntry entry, final long userId, final long uid,
             final int consumerType, final double consumePercentage,
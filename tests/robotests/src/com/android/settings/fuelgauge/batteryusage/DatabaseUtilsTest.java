@@ -34,6 +34,7 @@ import android.os.BatteryManager;
 import android.os.BatteryUsageStats;
 import android.os.UserHandle;
 import android.os.UserManager;
+import android.text.format.DateUtils;
 
 import com.android.settings.fuelgauge.batteryusage.db.AppUsageEventEntity;
 import com.android.settings.fuelgauge.batteryusage.db.BatteryEventEntity;
@@ -402,6 +403,36 @@ public final class DatabaseUtilsTest {
         assertThat(batteryMap.get("4").mPackageName).isEqualTo("app name4");
     }
 
+    @Test
+    public void getHistoryMapSinceLastFullCharge_dropsTimestampsNotAroundSlots() {
+        final long startTimestamp = 1640966400000L + 5 * DateUtils.MINUTE_IN_MILLIS;
+        final long droppedTimestamp = startTimestamp + 15 * DateUtils.MINUTE_IN_MILLIS;
+        final long lowerTimestamp = startTimestamp + 35 * DateUtils.MINUTE_IN_MILLIS;
+        final long upperTimestamp = startTimestamp + 58 * DateUtils.MINUTE_IN_MILLIS;
+        final MatrixCursor cursor = getMatrixCursor();
+        cursor.addRow(new Object[] {
+                "app name1", startTimestamp, 1, ConvertUtils.CONSUMER_TYPE_UID_BATTERY});
+        cursor.addRow(new Object[] {
+                "app name1", droppedTimestamp, 1, ConvertUtils.CONSUMER_TYPE_UID_BATTERY});
+        cursor.addRow(new Object[] {
+                "app name1", lowerTimestamp, 1, ConvertUtils.CONSUMER_TYPE_UID_BATTERY});
+        cursor.addRow(new Object[] {
+                "app name1", upperTimestamp, 1, ConvertUtils.CONSUMER_TYPE_UID_BATTERY});
+        DatabaseUtils.sFakeSupplier = () -> cursor;
+        DataProcessor.sTestCurrentTimeMillis = upperTimestamp;
+
+        try {
+            final Map<Long, Map<String, BatteryHistEntry>> batteryHistMap =
+                    DatabaseUtils.getHistoryMapSinceLastFullCharge(
+                            mContext, /*calendar=*/ null);
+
+            assertThat(batteryHistMap.keySet())
+                    .containsExactly(startTimestamp, lowerTimestamp, upperTimestamp);
+        } finally {
+            DataProcessor.sTestCurrentTimeMillis = 0;
+        }
+    }
+
     @Test
     public void getHistoryMapSinceLastFullCharge_withWorkProfile_returnExpectedMap()
             throws PackageManager.NameNotFoundException {
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage.db;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.fuelgauge.batteryusage.BatteryInformation;
+import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/** Tests for {@link BatteryStateDatabase}. */
+@RunWith(RobolectricTestRunner.class)
+public final class BatteryStateDatabaseTest {
+
+    private SupportSQLiteOpenHelper mOpenHelper;
+    private SupportSQLiteDatabase mDatabase;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        mOpenHelper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(context)
+                        .name(null)
+                        .callback(new SupportSQLiteOpenHelper.Callback(/*version=*/ 1) {
+                            @Override
+                            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                db.execSQL("CREATE TABLE IF NOT EXISTS `BatteryState` ("
+                                        + "`mId` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                                        + "`uid` INTEGER NOT NULL, `userId` INTEGER NOT NULL, "
+                                        + "`packageName` TEXT, `timestamp` INTEGER NOT NULL, "
+                                        + "`consumerType` INTEGER NOT NULL, "
+                                        + "`isFullChargeCycleStart` INTEGER NOT NULL, "
+                                        + "`batteryInformation` TEXT, "
+                                        + "`batteryInformationDebug` TEXT)");
+                            }
+
+                            @Override
+                            public void onUpgrade(@NonNull SupportSQLiteDatabase db,
+                                    int oldVersion, int newVersion) {
+                            }
+                        })
+                        .build());
+        mDatabase = mOpenHelper.getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        mOpenHelper.close();
+    }
+
+    @Test
+    public void migrate1To2_convertsBatteryInformationIntoBytes() {
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setAppLabel("Settings")
+                        .setConsumePower(0.3)
+                        .build();
+        mDatabase.execSQL("INSERT INTO `BatteryState` VALUES "
+                + "(5, 1001, 100, 'com.android.settings', 10001, 2, 1, '"
+                + ConvertUtils.convertBatteryInformationToString(batteryInformation)
+                + "', 'debug')");
+
+        BatteryStateDatabase.MIGRATION_1_2.migrate(mDatabase);
+
+        try (Cursor cursor = mDatabase.query("SELECT * FROM `BatteryState`")) {
+            assertThat(cursor.getCount()).isEqualTo(1);
+            cursor.moveToFirst();
+            final int columnIndex = cursor.getColumnIndex("batteryInformation");
+            assertThat(cursor.getType(columnIndex)).isEqualTo(Cursor.FIELD_TYPE_BLOB);
+            assertThat(cursor.getBlob(columnIndex)).isEqualTo(batteryInformation.toByteArray());
+            assertThat(cursor.getLong(cursor.getColumnIndex("mId"))).isEqualTo(5L);
+            assertThat(cursor.getString(cursor.getColumnIndex("packageName")))
+                    .isEqualTo("com.android.settings");
+            assertThat(cursor.getInt(cursor.getColumnIndex("isFullChargeCycleStart")))
+                    .isEqualTo(1);
+            assertThat(cursor.getString(cursor.getColumnIndex("batteryInformationDebug")))
+                    .isEqualTo("debug");
+        }
+    }
+}
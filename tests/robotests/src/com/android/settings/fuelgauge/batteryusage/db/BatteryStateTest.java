@@ -21,7 +21,6 @@ import static com.google.common.truth.Truth.assertThat;
 import android.os.BatteryManager;
 
 import com.android.settings.fuelgauge.batteryusage.BatteryInformation;
-import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
 import com.android.settings.fuelgauge.batteryusage.DeviceBatteryState;
 
 import org.junit.Before;
@@ -78,8 +77,7 @@ public final class BatteryStateTest {
         assertThat(state.timestamp).isEqualTo(100001L);
         assertThat(state.consumerType).isEqualTo(2);
         assertThat(state.isFullChargeCycleStart).isTrue();
-        assertThat(state.batteryInformation).isEqualTo(
-                ConvertUtils.convertBatteryInformationToString(mBatteryInformation));
+        assertThat(state.batteryInformation).isEqualTo(mBatteryInformation.toByteArray());
     }
 
     private static BatteryState create(BatteryInformation batteryInformation) {
@@ -90,8 +88,7 @@ public final class BatteryStateTest {
                 .setTimestamp(100001L)
                 .setConsumerType(2)
                 .setIsFullChargeCycleStart(true)
-                .setBatteryInformation(
-                        ConvertUtils.convertBatteryInformationToString(batteryInformation))
+                .setBatteryInformation(batteryInformation.toByteArray())
                 .build();
     }
 }
@@ -24,10 +24,14 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import android.app.settings.SettingsEnums;
 import android.content.Context;
@@ -137,6 +141,58 @@ public class ContextualCardLoaderTest {
                 eq(SettingsEnums.ACTION_CONTEXTUAL_CARD_NOT_SHOW), any(String.class));
     }
 
+    @Test
+    public void filterEligibleCards_loadedTwice_shouldReuseVerdicts() {
+        final List<ContextualCard> cards = getContextualCardList().stream().limit(2)
+                .collect(Collectors.toList());
+        mockCheckers(cards.get(1) /* ineligibleCard */);
+
+        mContextualCardLoader.filterEligibleCards(cards);
+        final List<ContextualCard> result = mContextualCardLoader.filterEligibleCards(cards);
+
+        assertThat(result).containsExactly(cards.get(0));
+        verify(mContextualCardLoader, times(1)).createEligibleCardChecker(cards.get(0));
+        verify(mContextualCardLoader, times(1)).createEligibleCardChecker(cards.get(1));
+    }
+
+    @Test
+    public void filterEligibleCards_someVerdictsReused_shouldKeepCandidateOrder() {
+        final List<ContextualCard> cards = getContextualCardList().stream().limit(3)
+                .collect(Collectors.toList());
+        mockCheckers(null /* ineligibleCard */);
+
+        mContextualCardLoader.filterEligibleCards(List.of(cards.get(1)));
+        final List<ContextualCard> result = mContextualCardLoader.filterEligibleCards(cards);
+
+        assertThat(result).containsExactlyElementsIn(cards).inOrder();
+        verify(mContextualCardLoader, times(1)).createEligibleCardChecker(cards.get(1));
+    }
+
+    @Test
+    public void filterEligibleCards_eligibleCardChanged_shouldReturnCurrentCard() {
+        final ContextualCard card = getContextualCardList().get(0);
+        final ContextualCard changedCard = card.mutate().setSummaryText("new summary").build();
+        mockCheckers(null /* ineligibleCard */);
+
+        mContextualCardLoader.filterEligibleCards(List.of(card));
+        final List<ContextualCard> result =
+                mContextualCardLoader.filterEligibleCards(List.of(changedCard));
+
+        assertThat(result).containsExactly(changedCard);
+    }
+
+    @Test
+    public void filterEligibleCards_verdictsCleared_shouldCheckAgain() {
+        final ContextualCard card = getContextualCardList().get(0);
+        mockCheckers(card /* ineligibleCard */);
+
+        mContextualCardLoader.filterEligibleCards(List.of(card));
+        mContextualCardLoader.clearCardVerdicts();
+        mContextualCardLoader.filterEligibleCards(List.of(card));
+
+        verify(mContextualCardLoader, times(2)).createEligibleCardChecker(any());
+    }
+
     @Test
     public void getCardCount_noConfiguredCardCount_returnDefaultCardCount() {
         assertThat(mContextualCardLoader.getCardCount()).isEqualTo(DEFAULT_CARD_COUNT);
@@ -151,6 +207,15 @@ public class ContextualCardLoaderTest {
         assertThat(mContextualCardLoader.getCardCount()).isEqualTo(configCount);
     }
 
+    private void mockCheckers(ContextualCard ineligibleCard) {
+        doAnswer(invocation -> {
+            final ContextualCard card = invocation.getArgument(0);
+            final EligibleCardChecker checker = mock(EligibleCardChecker.class);
+            when(checker.call()).thenReturn(card == ineligibleCard ? null : card);
+            return checker;
+        }).when(mContextualCardLoader).createEligibleCardChecker(any());
+    }
+
     private List<ContextualCard> getContextualCardList() {
         final List<ContextualCard> cards = new ArrayList<>();
         cards.add(new ContextualCard.Builder()
@@ -79,6 +79,7 @@ import com.android.settingslib.utils.StringUtil;
 import com.android.settingslib.widget.FooterPreference;
 import com.android.settingslib.widget.LayoutPreference;
 import com.android.wifitrackerlib.WifiEntry;
+import com.android.wifitrackerlib.WifiEntryListDiff;
 import com.android.wifitrackerlib.WifiPickerTracker;
 
 import org.junit.Before;
@@ -400,6 +401,64 @@ public class NetworkProviderSettingsTest {
         verify(mNetworkProviderSettings).changeNextButtonState(anyBoolean());
     }
 
+    @Test
+    public void onWifiEntriesChanged_emptyDiff_shouldOnlyUpdateStaleList() {
+        final WifiEntryListDiff diff = mock(WifiEntryListDiff.class);
+        when(diff.isEmpty()).thenReturn(true);
+
+        mNetworkProviderSettings.onWifiEntriesChanged(diff);
+        mNetworkProviderSettings.onWifiEntriesChanged(diff);
+
+        verify(mNetworkProviderSettings, times(1)).updateWifiEntryPreferences();
+        verify(mNetworkProviderSettings, times(2)).changeNextButtonState(anyBoolean());
+    }
+
+    @Test
+    public void onWifiEntriesChanged_entryRemoved_removesPreferenceWithoutRebuild() {
+        final WifiEntry removedEntry = mockWifiEntry("removed");
+        final WifiEntry keptEntry = mockWifiEntry("kept");
+        final PreferenceCategory category = setUpWifiEntryPreferences(removedEntry, keptEntry);
+        final WifiEntryListDiff diff = mockWifiEntryListDiff(List.of(keptEntry),
+                List.of() /* added */, List.of(removedEntry), List.of() /* moved */);
+
+        mNetworkProviderSettings.onWifiEntriesChanged(diff);
+
+        assertThat((Preference) category.findPreference("removed")).isNull();
+        assertThat((Preference) category.findPreference("kept")).isNotNull();
+        // No delayed rebuild of the whole list.
+        verify(mNetworkProviderSettings, never()).setProgressBarVisible(true);
+    }
+
+    @Test
+    public void onWifiEntriesChanged_entryAddedAndMoved_updatesOrderWithoutRebuild() {
+        final WifiEntry firstEntry = mockWifiEntry("first");
+        final WifiEntry secondEntry = mockWifiEntry("second");
+        final WifiEntry addedEntry = mockWifiEntry("added");
+        final PreferenceCategory category = setUpWifiEntryPreferences(firstEntry, secondEntry);
+        final WifiEntryListDiff diff = mockWifiEntryListDiff(
+                List.of(addedEntry, secondEntry, firstEntry), List.of(addedEntry),
+                List.of() /* removed */, List.of(secondEntry));
+
+        mNetworkProviderSettings.onWifiEntriesChanged(diff);
+
+        final LongPressWifiEntryPreference addedPref = category.findPreference("added");
+        assertThat(addedPref.getWifiEntry()).isSameInstanceAs(addedEntry);
+        assertThat(addedPref.getOrder()).isEqualTo(0);
+        assertThat(category.findPreference("second").getOrder()).isEqualTo(1);
+        assertThat(category.findPreference("first").getOrder()).isEqualTo(2);
+        assertThat(mNetworkProviderSettings.mAddWifiNetworkPreference.getOrder()).isEqualTo(3);
+        verify(mNetworkProviderSettings, never()).setProgressBarVisible(true);
+    }
+
+    @Test
+    public void onWifiEntriesChanged_activeEntriesChanged_rebuildsList() {
+        setUpWifiEntryPreferences(mockWifiEntry("first"));
+        final WifiEntryListDiff diff = mock(WifiEntryListDiff.class);
+        when(diff.isActiveWifiEntriesChanged()).thenReturn(true);
+
+        assertThat(mNetworkProviderSettings.applyWifiEntryListDiff(diff)).isFalse();
+    }
+
     @Test
     public void openSubscriptionHelpPage_shouldCallStartActivityForResult() {
         doReturn(new Intent()).when(mNetworkProviderSettings).getHelpIntent(mContext,
@@ -805,6 +864,47 @@ public class NetworkProviderSettingsTest {
         verify(mWifiEntry, never()).getKey();
     }
 
+    private WifiEntry mockWifiEntry(String key) {
+        final WifiEntry wifiEntry = mock(WifiEntry.class);
+        when(wifiEntry.getKey()).thenReturn(key);
+        when(wifiEntry.getTitle()).thenReturn(key);
+        return wifiEntry;
+    }
+
+    private WifiEntryListDiff mockWifiEntryListDiff(List<WifiEntry> wifiEntries,
+            List<WifiEntry> addedEntries, List<WifiEntry> removedEntries,
+            List<WifiEntry> movedEntries) {
+        final WifiEntryListDiff diff = mock(WifiEntryListDiff.class);
+        when(diff.getWifiEntries()).thenReturn(wifiEntries);
+        when(diff.getAddedEntries()).thenReturn(addedEntries);
+        when(diff.getRemovedEntries()).thenReturn(removedEntries);
+        when(diff.getMovedEntries()).thenReturn(movedEntries);
+        return diff;
+    }
+
+    /** Shows the preferences of {@param wifiEntries} as built by the first full update. */
+    private PreferenceCategory setUpWifiEntryPreferences(WifiEntry... wifiEntries) {
+        final PreferenceScreen screen =
+                new PreferenceManager(mContext).createPreferenceScreen(mContext);
+        final PreferenceCategory category = new PreferenceCategory(mContext);
+        screen.addPreference(category);
+        for (int i = 0; i < wifiEntries.length; i++) {
+            final LongPressWifiEntryPreference pref =
+                    mNetworkProviderSettings.createLongPressWifiEntryPreference(wifiEntries[i]);
+            pref.setKey(wifiEntries[i].getKey());
+            pref.setOrder(i);
+            category.addPreference(pref);
+        }
+        mNetworkProviderSettings.mWifiEntryPreferenceCategory = category;
+        doReturn(mock(FragmentActivity.class)).when(mNetworkProviderSettings).getActivity();
+        doReturn(mock(View.class)).when(mNetworkProviderSettings).getView();
+        when(mMockWifiPickerTracker.getWifiState()).thenReturn(WifiManager.WIFI_STATE_ENABLED);
+        doNothing().when(mNetworkProviderSettings).updateWifiEntryPreferences();
+        // The first callback builds the whole list.
+        mNetworkProviderSettings.onWifiEntriesChanged();
+        return category;
+    }
+
     @Implements(PreferenceFragmentCompat.class)
     public static class ShadowPreferenceFragmentCompat {
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.provider.Settings;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class NonIndexableKeysCacheTest {
+
+    private static final String PAGE = "com.example.Page";
+    private static final String OTHER_PAGE = "com.example.OtherPage";
+    private static final int USER_ID = 0;
+
+    private Context mContext;
+    private NonIndexableKeysCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCache = new NonIndexableKeysCache(mContext);
+        mCache.startListening();
+    }
+
+    @Test
+    public void get_afterPut_returnsKeysForSamePageAndUserOnly() {
+        mCache.put(PAGE, USER_ID, Arrays.asList("key1", "key2"), 5L, mCache.getGeneration(PAGE));
+
+        assertThat(mCache.get(PAGE, USER_ID)).containsExactly("key1", "key2").inOrder();
+        assertThat(mCache.get(PAGE, USER_ID + 1)).isNull();
+        assertThat(mCache.get(OTHER_PAGE, USER_ID)).isNull();
+    }
+
+    @Test
+    public void get_afterPackageChanged_returnsNull() {
+        mCache.put(PAGE, USER_ID, Arrays.asList("key"), 5L, mCache.getGeneration(PAGE));
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_PACKAGE_ADDED)
+                .setData(Uri.parse("package:com.example")));
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mCache.get(PAGE, USER_ID)).isNull();
+    }
+
+    @Test
+    public void get_afterDeclaredBroadcast_returnsNullForDeclaringPageOnly() {
+        mCache.watch(PAGE, new NonIndexableKeysSignals.Builder()
+                .addBroadcastAction(Intent.ACTION_AIRPLANE_MODE_CHANGED)
+                .build());
+        mCache.watch(OTHER_PAGE, NonIndexableKeysSignals.NONE);
+        mCache.put(PAGE, USER_ID, Arrays.asList("key"), 5L, mCache.getGeneration(PAGE));
+        mCache.put(OTHER_PAGE, USER_ID, Arrays.asList("key"), 5L, mCache.getGeneration(OTHER_PAGE));
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_AIRPLANE_MODE_CHANGED));
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mCache.get(PAGE, USER_ID)).isNull();
+        assertThat(mCache.get(OTHER_PAGE, USER_ID)).containsExactly("key");
+    }
+
+    @Test
+    public void get_afterDeclaredSettingChanged_returnsNullForDeclaringPageOnly() {
+        final Uri uri = Settings.Global.getUriFor(Settings.Global.AIRPLANE_MODE_ON);
+        mCache.watch(PAGE, new NonIndexableKeysSignals.Builder().addUri(uri).build());
+        mCache.watch(OTHER_PAGE, new NonIndexableKeysSignals.Builder()
+                .addUri(Settings.System.CONTENT_URI)
+                .build());
+        mCache.put(PAGE, USER_ID, Arrays.asList("key"), 5L, mCache.getGeneration(PAGE));
+        mCache.put(OTHER_PAGE, USER_ID, Arrays.asList("key"), 5L, mCache.getGeneration(OTHER_PAGE));
+
+        mContext.getContentResolver().notifyChange(uri, null /* observer */);
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mCache.get(PAGE, USER_ID)).isNull();
+        assertThat(mCache.get(OTHER_PAGE, USER_ID)).containsExactly("key");
+    }
+
+    @Test
+    public void put_afterInvalidation_doesNotCache() {
+        final long generation = mCache.getGeneration(PAGE);
+        mCache.invalidate();
+
+        mCache.put(PAGE, USER_ID, Arrays.asList("key"), 5L, generation);
+
+        assertThat(mCache.get(PAGE, USER_ID)).isNull();
+    }
+
+    @Test
+    public void put_afterOtherPageInvalidated_caches() {
+        final long generation = mCache.getGeneration(PAGE);
+        mCache.invalidate(Collections.singleton(OTHER_PAGE));
+
+        mCache.put(PAGE, USER_ID, Arrays.asList("key"), 5L, generation);
+
+        assertThat(mCache.get(PAGE, USER_ID)).containsExactly("key");
+    }
+
+    @Test
+    public void put_afterPageInvalidated_doesNotCache() {
+        final long generation = mCache.getGeneration(PAGE);
+        mCache.invalidate(Collections.singleton(PAGE));
+
+        mCache.put(PAGE, USER_ID, Arrays.asList("key"), 5L, generation);
+
+        assertThat(mCache.get(PAGE, USER_ID)).isNull();
+    }
+
+    @Test
+    public void get_afterMaxAge_returnsNull() {
+        mCache.put(PAGE, USER_ID, Arrays.asList("key"), 5L, mCache.getGeneration(PAGE));
+
+        ShadowLooper.idleMainLooper(
+                NonIndexableKeysCache.MAX_AGE_MILLIS + 1, TimeUnit.MILLISECONDS);
+
+        assertThat(mCache.get(PAGE, USER_ID)).isNull();
+    }
+}
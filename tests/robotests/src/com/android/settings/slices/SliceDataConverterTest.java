@@ -35,6 +35,7 @@ import com.android.settings.accessibility.AccessibilitySettings;
 import com.android.settings.accessibility.AccessibilitySlicePreferenceController;
 import com.android.settings.search.SearchFeatureProvider;
 import com.android.settings.search.SearchFeatureProviderImpl;
+import com.android.settings.slices.SliceDataConverter.SliceSource;
 import com.android.settings.testutils.FakeFeatureFactory;
 import com.android.settings.testutils.FakeIndexProvider;
 import com.android.settingslib.search.SearchIndexableData;
@@ -49,6 +50,7 @@ import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
@@ -116,6 +118,37 @@ public class SliceDataConverterTest {
         }
     }
 
+    @Test
+    public void getSliceDataFromSources_parallel_keepsSourceOrder() {
+        final List<SliceSource> sources = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            final SliceSource source = new SliceSource(FAKE_FRAGMENT_CLASSNAME, i);
+            doReturn(Collections.singletonList(getSliceData(FAKE_KEY + i)))
+                    .when(mSliceDataConverter).getSliceDataFromSource(source);
+            sources.add(source);
+        }
+
+        final List<List<SliceData>> serialData =
+                mSliceDataConverter.getSliceDataFromSources(sources, 1 /* parallelism */);
+        final List<List<SliceData>> parallelData =
+                mSliceDataConverter.getSliceDataFromSources(sources, 4 /* parallelism */);
+
+        assertThat(parallelData).hasSize(sources.size());
+        assertThat(parallelData).containsExactlyElementsIn(serialData).inOrder();
+        for (int i = 0; i < sources.size(); i++) {
+            assertThat(parallelData.get(i).get(0).getKey()).isEqualTo(FAKE_KEY + (i + 1));
+        }
+    }
+
+    private SliceData getSliceData(String key) {
+        return new SliceData.Builder()
+                .setKey(key)
+                .setTitle(FAKE_TITLE)
+                .setFragmentName(FAKE_FRAGMENT_CLASSNAME)
+                .setPreferenceControllerClassName(FAKE_CONTROLLER_NAME)
+                .build();
+    }
+
     private void assertFakeSlice(SliceData fakeSlice) {
         assertThat(fakeSlice.getKey()).isEqualTo(FAKE_KEY);
         assertThat(fakeSlice.getTitle()).isEqualTo(FAKE_TITLE);
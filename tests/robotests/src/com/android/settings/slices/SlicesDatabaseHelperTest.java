@@ -132,6 +132,70 @@ public class SlicesDatabaseHelperTest {
         assertThat(mSlicesDatabaseHelper.isSliceDataIndexed()).isFalse();
     }
 
+    @Test
+    public void getCachedSliceData_indexVerified_returnsCachedData() {
+        final SliceData data = getMockSliceData();
+        mSlicesDatabaseHelper.setIndexedState();
+
+        mSlicesDatabaseHelper.putCachedSliceData(data,
+                mSlicesDatabaseHelper.getCacheGeneration());
+
+        assertThat(mSlicesDatabaseHelper.isSliceDataIndexVerified()).isTrue();
+        assertThat(mSlicesDatabaseHelper.getCachedSliceData(data.getKey())).isSameInstanceAs(data);
+    }
+
+    @Test
+    public void getCachedSliceData_afterReconstruct_returnsNull() {
+        final SliceData data = getMockSliceData();
+        mSlicesDatabaseHelper.setIndexedState();
+        mSlicesDatabaseHelper.putCachedSliceData(data,
+                mSlicesDatabaseHelper.getCacheGeneration());
+
+        mSlicesDatabaseHelper.reconstruct(mDatabase);
+
+        assertThat(mSlicesDatabaseHelper.isSliceDataIndexVerified()).isFalse();
+        assertThat(mSlicesDatabaseHelper.getCachedSliceData(data.getKey())).isNull();
+    }
+
+    @Test
+    public void getCachedSliceData_localeChanged_returnsNull() {
+        final Locale locale = Locale.getDefault();
+        final SliceData data = getMockSliceData();
+        mSlicesDatabaseHelper.setIndexedState();
+        mSlicesDatabaseHelper.putCachedSliceData(data,
+                mSlicesDatabaseHelper.getCacheGeneration());
+
+        try {
+            Locale.setDefault(new Locale("ca"));
+
+            assertThat(mSlicesDatabaseHelper.isSliceDataIndexVerified()).isFalse();
+            assertThat(mSlicesDatabaseHelper.getCachedSliceData(data.getKey())).isNull();
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void putCachedSliceData_indexReplacedSinceRead_isNotCached() {
+        final SliceData data = getMockSliceData();
+        mSlicesDatabaseHelper.setIndexedState();
+        final int cacheGeneration = mSlicesDatabaseHelper.getCacheGeneration();
+
+        mSlicesDatabaseHelper.setIndexedState();
+        mSlicesDatabaseHelper.putCachedSliceData(data, cacheGeneration);
+
+        assertThat(mSlicesDatabaseHelper.getCachedSliceData(data.getKey())).isNull();
+    }
+
+    private SliceData getMockSliceData() {
+        return new SliceData.Builder()
+                .setKey("key")
+                .setTitle("title")
+                .setFragmentName("fragmentClassName")
+                .setPreferenceControllerClassName("preferenceController")
+                .build();
+    }
+
     private ContentValues getMockRow() {
         final ContentValues values = new ContentValues();
         values.put(IndexColumns.KEY, "key");
@@ -18,8 +18,14 @@ package com.android.settings.slices;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import android.content.ContentValues;
 import android.content.Context;
@@ -27,6 +33,7 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 
+import com.android.settings.slices.SliceDataConverter.SliceSource;
 import com.android.settings.slices.SlicesDatabaseHelper.IndexColumns;
 import com.android.settings.testutils.DatabaseTestUtils;
 
@@ -39,6 +46,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
@@ -56,6 +64,7 @@ public class SlicesIndexerTest {
     private static final int SLICE_TYPE = SliceData.SliceType.SLIDER;
     private static final String UNAVAILABLE_SLICE_SUBTITLE = "subtitleOfUnavailableSlice";
     private static final int HIGHLIGHT_MENU_KEY = 5678; // I declare a thumb war
+    private static final SliceSource SOURCE = new SliceSource(FRAGMENT_NAME, 42);
 
     private Context mContext;
 
@@ -205,6 +214,60 @@ public class SlicesIndexerTest {
         }
     }
 
+    @Test
+    public void indexSliceData_indexedStateCleared_everySourceIndexedAgain() {
+        final SliceDataConverter converter = mockConverter(SOURCE);
+        doReturn(converter).when(mManager).getSliceDataConverter();
+
+        mManager.run();
+        clearIndexedState();
+        mManager.run();
+
+        verify(converter, times(2)).getSliceDataFromSource(SOURCE);
+        assertThat(getIndexedKeys()).containsExactly(KEYS[0], KEYS[1], KEYS[2]);
+    }
+
+    @Test
+    public void indexSliceData_sourceRemoved_rowsDeleted() {
+        doReturn(mockConverter(SOURCE)).when(mManager).getSliceDataConverter();
+        mManager.run();
+
+        clearIndexedState();
+        doReturn(mockConverter()).when(mManager).getSliceDataConverter();
+        mManager.run();
+
+        assertThat(getIndexedKeys()).isEmpty();
+    }
+
+    private SliceDataConverter mockConverter(SliceSource... sources) {
+        final SliceDataConverter converter = mock(SliceDataConverter.class);
+        doReturn(Arrays.asList(sources)).when(converter).getSliceSources();
+        doReturn(new ArrayList<SliceData>()).when(converter).getAccessibilitySliceData();
+        doCallRealMethod().when(converter).getSliceDataFromSources(anyList(), anyInt());
+        for (SliceSource source : sources) {
+            doReturn(getMockIndexableData(false)).when(converter).getSliceDataFromSource(source);
+        }
+        return converter;
+    }
+
+    private void clearIndexedState() {
+        mContext.getSharedPreferences("slices_shared_prefs", Context.MODE_PRIVATE)
+                .edit()
+                .clear()
+                .commit();
+    }
+
+    private List<String> getIndexedKeys() {
+        final List<String> keys = new ArrayList<>();
+        final SQLiteDatabase db = SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT key FROM slices_index", null)) {
+            while (cursor.moveToNext()) {
+                keys.add(cursor.getString(0));
+            }
+        }
+        return keys;
+    }
+
     private void insertSpecialCase(String key, String title) {
         final ContentValues values = new ContentValues();
         values.put(IndexColumns.KEY, key);
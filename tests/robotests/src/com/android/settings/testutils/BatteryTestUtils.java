@@ -28,7 +28,6 @@ import android.os.UserManager;
 import androidx.room.Room;
 
 import com.android.settings.fuelgauge.batteryusage.BatteryInformation;
-import com.android.settings.fuelgauge.batteryusage.ConvertUtils;
 import com.android.settings.fuelgauge.batteryusage.DeviceBatteryState;
 import com.android.settings.fuelgauge.batteryusage.db.AppUsageEventDao;
 import com.android.settings.fuelgauge.batteryusage.db.AppUsageEventEntity;
@@ -131,7 +130,7 @@ public class BatteryTestUtils {
                         timestamp,
                         /*consumerType=*/ 2,
                         isFullChargeStart,
-                        ConvertUtils.convertBatteryInformationToString(batteryInformation),
+                        batteryInformation.toByteArray(),
                         "");
         BatteryStateDao dao =
                 BatteryStateDatabase.getInstance(context).batteryStateDao();
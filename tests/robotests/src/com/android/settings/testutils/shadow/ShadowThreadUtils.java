@@ -38,6 +38,11 @@ public class ShadowThreadUtils {
         runnable.run();
     }
 
+    @Implementation
+    protected static void postOnBackgroundThread(Runnable runnable, int priority) {
+        runnable.run();
+    }
+
     @Implementation
     protected static void postOnMainThread(Runnable runnable) {
         runnable.run();